@@ -0,0 +1,22 @@
+package gr.imsi.athenarc.xtremexpvisapi.config;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DataEngineConfig {
+
+    /**
+     * Pool for CPU-bound dataset work (parsing, scanning) so it does not compete
+     * with the common pool used by the rest of the application.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool dataEnginePool(DataEngineProperties dataEngineProperties) {
+        int parallelism = dataEngineProperties.getParallelism() > 0
+                ? dataEngineProperties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(parallelism);
+    }
+}
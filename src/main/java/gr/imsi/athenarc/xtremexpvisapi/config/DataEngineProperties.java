@@ -0,0 +1,49 @@
+package gr.imsi.athenarc.xtremexpvisapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "app.data")
+public class DataEngineProperties {
+    // Estimated heap budget for parsed tables kept by the table cache
+    private DataSize cacheSize = DataSize.ofGigabytes(2);
+    // Write a binary columnar snapshot next to each parsed CSV and reload from it
+    private boolean snapshotEnabled = true;
+    // Worker threads for parallel parsing and scanning; 0 uses one per available core
+    private int parallelism = 0;
+    // CSV files at least this large are split into chunks and parsed in parallel
+    private DataSize parallelParseThreshold = DataSize.ofMegabytes(64);
+    // Uncached CSV files at least this large are read per request, keeping only the columns and rows it touches
+    private DataSize projectedLoadThreshold = DataSize.ofMegabytes(256);
+    // Keep cached tables in memory-mapped buffers outside the heap instead of in the table cache
+    private boolean offHeapEnabled = false;
+    // Budget for off-heap tables, independent of -Xmx and -XX:MaxDirectMemorySize
+    private DataSize offHeapCacheSize = DataSize.ofGigabytes(8);
+    // Directory of the (unlinked) files backing off-heap tables; empty uses java.io.tmpdir
+    private String offHeapDirectory = "";
+    // Preload datasets in the background at startup
+    private boolean warmupEnabled = true;
+    // File listing the dataset IDs to preload, one per line; empty uses the most accessed datasets of previous runs
+    private String warmupManifest = "";
+    // How many of the most accessed datasets to preload when there is no manifest
+    private int warmupTopDatasets = 10;
+    // Datasets loaded concurrently during warm-up
+    private int warmupParallelism = 2;
+    // Answer filters on cached tables from lazily built column indexes
+    private boolean indexEnabled = true;
+    // Cached tables with fewer rows are always scanned, as an index would not pay off
+    private int indexMinRows = 100_000;
+    // String columns with more distinct values than this get no bitmap index
+    private int bitmapIndexMaxCardinality = 10_000;
+    // Filters on at least this many rows are evaluated over row partitions in parallel
+    private int parallelFilterMinRows = 1_000_000;
+    // Tables with at least this many rows are aggregated in parallel chunks
+    private int parallelAggregationMinRows = 100_000;
+    // Budget for serialized responses of repeated tabular and time series queries; 0 disables the cache
+    private DataSize resultCacheSize = DataSize.ofMegabytes(256);
+}
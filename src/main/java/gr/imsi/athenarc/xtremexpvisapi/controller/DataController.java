@@ -8,6 +8,7 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,12 +25,17 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.InvalidProtocolBufferException;
 
+import gr.imsi.athenarc.xtremexpvisapi.datasource.cache.QueryResultCacheStats;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.cache.TableCacheStats;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.IndexStats;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.warmup.WarmupStatus;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Metadata.MetadataRequest;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Metadata.MetadataResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramRequest;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularRequest;
-import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularResponse;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesRequest;
-import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesResponse;
 import gr.imsi.athenarc.xtremexpvisapi.domain.experiment.DataAsset;
 import gr.imsi.athenarc.xtremexpvisapi.service.DataService;
 import jakarta.validation.Valid;
@@ -53,24 +59,65 @@ public class DataController {
         return dataService.getUmap(data);
     }
 
-    @PostMapping("/timeseries")
-    public TimeSeriesResponse getTimeSeriesData(@Valid @RequestBody TimeSeriesRequest timeSeriesRequest) {
+    // Responses are serialized by the query result cache and returned as is
+    @PostMapping(value = "/timeseries", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getTimeSeriesData(@Valid @RequestBody TimeSeriesRequest timeSeriesRequest) {
         LOG.info("Request for time series data {}", timeSeriesRequest);    
         return dataService.getTimeSeriesData(timeSeriesRequest);
     }
    
-    @PostMapping("/tabular")
-    public TabularResponse tabulardata(@Valid @RequestBody TabularRequest tabularRequest) {
+    @PostMapping(value = "/tabular", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] tabulardata(@Valid @RequestBody TabularRequest tabularRequest) {
         LOG.info("Request for tabular data {}", tabularRequest);
         return dataService.getTabularData(tabularRequest);
     }
 
+    @PostMapping(value = "/crossfilter", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getCrossfilterData(@Valid @RequestBody CrossfilterRequest crossfilterRequest) {
+        LOG.info("Request for crossfilter data {}", crossfilterRequest);
+        return dataService.getCrossfilterData(crossfilterRequest);
+    }
+
+    @PostMapping(value = "/histogram", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getHistogramData(@Valid @RequestBody HistogramRequest histogramRequest) {
+        LOG.info("Request for histogram data {}", histogramRequest);
+        return dataService.getHistogramData(histogramRequest);
+    }
+
+    @PostMapping(value = "/heatmap", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getHeatmapData(@Valid @RequestBody HeatmapRequest heatmapRequest) {
+        LOG.info("Request for heatmap data {}", heatmapRequest);
+        return dataService.getHeatmapData(heatmapRequest);
+    }
+
     @PostMapping("/metadata")
     public MetadataResponse getFileMetadata(@RequestBody MetadataRequest metadataRequest) {
         LOG.info("Getting metadata for file {}", metadataRequest.getDatasetId());
         return dataService.getFileMetadata(metadataRequest);
     }
 
+    @GetMapping("/cache/stats")
+    public TableCacheStats getTableCacheStats() {
+        return dataService.getTableCacheStats();
+    }
+
+    @GetMapping("/cache/results/stats")
+    public QueryResultCacheStats getQueryResultCacheStats() {
+        return dataService.getQueryResultCacheStats();
+    }
+
+    @GetMapping("/index/stats")
+    public IndexStats getIndexStats() {
+        return dataService.getIndexStats();
+    }
+
+    // Readiness probe: 503 while startup warm-up is still loading datasets
+    @GetMapping("/warmup")
+    public ResponseEntity<WarmupStatus> getWarmupStatus() {
+        WarmupStatus status = dataService.getWarmupStatus();
+        return ResponseEntity.status(status.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(status);
+    }
+
    @GetMapping("/catalog-assets")
 public ResponseEntity<List<DataAsset>> fetchRemoteAssets(
         @RequestParam(defaultValue = "1") int page,
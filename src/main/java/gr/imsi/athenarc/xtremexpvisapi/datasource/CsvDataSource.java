@@ -7,46 +7,109 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DirectoryQueryEngine.DirectoryQueryResult;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate.HashAggregator;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.cache.TableCache;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.crossfilter.CrossfilterEngine;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.histogram.HistogramEngine;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.CsvTailReader;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.CsvTailReader.TailPosition;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.CsvTailReader.TailResult;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.ParallelCsvReader;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.ScanResult;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.ScanSpec;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexStore;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.offheap.OffHeapTableStore;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.PartitionedScanner;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.schema.SchemaCatalog;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.schema.SchemaCatalog.DatasetSchema;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.snapshot.TableSnapshotStore;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Metadata.DatasetType;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Metadata.MetadataRequest;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Metadata.MetadataResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramResponse;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.QueryResult;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularRequest;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularResponse;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesRequest;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesResponse;
 import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.TabularColumn;
+import com.google.common.io.ByteStreams;
+
 import jakarta.annotation.PostConstruct;
 import tech.tablesaw.api.*;
 import tech.tablesaw.columns.*;
 import tech.tablesaw.io.csv.CsvReadOptions;
 
-import java.util.concurrent.ConcurrentHashMap;
-
 import java.io.*;
 import java.nio.file.*;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.*;
 
+/**
+ * Shared engine behind every {@link DatasetHandle}: resolves datasets under the
+ * working directory, loads them through the table cache and runs queries on
+ * them. It holds no per-request state, so one instance serves concurrent
+ * requests for different datasets.
+ */
 @Component
-public class CsvDataSource implements DataSource {
+public class CsvDataSource {
     private static final Logger LOG = LoggerFactory.getLogger(CsvDataSource.class);
+    // The leading rows whose timestamps decide whether a dataset is a time series
+    private static final int DATASET_TYPE_ROWS = 10;
 
     private final TabularQueryExecutor tabularQueryExecutor;
     private final TimeSeriesQueryExecutor timeSeriesQueryExecutor;
-    private final ConcurrentHashMap<String, Table> tableCache = new ConcurrentHashMap<>();
-    private String source;
+    private final DirectoryQueryEngine directoryQueryEngine;
+    private final CrossfilterEngine crossfilterEngine;
+    private final HistogramEngine histogramEngine;
+    private final TableCache tableCache;
+    private final TableSnapshotStore tableSnapshotStore;
+    private final ParallelCsvReader parallelCsvReader;
+    private final SchemaCatalog schemaCatalog;
+    private final CsvTailReader csvTailReader;
+    private final OffHeapTableStore offHeapTableStore;
+    private final TableIndexStore tableIndexStore;
+    // Where each cached file was last parsed up to, for appending new rows
+    private final Map<Path, TailPosition> tailPositions = new ConcurrentHashMap<>();
+    private final long projectedLoadThreshold;
 
     @Autowired
     @Value("${app.working.directory}")
     private String workingDirectory;
 
-    public CsvDataSource() {
-        this.tabularQueryExecutor = new TabularQueryExecutor();
-        this.timeSeriesQueryExecutor = new TimeSeriesQueryExecutor();
+    public CsvDataSource(TableCache tableCache, TableSnapshotStore tableSnapshotStore,
+            ParallelCsvReader parallelCsvReader, SchemaCatalog schemaCatalog, CsvTailReader csvTailReader,
+            OffHeapTableStore offHeapTableStore, TableIndexStore tableIndexStore,
+            DataEngineProperties dataEngineProperties, ForkJoinPool dataEnginePool) {
+        PartitionedScanner scanner = new PartitionedScanner(dataEnginePool,
+                dataEngineProperties.getParallelFilterMinRows());
+        HashAggregator hashAggregator = new HashAggregator(dataEnginePool,
+                dataEngineProperties.getParallelAggregationMinRows());
+        this.tabularQueryExecutor = new TabularQueryExecutor(hashAggregator, scanner);
+        this.timeSeriesQueryExecutor = new TimeSeriesQueryExecutor(scanner);
+        this.directoryQueryEngine = new DirectoryQueryEngine(dataEnginePool, tabularQueryExecutor, this::scanCsvFile);
+        this.crossfilterEngine = new CrossfilterEngine(scanner);
+        this.histogramEngine = new HistogramEngine(hashAggregator, scanner);
+        this.tableCache = tableCache;
+        this.tableSnapshotStore = tableSnapshotStore;
+        this.parallelCsvReader = parallelCsvReader;
+        this.schemaCatalog = schemaCatalog;
+        this.csvTailReader = csvTailReader;
+        this.offHeapTableStore = offHeapTableStore;
+        this.tableIndexStore = tableIndexStore;
+        this.projectedLoadThreshold = dataEngineProperties.getProjectedLoadThreshold().toBytes();
     }
 
     @PostConstruct
@@ -57,21 +120,21 @@ public class CsvDataSource implements DataSource {
         LOG.info("Working directory initialized: {}", workingDirectory);
     }
 
-    public ConcurrentHashMap<String, Table> getTableCache() {
-        return tableCache;
-    }
-
-    @Override
-    public String getSource() {
-        return source;
+    /**
+     * Returns whether the current version of the file a source resolves to
+     * under the working directory is cached, on or off the heap. Files with
+     * the same name in other directories do not count.
+     */
+    public boolean isCached(String source) {
+        Path path = Paths.get(workingDirectory, source);
+        return Files.isRegularFile(path) && (tableCache.contains(path) || offHeapTableStore.contains(path));
     }
 
-    @Override
-    public TimeSeriesResponse fetchTimeSeriesData(TimeSeriesRequest timeSeriesRequest) {
+    public TimeSeriesResponse fetchTimeSeriesData(String source, TimeSeriesRequest timeSeriesRequest) {
         TimeSeriesResponse timeSeriesResponse = new TimeSeriesResponse();
         switch (timeSeriesRequest.getDataReduction().getType()) {
             case "raw":
-                timeSeriesResponse = timeSeriesRawQuery(timeSeriesRequest);
+                timeSeriesResponse = timeSeriesRawQuery(source, timeSeriesRequest);
                 break;
             case "aggregation":
                 break;
@@ -92,39 +155,32 @@ public class CsvDataSource implements DataSource {
         return hasLat && hasLon;
     }
     
-    @Override
-    public TabularResponse fetchTabularData(TabularRequest tabularRequest) {
+    public TabularResponse fetchTabularData(String source, TabularRequest tabularRequest) {
         TabularResponse tabularResults = new TabularResponse();
         Path path = Paths.get(workingDirectory, source);
         LOG.info("Path: {}", path);
         if (Files.isDirectory(path)) {
-            List<Table> tables = getTablesFromPath(path);
-            List<String> jsonDataList = new ArrayList<>();
-            List<TabularColumn> columns = new ArrayList<>();
-            for (Table table : tables) {
-                QueryResult queryResult = tabularQueryExecutor.queryTabularData(table, tabularRequest);
-                Table resultsTable = queryResult.getResultTable();
-                jsonDataList.add(getJsonDataFromTableSawTable(resultsTable));
-                if (columns.isEmpty()) {
-                    columns.addAll(
-                            resultsTable.columns().stream().map(this::getTabularColumnFromTableSawColumn).toList());
-                }
-            }
-            LOG.debug("{}", tables.stream().map(table -> table.name()).toList());
-            // tabularResults.setFileNames(tables.stream().map(table -> table.name()).toList());
-            tabularResults.setData("[" + String.join(",", jsonDataList) + "]");
-            // tabularResults.setColumns(columns);
+            DirectoryQueryResult directoryResult = directoryQueryEngine.query(path, tabularRequest);
+            Table resultsTable = directoryResult.queryResult().getResultTable();
+            tabularResults.setData(getJsonDataFromTableSawTable(resultsTable));
+            tabularResults.setTotalItems(directoryResult.totalItems());
+            tabularResults.setQuerySize(directoryResult.queryResult().getRowCount());
+            tabularResults.setNextCursor(directoryResult.queryResult().getNextCursor());
+            tabularResults.setColumns(
+                    resultsTable.columns().stream().map(this::getTabularColumnFromTableSawColumn).toList());
         } else {
             if (tabularRequest.getDatasetId().endsWith(".json")) {
                 String json = readJsonFromFile(path);
                 tabularResults.setData(json);
             } else {
-                Table table = readCsvFromFile(path);
-                QueryResult queryResult = tabularQueryExecutor.queryTabularData(table, tabularRequest);
+                ScanResult scan = scanCsvFile(path, ScanSpec.forRequest(tabularRequest));
+                QueryResult queryResult = tabularQueryExecutor.queryTabularData(scan.table(), scan.indexes(),
+                        tabularRequest);
                 Table resultsTable = queryResult.getResultTable();
                 tabularResults.setData(getJsonDataFromTableSawTable(resultsTable));
-                tabularResults.setTotalItems(table.rowCount()); // Add this line to return total items
+                tabularResults.setTotalItems(scan.scannedRows()); // Add this line to return total items
                 tabularResults.setQuerySize(queryResult.getRowCount()); // Set the filtered row count here
+                tabularResults.setNextCursor(queryResult.getNextCursor());
                 // Map<String, List<?>> uniqueColumnValues = getUniqueValuesForColumns(table,
                 //         table.columns().stream().map(this::getTabularColumnFromTableSawColumn).toList());
                 // tabularResults.setFileNames(Arrays.asList(new String[] { table.name() }));
@@ -139,11 +195,75 @@ public class CsvDataSource implements DataSource {
         return tabularResults;
     }
 
-    public TabularColumn getTimestampColumn() {
+    /**
+     * Counts the histograms of a crossfilter request over a CSV file.
+     *
+     * @throws IllegalArgumentException if the dataset is a directory or a JSON
+     *                                  file
+     */
+    public CrossfilterResponse fetchCrossfilterData(String source, CrossfilterRequest crossfilterRequest) {
+        Path path = Paths.get(workingDirectory, source);
+        if (Files.isDirectory(path) || source.endsWith(".json")) {
+            throw new IllegalArgumentException("Crossfilter queries need a single CSV file: " + source);
+        }
+        ScanResult scan = scanCsvFile(path, ScanSpec.forRequest(crossfilterRequest));
+        return crossfilterEngine.query(scan.table(), scan.indexes(), crossfilterRequest);
+    }
+
+    /**
+     * Counts the bins of a histogram request over a CSV file.
+     *
+     * @throws IllegalArgumentException if the dataset is a directory or a JSON
+     *                                  file
+     */
+    public HistogramResponse fetchHistogramData(String source, HistogramRequest histogramRequest) {
+        Path path = Paths.get(workingDirectory, source);
+        if (Files.isDirectory(path) || source.endsWith(".json")) {
+            throw new IllegalArgumentException("Histogram queries need a single CSV file: " + source);
+        }
+        ScanResult scan = scanCsvFile(path, ScanSpec.forRequest(histogramRequest));
+        HistogramResponse response = histogramEngine.query(scan.table(), scan.indexes(), histogramRequest);
+        // Rows filtered out while the file was read still count
+        response.setTotalItems(scan.scannedRows());
+        return response;
+    }
+
+    /**
+     * Aggregates the cells of a heatmap request over a CSV file.
+     *
+     * @throws IllegalArgumentException if the dataset is a directory or a JSON
+     *                                  file
+     */
+    public HeatmapResponse fetchHeatmapData(String source, HeatmapRequest heatmapRequest) {
+        Path path = Paths.get(workingDirectory, source);
+        if (Files.isDirectory(path) || source.endsWith(".json")) {
+            throw new IllegalArgumentException("Heatmap queries need a single CSV file: " + source);
+        }
+        ScanResult scan = scanCsvFile(path, ScanSpec.forRequest(heatmapRequest));
+        HeatmapResponse response = histogramEngine.heatmap(scan.table(), scan.indexes(), heatmapRequest);
+        response.setTotalItems(scan.scannedRows());
+        return response;
+    }
+
+    /**
+     * Returns the versions of the files behind a dataset: the file itself, or
+     * every CSV file of a directory. Any change to the dataset on disk changes
+     * the returned list.
+     *
+     * @return the fingerprints, empty if the dataset does not exist
+     */
+    public List<DatasetFingerprint> getFingerprints(String source) {
+        Path path = Paths.get(workingDirectory, source);
+        if (Files.isDirectory(path)) {
+            return DirectoryQueryEngine.listCsvFiles(path).stream().map(DatasetFingerprint::of).toList();
+        }
+        return Files.isRegularFile(path) ? List.of(DatasetFingerprint.of(path)) : List.of();
+    }
+
+    public TabularColumn getTimestampColumn(String source) {
         Path path = Paths.get(workingDirectory, source);
         if (Files.isDirectory(path)) {
-            List<Table> tables = getTablesFromPath(path);
-            Table table = tables.get(0);
+            Table table = headOfCsvFile(DirectoryQueryEngine.listCsvFiles(path).get(0), 0).table();
             boolean hasHeader = table.columnNames().size() > 0;
             if (!hasHeader)
                 return null;
@@ -156,7 +276,7 @@ public class CsvDataSource implements DataSource {
                 }
             }
         } else {
-            Table table = readCsvFromFile(path);
+            Table table = headOfCsvFile(path, 0).table();
             boolean hasHeader = table.columnNames().size() > 0;
             if (!hasHeader)
                 return null;
@@ -172,9 +292,10 @@ public class CsvDataSource implements DataSource {
         return null;
     }
 
-    public MetadataResponse getFileMetadata(MetadataRequest metadataRequest) {
+    public MetadataResponse getFileMetadata(String source, MetadataRequest metadataRequest) {
         Path path = Paths.get(workingDirectory, source);
-        Table table = readCsvFromFile(path);
+        ScanResult head = headOfCsvFile(path, DATASET_TYPE_ROWS);
+        Table table = head.table();
         
         
         // Map<String, List<?>> uniqueColumnValues = getUniqueValuesForColumns(table,
@@ -184,7 +305,7 @@ public class CsvDataSource implements DataSource {
         metadataResponse.setFileNames(Arrays.asList(new String[] { table.name() }));
         metadataResponse
                 .setOriginalColumns(table.columns().stream().map(this::getTabularColumnFromTableSawColumn).toList());
-        metadataResponse.setTotalItems(table.rowCount());
+        metadataResponse.setTotalItems(head.scannedRows());
         metadataResponse.setUniqueColumnValues(null);
         metadataResponse.setDatasetType(datasetTypeDetection(table));
         metadataResponse.setHasLatLonColumns(hasLatLonColumns(table));
@@ -211,7 +332,7 @@ public class CsvDataSource implements DataSource {
         for (int i = 0; i < table.columnCount(); i++) {
             ColumnType columnType = table.column(i).type();
             Column<?> dateColumn = table.column(i);
-            int rowCount = Math.min(dateColumn.size(), 10);
+            int rowCount = Math.min(dateColumn.size(), DATASET_TYPE_ROWS);
             switch (columnType.toString()) {
                 case "LOCAL_DATE_TIME":
                     for (int j = 1; j < rowCount; j++) {
@@ -250,40 +371,23 @@ public class CsvDataSource implements DataSource {
         return hasDateTimeColumn ? DatasetType.timeseries : DatasetType.tabular;
     }
 
-    private TimeSeriesResponse timeSeriesRawQuery(TimeSeriesRequest timeSeriesRequest) {
+    private TimeSeriesResponse timeSeriesRawQuery(String source, TimeSeriesRequest timeSeriesRequest) {
         TimeSeriesResponse timeSeriesResponse = new TimeSeriesResponse();
         Path path = Paths.get(workingDirectory, source);
         // Directory logic
         if (Files.isDirectory(path)) {
             // TODO: Implement directory logic
         } else {
-            Table table = readCsvFromFile(path);
-            Table resultsTable = timeSeriesQueryExecutor.queryTabularData(table, timeSeriesRequest);
+            ScanResult scan = scanCsvFile(path, ScanSpec.forRequest(timeSeriesRequest));
+            QueryResult queryResult = timeSeriesQueryExecutor.queryTabularData(scan.table(), scan.indexes(),
+                    timeSeriesRequest);
             // timeSeriesResponse.setFileNames(Arrays.asList(new String[]{table.name()}));
-            timeSeriesResponse.setData(getJsonDataFromTableSawTable(resultsTable));
+            timeSeriesResponse.setData(getJsonDataFromTableSawTable(queryResult.getResultTable()));
+            timeSeriesResponse.setNextCursor(queryResult.getNextCursor());
         }
         return timeSeriesResponse;
     }
 
-    private List<Table> getTablesFromPath(Path path) {
-        if (Files.isDirectory(path)) {
-            return readCsvFromDirectory(path);
-        } else {
-            return List.of(readCsvFromFile(path));
-        }
-    }
-
-    private List<Table> readCsvFromDirectory(Path directoryPath) {
-        try (Stream<Path> paths = Files.walk(directoryPath)) {
-            return paths.filter(Files::isRegularFile)
-                    .filter(p -> p.toString().endsWith(".csv"))
-                    .map(this::readCsvFromFile)
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read CSVs from directory", e);
-        }
-    }
-
     private String readJsonFromFile(Path filePath) {
         byte[] jsonData;
         try {
@@ -294,12 +398,190 @@ public class CsvDataSource implements DataSource {
         return new String(jsonData);
     }
 
+    /**
+     * Returns the parsed table for the given CSV file, served from the table cache
+     * while the file is unchanged on disk. When tables are kept off-heap, this is
+     * a fresh on-heap copy of the whole off-heap table, so it is only for callers
+     * that need every row; requests go through {@link #scanCsvFile} and schema
+     * lookups through {@link #headOfCsvFile}.
+     *
+     * @param filePath the CSV file to read
+     * @return the parsed table, shared with other requests and not to be modified
+     */
     public Table readCsvFromFile(Path filePath) {
+        if (offHeapTableStore.isEnabled()) {
+            return offHeapTableStore.get(filePath, this::loadCsvFile).toTable();
+        }
+        return tableCache.get(filePath, this::loadCachedCsvFile);
+    }
+
+    /**
+     * Loads a dataset into the table cache (or the off-heap store) without
+     * querying it. Directories are loaded file by file; JSON datasets are not
+     * cached and are skipped.
+     *
+     * @param source the dataset path relative to the working directory
+     */
+    public void preload(String source) {
+        Path path = Paths.get(workingDirectory, source);
+        if (!Files.exists(path)) {
+            throw new IllegalArgumentException("Dataset not found: " + source);
+        }
+        List<Path> files = Files.isDirectory(path) ? DirectoryQueryEngine.listCsvFiles(path) : List.of(path);
+        for (Path file : files) {
+            if (file.toString().endsWith(".json")) {
+                continue;
+            }
+            if (offHeapTableStore.isEnabled()) {
+                offHeapTableStore.get(file, this::loadCsvFile);
+            } else {
+                tableCache.get(file, this::loadCachedCsvFile);
+            }
+        }
+    }
+
+    /**
+     * Returns the part of a CSV file that a request needs. Files that are cached,
+     * have a snapshot or are below the projected-load threshold are served from the
+     * full cached table. Larger ones are scanned for this request only, keeping the
+     * referenced columns and the rows that may pass its filters, and are not cached.
+     * Off-heap tables are filtered in place and only the matching rows of the
+     * referenced columns are copied onto the heap. Cached heap tables come with
+     * their sorted indexes.
+     *
+     * @param filePath the CSV file to read
+     * @param spec     the columns and rows the request touches
+     * @return the table to run the request on and the file's total row count
+     */
+    private ScanResult scanCsvFile(Path filePath, ScanSpec spec) {
+        boolean cached = offHeapTableStore.isEnabled() ? offHeapTableStore.contains(filePath)
+                : tableCache.contains(filePath);
+        if (!spec.isFullScan() && !cached && !tableSnapshotStore.hasSnapshot(filePath)
+                && filePath.toFile().length() >= projectedLoadThreshold) {
+            try {
+                DatasetFingerprint fingerprint = DatasetFingerprint.of(filePath);
+                ScanResult scan = parallelCsvReader.scan(filePath, filePath.getFileName().toString(), spec,
+                        schemaCatalog.lookup(fingerprint).orElse(null));
+                if (spec.selectsAllColumns()) {
+                    schemaCatalog.record(fingerprint, scan.table());
+                }
+                return scan;
+            } catch (Exception e) {
+                LOG.warn("Projected scan of '{}' failed, loading the full table", filePath.getFileName(), e);
+            }
+        }
+        if (offHeapTableStore.isEnabled()) {
+            return offHeapTableStore.get(filePath, this::loadCsvFile).scan(spec);
+        }
+        Table table = readCsvFromFile(filePath);
+        return new ScanResult(table, table.rowCount(), tableIndexStore.indexesFor(table));
+    }
+
+    /**
+     * Returns the first rows of a CSV file, to look at its columns without
+     * copying an off-heap table onto the heap. Tables in the heap cache are
+     * returned whole, as they are shared anyway.
+     *
+     * @param filePath the CSV file to read
+     * @param rows     the number of rows needed, at most
+     * @return a table with at least the first {@code rows} rows, and the file's
+     *         total row count
+     */
+    private ScanResult headOfCsvFile(Path filePath, int rows) {
+        if (offHeapTableStore.isEnabled()) {
+            return offHeapTableStore.get(filePath, this::loadCsvFile).head(rows);
+        }
+        Table table = readCsvFromFile(filePath);
+        return new ScanResult(table, table.rowCount());
+    }
+
+    // Tables kept in the heap cache also get the column statistics their queries are planned with
+    private Table loadCachedCsvFile(DatasetFingerprint fingerprint) {
+        Optional<Table> appended = appendNewRows(fingerprint);
+        if (appended.isPresent()) {
+            return appended.get();
+        }
+        return tableIndexStore.prepare(loadCsvFile(fingerprint));
+    }
+
+    // Off-heap tables are always loaded in full, as their columns cannot be extended in place
+    private Table loadCsvFile(DatasetFingerprint fingerprint) {
+        Optional<Table> snapshot = tableSnapshotStore.load(fingerprint);
+        Table table;
+        if (snapshot.isPresent()) {
+            table = snapshot.get();
+        } else {
+            table = parseCsvFile(fingerprint);
+            tableSnapshotStore.save(fingerprint, table);
+        }
+        schemaCatalog.record(fingerprint, table);
+        csvTailReader.positionOf(fingerprint).ifPresentOrElse(
+                position -> tailPositions.put(fingerprint.path(), position),
+                () -> tailPositions.remove(fingerprint.path()));
+        return table;
+    }
+
+    /**
+     * For a file that has grown since its cached version was parsed, parses only
+     * the appended rows and adds them to a new version of the cached table that
+     * shares its rows, extending its column statistics. Snapshots and the
+     * schema catalog are left as they are, since a growing file would otherwise
+     * rewrite them on every poll.
+     *
+     * @param fingerprint the current version of the file
+     * @return the extended table, or empty if the file has to be loaded in full
+     */
+    private Optional<Table> appendNewRows(DatasetFingerprint fingerprint) {
+        TailPosition position = tailPositions.get(fingerprint.path());
+        if (position == null || position.fingerprint().equals(fingerprint)) {
+            return Optional.empty();
+        }
+        Optional<Table> previous = tableCache.getIfPresent(position.fingerprint());
+        Optional<TailResult> result = previous
+                .flatMap(table -> csvTailReader.append(table, position, fingerprint));
+        if (result.isEmpty()) {
+            tailPositions.remove(fingerprint.path(), position);
+            return Optional.empty();
+        }
+        tailPositions.put(fingerprint.path(), result.get().position());
+        return Optional.of(tableIndexStore.extend(previous.get(), result.get().table()));
+    }
+
+    private Table parseCsvFile(DatasetFingerprint fingerprint) {
+        Path filePath = fingerprint.path();
         String fileName = filePath.getFileName().toString();
         LOG.info("Reading CSV file: {}", fileName);
+        DatasetSchema knownSchema = schemaCatalog.lookup(fingerprint).orElse(null);
+
+        // Large files are split into chunks and parsed on the data engine pool
+        if (parallelCsvReader.accepts(filePath)) {
+            try {
+                return parallelCsvReader.read(fingerprint, fileName, knownSchema);
+            } catch (Exception e) {
+                LOG.warn("Parallel parsing failed for '{}', falling back to sequential parsing", fileName, e);
+            }
+        }
+
+        // Types recorded for this version of the file skip inference altogether
+        if (knownSchema != null) {
+            try (InputStream stream = openVersion(fingerprint)) {
+                CsvReadOptions options = CsvReadOptions.builder(stream)
+                    .header(true)
+                    .columnTypes(knownSchema.columnTypes())
+                    .build();
+                Table table = Table.read().usingOptions(options).setName(fileName);
+                if (table.columnNames().equals(knownSchema.columnNames())) {
+                    return table;
+                }
+                LOG.warn("Recorded columns of '{}' do not match its header, inferring types again", fileName);
+            } catch (Exception e) {
+                LOG.warn("Recorded column types of '{}' do not fit, inferring them again", fileName, e);
+            }
+            schemaCatalog.forget(fingerprint);
+        }
     
         // Attempt 1: with sample-based type inference
-        try (InputStream stream = Files.newInputStream(filePath)) {
+        try (InputStream stream = openVersion(fingerprint)) {
             CsvReadOptions options = CsvReadOptions.builder(stream)
                 .header(true)
                 .sample(true)
@@ -310,7 +592,7 @@ public class CsvDataSource implements DataSource {
             LOG.warn("Initial type inference failed for '{}'. Retrying with full parsing (sample=false)", fileName);
     
             // Attempt 2: fallback to more conservative parsing
-            try (InputStream retryStream = Files.newInputStream(filePath)) {
+            try (InputStream retryStream = openVersion(fingerprint)) {
                 CsvReadOptions fallbackOptions = CsvReadOptions.builder(retryStream)
                     .header(true)
                     .sample(false)
@@ -323,8 +605,9 @@ public class CsvDataSource implements DataSource {
     }
     
 
-    public void setSource(String source) {
-        this.source = source;
+    // Reads no further than the fingerprinted size, so rows appended meanwhile are left to the next load
+    private static InputStream openVersion(DatasetFingerprint fingerprint) throws IOException {
+        return ByteStreams.limit(Files.newInputStream(fingerprint.path()), fingerprint.size());
     }
 
     private CsvReadOptions createCsvReadOptions(InputStream inputStream) {
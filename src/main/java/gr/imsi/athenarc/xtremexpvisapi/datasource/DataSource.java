@@ -1,7 +1,15 @@
 package gr.imsi.athenarc.xtremexpvisapi.datasource;
 
+import java.util.List;
+
 import gr.imsi.athenarc.xtremexpvisapi.domain.Metadata.MetadataRequest;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Metadata.MetadataResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramResponse;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularRequest;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularResponse;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesRequest;
@@ -9,7 +17,11 @@ import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesResponse;
 
 public interface DataSource {
     String getSource();
+    List<DatasetFingerprint> getFingerprints();
     MetadataResponse getFileMetadata(MetadataRequest metadataRequest);
     TabularResponse fetchTabularData(TabularRequest tabularRequest);
     TimeSeriesResponse fetchTimeSeriesData(TimeSeriesRequest timeSeriesRequest);
+    CrossfilterResponse fetchCrossfilterData(CrossfilterRequest crossfilterRequest);
+    HistogramResponse fetchHistogramData(HistogramRequest histogramRequest);
+    HeatmapResponse fetchHeatmapData(HeatmapRequest heatmapRequest);
 }
@@ -1,9 +1,8 @@
-
 package gr.imsi.athenarc.xtremexpvisapi.datasource;
 
-import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
+import gr.imsi.athenarc.xtremexpvisapi.datasource.warmup.DatasetAccessLog;
 import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.SourceType;
 import gr.imsi.athenarc.xtremexpvisapi.service.FileService;
 import lombok.extern.java.Log;
@@ -12,30 +11,36 @@ import lombok.extern.java.Log;
 @Log
 public class DataSourceFactory {
 
-    private final ApplicationContext applicationContext;
+    private final CsvDataSource csvDataSource;
     private final FileService fileService;
+    private final DatasetAccessLog datasetAccessLog;
 
-    public DataSourceFactory(ApplicationContext applicationContext, FileService fileService) {
-        this.applicationContext = applicationContext;
+    public DataSourceFactory(CsvDataSource csvDataSource, FileService fileService,
+            DatasetAccessLog datasetAccessLog) {
+        this.csvDataSource = csvDataSource;
         this.fileService = fileService;
+        this.datasetAccessLog = datasetAccessLog;
     }
 
+    /**
+     * Returns a handle bound to the given dataset. Each call returns a new,
+     * immutable handle, so concurrent requests never see each other's source.
+     * The access is recorded for the startup warm-up of later runs.
+     */
     public DataSource createDataSource(SourceType type, String source) {
-        CsvDataSource csvDataSource = applicationContext.getBean(CsvDataSource.class);
-
         String fileName = source.substring(source.lastIndexOf("/") + 1).trim();
-        boolean isFileInCache = csvDataSource.getTableCache().containsKey(fileName);
-        
+        boolean isFileInCache = csvDataSource.isCached(source);
+
         if (type == SourceType.zenoh && !isFileInCache) {
             try {
                 fileService.downloadFileFromZenoh(source);
             } catch (Exception e) {
                 e.printStackTrace();
             }
-            csvDataSource.setSource(fileName);
-        }else{
-            csvDataSource.setSource(source);
+            datasetAccessLog.record(fileName);
+            return new DatasetHandle(fileName, csvDataSource);
         }
-        return csvDataSource;
+        datasetAccessLog.record(source);
+        return new DatasetHandle(source, csvDataSource);
     }
 }
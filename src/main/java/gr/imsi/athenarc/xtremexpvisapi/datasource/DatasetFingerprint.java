@@ -0,0 +1,25 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Identifies one version of a dataset file on disk. Two fingerprints are equal
+ * only if they refer to the same absolute path with the same modification time
+ * and size, so any rewrite of the file yields a new fingerprint.
+ */
+public record DatasetFingerprint(Path path, long lastModified, long size) {
+
+    public static DatasetFingerprint of(Path path) {
+        Path absolutePath = path.toAbsolutePath().normalize();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(absolutePath, BasicFileAttributes.class);
+            return new DatasetFingerprint(absolutePath, attributes.lastModifiedTime().toMillis(), attributes.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read file attributes: " + absolutePath, e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource;
+
+import java.util.List;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.Metadata.MetadataRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Metadata.MetadataResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.TabularColumn;
+
+/**
+ * A {@link DataSource} bound to a single dataset. Handles are immutable and
+ * cheap to create for every request; they all delegate to the shared
+ * {@link CsvDataSource}, so they share its executors, pool and table cache
+ * without sharing any per-request state.
+ */
+public final class DatasetHandle implements DataSource {
+
+    private final String source;
+    private final CsvDataSource csvDataSource;
+
+    public DatasetHandle(String source, CsvDataSource csvDataSource) {
+        this.source = source;
+        this.csvDataSource = csvDataSource;
+    }
+
+    @Override
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public List<DatasetFingerprint> getFingerprints() {
+        return csvDataSource.getFingerprints(source);
+    }
+
+    @Override
+    public MetadataResponse getFileMetadata(MetadataRequest metadataRequest) {
+        return csvDataSource.getFileMetadata(source, metadataRequest);
+    }
+
+    @Override
+    public TabularResponse fetchTabularData(TabularRequest tabularRequest) {
+        return csvDataSource.fetchTabularData(source, tabularRequest);
+    }
+
+    @Override
+    public TimeSeriesResponse fetchTimeSeriesData(TimeSeriesRequest timeSeriesRequest) {
+        return csvDataSource.fetchTimeSeriesData(source, timeSeriesRequest);
+    }
+
+    @Override
+    public CrossfilterResponse fetchCrossfilterData(CrossfilterRequest crossfilterRequest) {
+        return csvDataSource.fetchCrossfilterData(source, crossfilterRequest);
+    }
+
+    @Override
+    public HistogramResponse fetchHistogramData(HistogramRequest histogramRequest) {
+        return csvDataSource.fetchHistogramData(source, histogramRequest);
+    }
+
+    @Override
+    public HeatmapResponse fetchHeatmapData(HeatmapRequest heatmapRequest) {
+        return csvDataSource.fetchHeatmapData(source, heatmapRequest);
+    }
+
+    public TabularColumn getTimestampColumn() {
+        return csvDataSource.getTimestampColumn(source);
+    }
+
+    @Override
+    public String toString() {
+        return "DatasetHandle[" + source + "]";
+    }
+}
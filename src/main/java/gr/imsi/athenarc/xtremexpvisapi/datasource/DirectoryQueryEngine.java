@@ -0,0 +1,161 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.ScanResult;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.ScanSpec;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.QueryResult;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularRequest;
+import tech.tablesaw.api.ColumnType;
+import tech.tablesaw.api.NumericColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+
+/**
+ * Runs a tabular query over every CSV file of a directory, such as the part
+ * files of a partitioned experiment output.
+ * <p>
+ * Files are loaded (through the per-file table cache) and filtered in parallel
+ * on the data engine pool. The filtered rows are then concatenated in file name
+ * order and the rest of the query (column selection, aggregation, offset and
+ * limit) runs once over the union, so it applies across files rather than per
+ * file.
+ */
+public class DirectoryQueryEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DirectoryQueryEngine.class);
+
+    private final ForkJoinPool pool;
+    private final TabularQueryExecutor tabularQueryExecutor;
+    private final BiFunction<Path, ScanSpec, ScanResult> scanner;
+
+    /**
+     * @param pool                 the pool files are loaded and filtered on
+     * @param tabularQueryExecutor the executor used for the per-file filters and
+     *                             the final query
+     * @param scanner              loads the part of a file selected by a scan spec
+     */
+    public DirectoryQueryEngine(ForkJoinPool pool, TabularQueryExecutor tabularQueryExecutor,
+            BiFunction<Path, ScanSpec, ScanResult> scanner) {
+        this.pool = pool;
+        this.tabularQueryExecutor = tabularQueryExecutor;
+        this.scanner = scanner;
+    }
+
+    /**
+     * Result of a directory query.
+     *
+     * @param queryResult the merged result and the number of rows that passed the
+     *                    filters across all files
+     * @param totalItems  the number of rows in all files
+     * @param fileCount   the number of files queried
+     */
+    public record DirectoryQueryResult(QueryResult queryResult, int totalItems, int fileCount) {
+    }
+
+    public DirectoryQueryResult query(Path directory, TabularRequest tabularRequest) {
+        long start = System.currentTimeMillis();
+        List<Path> files = listCsvFiles(directory);
+        ScanSpec spec = ScanSpec.forRequest(tabularRequest);
+
+        List<ScanResult> filtered = pool.submit(() -> files.parallelStream()
+                .map(file -> {
+                    ScanResult scan = scanner.apply(file, spec);
+                    return new ScanResult(tabularQueryExecutor.filterTabularData(scan.table(), scan.indexes(), tabularRequest),
+                            scan.scannedRows());
+                })
+                .toList()).join();
+
+        int totalItems = filtered.stream().mapToInt(ScanResult::scannedRows).sum();
+        Table merged = concatenate(directory.getFileName().toString(),
+                filtered.stream().map(ScanResult::table).toList());
+        QueryResult queryResult = tabularQueryExecutor.completeQuery(merged, tabularRequest);
+        LOG.info("Queried {} files of {} ({} of {} rows matched) in {} ms", files.size(), directory,
+                merged.rowCount(), totalItems, System.currentTimeMillis() - start);
+        return new DirectoryQueryResult(queryResult, totalItems, files.size());
+    }
+
+    /**
+     * Returns the CSV files under a directory, sorted by path so that results
+     * do not depend on file system order.
+     */
+    static List<Path> listCsvFiles(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(p -> p.toString().endsWith(".csv"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read CSVs from directory", e);
+        }
+    }
+
+    /**
+     * Appends tables that may not share exactly the same schema. Columns are
+     * matched by name, in order of first appearance; a column missing from a
+     * table is filled with missing values. When files disagree on a column's
+     * type, numbers are widened to DOUBLE and anything else becomes STRING.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static Table concatenate(String name, List<Table> tables) {
+        Map<String, ColumnType> types = new LinkedHashMap<>();
+        for (Table table : tables) {
+            for (Column<?> column : table.columns()) {
+                types.merge(column.name(), column.type(), DirectoryQueryEngine::commonType);
+            }
+        }
+
+        Table result = Table.create(name);
+        for (Map.Entry<String, ColumnType> entry : types.entrySet()) {
+            Column column = entry.getValue().create(entry.getKey());
+            for (Table table : tables) {
+                if (table.containsColumn(entry.getKey())) {
+                    column.append(convert(table.column(entry.getKey()), entry.getValue()));
+                } else {
+                    for (int i = 0; i < table.rowCount(); i++) {
+                        column.appendMissing();
+                    }
+                }
+            }
+            result.addColumns(column);
+        }
+        return result;
+    }
+
+    private static ColumnType commonType(ColumnType first, ColumnType second) {
+        if (first.equals(second)) {
+            return first;
+        }
+        if (isNumeric(first) && isNumeric(second)) {
+            return ColumnType.DOUBLE;
+        }
+        return ColumnType.STRING;
+    }
+
+    private static boolean isNumeric(ColumnType type) {
+        return type == ColumnType.SHORT || type == ColumnType.INTEGER || type == ColumnType.LONG
+                || type == ColumnType.FLOAT || type == ColumnType.DOUBLE;
+    }
+
+    private static Column<?> convert(Column<?> column, ColumnType type) {
+        if (column.type().equals(type)) {
+            return column;
+        }
+        if (type == ColumnType.DOUBLE && column instanceof NumericColumn<?> numbers) {
+            return numbers.asDoubleColumn().setName(column.name());
+        }
+        return column.asStringColumn().setName(column.name());
+    }
+}
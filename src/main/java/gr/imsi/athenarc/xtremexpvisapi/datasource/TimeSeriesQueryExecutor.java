@@ -9,6 +9,13 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexes;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.page.PageCursor;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.page.RowPager;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.page.RowPager.Page;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.PartitionedScanner;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.SelectionCache;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.QueryResult;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesRequest;
 import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
 import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
@@ -20,241 +27,295 @@ import tech.tablesaw.selection.Selection;
 public class TimeSeriesQueryExecutor {
      private static final Logger LOG = LoggerFactory.getLogger(TimeSeriesQueryExecutor.class);
 
-    public Table queryTabularData(Table table, TimeSeriesRequest timeSeriesRequest) {
-        Selection selection = null;
-        if(timeSeriesRequest.getFrom() != null && timeSeriesRequest.getTo()!=null){
-            for (AbstractFilter filter : timeSeriesRequest.getFilters()) {
-                Selection filterSelection = null;
-                if (filter instanceof RangeFilter) {
-                    LOG.debug("RangeFilter detected: {}", filter);
-                    RangeFilter<?> rangeFilter = (RangeFilter<?>) filter;
-                    Column<?> column = table.column(rangeFilter.getColumn());
-                    String columnTypeName = column.type().name();
-                    switch (columnTypeName) {
-                        case "DOUBLE":
-                            if (!(rangeFilter.getMin() instanceof Double)
-                                    || !(rangeFilter.getMax() instanceof Double)) {
-                                throw new IllegalArgumentException(
-                                        "Min and Max must be of type Double for column: " + rangeFilter.getColumn());
-                            }
-                            LOG.debug("Number range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
-                                    rangeFilter.getMin(), rangeFilter.getMax());
-                            filterSelection = table.numberColumn(rangeFilter.getColumn())
-                                    .isGreaterThanOrEqualTo((Double) rangeFilter.getMin())
-                                    .and(table.numberColumn(rangeFilter.getColumn())
-                                            .isLessThanOrEqualTo((Double) rangeFilter.getMax()));
-                            break;
-                        case "INTEGER":
-                            if (!(rangeFilter.getMin() instanceof Integer)
-                                    || !(rangeFilter.getMax() instanceof Integer)) {
-                                throw new IllegalArgumentException(
-                                        "Min and Max must be of type Integer for column: " + rangeFilter.getColumn());
-                            }
-                            LOG.debug("Integer range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
-                                    rangeFilter.getMin(), rangeFilter.getMax());
-                            filterSelection = table.intColumn(rangeFilter.getColumn())
-                                    .isGreaterThanOrEqualTo((Integer) rangeFilter.getMin())
-                                    .and(table.intColumn(rangeFilter.getColumn())
-                                            .isLessThanOrEqualTo((Integer) rangeFilter.getMax()));
-                            break;
-                        case "LOCAL_DATE_TIME":
-                            LocalDateTime minDateTime;
-                            LocalDateTime maxDateTime;
-                            try {
-                                minDateTime = LocalDateTime.parse(rangeFilter.getMin().toString());
-                                maxDateTime = LocalDateTime.parse(rangeFilter.getMax().toString());
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(
-                                        "Min and Max must be of type LocalDateTime for column: "
-                                                + rangeFilter.getColumn());
-                            }
-                            LOG.debug("Date range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
-                                    rangeFilter.getMin(), rangeFilter.getMax());
-                            filterSelection = table.dateTimeColumn(rangeFilter.getColumn())
-                                    .isBetweenIncluding(minDateTime, maxDateTime);
-                            break;
-                        case "LOCAL_DATE":
-                            LocalDate minDate;
-                            LocalDate maxDate;
-                            try {
-                                minDate = LocalDate.parse(rangeFilter.getMin().toString());
-                                maxDate = LocalDate.parse(rangeFilter.getMax().toString());
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(
-                                        "Min and Max must be of type LocalDate for column: " + rangeFilter.getColumn());
-                            }
-                            LOG.debug("Date range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
-                                    rangeFilter.getMin(), rangeFilter.getMax());
-                            filterSelection = table.dateColumn(rangeFilter.getColumn())
-                                    .isBetweenIncluding(minDate, maxDate);
-                            break;
-                        case "LOCAL_TIME":
-                            LocalTime minTime;
-                            LocalTime maxTime;
-                            try {
-                                minTime = LocalTime.parse(rangeFilter.getMin().toString());
-                                maxTime = LocalTime.parse(rangeFilter.getMax().toString());
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(
-                                        "Min and Max must be of type LocalTime for column: " + rangeFilter.getColumn());
-                            }
-                            LOG.debug("Date range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
-                                    rangeFilter.getMin(), rangeFilter.getMax());
-                            filterSelection = table.timeColumn(rangeFilter.getColumn())
-                                    .isOnOrAfter(minTime)
-                                    .and(table.timeColumn(rangeFilter.getColumn())
-                                            .isOnOrBefore(maxTime));
-                            break;
-                        case "INSTANT":
-                            Instant minInstant;
-                            Instant maxInstant;
-                            try {
-                                minInstant = Instant.parse(rangeFilter.getMin().toString());
-                                maxInstant = Instant.parse(rangeFilter.getMax().toString());
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(
-                                        "Min and Max must be of type Instant for column: " + rangeFilter.getColumn());
-                            }
-                            LOG.debug("Date range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
-                                    rangeFilter.getMin(), rangeFilter.getMax());
-                            filterSelection = table.instantColumn(rangeFilter.getColumn())
-                                    .isAfter(minInstant)
-                                    .and(table.instantColumn(rangeFilter.getColumn())
-                                    .isBefore(maxInstant));
-                            break;
-                        default:
-                            throw new IllegalArgumentException(
-                                    "Unsupported column type for range filter: " + columnTypeName);
-                    }
-                } else if (filter instanceof EqualsFilter) {
-                    LOG.debug("EqualsFilter detected: {}", filter);
-                    EqualsFilter<?> equalsFilter = (EqualsFilter<?>) filter;
-                    Column<?> column = table.column(equalsFilter.getColumn());
-                    String columnTypeName = column.type().name();
-                    LOG.debug("value type is: {}", equalsFilter.getValue().getClass().getName());
-                    switch (columnTypeName) {
-                        case "BOOLEAN":
-                            if (!(equalsFilter.getValue() instanceof Boolean)) {
-                                throw new IllegalArgumentException(
-                                        "Value must be of type Boolean for column: " + equalsFilter.getColumn());
-                            }
-                            LOG.debug("Double equals filtering {}, with value {}", equalsFilter.getColumn(),
-                                    equalsFilter.getValue());
-                            boolean booleanValue = Boolean.parseBoolean(equalsFilter.getValue().toString());
-                            if (booleanValue) {
-                                filterSelection = table.booleanColumn(equalsFilter.getColumn()).isTrue();
-                            } else {
-                                filterSelection = table.booleanColumn(equalsFilter.getColumn()).isFalse();
-                            }
-                            break;
-                        case "DOUBLE":
-                            if (!(equalsFilter.getValue() instanceof Double)) {
-                                throw new IllegalArgumentException(
-                                        "Value must be of type DOUBLE for column: " + equalsFilter.getColumn());
-                            }
-                            LOG.debug("Double equals filtering {}, with value {}", equalsFilter.getColumn(),
-                                    equalsFilter.getValue());
-                            double doubleValue = Double.parseDouble(equalsFilter.getValue().toString());
-                            filterSelection = table.doubleColumn(equalsFilter.getColumn()).isEqualTo(doubleValue);
-                            break;
-                        case "INTEGER":
-                            if (!(equalsFilter.getValue() instanceof Integer)) {
-                                throw new IllegalArgumentException(
-                                        "Value must be of type Integer for column: " + equalsFilter.getColumn());
-                            }
-                            LOG.debug("Integer equals filtering {}, with value {}", equalsFilter.getColumn(),
-                                    equalsFilter.getValue());
-                            int intValue = Integer.parseInt(equalsFilter.getValue().toString());
-                            filterSelection = table.intColumn(equalsFilter.getColumn()).isEqualTo(intValue);
-                            break;
-                        case "STRING":
-                            if (!(equalsFilter.getValue() instanceof String)) {
-                                throw new IllegalArgumentException(
-                                        "Value must be of type String for column: " + equalsFilter.getColumn());
-                            }
-                            LOG.debug("String equals filtering {}, with value {}", equalsFilter.getColumn(),
-                                    equalsFilter.getValue());
-                            filterSelection = table.stringColumn(equalsFilter.getColumn())
-                                    .isEqualTo(equalsFilter.getValue().toString());
-                            break;
-                        case "LOCAL_DATE_TIME":
-                            LocalDateTime localDateTimeValue;
-                            try {
-                                localDateTimeValue = LocalDateTime.parse(equalsFilter.getValue().toString());
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(
-                                        "Value must be of type LocalDateTime for column: " + equalsFilter.getColumn());
-                            }
-                            LOG.debug("DateTime equals filtering {}, with value {}", equalsFilter.getColumn(),
-                                    equalsFilter.getValue());
-                            filterSelection = table.dateTimeColumn(equalsFilter.getColumn())
-                                    .isEqualTo(localDateTimeValue);
-                            break;
-                        case "LOCAL_DATE":
-                            LocalDate date;
-                            try {
-                                date = LocalDate.parse(equalsFilter.getValue().toString());
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(
-                                        "Min and Max must be of type LocalDate for column: " + equalsFilter.getColumn());
-                            }
-                            LOG.debug("Date range filtering {}, with value {}", equalsFilter.getColumn(),
-                            equalsFilter.getValue());
-                            filterSelection = table.dateColumn(equalsFilter.getColumn())
-                                    .isEqualTo(date);
-                            break;
-                        case "LOCAL_TIME":
-                            LocalTime timeValue;
-                            try {
-                                timeValue = LocalTime.parse(equalsFilter.getValue().toString());
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(
-                                        "Value must be of type LocalTime for column: " + equalsFilter.getColumn());
-                            }
-                            LOG.debug("Time equals filtering {}, with value {}", equalsFilter.getColumn(),
-                                    equalsFilter.getValue());
-                            filterSelection = table.timeColumn(equalsFilter.getColumn())
-                                    .isEqualTo(timeValue);
-                            break;
-                        case "INSTANT":
-                            Instant instantValue;
-                            try {
-                                instantValue = Instant.parse(equalsFilter.getValue().toString());
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(
-                                        "Value must be of type Instant for column: " + equalsFilter.getColumn());
-                            }
-                            LOG.debug("Instant equals filtering {}, with value {}", equalsFilter.getColumn(),
-                                    equalsFilter.getValue());
-                            filterSelection = table.instantColumn(equalsFilter.getColumn())
-                                    .isEqualTo(instantValue);
-                            break;
-                        default:
-                            throw new IllegalArgumentException(
-                                    "Unsupported column type for equals filter: " + columnTypeName);
-                    }
-                }
+    private final PartitionedScanner scanner;
+    private final SelectionCache selectionCache = new SelectionCache();
 
-                // Add other types of filters here
-                selection = selection == null ? filterSelection : selection.and(filterSelection);
-            }
+    public TimeSeriesQueryExecutor(PartitionedScanner scanner) {
+        this.scanner = scanner;
+    }
+
+    public QueryResult queryTabularData(Table table, TimeSeriesRequest timeSeriesRequest) {
+        return queryTabularData(table, null, timeSeriesRequest);
+    }
+
+    /**
+     * Runs a time series query. Requests with a limit get one page cut straight
+     * out of the filters' selection, which is cached for tables with indexes,
+     * so a page costs the same however deep it is.
+     *
+     * @param indexes the indexes of {@code table}, or null if it is not cached
+     * @throws IllegalArgumentException if a filter does not fit its column or
+     *                                  the request's cursor is invalid
+     */
+    public QueryResult queryTabularData(Table table, TableIndexes indexes, TimeSeriesRequest timeSeriesRequest) {
+        List<AbstractFilter> filters = null;
+        if(timeSeriesRequest.getFrom() != null && timeSeriesRequest.getTo()!=null){
+            filters = timeSeriesRequest.getFilters();
+        }
+        String query = PageCursor.queryOf(filters, null);
+        Selection selection = null;
+        if (filters != null && !filters.isEmpty()) {
+            List<AbstractFilter> requestFilters = filters;
+            selection = selectionCache.get(indexes, query, () -> select(table, requestFilters));
         }
         LOG.debug("Selection is: {}", selection);
-     
-        Table resultTable = (selection != null) ? table.where(selection) : table;
-        resultTable = applyPagination(resultTable, timeSeriesRequest.getLimit(), timeSeriesRequest.getOffset());
+
+        PageCursor start = timeSeriesRequest.getCursor() != null
+                ? PageCursor.decode(timeSeriesRequest.getCursor(), query)
+                : PageCursor.at(query, timeSeriesRequest.getOffset() == null ? 0 : timeSeriesRequest.getOffset());
+        Integer limit = timeSeriesRequest.getLimit();
+        Table resultTable;
+        int rowCount;
+        String nextCursor = null;
+        if (limit != null && limit > 0) {
+            Page page = RowPager.page(table, selection, null, start, limit);
+            resultTable = page.table();
+            rowCount = page.matchedRows();
+            nextCursor = page.next() == null ? null : page.next().encode();
+        } else {
+            resultTable = (selection != null) ? scanner.where(table, selection) : table;
+            rowCount = resultTable.rowCount();
+            resultTable = applyPagination(resultTable, limit, start.position());
+        }
         resultTable = applyColumnSelection(resultTable, timeSeriesRequest.getColumns());
        
 
         LOG.info("Final table after query has {} rows.", resultTable.rowCount());
     
-        return resultTable;
+        return new QueryResult(resultTable, rowCount, nextCursor);
+
+    }
 
+    // Each filter builds its own selection, in parallel on large tables
+    private Selection select(Table table, List<AbstractFilter> filters) {
+        Selection selection = null;
+        List<Selection> filterSelections = scanner.map(table.rowCount(), filters,
+                filter -> filterSelection(table, filter));
+        for (Selection filterSelection : filterSelections) {
+            // Add other types of filters here
+            selection = selection == null ? filterSelection : selection.and(filterSelection);
+        }
+        return selection;
     }
 
 
 
 
+    private Selection filterSelection(Table table, AbstractFilter filter) {
+        Selection filterSelection = null;
+        if (filter instanceof RangeFilter) {
+            LOG.debug("RangeFilter detected: {}", filter);
+            RangeFilter<?> rangeFilter = (RangeFilter<?>) filter;
+            Column<?> column = table.column(rangeFilter.getColumn());
+            String columnTypeName = column.type().name();
+            switch (columnTypeName) {
+                case "DOUBLE":
+                    if (!(rangeFilter.getMin() instanceof Double)
+                            || !(rangeFilter.getMax() instanceof Double)) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type Double for column: " + rangeFilter.getColumn());
+                    }
+                    LOG.debug("Number range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
+                            rangeFilter.getMin(), rangeFilter.getMax());
+                    filterSelection = table.numberColumn(rangeFilter.getColumn())
+                            .isGreaterThanOrEqualTo((Double) rangeFilter.getMin())
+                            .and(table.numberColumn(rangeFilter.getColumn())
+                                    .isLessThanOrEqualTo((Double) rangeFilter.getMax()));
+                    break;
+                case "INTEGER":
+                    if (!(rangeFilter.getMin() instanceof Integer)
+                            || !(rangeFilter.getMax() instanceof Integer)) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type Integer for column: " + rangeFilter.getColumn());
+                    }
+                    LOG.debug("Integer range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
+                            rangeFilter.getMin(), rangeFilter.getMax());
+                    filterSelection = table.intColumn(rangeFilter.getColumn())
+                            .isGreaterThanOrEqualTo((Integer) rangeFilter.getMin())
+                            .and(table.intColumn(rangeFilter.getColumn())
+                                    .isLessThanOrEqualTo((Integer) rangeFilter.getMax()));
+                    break;
+                case "LOCAL_DATE_TIME":
+                    LocalDateTime minDateTime;
+                    LocalDateTime maxDateTime;
+                    try {
+                        minDateTime = LocalDateTime.parse(rangeFilter.getMin().toString());
+                        maxDateTime = LocalDateTime.parse(rangeFilter.getMax().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type LocalDateTime for column: "
+                                        + rangeFilter.getColumn());
+                    }
+                    LOG.debug("Date range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
+                            rangeFilter.getMin(), rangeFilter.getMax());
+                    filterSelection = table.dateTimeColumn(rangeFilter.getColumn())
+                            .isBetweenIncluding(minDateTime, maxDateTime);
+                    break;
+                case "LOCAL_DATE":
+                    LocalDate minDate;
+                    LocalDate maxDate;
+                    try {
+                        minDate = LocalDate.parse(rangeFilter.getMin().toString());
+                        maxDate = LocalDate.parse(rangeFilter.getMax().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type LocalDate for column: " + rangeFilter.getColumn());
+                    }
+                    LOG.debug("Date range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
+                            rangeFilter.getMin(), rangeFilter.getMax());
+                    filterSelection = table.dateColumn(rangeFilter.getColumn())
+                            .isBetweenIncluding(minDate, maxDate);
+                    break;
+                case "LOCAL_TIME":
+                    LocalTime minTime;
+                    LocalTime maxTime;
+                    try {
+                        minTime = LocalTime.parse(rangeFilter.getMin().toString());
+                        maxTime = LocalTime.parse(rangeFilter.getMax().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type LocalTime for column: " + rangeFilter.getColumn());
+                    }
+                    LOG.debug("Date range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
+                            rangeFilter.getMin(), rangeFilter.getMax());
+                    filterSelection = table.timeColumn(rangeFilter.getColumn())
+                            .isOnOrAfter(minTime)
+                            .and(table.timeColumn(rangeFilter.getColumn())
+                                    .isOnOrBefore(maxTime));
+                    break;
+                case "INSTANT":
+                    Instant minInstant;
+                    Instant maxInstant;
+                    try {
+                        minInstant = Instant.parse(rangeFilter.getMin().toString());
+                        maxInstant = Instant.parse(rangeFilter.getMax().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type Instant for column: " + rangeFilter.getColumn());
+                    }
+                    LOG.debug("Date range filtering {}, with min {} and max {}", rangeFilter.getColumn(),
+                            rangeFilter.getMin(), rangeFilter.getMax());
+                    filterSelection = table.instantColumn(rangeFilter.getColumn())
+                            .isAfter(minInstant)
+                            .and(table.instantColumn(rangeFilter.getColumn())
+                            .isBefore(maxInstant));
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Unsupported column type for range filter: " + columnTypeName);
+            }
+        } else if (filter instanceof EqualsFilter) {
+            LOG.debug("EqualsFilter detected: {}", filter);
+            EqualsFilter<?> equalsFilter = (EqualsFilter<?>) filter;
+            Column<?> column = table.column(equalsFilter.getColumn());
+            String columnTypeName = column.type().name();
+            LOG.debug("value type is: {}", equalsFilter.getValue().getClass().getName());
+            switch (columnTypeName) {
+                case "BOOLEAN":
+                    if (!(equalsFilter.getValue() instanceof Boolean)) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type Boolean for column: " + equalsFilter.getColumn());
+                    }
+                    LOG.debug("Double equals filtering {}, with value {}", equalsFilter.getColumn(),
+                            equalsFilter.getValue());
+                    boolean booleanValue = Boolean.parseBoolean(equalsFilter.getValue().toString());
+                    if (booleanValue) {
+                        filterSelection = table.booleanColumn(equalsFilter.getColumn()).isTrue();
+                    } else {
+                        filterSelection = table.booleanColumn(equalsFilter.getColumn()).isFalse();
+                    }
+                    break;
+                case "DOUBLE":
+                    if (!(equalsFilter.getValue() instanceof Double)) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type DOUBLE for column: " + equalsFilter.getColumn());
+                    }
+                    LOG.debug("Double equals filtering {}, with value {}", equalsFilter.getColumn(),
+                            equalsFilter.getValue());
+                    double doubleValue = Double.parseDouble(equalsFilter.getValue().toString());
+                    filterSelection = table.doubleColumn(equalsFilter.getColumn()).isEqualTo(doubleValue);
+                    break;
+                case "INTEGER":
+                    if (!(equalsFilter.getValue() instanceof Integer)) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type Integer for column: " + equalsFilter.getColumn());
+                    }
+                    LOG.debug("Integer equals filtering {}, with value {}", equalsFilter.getColumn(),
+                            equalsFilter.getValue());
+                    int intValue = Integer.parseInt(equalsFilter.getValue().toString());
+                    filterSelection = table.intColumn(equalsFilter.getColumn()).isEqualTo(intValue);
+                    break;
+                case "STRING":
+                    if (!(equalsFilter.getValue() instanceof String)) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type String for column: " + equalsFilter.getColumn());
+                    }
+                    LOG.debug("String equals filtering {}, with value {}", equalsFilter.getColumn(),
+                            equalsFilter.getValue());
+                    filterSelection = table.stringColumn(equalsFilter.getColumn())
+                            .isEqualTo(equalsFilter.getValue().toString());
+                    break;
+                case "LOCAL_DATE_TIME":
+                    LocalDateTime localDateTimeValue;
+                    try {
+                        localDateTimeValue = LocalDateTime.parse(equalsFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalDateTime for column: " + equalsFilter.getColumn());
+                    }
+                    LOG.debug("DateTime equals filtering {}, with value {}", equalsFilter.getColumn(),
+                            equalsFilter.getValue());
+                    filterSelection = table.dateTimeColumn(equalsFilter.getColumn())
+                            .isEqualTo(localDateTimeValue);
+                    break;
+                case "LOCAL_DATE":
+                    LocalDate date;
+                    try {
+                        date = LocalDate.parse(equalsFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type LocalDate for column: " + equalsFilter.getColumn());
+                    }
+                    LOG.debug("Date range filtering {}, with value {}", equalsFilter.getColumn(),
+                    equalsFilter.getValue());
+                    filterSelection = table.dateColumn(equalsFilter.getColumn())
+                            .isEqualTo(date);
+                    break;
+                case "LOCAL_TIME":
+                    LocalTime timeValue;
+                    try {
+                        timeValue = LocalTime.parse(equalsFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalTime for column: " + equalsFilter.getColumn());
+                    }
+                    LOG.debug("Time equals filtering {}, with value {}", equalsFilter.getColumn(),
+                            equalsFilter.getValue());
+                    filterSelection = table.timeColumn(equalsFilter.getColumn())
+                            .isEqualTo(timeValue);
+                    break;
+                case "INSTANT":
+                    Instant instantValue;
+                    try {
+                        instantValue = Instant.parse(equalsFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type Instant for column: " + equalsFilter.getColumn());
+                    }
+                    LOG.debug("Instant equals filtering {}, with value {}", equalsFilter.getColumn(),
+                            equalsFilter.getValue());
+                    filterSelection = table.instantColumn(equalsFilter.getColumn())
+                            .isEqualTo(instantValue);
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Unsupported column type for equals filter: " + columnTypeName);
+            }
+        }
+
+        return filterSelection;
+    }
+
     // Apply pagination
     private Table applyPagination(Table table, Integer limit, Integer offset) {
         if (offset != null && offset > 0) {
@@ -0,0 +1,94 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate;
+
+import java.math.BigDecimal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One aggregate of a tabular query: a function applied to a column.
+ *
+ * @param argument the quantile of {@link AggregateFunction#APPROX_QUANTILE}
+ *                 or the number of values of {@link AggregateFunction#TOP_K};
+ *                 unused by other functions
+ */
+public record Aggregate(String column, AggregateFunction function, double argument) {
+
+    private static final int DEFAULT_TOP_K = 10;
+    private static final int MAX_TOP_K = 1000;
+    private static final Pattern PERCENTILE = Pattern.compile("p(\\d{1,2}(\\.\\d+)?)");
+    private static final Pattern CALL = Pattern.compile("(approx_quantile|top_k)\\((.*)\\)");
+
+    public Aggregate(String column, AggregateFunction function) {
+        this(column, function, Double.NaN);
+    }
+
+    /**
+     * Returns the aggregate a request names for a column: a function of
+     * {@link AggregateFunction#fromName}, {@code median}, a percentile such as
+     * {@code p95}, {@code approx_quantile(q)} with {@code q} between 0 and 1,
+     * or {@code top_k} / {@code top_k(k)} for the k most frequent values
+     * (10 by default).
+     *
+     * @return the aggregate, or null if the name is unknown
+     * @throws IllegalArgumentException if the argument of a known function is
+     *                                  invalid
+     */
+    public static Aggregate parse(String column, String name) {
+        String lowerName = name.toLowerCase().replace(" ", "");
+        AggregateFunction function = AggregateFunction.fromName(lowerName);
+        if (function != null) {
+            return new Aggregate(column, function);
+        }
+        if (lowerName.equals("median")) {
+            return new Aggregate(column, AggregateFunction.APPROX_QUANTILE, 0.5);
+        }
+        if (lowerName.equals("top_k")) {
+            return new Aggregate(column, AggregateFunction.TOP_K, DEFAULT_TOP_K);
+        }
+        Matcher percentile = PERCENTILE.matcher(lowerName);
+        if (percentile.matches()) {
+            return new Aggregate(column, AggregateFunction.APPROX_QUANTILE,
+                    new BigDecimal(percentile.group(1)).movePointLeft(2).doubleValue());
+        }
+        Matcher call = CALL.matcher(lowerName);
+        if (!call.matches()) {
+            return null;
+        }
+        try {
+            if (call.group(1).equals("top_k")) {
+                int k = Integer.parseInt(call.group(2));
+                if (k >= 1 && k <= MAX_TOP_K) {
+                    return new Aggregate(column, AggregateFunction.TOP_K, k);
+                }
+            } else {
+                double q = Double.parseDouble(call.group(2));
+                if (q >= 0 && q <= 1) {
+                    return new Aggregate(column, AggregateFunction.APPROX_QUANTILE, q);
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid aggregation '" + name + "' for column '" + column
+                + "': quantiles must be between 0 and 1 and top_k between 1 and " + MAX_TOP_K);
+    }
+
+    /**
+     * Returns the name of the result column, e.g. {@code Mean_value},
+     * {@code Median_value}, {@code P95_value} or {@code Top10_value}.
+     */
+    public String resultName() {
+        switch (function) {
+            case APPROX_QUANTILE:
+                if (argument == 0.5) {
+                    return "Median_" + column;
+                }
+                return "P" + BigDecimal.valueOf(argument).movePointRight(2).stripTrailingZeros().toPlainString()
+                        + "_" + column;
+            case TOP_K:
+                return function.label() + (int) argument + "_" + column;
+            default:
+                return function.label() + "_" + column;
+        }
+    }
+}
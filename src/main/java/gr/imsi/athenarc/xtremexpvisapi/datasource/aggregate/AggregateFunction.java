@@ -0,0 +1,66 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate;
+
+/**
+ * The aggregate functions of a tabular query, labelled like Tablesaw's own
+ * summaries so result columns keep their names (e.g. {@code Mean_value}).
+ * <p>
+ * The approximate functions are computed from sketches that summarize each
+ * group in bounded memory; see {@link Aggregate#parse} for their request names.
+ */
+public enum AggregateFunction {
+    SUM("Sum"),
+    AVG("Mean"),
+    COUNT("Count"),
+    MAX("Max"),
+    MIN("Min"),
+    APPROX_DISTINCT("ApproxDistinct"),
+    APPROX_QUANTILE("Quantile"),
+    TOP_K("Top");
+
+    private final String label;
+
+    AggregateFunction(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Returns whether the function only applies to numeric columns.
+     */
+    public boolean isNumeric() {
+        return this != COUNT && this != APPROX_DISTINCT && this != TOP_K;
+    }
+
+    /**
+     * Returns whether the function is estimated from a per-group sketch.
+     */
+    public boolean isApproximate() {
+        return this == APPROX_DISTINCT || this == APPROX_QUANTILE || this == TOP_K;
+    }
+
+    /**
+     * Returns the function with the given request name, or null if there is
+     * none. Functions that take an argument are named by {@link Aggregate#parse}.
+     */
+    public static AggregateFunction fromName(String name) {
+        switch (name.toLowerCase()) {
+            case "sum":
+                return SUM;
+            case "avg":
+                return AVG;
+            case "count":
+                return COUNT;
+            case "max":
+                return MAX;
+            case "min":
+                return MIN;
+            case "approx_distinct":
+                return APPROX_DISTINCT;
+            default:
+                return null;
+        }
+    }
+}
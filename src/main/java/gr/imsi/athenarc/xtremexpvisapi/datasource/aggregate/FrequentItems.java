@@ -0,0 +1,95 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate;
+
+import java.util.Arrays;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+/**
+ * Finds the most frequent values of a group in bounded memory (the
+ * Misra-Gries summary).
+ * <p>
+ * At most {@code capacity} values are counted. When another value arrives at
+ * a full summary, the median count is subtracted from every counter and the
+ * values that reach zero are dropped. Counts are therefore exact while a group
+ * has at most {@code capacity} distinct values and lower bounds otherwise, off
+ * by at most the subtracted total, and every value more frequent than that is
+ * kept. Summaries of disjoint rows merge into the summary of their union.
+ * <p>
+ * Values are identified by a key, and one row holding each value is kept to
+ * read it back.
+ */
+final class FrequentItems {
+
+    private final int capacity;
+    private final Long2LongOpenHashMap counts = new Long2LongOpenHashMap();
+    private final Long2IntOpenHashMap rows = new Long2IntOpenHashMap();
+
+    FrequentItems(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void add(long key, int row) {
+        add(key, 1, row);
+    }
+
+    void merge(FrequentItems other) {
+        for (Long2LongMap.Entry entry : other.counts.long2LongEntrySet()) {
+            add(entry.getLongKey(), entry.getLongValue(), other.rows.get(entry.getLongKey()));
+        }
+    }
+
+    /**
+     * Returns the keys of the {@code k} most frequent values, most frequent
+     * first, ties in order of the rows holding them.
+     */
+    long[] topKeys(int k) {
+        long[] keys = counts.keySet().toLongArray();
+        LongArrays.quickSort(keys, (left, right) -> {
+            int compared = Long.compare(counts.get(right), counts.get(left));
+            return compared != 0 ? compared : Integer.compare(rows.get(left), rows.get(right));
+        });
+        return Arrays.copyOf(keys, Math.min(k, keys.length));
+    }
+
+    long count(long key) {
+        return counts.get(key);
+    }
+
+    // A row holding the value, the first one seen
+    int row(long key) {
+        return rows.get(key);
+    }
+
+    private void add(long key, long count, int row) {
+        long current = counts.addTo(key, count);
+        if (current == 0) {
+            rows.put(key, row);
+        } else if (row < rows.get(key)) {
+            rows.put(key, row);
+        }
+        if (counts.size() > capacity) {
+            reduce();
+        }
+    }
+
+    private void reduce() {
+        long[] values = counts.values().toLongArray();
+        Arrays.sort(values);
+        long median = values[values.length / 2];
+        ObjectIterator<Long2LongMap.Entry> entries = counts.long2LongEntrySet().fastIterator();
+        while (entries.hasNext()) {
+            Long2LongMap.Entry entry = entries.next();
+            long reduced = entry.getLongValue() - median;
+            if (reduced <= 0) {
+                rows.remove(entry.getLongKey());
+                entries.remove();
+            } else {
+                entry.setValue(reduced);
+            }
+        }
+    }
+}
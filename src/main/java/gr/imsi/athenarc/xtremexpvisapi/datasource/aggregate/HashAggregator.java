@@ -0,0 +1,429 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.NumericColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+
+/**
+ * Groups the rows of a table and computes all requested aggregates in one pass
+ * over the rows.
+ * <p>
+ * Every row gets a primitive {@code long} group key: the value of a single
+ * group-by column as Tablesaw stores it (dictionary keys for strings, packed
+ * dates and times), or a combined code of several columns. Large tables are
+ * split into chunks that are aggregated in parallel into hash tables keyed by
+ * that key, and the chunks' partial sums, counts, minimums and maximums are
+ * merged in row order.
+ * <p>
+ * Results match Tablesaw's summaries: groups come out in order of first
+ * appearance, missing values are skipped, the sum of no values is 0, and the
+ * mean, maximum and minimum of no values are missing. Without group-by columns
+ * the result is a single row, even for an empty table.
+ * <p>
+ * Approximate aggregates keep one sketch per group instead: a
+ * {@link HyperLogLog} for distinct counts, a {@link QuantileSketch} for
+ * quantiles and {@link FrequentItems} for the most frequent values. They are
+ * built in the same pass and merged across chunks like the sums, so memory per
+ * group stays bounded however many rows it has.
+ */
+public class HashAggregator {
+
+    private static final int CHUNKS_PER_THREAD = 4;
+    // Values a top-k summary counts per value it returns
+    private static final int TOP_K_CAPACITY_FACTOR = 8;
+    private static final int MIN_TOP_K_CAPACITY = 64;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ForkJoinPool pool;
+    private final int parallelMinRows;
+
+    /**
+     * @param pool            the pool that aggregates chunks of large tables
+     * @param parallelMinRows tables with fewer rows are aggregated in one chunk
+     */
+    public HashAggregator(ForkJoinPool pool, int parallelMinRows) {
+        this.pool = pool;
+        this.parallelMinRows = parallelMinRows;
+    }
+
+    /**
+     * Computes the given aggregates per group of the given columns.
+     *
+     * @param groupBy    the group-by columns; empty for a single global group
+     * @param aggregates the aggregates, one result column each; repeated
+     *                   aggregates are computed once
+     * @return the group-by columns followed by one column per aggregate, named
+     *         by {@link Aggregate#resultName()}
+     * @throws IllegalArgumentException if a numeric function, such as a sum or
+     *                                  a quantile, is applied to a non-numeric
+     *                                  column
+     */
+    public Table aggregate(Table table, List<String> groupBy, List<Aggregate> aggregates) {
+        List<Column<?>> groupColumns = new ArrayList<>();
+        for (String name : new LinkedHashSet<>(groupBy)) {
+            groupColumns.add(table.column(name));
+        }
+        Map<String, Aggregate> results = new LinkedHashMap<>();
+        for (Aggregate aggregate : aggregates) {
+            results.putIfAbsent(aggregate.resultName(), aggregate);
+        }
+        Map<String, Integer> measureIndexes = new LinkedHashMap<>();
+        List<Measure> measures = new ArrayList<>();
+        Map<String, Integer> sketchIndexes = new LinkedHashMap<>();
+        List<SketchMeasure> sketchMeasures = new ArrayList<>();
+        for (Map.Entry<String, Aggregate> entry : results.entrySet()) {
+            Aggregate aggregate = entry.getValue();
+            Column<?> column = table.column(aggregate.column());
+            if (!(column instanceof NumericColumn) && aggregate.function().isNumeric()) {
+                throw new IllegalArgumentException("Cannot compute " + aggregate.function().name().toLowerCase()
+                        + " of non-numeric column '" + column.name() + "'");
+            }
+            if (aggregate.function().isApproximate()) {
+                sketchIndexes.put(entry.getKey(), sketchMeasures.size());
+                sketchMeasures.add(new SketchMeasure(aggregate, column, table.rowCount()));
+                continue;
+            }
+            measureIndexes.computeIfAbsent(column.name(), name -> {
+                measures.add(new Measure(column));
+                return measures.size() - 1;
+            });
+        }
+
+        RowKeys keys = RowKeys.of(groupColumns, table.rowCount());
+        Measure[] measureArray = measures.toArray(new Measure[0]);
+        SketchMeasure[] sketchArray = sketchMeasures.toArray(new SketchMeasure[0]);
+        Partial merged = aggregateRows(keys, measureArray, sketchArray, table.rowCount());
+        if (groupColumns.isEmpty() && merged.size == 0) {
+            merged.group(0, -1);
+        }
+
+        Table result = Table.create(table.name() + " summary");
+        int[] firstRows = Arrays.copyOf(merged.firstRows, merged.size);
+        for (Column<?> column : groupColumns) {
+            result.addColumns(column.subset(firstRows));
+        }
+        for (Map.Entry<String, Aggregate> entry : results.entrySet()) {
+            Integer sketch = sketchIndexes.get(entry.getKey());
+            if (sketch != null) {
+                result.addColumns(sketchArray[sketch].result(entry.getKey(), merged.sketches[sketch], merged.size));
+                continue;
+            }
+            int measure = measureIndexes.get(entry.getValue().column());
+            result.addColumns(DoubleColumn.create(entry.getKey(),
+                    merged.values(measure, entry.getValue().function())));
+        }
+        return result;
+    }
+
+    private Partial aggregateRows(RowKeys keys, Measure[] measures, SketchMeasure[] sketchMeasures, int rowCount) {
+        if (rowCount < parallelMinRows || pool.getParallelism() < 2) {
+            return aggregateChunk(keys, measures, sketchMeasures, 0, rowCount);
+        }
+        int chunkCount = pool.getParallelism() * CHUNKS_PER_THREAD;
+        int chunkRows = (rowCount + chunkCount - 1) / chunkCount;
+        Partial[] partials = pool.submit(() -> IntStream.range(0, chunkCount).parallel()
+                .mapToObj(i -> aggregateChunk(keys, measures, sketchMeasures, Math.min(rowCount, i * chunkRows),
+                        Math.min(rowCount, (i + 1) * chunkRows)))
+                .toArray(Partial[]::new)).join();
+        // Chunks are merged in row order, so groups keep their first appearance
+        Partial merged = partials[0];
+        for (int i = 1; i < partials.length; i++) {
+            merged.merge(partials[i]);
+        }
+        return merged;
+    }
+
+    private static Partial aggregateChunk(RowKeys keys, Measure[] measures, SketchMeasure[] sketchMeasures, int from,
+            int to) {
+        Partial partial = new Partial(measures.length, sketchMeasures);
+        for (int row = from; row < to; row++) {
+            int group = partial.group(keys.key(row), row);
+            for (int m = 0; m < measures.length; m++) {
+                Measure measure = measures[m];
+                if (measure.values != null) {
+                    double value = measure.values.getDouble(row);
+                    if (!Double.isNaN(value)) {
+                        partial.add(m, group, value);
+                    }
+                } else if (!isMissing(measure.column, row)) {
+                    partial.counts[m][group]++;
+                }
+            }
+            for (int s = 0; s < sketchMeasures.length; s++) {
+                sketchMeasures[s].add(partial.sketch(s, group), row);
+            }
+        }
+        return partial;
+    }
+
+    // A column that is aggregated; values is null when only its count is needed
+    private static final class Measure {
+        final Column<?> column;
+        final NumericColumn<?> values;
+
+        Measure(Column<?> column) {
+            this.column = column;
+            this.values = column instanceof NumericColumn ? (NumericColumn<?>) column : null;
+        }
+
+    }
+
+    private static boolean isMissing(Column<?> column, int row) {
+        // Like Tablesaw's count, compare string values: its dictionary does not
+        // flag empty strings set after loading as missing
+        if (column instanceof StringColumn strings) {
+            return strings.get(row).isEmpty();
+        }
+        return column.isMissing(row);
+    }
+
+    // An approximate aggregate, summarized per group by a sketch created on the group's first row
+    private static final class SketchMeasure {
+        final Aggregate aggregate;
+        final Column<?> column;
+        final RowKeys keys;
+        final NumericColumn<?> values;
+
+        SketchMeasure(Aggregate aggregate, Column<?> column, int rowCount) {
+            this.aggregate = aggregate;
+            this.column = column;
+            boolean quantile = aggregate.function() == AggregateFunction.APPROX_QUANTILE;
+            this.keys = quantile ? null : RowKeys.of(column, rowCount);
+            this.values = quantile ? (NumericColumn<?>) column : null;
+        }
+
+        Object create() {
+            switch (aggregate.function()) {
+                case APPROX_DISTINCT:
+                    return new HyperLogLog();
+                case APPROX_QUANTILE:
+                    return new QuantileSketch();
+                default:
+                    return new FrequentItems(
+                            Math.max(MIN_TOP_K_CAPACITY, (int) aggregate.argument() * TOP_K_CAPACITY_FACTOR));
+            }
+        }
+
+        void add(Object sketch, int row) {
+            switch (aggregate.function()) {
+                case APPROX_DISTINCT:
+                    if (!isMissing(column, row)) {
+                        ((HyperLogLog) sketch).add(HyperLogLog.hash(keys.key(row)));
+                    }
+                    break;
+                case APPROX_QUANTILE:
+                    double value = values.getDouble(row);
+                    if (!Double.isNaN(value)) {
+                        ((QuantileSketch) sketch).add(value);
+                    }
+                    break;
+                default:
+                    if (!isMissing(column, row)) {
+                        ((FrequentItems) sketch).add(keys.key(row), row);
+                    }
+                    break;
+            }
+        }
+
+        void merge(Object into, Object from) {
+            switch (aggregate.function()) {
+                case APPROX_DISTINCT:
+                    ((HyperLogLog) into).merge((HyperLogLog) from);
+                    break;
+                case APPROX_QUANTILE:
+                    ((QuantileSketch) into).merge((QuantileSketch) from);
+                    break;
+                default:
+                    ((FrequentItems) into).merge((FrequentItems) from);
+                    break;
+            }
+        }
+
+        /**
+         * Returns the aggregate of every group: distinct counts and quantiles as
+         * numbers, the most frequent values as a JSON array of value and count
+         * pairs.
+         */
+        Column<?> result(String name, Object[] sketches, int size) {
+            switch (aggregate.function()) {
+                case APPROX_DISTINCT: {
+                    double[] counts = new double[size];
+                    for (int group = 0; group < size; group++) {
+                        counts[group] = sketches[group] == null ? 0 : ((HyperLogLog) sketches[group]).estimate();
+                    }
+                    return DoubleColumn.create(name, counts);
+                }
+                case APPROX_QUANTILE: {
+                    double[] quantiles = new double[size];
+                    for (int group = 0; group < size; group++) {
+                        quantiles[group] = sketches[group] == null ? Double.NaN
+                                : ((QuantileSketch) sketches[group]).quantile(aggregate.argument());
+                    }
+                    return DoubleColumn.create(name, quantiles);
+                }
+                default: {
+                    StringColumn top = StringColumn.create(name);
+                    for (int group = 0; group < size; group++) {
+                        List<Map<String, Object>> items = new ArrayList<>();
+                        if (sketches[group] != null) {
+                            FrequentItems frequentItems = (FrequentItems) sketches[group];
+                            for (long key : frequentItems.topKeys((int) aggregate.argument())) {
+                                Map<String, Object> item = new LinkedHashMap<>();
+                                item.put("value", column.getString(frequentItems.row(key)));
+                                item.put("count", frequentItems.count(key));
+                                items.add(item);
+                            }
+                        }
+                        try {
+                            top.append(MAPPER.writeValueAsString(items));
+                        } catch (JsonProcessingException e) {
+                            throw new IllegalStateException("Failed to serialize top values", e);
+                        }
+                    }
+                    return top;
+                }
+            }
+        }
+    }
+
+    // The groups of some rows, numbered in order of first appearance, and the running aggregates of each measure
+    private static final class Partial {
+        final Long2IntOpenHashMap groups = new Long2IntOpenHashMap();
+        long[] keys = new long[16];
+        int[] firstRows = new int[16];
+        int size;
+        final double[][] sums;
+        final long[][] counts;
+        final double[][] maxs;
+        final double[][] mins;
+        final SketchMeasure[] sketchMeasures;
+        // Sketch of each approximate aggregate per group, null until the group has a row
+        final Object[][] sketches;
+
+        Partial(int measures, SketchMeasure[] sketchMeasures) {
+            groups.defaultReturnValue(-1);
+            sums = new double[measures][16];
+            counts = new long[measures][16];
+            maxs = new double[measures][16];
+            mins = new double[measures][16];
+            for (int m = 0; m < measures; m++) {
+                Arrays.fill(maxs[m], Double.NEGATIVE_INFINITY);
+                Arrays.fill(mins[m], Double.POSITIVE_INFINITY);
+            }
+            this.sketchMeasures = sketchMeasures;
+            sketches = new Object[sketchMeasures.length][16];
+        }
+
+        Object sketch(int sketchMeasure, int group) {
+            Object sketch = sketches[sketchMeasure][group];
+            if (sketch == null) {
+                sketch = sketchMeasures[sketchMeasure].create();
+                sketches[sketchMeasure][group] = sketch;
+            }
+            return sketch;
+        }
+
+        int group(long key, int row) {
+            int group = groups.get(key);
+            if (group >= 0) {
+                return group;
+            }
+            group = size++;
+            if (group == keys.length) {
+                grow();
+            }
+            groups.put(key, group);
+            keys[group] = key;
+            firstRows[group] = row;
+            return group;
+        }
+
+        void add(int measure, int group, double value) {
+            sums[measure][group] += value;
+            counts[measure][group]++;
+            maxs[measure][group] = Math.max(maxs[measure][group], value);
+            mins[measure][group] = Math.min(mins[measure][group], value);
+        }
+
+        void merge(Partial other) {
+            for (int from = 0; from < other.size; from++) {
+                int group = group(other.keys[from], other.firstRows[from]);
+                for (int m = 0; m < sums.length; m++) {
+                    sums[m][group] += other.sums[m][from];
+                    counts[m][group] += other.counts[m][from];
+                    maxs[m][group] = Math.max(maxs[m][group], other.maxs[m][from]);
+                    mins[m][group] = Math.min(mins[m][group], other.mins[m][from]);
+                }
+                for (int s = 0; s < sketches.length; s++) {
+                    Object sketch = other.sketches[s][from];
+                    if (sketch == null) {
+                        continue;
+                    }
+                    if (sketches[s][group] == null) {
+                        sketches[s][group] = sketch;
+                    } else {
+                        sketchMeasures[s].merge(sketches[s][group], sketch);
+                    }
+                }
+            }
+        }
+
+        double[] values(int measure, AggregateFunction function) {
+            double[] values = new double[size];
+            for (int group = 0; group < size; group++) {
+                long count = counts[measure][group];
+                switch (function) {
+                    case SUM:
+                        values[group] = sums[measure][group];
+                        break;
+                    case AVG:
+                        values[group] = count == 0 ? Double.NaN : sums[measure][group] / count;
+                        break;
+                    case COUNT:
+                        values[group] = count;
+                        break;
+                    case MAX:
+                        values[group] = count == 0 ? Double.NaN : maxs[measure][group];
+                        break;
+                    case MIN:
+                        values[group] = count == 0 ? Double.NaN : mins[measure][group];
+                        break;
+                }
+            }
+            return values;
+        }
+
+        private void grow() {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            firstRows = Arrays.copyOf(firstRows, capacity);
+            for (int m = 0; m < sums.length; m++) {
+                int old = sums[m].length;
+                sums[m] = Arrays.copyOf(sums[m], capacity);
+                counts[m] = Arrays.copyOf(counts[m], capacity);
+                maxs[m] = Arrays.copyOf(maxs[m], capacity);
+                mins[m] = Arrays.copyOf(mins[m], capacity);
+                Arrays.fill(maxs[m], old, capacity, Double.NEGATIVE_INFINITY);
+                Arrays.fill(mins[m], old, capacity, Double.POSITIVE_INFINITY);
+            }
+            for (int s = 0; s < sketches.length; s++) {
+                sketches[s] = Arrays.copyOf(sketches[s], capacity);
+            }
+        }
+    }
+}
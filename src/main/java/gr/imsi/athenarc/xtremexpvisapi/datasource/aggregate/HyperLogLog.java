@@ -0,0 +1,100 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * Estimates the number of distinct values of a group in bounded memory.
+ * <p>
+ * Values are given as 64-bit hashes. Up to a few hundred distinct hashes are
+ * kept as they are and counted exactly; beyond that they are folded into the
+ * 4096 registers of a HyperLogLog sketch, whose estimate is within about 2% of
+ * the true count. Sketches of disjoint rows merge into the sketch of their
+ * union, so chunks of a table can be counted separately.
+ */
+final class HyperLogLog {
+
+    private static final int PRECISION = 12;
+    private static final int REGISTERS = 1 << PRECISION;
+    // The exact set takes about as much memory as the registers at this size
+    private static final int MAX_EXACT = 256;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private LongOpenHashSet exact = new LongOpenHashSet();
+    private byte[] registers;
+
+    void add(long hash) {
+        if (registers != null) {
+            addToRegisters(hash);
+        } else if (exact.add(hash) && exact.size() > MAX_EXACT) {
+            toRegisters();
+        }
+    }
+
+    void merge(HyperLogLog other) {
+        if (other.registers == null) {
+            LongIterator hashes = other.exact.iterator();
+            while (hashes.hasNext()) {
+                add(hashes.nextLong());
+            }
+            return;
+        }
+        if (registers == null) {
+            toRegisters();
+        }
+        for (int i = 0; i < REGISTERS; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+
+    long estimate() {
+        if (registers == null) {
+            return exact.size();
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // Linear counting is more accurate for small counts
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Mixes the bits of a value (the finalizer of MurmurHash3), so that values
+     * such as dictionary keys or packed dates hash uniformly. Distinct values
+     * get distinct hashes.
+     */
+    static long hash(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private void toRegisters() {
+        registers = new byte[REGISTERS];
+        LongIterator hashes = exact.iterator();
+        while (hashes.hasNext()) {
+            addToRegisters(hashes.nextLong());
+        }
+        exact = null;
+    }
+
+    private void addToRegisters(long hash) {
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION), Long.SIZE - PRECISION) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+}
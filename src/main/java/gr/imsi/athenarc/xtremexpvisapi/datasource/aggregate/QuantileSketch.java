@@ -0,0 +1,140 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleArrays;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+/**
+ * Estimates quantiles of the values of a group in bounded memory (a KLL
+ * sketch).
+ * <p>
+ * Values enter the first of a stack of levels. When a level is full it is
+ * sorted and every other value moves up a level, where each value stands for
+ * twice as many. Lower levels get geometrically smaller capacities, so a
+ * sketch holds a few hundred values however many it has seen, and the rank of
+ * an estimated quantile is within about 1% of the requested one. Up to 200
+ * values the quantiles are exact. Sketches of disjoint rows merge into the
+ * sketch of their union.
+ */
+final class QuantileSketch {
+
+    private static final int K = 200;
+    private static final int MIN_CAPACITY = 8;
+
+    // Level h holds values of weight 2^h
+    private final List<DoubleArrayList> levels = new ArrayList<>();
+    private long count;
+    // Chooses which half of a full level moves up; seeded by the values so results are repeatable
+    private long random = 0x9e3779b97f4a7c15L;
+
+    QuantileSketch() {
+        levels.add(new DoubleArrayList());
+    }
+
+    void add(double value) {
+        levels.get(0).add(value);
+        count++;
+        if (levels.get(0).size() >= capacity(0)) {
+            compact();
+        }
+    }
+
+    void merge(QuantileSketch other) {
+        for (int h = 0; h < other.levels.size(); h++) {
+            if (h == levels.size()) {
+                levels.add(new DoubleArrayList());
+            }
+            levels.get(h).addAll(other.levels.get(h));
+        }
+        count += other.count;
+        compact();
+    }
+
+    /**
+     * Returns the value at the given rank: the smallest value such that a
+     * fraction {@code q} of all values is at most it.
+     *
+     * @return the value, or NaN if the sketch has seen no values
+     */
+    double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        int size = 0;
+        for (DoubleArrayList level : levels) {
+            size += level.size();
+        }
+        double[] values = new double[size];
+        long[] weights = new long[size];
+        int i = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            DoubleArrayList level = levels.get(h);
+            for (int j = 0; j < level.size(); j++) {
+                values[i] = level.getDouble(j);
+                weights[i++] = 1L << h;
+            }
+        }
+        int[] order = new int[size];
+        for (int j = 0; j < size; j++) {
+            order[j] = j;
+        }
+        IntArrays.quickSort(order, (left, right) -> Double.compare(values[left], values[right]));
+        double rank = Math.max(1, Math.ceil(q * count));
+        long cumulative = 0;
+        for (int j : order) {
+            cumulative += weights[j];
+            if (cumulative >= rank) {
+                return values[j];
+            }
+        }
+        return values[order[size - 1]];
+    }
+
+    // Capacities shrink by 2/3 per level below the top one
+    private int capacity(int level) {
+        int depth = levels.size() - 1 - level;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(K * Math.pow(2.0 / 3, depth)));
+    }
+
+    private void compact() {
+        for (int h = 0; h < levels.size(); h++) {
+            DoubleArrayList level = levels.get(h);
+            if (level.size() < capacity(h)) {
+                continue;
+            }
+            if (h + 1 == levels.size()) {
+                levels.add(new DoubleArrayList());
+            }
+            DoubleArrayList next = levels.get(h + 1);
+            double[] values = level.toDoubleArray();
+            DoubleArrays.quickSort(values);
+            // An odd value out stays on this level
+            int from = values.length % 2;
+            int offset = nextBit(values[values.length / 2]);
+            for (int i = from + offset; i < values.length; i += 2) {
+                next.add(values[i]);
+            }
+            level.clear();
+            if (from == 1) {
+                level.add(values[0]);
+            }
+        }
+    }
+
+    /**
+     * Returns a pseudo-random bit. The value is mixed in so that sketches of
+     * different chunks, which would otherwise start from the same state and
+     * make the same choices, err independently and their errors cancel out
+     * when merged rather than add up.
+     */
+    private int nextBit(double value) {
+        random ^= HyperLogLog.hash(Double.doubleToLongBits(value));
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (int) (random & 1);
+    }
+}
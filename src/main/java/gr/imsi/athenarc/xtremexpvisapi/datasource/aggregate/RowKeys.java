@@ -0,0 +1,119 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate;
+
+import java.util.List;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DateTimeColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.FloatColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.LongColumn;
+import tech.tablesaw.api.ShortColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.TimeColumn;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.columns.strings.DictionaryMap;
+
+/**
+ * The group key of each row of a table, as a primitive {@code long}: rows with
+ * equal keys have equal values in every group-by column.
+ */
+@FunctionalInterface
+public interface RowKeys {
+
+    long key(int row);
+
+    /**
+     * Returns the group key of every row: the stored value of a single column,
+     * or the dense codes of several columns combined.
+     */
+    static RowKeys of(List<Column<?>> groupColumns, int rowCount) {
+        if (groupColumns.isEmpty()) {
+            return row -> 0;
+        }
+        if (groupColumns.size() == 1) {
+            return of(groupColumns.get(0), rowCount);
+        }
+        int[] codes = new int[rowCount];
+        long cardinality = 1;
+        for (Column<?> column : groupColumns) {
+            RowKeys columnKeys = of(column, rowCount);
+            Long2IntOpenHashMap dense = new Long2IntOpenHashMap();
+            dense.defaultReturnValue(-1);
+            int[] columnCodes = new int[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                columnCodes[row] = code(dense, columnKeys.key(row));
+            }
+            long combined = cardinality * Math.max(1, dense.size());
+            if (combined <= Integer.MAX_VALUE) {
+                for (int row = 0; row < rowCount; row++) {
+                    codes[row] = (int) (codes[row] * (long) dense.size() + columnCodes[row]);
+                }
+                cardinality = combined;
+            } else {
+                // Renumber the combinations that occur, of which there are at most rowCount
+                Long2IntOpenHashMap pairs = new Long2IntOpenHashMap();
+                pairs.defaultReturnValue(-1);
+                for (int row = 0; row < rowCount; row++) {
+                    codes[row] = code(pairs, codes[row] * (long) dense.size() + columnCodes[row]);
+                }
+                cardinality = Math.max(1, pairs.size());
+            }
+        }
+        return row -> codes[row];
+    }
+
+    static RowKeys of(Column<?> column, int rowCount) {
+        switch (column.type().name()) {
+            case "STRING": {
+                DictionaryMap dictionary = ((StringColumn) column).getDictionary();
+                return dictionary::getKeyForIndex;
+            }
+            case "BOOLEAN":
+                return ((BooleanColumn) column)::getByte;
+            case "SHORT":
+                return ((ShortColumn) column)::getShort;
+            case "INTEGER":
+                return ((IntColumn) column)::getInt;
+            case "LONG":
+                return ((LongColumn) column)::getLong;
+            case "FLOAT": {
+                FloatColumn floats = (FloatColumn) column;
+                return row -> Float.floatToIntBits(floats.getFloat(row));
+            }
+            case "DOUBLE": {
+                DoubleColumn doubles = (DoubleColumn) column;
+                return row -> Double.doubleToLongBits(doubles.getDouble(row));
+            }
+            case "LOCAL_DATE":
+                return ((DateColumn) column)::getIntInternal;
+            case "LOCAL_TIME":
+                return ((TimeColumn) column)::getIntInternal;
+            case "LOCAL_DATE_TIME":
+                return ((DateTimeColumn) column)::getLongInternal;
+            case "INSTANT":
+                return ((InstantColumn) column)::getLongInternal;
+            default: {
+                Object2IntOpenHashMap<String> dense = new Object2IntOpenHashMap<>();
+                int[] codes = new int[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    codes[row] = dense.computeIfAbsent(column.getString(row), value -> dense.size());
+                }
+                return row -> codes[row];
+            }
+        }
+    }
+
+    private static int code(Long2IntOpenHashMap dense, long key) {
+        int code = dense.get(key);
+        if (code < 0) {
+            code = dense.size();
+            dense.put(key, code);
+        }
+        return code;
+    }
+}
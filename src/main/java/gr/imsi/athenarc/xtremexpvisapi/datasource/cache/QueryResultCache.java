@@ -0,0 +1,170 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DataSource;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DatasetFingerprint;
+
+/**
+ * Cache of serialized query responses, so that identical requests on an
+ * unchanged dataset are answered without querying or serializing again.
+ * <p>
+ * Entries are keyed by the endpoint, the dataset, the
+ * {@linkplain DatasetFingerprint fingerprints} of its files and a hash of the
+ * request in canonical form: filters in a fixed order, empty lists dropped and
+ * pagination defaults applied. A rewritten file changes the key, and the
+ * entries of its previous version are dropped the first time the new version
+ * is queried. Entries are weighted by their size in bytes and evicted roughly
+ * least recently used first.
+ */
+@Component
+public class QueryResultCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryResultCache.class);
+
+    // Rough overhead of an entry besides its bytes (key, hash, map slots)
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper canonicalMapper = new ObjectMapper();
+    private final Cache<ResultKey, byte[]> results;
+    private final Map<String, List<DatasetFingerprint>> currentVersions = new ConcurrentHashMap<>();
+    private final LongAdder invalidations = new LongAdder();
+    private final long maximumWeight;
+
+    /**
+     * @param objectMapper the mapper that serializes responses, so cached bytes
+     *                     match what the endpoint would write
+     */
+    public QueryResultCache(ObjectMapper objectMapper, DataEngineProperties dataEngineProperties) {
+        this.objectMapper = objectMapper;
+        this.maximumWeight = dataEngineProperties.getResultCacheSize().toBytes();
+        this.results = CacheBuilder.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((ResultKey key, byte[] bytes) -> bytes.length + ENTRY_OVERHEAD)
+                .recordStats()
+                .build();
+        LOG.info("Query result cache initialized with a budget of {} bytes", maximumWeight);
+    }
+
+    /**
+     * Returns the serialized response to a request, running the query only if
+     * the same request on the same version of the dataset is not cached.
+     *
+     * @param endpoint   the kind of query, e.g. {@code tabular}
+     * @param dataSource the dataset the request is bound to
+     * @param request    the request; it must not be modified by the query
+     * @param query      runs the query and returns the response to serialize
+     * @return the response as JSON bytes
+     */
+    public byte[] get(String endpoint, DataSource dataSource, Object request, Supplier<?> query) {
+        List<DatasetFingerprint> version = maximumWeight > 0 ? dataSource.getFingerprints() : List.of();
+        if (version.isEmpty()) {
+            // Nothing on disk to key the result on, e.g. a missing file: let the query report it
+            return serialize(query.get());
+        }
+        String source = dataSource.getSource();
+        List<DatasetFingerprint> previous = currentVersions.put(source, version);
+        if (previous != null && !previous.equals(version)) {
+            LOG.info("Dataset {} changed on disk, dropping its cached query results", source);
+            results.asMap().keySet().removeIf(key -> key.source().equals(source) && !key.version().equals(version));
+            invalidations.increment();
+        }
+
+        ResultKey key = new ResultKey(endpoint, source, version, canonicalHash(request));
+        try {
+            return results.get(key, () -> serialize(query.get()));
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public QueryResultCacheStats stats() {
+        CacheStats stats = results.stats();
+        long weightedSize = 0;
+        for (byte[] bytes : results.asMap().values()) {
+            weightedSize += bytes.length + ENTRY_OVERHEAD;
+        }
+        return new QueryResultCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                invalidations.sum(), results.size(), weightedSize, maximumWeight);
+    }
+
+    /**
+     * Hashes a request in canonical form, so requests that only differ in the
+     * order of their fields or filters or in spelling out defaults share one
+     * entry. The dataset is part of the cache key, not of the hash.
+     */
+    String canonicalHash(Object request) {
+        // Fields in name order; maps within them keep theirs, as aggregations return columns in it
+        Map<String, Object> canonical = new TreeMap<>(
+                canonicalMapper.convertValue(request, new TypeReference<Map<String, Object>>() {
+                }));
+        canonical.remove("datasetId");
+        canonical.remove("type");
+        canonical.values().removeIf(value -> value == null
+                || value instanceof Collection<?> collection && collection.isEmpty()
+                || value instanceof Map<?, ?> map && map.isEmpty());
+        // Filters are combined with AND, so their order does not matter
+        if (canonical.get("filters") instanceof List<?> filters) {
+            List<String> sorted = new ArrayList<>();
+            for (Object filter : filters) {
+                sorted.add(toJson(filter));
+            }
+            sorted.sort(Comparator.naturalOrder());
+            canonical.put("filters", sorted);
+        }
+        // Negative offsets are read as 0, and any limit below 1 means no limit, like a missing one
+        if (canonical.get("offset") instanceof Number offset && offset.intValue() <= 0) {
+            canonical.remove("offset");
+        }
+        if (canonical.get("limit") instanceof Number limit && limit.intValue() <= 0) {
+            canonical.remove("limit");
+        }
+        return Hashing.sha256().hashString(toJson(canonical), StandardCharsets.UTF_8).toString();
+    }
+
+    private String toJson(Object value) {
+        try {
+            return canonicalMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be serialized: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private byte[] serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize query response", e);
+        }
+    }
+
+    private record ResultKey(String endpoint, String source, List<DatasetFingerprint> version, String requestHash) {
+    }
+}
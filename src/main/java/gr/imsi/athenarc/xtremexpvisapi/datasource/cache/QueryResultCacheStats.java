@@ -0,0 +1,11 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.cache;
+
+public record QueryResultCacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        long invalidations,
+        long entries,
+        long weightedSizeBytes,
+        long maximumWeightBytes) {
+}
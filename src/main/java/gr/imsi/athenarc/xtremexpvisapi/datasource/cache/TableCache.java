@@ -0,0 +1,235 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.cache;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DatasetFingerprint;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+
+/**
+ * Cache of parsed tables keyed by {@link DatasetFingerprint}, so a rewritten
+ * file is never served from a stale entry.
+ * <p>
+ * Entries are weighted by their estimated heap footprint and the least recently
+ * used ones are evicted once the configured budget is exceeded. Concurrent
+ * requests for the same fingerprint share a single load. Cached tables are
+ * shared between requests and must be treated as read-only.
+ */
+@Component
+public class TableCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TableCache.class);
+
+    // Rough per-value overhead of a dictionary-encoded string (object header, array, map slots)
+    private static final int STRING_DICTIONARY_OVERHEAD = 64;
+
+    private final ConcurrentHashMap<DatasetFingerprint, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Path, DatasetFingerprint> currentFingerprints = new ConcurrentHashMap<>();
+    private final AtomicLong accessClock = new AtomicLong();
+    private final AtomicLong weightedSize = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final long maximumWeight;
+
+    public TableCache(DataEngineProperties dataEngineProperties) {
+        this.maximumWeight = dataEngineProperties.getCacheSize().toBytes();
+        LOG.info("Table cache initialized with a budget of {} bytes", maximumWeight);
+    }
+
+    /**
+     * Returns the parsed table for the current version of the given file, loading
+     * it with {@code loader} if it is not cached yet.
+     *
+     * @param path   the file to read
+     * @param loader loads the table for the given version of the file
+     * @return the cached or freshly loaded table
+     */
+    public Table get(Path path, Function<DatasetFingerprint, Table> loader) {
+        DatasetFingerprint fingerprint = DatasetFingerprint.of(path);
+        CacheEntry entry = entries.get(fingerprint);
+        if (entry != null) {
+            hits.increment();
+            return entry.touch(accessClock.incrementAndGet()).join();
+        }
+
+        CacheEntry newEntry = new CacheEntry(accessClock.incrementAndGet());
+        entry = entries.putIfAbsent(fingerprint, newEntry);
+        if (entry != null) {
+            // Another request is already loading (or has loaded) this version
+            hits.increment();
+            return entry.touch(accessClock.incrementAndGet()).join();
+        }
+
+        misses.increment();
+        DatasetFingerprint previous = currentFingerprints.put(fingerprint.path(), fingerprint);
+        try {
+            return load(fingerprint, newEntry, loader);
+        } finally {
+            // The previous version stays available to the loader, e.g. to append new rows to it
+            if (previous != null && !previous.equals(fingerprint)) {
+                LOG.info("File {} changed on disk, dropping the cached table", fingerprint.path());
+                remove(previous);
+            }
+        }
+    }
+
+    /**
+     * Returns the table cached for exactly the given file version, without
+     * loading it or counting a hit or miss.
+     *
+     * @param fingerprint the file version
+     * @return the table, or empty if it is not cached or still loading
+     */
+    public Optional<Table> getIfPresent(DatasetFingerprint fingerprint) {
+        CacheEntry entry = entries.get(fingerprint);
+        if (entry == null || !entry.future.isDone() || entry.future.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.future.join());
+    }
+
+    private Table load(DatasetFingerprint fingerprint, CacheEntry entry, Function<DatasetFingerprint, Table> loader) {
+        Table table;
+        try {
+            table = loader.apply(fingerprint);
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            entries.remove(fingerprint, entry);
+            currentFingerprints.remove(fingerprint.path(), fingerprint);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        entry.weight = estimateWeight(table);
+        entry.future.complete(table);
+        synchronized (this) {
+            // The entry may have been invalidated while it was loading
+            if (entries.get(fingerprint) == entry) {
+                entry.counted = true;
+                weightedSize.addAndGet(entry.weight);
+                evictIfNeeded(fingerprint);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Drops any cached version of the given file.
+     *
+     * @param path the file whose table should be discarded
+     */
+    public void invalidate(Path path) {
+        DatasetFingerprint fingerprint = currentFingerprints.remove(path.toAbsolutePath().normalize());
+        if (fingerprint != null) {
+            remove(fingerprint);
+        }
+    }
+
+    /**
+     * Returns whether the current version of the given file is cached or being
+     * loaded.
+     *
+     * @param path the file to look up
+     * @return {@code true} if {@link #get} would not parse the file again
+     */
+    public boolean contains(Path path) {
+        return entries.containsKey(DatasetFingerprint.of(path));
+    }
+
+    public TableCacheStats stats() {
+        return new TableCacheStats(hits.sum(), misses.sum(), evictions.sum(), loadFailures.sum(),
+                entries.size(), weightedSize.get(), maximumWeight);
+    }
+
+    private synchronized void remove(DatasetFingerprint fingerprint) {
+        CacheEntry removed = entries.remove(fingerprint);
+        if (removed != null && removed.counted) {
+            weightedSize.addAndGet(-removed.weight);
+        }
+    }
+
+    private synchronized void evictIfNeeded(DatasetFingerprint justLoaded) {
+        while (weightedSize.get() > maximumWeight) {
+            Map.Entry<DatasetFingerprint, CacheEntry> victim = null;
+            for (Map.Entry<DatasetFingerprint, CacheEntry> candidate : entries.entrySet()) {
+                CacheEntry entry = candidate.getValue();
+                if (candidate.getKey().equals(justLoaded) || !entry.counted) {
+                    continue;
+                }
+                if (victim == null || entry.lastAccess < victim.getValue().lastAccess) {
+                    victim = candidate;
+                }
+            }
+            if (victim == null) {
+                // Only the table we just loaded is left; keep it even if it exceeds the budget
+                break;
+            }
+            LOG.info("Evicting cached table {} ({} bytes)", victim.getKey().path(), victim.getValue().weight);
+            currentFingerprints.remove(victim.getKey().path(), victim.getKey());
+            remove(victim.getKey());
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Estimates the heap footprint of a table from its column types and, for
+     * string columns, the size of their dictionaries.
+     *
+     * @param table the table to weigh
+     * @return the estimated size in bytes
+     */
+    static long estimateWeight(Table table) {
+        long weight = 0;
+        for (Column<?> column : table.columns()) {
+            weight += (long) column.size() * column.type().byteSize();
+            if (column instanceof StringColumn stringColumn) {
+                for (String value : stringColumn.getDictionary().asSet()) {
+                    weight += STRING_DICTIONARY_OVERHEAD + value.length();
+                }
+            }
+        }
+        return weight;
+    }
+
+    private static final class CacheEntry {
+        private final CompletableFuture<Table> future = new CompletableFuture<>();
+        private volatile long lastAccess;
+        private volatile long weight;
+        private boolean counted;
+
+        private CacheEntry(long lastAccess) {
+            this.lastAccess = lastAccess;
+        }
+
+        private CacheEntry touch(long now) {
+            lastAccess = now;
+            return this;
+        }
+
+        private Table join() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.cache;
+
+public record TableCacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        long loadFailures,
+        int entries,
+        long weightedSizeBytes,
+        long maximumWeightBytes) {
+}
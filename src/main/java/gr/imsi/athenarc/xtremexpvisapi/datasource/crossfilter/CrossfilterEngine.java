@@ -0,0 +1,149 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.crossfilter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.histogram.Binner;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexes;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.page.PageCursor;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.FilterPlanCache;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.PartitionedScanner;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.CrossfilterDimension;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import tech.tablesaw.api.Table;
+
+/**
+ * Answers crossfilter requests: one histogram per dimension, each counted over
+ * the rows that pass every filter except those on the dimension's own column,
+ * so a brushed chart keeps showing what can still be selected.
+ * <p>
+ * All histograms are counted in one pass over the rows. For cached tables the
+ * {@link CrossfilterState}s of recent requests are kept per set of dimensions,
+ * and a request that only moves one brush updates the closest state, counting
+ * again only the rows whose outcome under that brush changes. Like
+ * {@link gr.imsi.athenarc.xtremexpvisapi.datasource.plan.SelectionCache}, states
+ * are kept per {@link TableIndexes} and dropped with their table.
+ */
+public class CrossfilterEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CrossfilterEngine.class);
+
+    private static final int VIEWS_PER_TABLE = 16;
+    private static final int STATES_PER_VIEW = 4;
+    private static final long EXPIRE_AFTER_ACCESS_MINUTES = 10;
+
+    private final FilterPlanCache filterPlanCache = new FilterPlanCache();
+    private final PartitionedScanner scanner;
+    private final Cache<TableIndexes, Cache<String, Deque<CrossfilterState>>> states = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    public CrossfilterEngine(PartitionedScanner scanner) {
+        this.scanner = scanner;
+    }
+
+    /**
+     * Counts the histograms of a request's dimensions.
+     *
+     * @param indexes the indexes of the table, or null if it is not cached, in
+     *                which case nothing is kept for later requests
+     * @throws IllegalArgumentException if the request has no dimensions, a
+     *                                  dimension cannot be binned or a filter
+     *                                  does not fit its column
+     */
+    public CrossfilterResponse query(Table table, TableIndexes indexes, CrossfilterRequest request) {
+        List<CrossfilterDimension> dimensions = request.getDimensions();
+        if (dimensions == null || dimensions.isEmpty()) {
+            throw new IllegalArgumentException("Crossfilter requests need at least one dimension");
+        }
+        Map<String, List<AbstractFilter>> filters = groupByColumn(table, request.getFilters());
+        Map<String, String> signatures = new LinkedHashMap<>();
+        filters.forEach((column, columnFilters) -> signatures.put(column, PageCursor.queryOf(columnFilters, null)));
+        if (indexes == null) {
+            return compute(table, dimensions, filters, signatures).response(false);
+        }
+
+        Cache<String, Deque<CrossfilterState>> views = states.asMap().computeIfAbsent(indexes,
+                key -> CacheBuilder.newBuilder()
+                        .maximumSize(VIEWS_PER_TABLE)
+                        .expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+                        .build());
+        Deque<CrossfilterState> viewStates = views.asMap().computeIfAbsent(viewOf(dimensions),
+                key -> new ArrayDeque<>());
+        // Requests of one view are answered one at a time, as they update shared states
+        synchronized (viewStates) {
+            for (CrossfilterState state : viewStates) {
+                List<String> changed = state.changedColumns(signatures);
+                if (state.canUpdate(changed)) {
+                    if (!changed.isEmpty()) {
+                        String column = changed.get(0);
+                        LOG.debug("Updating crossfilter histograms for the filters on {}", column);
+                        state.update(table, column, filters.getOrDefault(column, List.of()),
+                                signatures.getOrDefault(column, ""), filterPlanCache, scanner);
+                    }
+                    viewStates.remove(state);
+                    viewStates.addFirst(state);
+                    return state.response(true);
+                }
+            }
+            CrossfilterState state = compute(table, dimensions, filters, signatures);
+            viewStates.addFirst(state);
+            if (viewStates.size() > STATES_PER_VIEW) {
+                viewStates.removeLast();
+            }
+            return state.response(false);
+        }
+    }
+
+    private CrossfilterState compute(Table table, List<CrossfilterDimension> dimensions,
+            Map<String, List<AbstractFilter>> filters, Map<String, String> signatures) {
+        List<Binner> binners = new ArrayList<>(dimensions.size());
+        for (CrossfilterDimension dimension : dimensions) {
+            if (dimension == null || dimension.getColumn() == null) {
+                throw new IllegalArgumentException("Every crossfilter dimension needs a column");
+            }
+            binners.add(Binner.fixedWidth(table, dimension.getColumn(), dimension.getBins(), dimension.getMin(),
+                    dimension.getMax()));
+        }
+        LOG.debug("Counting {} crossfilter histograms over {} rows", binners.size(), table.rowCount());
+        return CrossfilterState.compute(table, binners, filters, signatures, filterPlanCache, scanner);
+    }
+
+    // Filters are combined with AND, so those on one column form one brush. Columns are
+    // named as the table names them, which is how binners name their dimensions
+    private static Map<String, List<AbstractFilter>> groupByColumn(Table table, List<AbstractFilter> filters) {
+        Map<String, List<AbstractFilter>> groups = new LinkedHashMap<>();
+        if (filters != null) {
+            for (AbstractFilter filter : filters) {
+                if (filter == null || filter.getColumn() == null) {
+                    throw new IllegalArgumentException("Every crossfilter filter needs a column");
+                }
+                groups.computeIfAbsent(table.column(filter.getColumn()).name(), column -> new ArrayList<>())
+                        .add(filter);
+            }
+        }
+        return groups;
+    }
+
+    // Identifies the dimensions, in order, as histograms are returned in their order
+    private static String viewOf(List<CrossfilterDimension> dimensions) {
+        StringBuilder view = new StringBuilder();
+        for (CrossfilterDimension dimension : dimensions) {
+            view.append(dimension).append('\n');
+        }
+        return view.toString();
+    }
+}
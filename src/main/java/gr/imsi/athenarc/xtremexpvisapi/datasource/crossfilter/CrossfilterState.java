@@ -0,0 +1,277 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.crossfilter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.histogram.Binner;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.FilterPlan;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.FilterPlanCache;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.PartitionedScanner;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterHistogram;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import tech.tablesaw.api.Table;
+
+/**
+ * The histograms of a set of crossfilter dimensions over one table, counted
+ * under one set of filters, together with the filtered columns each row fails.
+ * <p>
+ * Filters are grouped by column and every group gets one bit of a row's mask.
+ * A row that fails no group counts in every histogram; a row that fails exactly
+ * one group counts only in the histograms of that column's dimensions, whose
+ * own filters do not apply to them; a row that fails more counts nowhere. All
+ * histograms are therefore counted in one pass over the rows.
+ * <p>
+ * When one group's filters change, only that group's tests are evaluated again
+ * and only the rows whose mask changes are moved between bins. States are not
+ * thread-safe; callers lock them.
+ */
+final class CrossfilterState {
+
+    static final int MAX_FILTERED_COLUMNS = Integer.SIZE;
+
+    private final List<Binner> binners;
+    private final int rowCount;
+    private final int[] masks;
+    private final int[][] counts;
+    private int filteredRows;
+    // Filtered column -> its bit, and the signature of the filters the masks hold for it
+    private final Map<String, Integer> bits = new HashMap<>();
+    private final Map<String, String> signatures = new HashMap<>();
+    // Bit -> the dimensions on that bit's column
+    private final int[][] dimensionsOfBit = new int[MAX_FILTERED_COLUMNS][];
+
+    private CrossfilterState(List<Binner> binners, int rowCount) {
+        this.binners = binners;
+        this.rowCount = rowCount;
+        this.masks = new int[rowCount];
+        this.counts = new int[binners.size()][];
+        for (int i = 0; i < binners.size(); i++) {
+            counts[i] = new int[binners.get(i).binCount()];
+        }
+    }
+
+    /**
+     * Counts the histograms of the given dimensions in one pass over the table.
+     *
+     * @param filters    the filters grouped by column, named as the table names
+     *                   it, like the binners' columns
+     * @param signatures identifies each column's filters, to tell later which
+     *                   of them changed
+     * @throws IllegalArgumentException if there are too many filtered columns or
+     *                                  a filter does not fit its column
+     */
+    static CrossfilterState compute(Table table, List<Binner> binners, Map<String, List<AbstractFilter>> filters,
+            Map<String, String> signatures, FilterPlanCache filterPlanCache, PartitionedScanner scanner) {
+        if (filters.size() > MAX_FILTERED_COLUMNS) {
+            throw new IllegalArgumentException(
+                    "Crossfilter requests can filter at most " + MAX_FILTERED_COLUMNS + " columns");
+        }
+        CrossfilterState state = new CrossfilterState(binners, table.rowCount());
+        List<String> columns = new ArrayList<>(filters.keySet());
+        FilterPlan[] plans = new FilterPlan[columns.size()];
+        IntPredicate[][] bound = new IntPredicate[columns.size()][];
+        int[] groupBits = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            plans[i] = filterPlanCache.planFor(table, filters.get(column));
+            bound[i] = plans[i].bind(table, filters.get(column));
+            groupBits[i] = 1 << state.assign(column, signatures.get(column));
+        }
+
+        List<Partial> partials = scanner.mapRanges(table.rowCount(), (partition, from, to) -> {
+            // Tests are not thread-safe, so every partition after the first binds its own
+            IntPredicate[][] tests = new IntPredicate[plans.length][];
+            for (int i = 0; i < plans.length; i++) {
+                tests[i] = partition == 0 ? bound[i] : plans[i].bind(table, filters.get(columns.get(i)));
+            }
+            Partial partial = state.newPartial();
+            for (int row = from; row < to; row++) {
+                int mask = 0;
+                for (int i = 0; i < tests.length; i++) {
+                    if (!passes(tests[i], row)) {
+                        mask |= groupBits[i];
+                    }
+                }
+                state.masks[row] = mask;
+                state.count(row, mask, 1, partial);
+            }
+            return partial;
+        });
+        state.merge(partials);
+        return state;
+    }
+
+    /**
+     * Returns the filtered columns whose filters differ from the ones the
+     * histograms were counted under.
+     */
+    List<String> changedColumns(Map<String, String> requestSignatures) {
+        Set<String> columns = new HashSet<>(signatures.keySet());
+        columns.addAll(requestSignatures.keySet());
+        List<String> changed = new ArrayList<>();
+        for (String column : columns) {
+            if (!requestSignatures.getOrDefault(column, "").equals(signatures.getOrDefault(column, ""))) {
+                changed.add(column);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns whether the histograms can be brought to the given filters by
+     * updating at most one column's filters.
+     */
+    boolean canUpdate(List<String> changedColumns) {
+        if (changedColumns.size() > 1) {
+            return false;
+        }
+        return changedColumns.isEmpty() || bits.containsKey(changedColumns.get(0))
+                || bits.size() < MAX_FILTERED_COLUMNS;
+    }
+
+    /**
+     * Replaces the filters of one column, testing every row against the new
+     * filters only and moving the rows whose mask changes between bins.
+     *
+     * @param filters   the column's new filters, empty if it is no longer
+     *                  filtered
+     * @param signature identifies the new filters
+     * @throws IllegalArgumentException if a filter does not fit its column; the
+     *                                  state is then left unchanged
+     */
+    void update(Table table, String column, List<AbstractFilter> filters, String signature,
+            FilterPlanCache filterPlanCache, PartitionedScanner scanner) {
+        FilterPlan plan = filters.isEmpty() ? null : filterPlanCache.planFor(table, filters);
+        IntPredicate[] bound = plan == null ? new IntPredicate[0] : plan.bind(table, filters);
+        int bit = 1 << assign(column, signature);
+
+        List<Partial> partials = scanner.mapRanges(table.rowCount(), (partition, from, to) -> {
+            IntPredicate[] tests = partition == 0 || plan == null ? bound : plan.bind(table, filters);
+            Partial partial = newPartial();
+            for (int row = from; row < to; row++) {
+                int mask = masks[row];
+                int updated = passes(tests, row) ? mask & ~bit : mask | bit;
+                if (updated != mask) {
+                    count(row, mask, -1, partial);
+                    count(row, updated, 1, partial);
+                    masks[row] = updated;
+                }
+            }
+            return partial;
+        });
+        merge(partials);
+        if (filters.isEmpty()) {
+            // Every row passes now, so the bit is clear everywhere and can be reused
+            int freed = bits.remove(column);
+            signatures.remove(column);
+            dimensionsOfBit[freed] = null;
+        }
+    }
+
+    /**
+     * Returns the current histograms. The counts are copied, so later updates
+     * do not change a response that is still being written.
+     *
+     * @param incremental whether the histograms came from an earlier request's
+     */
+    CrossfilterResponse response(boolean incremental) {
+        List<CrossfilterHistogram> histograms = new ArrayList<>(binners.size());
+        for (int i = 0; i < binners.size(); i++) {
+            Binner binner = binners.get(i);
+            histograms.add(new CrossfilterHistogram(binner.column(), binner.bins(), binner.binWidth(),
+                    counts[i].clone()));
+        }
+        CrossfilterResponse response = new CrossfilterResponse();
+        response.setHistograms(histograms);
+        response.setTotalItems(rowCount);
+        response.setFilteredItems(filteredRows);
+        response.setIncremental(incremental);
+        return response;
+    }
+
+    // Gives a column a bit, reusing its current one, and records the signature of its filters.
+    // The column is named as the table names it, so it matches its binners' resolved names
+    private int assign(String column, String signature) {
+        Integer bit = bits.get(column);
+        if (bit == null) {
+            bit = 0;
+            while (dimensionsOfBit[bit] != null) {
+                bit++;
+            }
+            bits.put(column, bit);
+            List<Integer> dimensions = new ArrayList<>();
+            for (int i = 0; i < binners.size(); i++) {
+                if (binners.get(i).column().equals(column)) {
+                    dimensions.add(i);
+                }
+            }
+            dimensionsOfBit[bit] = dimensions.stream().mapToInt(Integer::intValue).toArray();
+        }
+        signatures.put(column, signature);
+        return bit;
+    }
+
+    // Adds (sign 1) or removes (sign -1) a row's contribution to the histograms, given its mask
+    private void count(int row, int mask, int sign, Partial partial) {
+        if (mask == 0) {
+            for (int i = 0; i < binners.size(); i++) {
+                int bin = binners.get(i).bin(row);
+                if (bin >= 0) {
+                    partial.counts[i][bin] += sign;
+                }
+            }
+            partial.filteredRows += sign;
+        } else if ((mask & (mask - 1)) == 0) {
+            for (int i : dimensionsOfBit[Integer.numberOfTrailingZeros(mask)]) {
+                int bin = binners.get(i).bin(row);
+                if (bin >= 0) {
+                    partial.counts[i][bin] += sign;
+                }
+            }
+        }
+    }
+
+    private Partial newPartial() {
+        int[][] partialCounts = new int[counts.length][];
+        for (int i = 0; i < counts.length; i++) {
+            partialCounts[i] = new int[counts[i].length];
+        }
+        return new Partial(partialCounts);
+    }
+
+    private void merge(List<Partial> partials) {
+        for (Partial partial : partials) {
+            for (int i = 0; i < counts.length; i++) {
+                for (int bin = 0; bin < counts[i].length; bin++) {
+                    counts[i][bin] += partial.counts[i][bin];
+                }
+            }
+            filteredRows += partial.filteredRows;
+        }
+    }
+
+    private static boolean passes(IntPredicate[] tests, int row) {
+        for (IntPredicate test : tests) {
+            if (!test.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Counts of one partition of the rows, or the changes to the counts during an update
+    private static final class Partial {
+        private final int[][] counts;
+        private int filteredRows;
+
+        private Partial(int[][] counts) {
+            this.counts = counts;
+        }
+    }
+}
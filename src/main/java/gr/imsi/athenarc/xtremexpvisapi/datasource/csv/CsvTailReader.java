@@ -0,0 +1,242 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.csv;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.CacheBuilder;
+import com.univocity.parsers.csv.CsvParser;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DatasetFingerprint;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.AbstractColumnParser;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.io.csv.CsvReadOptions;
+
+/**
+ * Extends a parsed table with the rows appended to its CSV file since it was
+ * parsed, for files that experiment runs keep writing to.
+ * <p>
+ * A {@link TailPosition} records how far a table's file was parsed and what its
+ * header looked like. When the file has only grown and its header is unchanged,
+ * {@link #append} tokenizes just the new bytes, parses them with the existing
+ * column types and returns a new version of the table with the new rows
+ * added. The cached table is never modified, since other requests may be
+ * reading it. The first append copies the table once into a
+ * {@link GrowingTable}, and later versions are cut from that storage: only
+ * the new rows are parsed and dictionary-encoded, and string columns are
+ * shared rather than rebuilt. Anything else (a shorter file, a new header,
+ * values that do not fit the existing types) is left to a full reload.
+ */
+@Component
+public class CsvTailReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CsvTailReader.class);
+
+    private static final byte QUOTE = '"';
+    private static final byte NEWLINE = '\n';
+    private static final int MAX_HEADER_BYTES = 1 << 16;
+
+    // The storage each appended version was cut from, by table identity
+    private final Map<Table, GrowingTable> growingTables = CacheBuilder.newBuilder()
+            .weakKeys()
+            .<Table, GrowingTable>build()
+            .asMap();
+
+    /**
+     * How much of a file version has been parsed into a table.
+     *
+     * @param fingerprint the file version the table reflects
+     * @param parsedBytes the length of the parsed prefix, which ends at a record
+     *                    boundary
+     * @param header      the bytes of the header line, including its line break
+     */
+    public record TailPosition(DatasetFingerprint fingerprint, long parsedBytes, byte[] header) {
+    }
+
+    /**
+     * Returns the tail position of a table parsed from the whole given file
+     * version, or empty if the version does not end with a complete record
+     * (e.g. a writer was in the middle of a line).
+     *
+     * @param fingerprint the file version the table was parsed from
+     * @return the position to append from later
+     */
+    public Optional<TailPosition> positionOf(DatasetFingerprint fingerprint) {
+        try (FileChannel channel = FileChannel.open(fingerprint.path(), StandardOpenOption.READ)) {
+            long size = fingerprint.size();
+            if (size == 0 || channel.size() < size || readByte(channel, size - 1) != NEWLINE) {
+                return Optional.empty();
+            }
+            byte[] header = readHeader(channel, size);
+            return header == null ? Optional.empty() : Optional.of(new TailPosition(fingerprint, size, header));
+        } catch (IOException e) {
+            LOG.debug("Could not determine the tail position of {}", fingerprint.path(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Parses the records appended to a file since {@code position} and returns
+     * a version of {@code table} that includes them, without parsing the rows
+     * it already had. A trailing partial record is left for the next call.
+     *
+     * @param table       the table parsed up to {@code position}
+     * @param position    where the previous parse stopped
+     * @param fingerprint the current version of the file
+     * @return the extended table and its new position, or empty if the file must
+     *         be reloaded in full
+     */
+    public Optional<TailResult> append(Table table, TailPosition position, DatasetFingerprint fingerprint) {
+        if (!position.fingerprint().path().equals(fingerprint.path())
+                || fingerprint.size() < position.parsedBytes()) {
+            return Optional.empty();
+        }
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(fingerprint.path(), StandardOpenOption.READ)) {
+            if (channel.size() < fingerprint.size()
+                    || !Arrays.equals(readHeader(channel, fingerprint.size()), position.header())) {
+                return Optional.empty();
+            }
+            long end = lastRecordEnd(channel, position.parsedBytes(), fingerprint.size());
+            TailPosition next = new TailPosition(fingerprint, end, position.header());
+            if (end == position.parsedBytes()) {
+                return Optional.of(new TailResult(table, next, 0));
+            }
+
+            Table appended = parseRows(channel, position.parsedBytes(), end, table, fingerprint.path());
+            if (appended == null) {
+                return Optional.empty();
+            }
+            Table extended = extend(table, appended);
+            LOG.info("Appended {} new rows to {} in {} ms", appended.rowCount(), table.name(),
+                    System.currentTimeMillis() - start);
+            return Optional.of(new TailResult(extended, next, appended.rowCount()));
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not append the new rows of {}, reloading it", fingerprint.path(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param table        the table including the appended rows
+     * @param position     the position to append from next time
+     * @param appendedRows the number of rows added by this call
+     */
+    public record TailResult(Table table, TailPosition position, int appendedRows) {
+    }
+
+    /**
+     * Appends rows to the storage of a table. The first append, and one to a
+     * version that was already extended (when two requests poll at once),
+     * copies the table into storage of its own, so the versions cut from the
+     * existing storage never change. A table whose columns cannot be stored
+     * is copied instead.
+     */
+    private Table extend(Table table, Table rows) {
+        GrowingTable growing = growingTables.get(table);
+        Table extended = growing == null ? null : growing.append(table, rows);
+        if (extended == null) {
+            growing = GrowingTable.copyOf(table);
+            extended = growing == null ? null : growing.append(table, rows);
+        }
+        if (extended == null) {
+            extended = table.copy();
+            extended.append(rows);
+            return extended;
+        }
+        growingTables.put(extended, growing);
+        return extended;
+    }
+
+    // Returns null if a row does not match the table's shape or types
+    private static Table parseRows(FileChannel channel, long from, long to, Table table, Path path) {
+        CsvReadOptions options = CsvReadOptions.builder(path.toFile()).header(true).build();
+        Table rows = table.emptyCopy();
+        int columnCount = rows.columnCount();
+        AbstractColumnParser<?>[] parsers = new AbstractColumnParser<?>[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            parsers[c] = rows.column(c).type().customParser(options);
+        }
+
+        MappedByteBuffer buffer = map(channel, from, to);
+        CsvParser parser = new CsvParser(ParallelCsvReader.parserSettings());
+        parser.beginParsing(new InputStreamReader(new ParallelCsvReader.MappedRegionInputStream(buffer),
+                StandardCharsets.UTF_8));
+        try {
+            String[] row;
+            while ((row = parser.parseNext()) != null) {
+                if (row.length != columnCount) {
+                    return null;
+                }
+                for (int c = 0; c < columnCount; c++) {
+                    Column<?> column = rows.column(c);
+                    column.appendCell(row[c] == null ? "" : row[c], parsers[c]);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.debug("Appended rows of {} do not fit the existing column types", path, e);
+            return null;
+        } finally {
+            parser.stopParsing();
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the position just after the last line break outside quotes in
+     * {@code [from, to)}, or {@code from} if there is none.
+     */
+    private static long lastRecordEnd(FileChannel channel, long from, long to) {
+        MappedByteBuffer buffer = map(channel, from, to);
+        int parity = 0;
+        long end = from;
+        for (int i = 0, n = buffer.limit(); i < n; i++) {
+            byte b = buffer.get(i);
+            if (b == QUOTE) {
+                parity ^= 1;
+            } else if (b == NEWLINE && parity == 0) {
+                end = from + i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static byte[] readHeader(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, MAX_HEADER_BYTES));
+        channel.read(buffer, 0);
+        for (int i = 0; i < buffer.position(); i++) {
+            if (buffer.get(i) == NEWLINE) {
+                return Arrays.copyOf(buffer.array(), i + 1);
+            }
+        }
+        return null;
+    }
+
+    private static byte readByte(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        channel.read(buffer, position);
+        return buffer.get(0);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long to) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.csv;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.strings.DictionaryMap;
+import tech.tablesaw.selection.BitmapBackedSelection;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * The dictionary of one version of a string column of a {@link GrowingTable}:
+ * a read-only view of the first {@code size} row keys and the first
+ * {@code keyCount} values of arrays that later versions keep appending to.
+ * <p>
+ * Keys are numbered in order of first appearance, so the values of the rows a
+ * version has are exactly its first {@code keyCount} values. Missing strings
+ * are the empty string, with a key like any other value, as in Tablesaw's own
+ * dictionaries. Counts are computed from the keys when asked for.
+ */
+final class GrowingDictionary implements DictionaryMap {
+
+    private final int[] keys;
+    private final Object[] values;
+    private final int size;
+    private final int keyCount;
+
+    GrowingDictionary(int[] keys, Object[] values, int size, int keyCount) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+        this.keyCount = keyCount;
+    }
+
+    @Override
+    public int getKeyAtIndex(int index) {
+        return getKeyForIndex(index);
+    }
+
+    @Override
+    public int getKeyForIndex(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+        }
+        return keys[index];
+    }
+
+    @Override
+    public String getValueForKey(int key) {
+        return (String) values[key];
+    }
+
+    @Override
+    public String getValueForIndex(int index) {
+        return getValueForKey(getKeyForIndex(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int countOccurrences(String value) {
+        int key = keyOf(value);
+        int count = 0;
+        for (int row = 0; key >= 0 && row < size; row++) {
+            if (keys[row] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Set<String> asSet() {
+        Set<String> set = new HashSet<>();
+        for (int key = 0; key < keyCount; key++) {
+            set.add(getValueForKey(key));
+        }
+        return set;
+    }
+
+    @Override
+    public int firstIndexOf(String value) {
+        int key = keyOf(value);
+        for (int row = 0; key >= 0 && row < size; row++) {
+            if (keys[row] == key) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String[] asObjectArray() {
+        String[] array = new String[size];
+        for (int row = 0; row < size; row++) {
+            array[row] = getValueForKey(keys[row]);
+        }
+        return array;
+    }
+
+    @Override
+    public Selection selectIsIn(String... strings) {
+        return selectIsIn(Arrays.asList(strings));
+    }
+
+    @Override
+    public Selection selectIsIn(Collection<String> strings) {
+        IntOpenHashSet selectedKeys = new IntOpenHashSet();
+        for (String string : strings) {
+            int key = keyOf(string);
+            if (key >= 0) {
+                selectedKeys.add(key);
+            }
+        }
+        Selection selection = new BitmapBackedSelection();
+        for (int row = 0; !selectedKeys.isEmpty() && row < size; row++) {
+            if (selectedKeys.contains(keys[row])) {
+                selection.add(row);
+            }
+        }
+        return selection;
+    }
+
+    @Override
+    public int countUnique() {
+        return keyCount;
+    }
+
+    @Override
+    public Table countByCategory(String columnName) {
+        int[] counts = new int[keyCount];
+        for (int row = 0; row < size; row++) {
+            counts[keys[row]]++;
+        }
+        StringColumn categories = StringColumn.create("Category");
+        IntColumn countColumn = IntColumn.create("Count");
+        for (int key = 0; key < keyCount; key++) {
+            categories.append(getValueForKey(key));
+            countColumn.append(counts[key]);
+        }
+        return Table.create("Column: " + columnName, categories, countColumn);
+    }
+
+    @Override
+    public Selection isEqualTo(String string) {
+        return selectIsIn(string);
+    }
+
+    @Override
+    public List<BooleanColumn> getDummies() {
+        List<BooleanColumn> dummies = new ArrayList<>(keyCount);
+        for (int key = 0; key < keyCount; key++) {
+            BooleanColumn dummy = BooleanColumn.create(getValueForKey(key), size);
+            for (int row = 0; row < size; row++) {
+                dummy.set(row, keys[row] == key);
+            }
+            dummies.add(dummy);
+        }
+        return dummies;
+    }
+
+    @Override
+    public byte[] asBytes(int rowNumber) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(getKeyForIndex(rowNumber)).array();
+    }
+
+    @Override
+    public int countMissing() {
+        return countOccurrences("");
+    }
+
+    @Override
+    public boolean isMissing(int rowNumber) {
+        return getValueForIndex(rowNumber).isEmpty();
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return row < size;
+            }
+
+            @Override
+            public String next() {
+                if (row >= size) {
+                    throw new NoSuchElementException();
+                }
+                return getValueForKey(keys[row++]);
+            }
+        };
+    }
+
+    @Override
+    public DictionaryMap promoteYourself() {
+        return this;
+    }
+
+    @Override
+    public int nextKeyWithoutIncrementing() {
+        return keyCount;
+    }
+
+    @Override
+    public void sortAscending() {
+        throw readOnly();
+    }
+
+    @Override
+    public void sortDescending() {
+        throw readOnly();
+    }
+
+    @Override
+    public void append(String value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void appendMissing() {
+        throw readOnly();
+    }
+
+    @Override
+    public void set(int rowIndex, String value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void clear() {
+        throw readOnly();
+    }
+
+    // A linear search costs no more than the scan of the rows that follows it, and
+    // keeps the view free of maps that later versions would have to share
+    private int keyOf(String value) {
+        for (int key = 0; key < keyCount; key++) {
+            if (values[key].equals(value)) {
+                return key;
+            }
+        }
+        return -1;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Columns of cached tables are read-only");
+    }
+}
@@ -0,0 +1,348 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.csv;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.function.BiFunction;
+
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.shorts.ShortArrayList;
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DateTimeColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.FloatColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.LongColumn;
+import tech.tablesaw.api.ShortColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.api.TimeColumn;
+import tech.tablesaw.columns.Column;
+
+/**
+ * Column storage of a table that grows by appended rows, from which each
+ * extended version of the table is cut.
+ * <p>
+ * Values live in arrays with spare capacity, so appending only writes the new
+ * rows. Versions are built through Tablesaw's public factories: numeric,
+ * temporal and boolean columns copy their values in bulk, while string
+ * columns, whose dictionaries are the costly part to rebuild, share the keys
+ * and values of the storage through a read-only {@link GrowingDictionary}.
+ * A version of {@code n} rows only reads the first {@code n} keys, and
+ * appending only writes past the end of the latest version, so versions never
+ * change and can be shared with concurrent readers.
+ * <p>
+ * Only the latest version can be extended. Appending to a version that has
+ * already been extended would overwrite rows of its successor, so it is
+ * refused and the caller copies that version into storage of its own.
+ */
+final class GrowingTable {
+
+    private final String name;
+    private final GrowingColumn[] columns;
+    private int rowCount;
+    // Weak, since the storage is kept by its versions and must not keep them alive
+    private WeakReference<Table> latest;
+
+    private GrowingTable(String name, GrowingColumn[] columns) {
+        this.name = name;
+        this.columns = columns;
+    }
+
+    /**
+     * Copies a table into growable storage, whose latest version is the table
+     * itself. This is the only time its rows are copied.
+     *
+     * @return the storage, or null if a column's type is not supported
+     */
+    static GrowingTable copyOf(Table table) {
+        GrowingColumn[] columns = new GrowingColumn[table.columnCount()];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = GrowingColumn.of(table.column(c));
+            if (columns[c] == null) {
+                return null;
+            }
+        }
+        GrowingTable growing = new GrowingTable(table.name(), columns);
+        growing.append(table);
+        growing.latest = new WeakReference<>(table);
+        return growing;
+    }
+
+    /**
+     * Appends rows to the latest version of this table.
+     *
+     * @param version the latest version, or the table this storage was copied
+     *                from if it has not been extended yet
+     * @param rows    the rows to append, with the same columns and types
+     * @return the extended version, or null if {@code version} is not the
+     *         latest one
+     */
+    synchronized Table append(Table version, Table rows) {
+        if (latest.get() != version) {
+            return null;
+        }
+        append(rows);
+        Table table = Table.create(name);
+        for (GrowingColumn column : columns) {
+            table.addColumns(column.cut(rowCount));
+        }
+        latest = new WeakReference<>(table);
+        return table;
+    }
+
+    private void append(Table rows) {
+        for (int c = 0; c < columns.length; c++) {
+            columns[c].append(rows.column(c));
+        }
+        rowCount += rows.rowCount();
+    }
+
+    /**
+     * The values of one column, and how to create a Tablesaw column of the
+     * first of them.
+     */
+    private abstract static class GrowingColumn {
+
+        final String name;
+
+        GrowingColumn(String name) {
+            this.name = name;
+        }
+
+        abstract void append(Column<?> values);
+
+        abstract Column<?> cut(int size);
+
+        static GrowingColumn of(Column<?> column) {
+            String name = column.name();
+            switch (column.type().name()) {
+                case "BOOLEAN":
+                    return new Booleans(name);
+                case "SHORT":
+                    return new Shorts(name);
+                case "INTEGER":
+                    return new Ints(name, IntColumn::create, (values, row) -> ((IntColumn) values).getInt(row));
+                case "LOCAL_DATE":
+                    return new Ints(name, DateColumn::createInternal,
+                            (values, row) -> ((DateColumn) values).getIntInternal(row));
+                case "LOCAL_TIME":
+                    return new Ints(name, TimeColumn::createInternal,
+                            (values, row) -> ((TimeColumn) values).getIntInternal(row));
+                case "LONG":
+                    return new Longs(name, LongColumn::create, (values, row) -> ((LongColumn) values).getLong(row));
+                case "LOCAL_DATE_TIME":
+                    return new Longs(name, DateTimeColumn::createInternal,
+                            (values, row) -> ((DateTimeColumn) values).getLongInternal(row));
+                case "INSTANT":
+                    return new Longs(name, InstantColumn::createInternal,
+                            (values, row) -> ((InstantColumn) values).getLongInternal(row));
+                case "FLOAT":
+                    return new Floats(name);
+                case "DOUBLE":
+                    return new Doubles(name);
+                case "STRING":
+                    return new Strings(name);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntValues {
+        int get(Column<?> column, int row);
+    }
+
+    @FunctionalInterface
+    private interface LongValues {
+        long get(Column<?> column, int row);
+    }
+
+    private static final class Booleans extends GrowingColumn {
+        private final ByteArrayList values = new ByteArrayList();
+
+        private Booleans(String name) {
+            super(name);
+        }
+
+        @Override
+        void append(Column<?> column) {
+            BooleanColumn booleans = (BooleanColumn) column;
+            values.ensureCapacity(values.size() + column.size());
+            for (int row = 0; row < column.size(); row++) {
+                values.add(booleans.getByte(row));
+            }
+        }
+
+        @Override
+        Column<?> cut(int size) {
+            // Bytes keep missing values, which the boolean factories cannot express
+            BooleanColumn column = BooleanColumn.create(name);
+            for (int row = 0; row < size; row++) {
+                column.append(values.getByte(row));
+            }
+            return column;
+        }
+    }
+
+    private static final class Shorts extends GrowingColumn {
+        private final ShortArrayList values = new ShortArrayList();
+
+        private Shorts(String name) {
+            super(name);
+        }
+
+        @Override
+        void append(Column<?> column) {
+            ShortColumn shorts = (ShortColumn) column;
+            values.ensureCapacity(values.size() + column.size());
+            for (int row = 0; row < column.size(); row++) {
+                values.add(shorts.getShort(row));
+            }
+        }
+
+        @Override
+        Column<?> cut(int size) {
+            return ShortColumn.create(name, Arrays.copyOf(values.elements(), size));
+        }
+    }
+
+    private static final class Ints extends GrowingColumn {
+        private final IntArrayList values = new IntArrayList();
+        private final BiFunction<String, int[], Column<?>> factory;
+        private final IntValues getter;
+
+        private Ints(String name, BiFunction<String, int[], Column<?>> factory, IntValues getter) {
+            super(name);
+            this.factory = factory;
+            this.getter = getter;
+        }
+
+        @Override
+        void append(Column<?> column) {
+            values.ensureCapacity(values.size() + column.size());
+            for (int row = 0; row < column.size(); row++) {
+                values.add(getter.get(column, row));
+            }
+        }
+
+        @Override
+        Column<?> cut(int size) {
+            return factory.apply(name, Arrays.copyOf(values.elements(), size));
+        }
+    }
+
+    private static final class Longs extends GrowingColumn {
+        private final LongArrayList values = new LongArrayList();
+        private final BiFunction<String, long[], Column<?>> factory;
+        private final LongValues getter;
+
+        private Longs(String name, BiFunction<String, long[], Column<?>> factory, LongValues getter) {
+            super(name);
+            this.factory = factory;
+            this.getter = getter;
+        }
+
+        @Override
+        void append(Column<?> column) {
+            values.ensureCapacity(values.size() + column.size());
+            for (int row = 0; row < column.size(); row++) {
+                values.add(getter.get(column, row));
+            }
+        }
+
+        @Override
+        Column<?> cut(int size) {
+            return factory.apply(name, Arrays.copyOf(values.elements(), size));
+        }
+    }
+
+    private static final class Floats extends GrowingColumn {
+        private final FloatArrayList values = new FloatArrayList();
+
+        private Floats(String name) {
+            super(name);
+        }
+
+        @Override
+        void append(Column<?> column) {
+            FloatColumn floats = (FloatColumn) column;
+            values.ensureCapacity(values.size() + column.size());
+            for (int row = 0; row < column.size(); row++) {
+                values.add(floats.getFloat(row));
+            }
+        }
+
+        @Override
+        Column<?> cut(int size) {
+            return FloatColumn.create(name, Arrays.copyOf(values.elements(), size));
+        }
+    }
+
+    private static final class Doubles extends GrowingColumn {
+        private final DoubleArrayList values = new DoubleArrayList();
+
+        private Doubles(String name) {
+            super(name);
+        }
+
+        @Override
+        void append(Column<?> column) {
+            DoubleColumn doubles = (DoubleColumn) column;
+            values.ensureCapacity(values.size() + column.size());
+            for (int row = 0; row < column.size(); row++) {
+                values.add(doubles.getDouble(row));
+            }
+        }
+
+        @Override
+        Column<?> cut(int size) {
+            return DoubleColumn.create(name, Arrays.copyOf(values.elements(), size));
+        }
+    }
+
+    /**
+     * Strings as dictionary keys, with a dictionary that only this storage
+     * appends to and versions never read.
+     */
+    private static final class Strings extends GrowingColumn {
+        private final IntArrayList keys = new IntArrayList();
+        private final ObjectArrayList<String> values = new ObjectArrayList<>();
+        private final Object2IntOpenHashMap<String> keyOfValue = new Object2IntOpenHashMap<>();
+
+        private Strings(String name) {
+            super(name);
+            keyOfValue.defaultReturnValue(-1);
+        }
+
+        @Override
+        void append(Column<?> column) {
+            StringColumn strings = (StringColumn) column;
+            keys.ensureCapacity(keys.size() + column.size());
+            for (int row = 0; row < column.size(); row++) {
+                String value = strings.get(row);
+                int key = keyOfValue.getInt(value);
+                if (key < 0) {
+                    key = values.size();
+                    values.add(value);
+                    keyOfValue.put(value, key);
+                }
+                keys.add(key);
+            }
+        }
+
+        @Override
+        Column<?> cut(int size) {
+            return StringColumn.createInternal(name,
+                    new GrowingDictionary(keys.elements(), values.elements(), size, values.size()));
+        }
+    }
+}
@@ -0,0 +1,650 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DatasetFingerprint;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.schema.SchemaCatalog.DatasetSchema;
+import tech.tablesaw.api.ColumnType;
+import tech.tablesaw.api.NumericColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.AbstractColumnParser;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.io.csv.CsvReadOptions;
+
+/**
+ * Parses large CSV files on the data engine's fork-join pool.
+ * <p>
+ * The file is memory-mapped and split into chunks whose boundaries are moved
+ * to the next line break that is not inside a quoted field (the quote parity
+ * at each raw boundary is obtained from a parallel count of quote characters).
+ * Each chunk is tokenized into its own column buffers while it narrows down,
+ * per column, the set of Tablesaw types that can still parse every value. The
+ * per-chunk candidate sets are then intersected, which yields the same types
+ * Tablesaw infers when reading the whole file with {@code sample(false)}, and
+ * the chunk buffers are widened where needed and stitched into one table.
+ * Only chunks whose buffered values cannot be converted to the reconciled type
+ * (for instance a numeric chunk of what turns out to be a string column) are
+ * tokenized a second time, and only for the affected columns.
+ */
+@Component
+public class ParallelCsvReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelCsvReader.class);
+
+    private static final byte QUOTE = '"';
+    private static final byte NEWLINE = '\n';
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final long MIN_CHUNK_BYTES = 4L << 20;
+    private static final long MAX_CHUNK_BYTES = 256L << 20;
+    private static final long SCAN_WINDOW_BYTES = 1L << 20;
+
+    private final ForkJoinPool dataEnginePool;
+    private final long parallelParseThreshold;
+    private final long minChunkBytes;
+
+    @Autowired
+    public ParallelCsvReader(ForkJoinPool dataEnginePool, DataEngineProperties dataEngineProperties) {
+        this(dataEnginePool, dataEngineProperties.getParallelParseThreshold().toBytes(), MIN_CHUNK_BYTES);
+    }
+
+    /**
+     * @param minChunkBytes the smallest chunk a file is split into; small files
+     *                      only span several chunks with a small minimum
+     */
+    ParallelCsvReader(ForkJoinPool dataEnginePool, long parallelParseThreshold, long minChunkBytes) {
+        this.dataEnginePool = dataEnginePool;
+        this.parallelParseThreshold = parallelParseThreshold;
+        this.minChunkBytes = minChunkBytes;
+    }
+
+    /**
+     * Returns whether the file is large enough to be worth parsing in parallel.
+     *
+     * @param path the CSV file
+     * @return {@code true} if {@link #read} should be used for this file
+     */
+    public boolean accepts(Path path) {
+        try {
+            return Files.size(path) >= parallelParseThreshold;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses a CSV file with a header row, inferring column types over all rows.
+     *
+     * @param path      the CSV file
+     * @param tableName the name to give the table
+     * @return the parsed table
+     * @throws IOException           if the file cannot be read
+     * @throws IllegalStateException if the file has a shape this reader does not
+     *                               handle (e.g. rows with a different number of
+     *                               cells than the header, or no rows at all);
+     *                               callers should fall back to Tablesaw's reader
+     */
+    public Table read(Path path, String tableName) throws IOException {
+        return scan(path, Long.MAX_VALUE, tableName, ScanSpec.all(), null).table();
+    }
+
+    /**
+     * Parses the version of a CSV file identified by a fingerprint, using the
+     * given schema instead of inferring column types when it matches the file's
+     * header. Only the first {@code fingerprint.size()} bytes are read, so rows
+     * appended after the fingerprint was taken are left out.
+     *
+     * @param fingerprint the CSV file and the length to read
+     * @param tableName   the name to give the table
+     * @param knownSchema the recorded schema of this file version, or {@code null}
+     * @return the parsed table
+     * @throws IOException           if the file cannot be read
+     * @throws IllegalStateException as for {@link #read(Path, String)}, or if a
+     *                               value does not fit its known type
+     */
+    public Table read(DatasetFingerprint fingerprint, String tableName, DatasetSchema knownSchema)
+            throws IOException {
+        return scan(fingerprint.path(), fingerprint.size(), tableName, ScanSpec.all(), knownSchema).table();
+    }
+
+    /**
+     * Parses the columns and rows of a CSV file selected by a {@link ScanSpec}.
+     * Column types are still inferred over every row, including the skipped
+     * ones, so each column gets the same type as in a full read.
+     *
+     * @param path        the CSV file
+     * @param tableName   the name to give the table
+     * @param spec        the columns to keep and the predicates rows must pass
+     * @param knownSchema the recorded schema of this file version, or {@code null}
+     *                    to infer column types
+     * @return the parsed table and the number of rows scanned
+     * @throws IOException           if the file cannot be read
+     * @throws IllegalStateException as for {@link #read(DatasetFingerprint, String, DatasetSchema)}
+     */
+    public ScanResult scan(Path path, String tableName, ScanSpec spec, DatasetSchema knownSchema)
+            throws IOException {
+        return scan(path, Long.MAX_VALUE, tableName, spec, knownSchema);
+    }
+
+    private ScanResult scan(Path path, long length, String tableName, ScanSpec spec, DatasetSchema knownSchema)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        CsvReadOptions options = CsvReadOptions.builder(path.toFile()).header(true).build();
+        List<ColumnType> detectedTypes = new ArrayList<>(options.columnTypesToDetect());
+        if (!detectedTypes.contains(ColumnType.STRING)) {
+            detectedTypes.add(ColumnType.STRING);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), length);
+            long headerStart = hasUtf8Bom(channel, size) ? 3 : 0;
+            long headerEnd = findRecordStart(channel, headerStart, 0, size);
+            String[] header = tokenize(channel, headerStart, headerEnd).get(0);
+            validateHeader(header);
+
+            long[] boundaries = splitOnRecordBoundaries(channel, headerEnd, size);
+            int chunkCount = boundaries.length - 1;
+            ColumnType[][] candidates = new ColumnType[header.length][];
+            if (knownSchema != null && knownSchema.columnNames().equals(List.of(header))) {
+                ColumnType[] knownTypes = knownSchema.columnTypes();
+                for (int c = 0; c < header.length; c++) {
+                    candidates[c] = new ColumnType[] { knownTypes[c] };
+                }
+            } else {
+                if (knownSchema != null) {
+                    LOG.debug("Recorded schema of {} does not match its header, inferring types", tableName);
+                }
+                Arrays.fill(candidates, detectedTypes.toArray(new ColumnType[0]));
+            }
+            Layout layout = new Layout(header, spec, candidates, options);
+
+            Chunk[] chunks = dataEnginePool.submit(() -> IntStream.range(0, chunkCount).parallel()
+                    .mapToObj(i -> parseChunk(channel, boundaries[i], boundaries[i + 1], layout))
+                    .toArray(Chunk[]::new)).join();
+
+            int scannedRows = 0;
+            for (Chunk chunk : chunks) {
+                scannedRows += chunk.rows;
+            }
+            if (scannedRows == 0) {
+                // Tablesaw reads such files as tables without columns
+                throw new IllegalStateException("CSV file has no data rows");
+            }
+            Table table = stitch(channel, boundaries, chunks, layout);
+            table.setName(tableName);
+            LOG.info("Parsed {} ({} of {} rows, {} of {} columns) in {} chunks in {} ms", tableName,
+                    table.rowCount(), scannedRows, table.columnCount(), header.length, chunkCount,
+                    System.currentTimeMillis() - start);
+            return new ScanResult(table, scannedRows);
+        }
+    }
+
+    private Chunk parseChunk(FileChannel channel, long from, long to, Layout layout) {
+        int[] selected = layout.selected;
+        ChunkColumn[] columns = new ChunkColumn[selected.length];
+        for (int s = 0; s < selected.length; s++) {
+            columns[s] = new ChunkColumn(layout.header[selected[s]], layout.candidates[selected[s]],
+                    layout.parsers[selected[s]]);
+        }
+        Chunk chunk = new Chunk(columns);
+        forEachRow(channel, from, to, layout.header.length, row -> {
+            boolean keep = layout.keeps(row);
+            for (int s = 0; s < selected.length; s++) {
+                columns[s].accept(row[selected[s]], keep);
+            }
+            chunk.rows++;
+        });
+        return chunk;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Table stitch(FileChannel channel, long[] boundaries, Chunk[] chunks, Layout layout) {
+        int chunkCount = chunks.length;
+        int[] selected = layout.selected;
+        int[] finalTypes = new int[selected.length];
+        Column<?>[][] parts = new Column<?>[chunkCount][selected.length];
+        List<Set<Integer>> columnsToReparse = new ArrayList<>();
+        for (int i = 0; i < chunkCount; i++) {
+            columnsToReparse.add(new HashSet<>());
+        }
+
+        for (int s = 0; s < selected.length; s++) {
+            long alive = -1L;
+            for (Chunk chunk : chunks) {
+                alive &= chunk.columns[s].alive;
+            }
+            if (alive == 0) {
+                throw new IllegalStateException("No common type for column " + layout.header[selected[s]]);
+            }
+            finalTypes[s] = Long.numberOfTrailingZeros(alive);
+            for (int i = 0; i < chunkCount; i++) {
+                parts[i][s] = chunks[i].columns[s].resolve(finalTypes[s]);
+                if (parts[i][s] == null) {
+                    columnsToReparse.get(i).add(s);
+                }
+            }
+        }
+
+        long reparsedChunks = columnsToReparse.stream().filter(set -> !set.isEmpty()).count();
+        if (reparsedChunks > 0) {
+            LOG.debug("Re-tokenizing {} of {} chunks to reconcile column types", reparsedChunks, chunkCount);
+            dataEnginePool.submit(() -> IntStream.range(0, chunkCount).parallel()
+                    .filter(i -> !columnsToReparse.get(i).isEmpty())
+                    .forEach(i -> {
+                        Set<Integer> columns = columnsToReparse.get(i);
+                        for (int s : columns) {
+                            parts[i][s] = layout.candidates[selected[s]][finalTypes[s]]
+                                    .create(layout.header[selected[s]]);
+                        }
+                        forEachRow(channel, boundaries[i], boundaries[i + 1], layout.header.length, row -> {
+                            if (!layout.keeps(row)) {
+                                return;
+                            }
+                            for (int s : columns) {
+                                parts[i][s].appendCell(row[selected[s]],
+                                        layout.parsers[selected[s]][finalTypes[s]]);
+                            }
+                        });
+                    })).join();
+        }
+
+        Table table = Table.create();
+        for (int s = 0; s < selected.length; s++) {
+            Column column = layout.candidates[selected[s]][finalTypes[s]].create(layout.header[selected[s]]);
+            for (int i = 0; i < chunkCount; i++) {
+                column.append(parts[i][s]);
+            }
+            table.addColumns(column);
+        }
+        return table;
+    }
+
+    private void forEachRow(FileChannel channel, long from, long to, int columnCount, RowConsumer consumer) {
+        if (from >= to) {
+            return;
+        }
+        CsvParser parser = new CsvParser(parserSettings());
+        parser.beginParsing(new InputStreamReader(new MappedRegionInputStream(map(channel, from, to)),
+                StandardCharsets.UTF_8));
+        String[] row;
+        while ((row = parser.parseNext()) != null) {
+            if (row.length != columnCount) {
+                parser.stopParsing();
+                throw new IllegalStateException(
+                        "Row has " + row.length + " cells but the header has " + columnCount);
+            }
+            for (int c = 0; c < row.length; c++) {
+                if (row[c] == null) {
+                    row[c] = "";
+                }
+            }
+            consumer.accept(row);
+        }
+    }
+
+    private List<String[]> tokenize(FileChannel channel, long from, long to) {
+        List<String[]> rows = new ArrayList<>();
+        CsvParser parser = new CsvParser(parserSettings());
+        parser.beginParsing(new InputStreamReader(new MappedRegionInputStream(map(channel, from, to)),
+                StandardCharsets.UTF_8));
+        String[] row;
+        while ((row = parser.parseNext()) != null) {
+            rows.add(row);
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("CSV file has no header row");
+        }
+        return rows;
+    }
+
+    // Mirrors the settings Tablesaw's CsvReader applies on top of univocity's defaults
+    static CsvParserSettings parserSettings() {
+        CsvParserSettings settings = new CsvParserSettings();
+        settings.setLineSeparatorDetectionEnabled(true);
+        settings.setMaxCharsPerColumn(4096);
+        settings.setMaxColumns(10_000);
+        settings.getFormat().setDelimiter(',');
+        settings.getFormat().setQuote('"');
+        settings.getFormat().setQuoteEscape('"');
+        return settings;
+    }
+
+    private static void validateHeader(String[] header) {
+        Set<String> names = new HashSet<>();
+        for (String name : header) {
+            if (name == null || name.isBlank() || !names.add(name)) {
+                throw new IllegalStateException("Header has blank or duplicate column names");
+            }
+        }
+    }
+
+    /**
+     * Splits {@code [dataStart, size)} into chunks that each start at the
+     * beginning of a record. No boundary lies past {@code size}, even when the
+     * file has grown beyond it.
+     */
+    private long[] splitOnRecordBoundaries(FileChannel channel, long dataStart, long size) {
+        long dataBytes = size - dataStart;
+        long targetChunks = (long) dataEnginePool.getParallelism() * CHUNKS_PER_THREAD;
+        long chunkBytes = Math.max(minChunkBytes, Math.min(MAX_CHUNK_BYTES, dataBytes / Math.max(1, targetChunks)));
+        int chunkCount = (int) Math.max(1, (dataBytes + chunkBytes - 1) / chunkBytes);
+
+        long[] rawBoundaries = new long[chunkCount + 1];
+        for (int i = 0; i < chunkCount; i++) {
+            rawBoundaries[i] = dataStart + i * chunkBytes;
+        }
+        rawBoundaries[chunkCount] = size;
+
+        long[] quoteCounts = dataEnginePool.submit(() -> IntStream.range(0, chunkCount).parallel()
+                .mapToLong(i -> countQuotes(channel, rawBoundaries[i], rawBoundaries[i + 1]))
+                .toArray()).join();
+        int[] parities = new int[chunkCount];
+        long quotesBefore = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            parities[i] = (int) (quotesBefore & 1);
+            quotesBefore += quoteCounts[i];
+        }
+
+        long[] boundaries = dataEnginePool.submit(() -> IntStream.rangeClosed(0, chunkCount).parallel()
+                .mapToLong(i -> {
+                    if (i == 0 || i == chunkCount) {
+                        return rawBoundaries[i];
+                    }
+                    return findRecordStart(channel, rawBoundaries[i], parities[i], size);
+                })
+                .toArray()).join();
+        for (int i = 1; i <= chunkCount; i++) {
+            boundaries[i] = Math.min(Math.max(boundaries[i], boundaries[i - 1]), size);
+        }
+        return boundaries;
+    }
+
+    private static long countQuotes(FileChannel channel, long from, long to) {
+        MappedByteBuffer buffer = map(channel, from, to);
+        long quotes = 0;
+        for (int i = 0, n = buffer.limit(); i < n; i++) {
+            if (buffer.get(i) == QUOTE) {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    /**
+     * Returns the position just after the first line break at or after
+     * {@code from} and before {@code size} that lies outside quotes, given the
+     * quote parity at {@code from}; or {@code size} if there is none.
+     */
+    private static long findRecordStart(FileChannel channel, long from, int parity, long size) {
+        long position = from;
+        while (position < size) {
+            long windowEnd = Math.min(size, position + SCAN_WINDOW_BYTES);
+            MappedByteBuffer window = map(channel, position, windowEnd);
+            for (int i = 0, n = window.limit(); i < n; i++) {
+                byte b = window.get(i);
+                if (b == QUOTE) {
+                    parity ^= 1;
+                } else if (b == NEWLINE && parity == 0) {
+                    return position + i + 1;
+                }
+            }
+            position = windowEnd;
+        }
+        return size;
+    }
+
+    private static boolean hasUtf8Bom(FileChannel channel, long size) throws IOException {
+        if (size < 3) {
+            return false;
+        }
+        ByteBuffer bom = ByteBuffer.allocate(3);
+        channel.read(bom, 0);
+        return bom.get(0) == (byte) 0xEF && bom.get(1) == (byte) 0xBB && bom.get(2) == (byte) 0xBF;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long to) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Which columns of the file are kept and which predicates rows must pass,
+     * resolved against the header.
+     */
+    private static final class Layout {
+        private final String[] header;
+        private final int[] selected;
+        private final int[] predicateColumns;
+        private final RawPredicate[] predicates;
+        // Candidate types and their parsers per column of the file, in detection order
+        private final ColumnType[][] candidates;
+        private final AbstractColumnParser<?>[][] parsers;
+
+        private Layout(String[] header, ScanSpec spec, ColumnType[][] candidates, CsvReadOptions options) {
+            this.header = header;
+            this.selected = IntStream.range(0, header.length).filter(c -> spec.selects(header[c])).toArray();
+            List<String> names = List.of(header);
+            // Predicates on unknown columns are left for the query executors to report
+            List<RawPredicate> known = spec.getPredicates().stream()
+                    .filter(predicate -> names.contains(predicate.getColumn()))
+                    .toList();
+            this.predicates = known.toArray(new RawPredicate[0]);
+            this.predicateColumns = known.stream().mapToInt(predicate -> names.indexOf(predicate.getColumn()))
+                    .toArray();
+            this.candidates = candidates;
+            this.parsers = new AbstractColumnParser<?>[header.length][];
+            for (int c = 0; c < header.length; c++) {
+                this.parsers[c] = Arrays.stream(candidates[c])
+                        .map(type -> type.customParser(options))
+                        .toArray(AbstractColumnParser<?>[]::new);
+            }
+        }
+
+        private boolean keeps(String[] row) {
+            for (int p = 0; p < predicates.length; p++) {
+                if (!predicates[p].mayMatch(row[predicateColumns[p]])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Chunk {
+        private final ChunkColumn[] columns;
+        private int rows;
+
+        private Chunk(ChunkColumn[] columns) {
+            this.columns = columns;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowConsumer {
+        void accept(String[] row);
+    }
+
+    /**
+     * Values of one column within one chunk, together with the candidate types
+     * that can still parse all of them. Values are buffered as the first
+     * remaining candidate; when that candidate is ruled out the buffer is widened
+     * if the conversion is lossless (e.g. INTEGER to DOUBLE) and dropped
+     * otherwise, in which case the chunk is re-tokenized for this column once
+     * the final type is known.
+     */
+    private static final class ChunkColumn {
+        private final String name;
+        private final ColumnType[] types;
+        private final AbstractColumnParser<?>[] parsers;
+        private long alive;
+        private int candidate;
+        private Column<?> buffer;
+
+        private ChunkColumn(String name, ColumnType[] types, AbstractColumnParser<?>[] parsers) {
+            this.name = name;
+            this.types = types;
+            this.parsers = parsers;
+            this.alive = (1L << types.length) - 1;
+            this.candidate = 0;
+            this.buffer = types[0].create(name);
+        }
+
+        /**
+         * Narrows the candidate types with the given value and, if {@code keep} is
+         * set, buffers it. Values of skipped rows still take part in type
+         * inference.
+         */
+        private void accept(String value, boolean keep) {
+            long uncovered = alive & ~implied(candidate);
+            if (uncovered != 0 && !parsers[candidate].isMissing(value)) {
+                for (long bits = uncovered; bits != 0; bits &= bits - 1) {
+                    int type = Long.numberOfTrailingZeros(bits);
+                    if (!parsers[type].canParse(value)) {
+                        alive &= ~(1L << type);
+                    }
+                }
+            }
+            // Parsing into the buffer doubles as the type check for the candidate
+            if (keep && buffer != null) {
+                try {
+                    buffer.appendCell(value, parsers[candidate]);
+                    return;
+                } catch (RuntimeException e) {
+                    // Not a value of the candidate type, fall through and promote
+                }
+            } else if (parsers[candidate].canParse(value)) {
+                return;
+            }
+
+            long covered = alive & implied(candidate) & ~(1L << candidate);
+            alive &= ~(1L << candidate);
+            for (long bits = covered; bits != 0; bits &= bits - 1) {
+                int type = Long.numberOfTrailingZeros(bits);
+                if (!parsers[type].canParse(value)) {
+                    alive &= ~(1L << type);
+                }
+            }
+            if (alive == 0) {
+                throw new IllegalStateException("No candidate type can parse '" + value + "' in column " + name);
+            }
+            int next = Long.numberOfTrailingZeros(alive);
+            buffer = convert(buffer, candidate, next);
+            candidate = next;
+            if (keep && buffer != null) {
+                buffer.appendCell(value, parsers[candidate]);
+            }
+        }
+
+        private Column<?> resolve(int finalType) {
+            if (finalType == candidate) {
+                return buffer;
+            }
+            return convert(buffer, candidate, finalType);
+        }
+
+        private Column<?> convert(Column<?> values, int from, int to) {
+            if (values == null) {
+                return null;
+            }
+            if (values.countMissing() == values.size()) {
+                Column<?> missing = types[to].create(name);
+                for (int i = 0; i < values.size(); i++) {
+                    missing.appendMissing();
+                }
+                return missing;
+            }
+            ColumnType target = types[to];
+            if (values instanceof NumericColumn<?> numbers && (implied(from) & (1L << to)) != 0) {
+                if (target == ColumnType.DOUBLE) {
+                    return numbers.asDoubleColumn().setName(name);
+                } else if (target == ColumnType.LONG) {
+                    return numbers.asLongColumn().setName(name);
+                } else if (target == ColumnType.INTEGER) {
+                    return numbers.asIntColumn().setName(name);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Candidate types that can parse every value the given type can parse
+         * (including the type itself).
+         */
+        private long implied(int type) {
+            long mask = 1L << type;
+            for (int other = 0; other < types.length; other++) {
+                if (implies(types[type], types[other])) {
+                    mask |= 1L << other;
+                }
+            }
+            return mask;
+        }
+
+        private static boolean implies(ColumnType from, ColumnType to) {
+            if (to == ColumnType.STRING) {
+                return true;
+            }
+            if (from == ColumnType.SHORT) {
+                return to == ColumnType.INTEGER || to == ColumnType.LONG || to == ColumnType.DOUBLE;
+            }
+            if (from == ColumnType.INTEGER) {
+                return to == ColumnType.LONG || to == ColumnType.DOUBLE;
+            }
+            if (from == ColumnType.LONG) {
+                return to == ColumnType.DOUBLE;
+            }
+            return false;
+        }
+    }
+
+    static final class MappedRegionInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        MappedRegionInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
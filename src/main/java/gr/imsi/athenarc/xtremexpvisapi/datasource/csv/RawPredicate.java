@@ -0,0 +1,172 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.csv;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.InequalityFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+
+/**
+ * A conservative version of a query filter that can be evaluated on the raw
+ * text of a CSV cell, before the column type is known.
+ * <p>
+ * {@link #mayMatch(String)} only returns {@code false} for values that the
+ * corresponding filter is certain to reject once the column is typed (e.g. a
+ * cell that parses as a number outside a numeric range). Anything it cannot
+ * decide on is kept, so the query executors still apply the original filters
+ * to the loaded rows.
+ */
+public final class RawPredicate {
+
+    private final String column;
+    private final Predicate<String> mayMatch;
+
+    private RawPredicate(String column, Predicate<String> mayMatch) {
+        this.column = column;
+        this.mayMatch = mayMatch;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean mayMatch(String raw) {
+        return mayMatch.test(raw);
+    }
+
+    /**
+     * Builds the raw-value form of a filter, if it has one. Numeric ranges,
+     * inequalities and equalities, boolean equalities and ranges over ISO-8601
+     * dates and date-times are supported.
+     *
+     * @param filter the filter of a tabular or time series request
+     * @return the predicate, or empty if the filter cannot be checked on raw text
+     */
+    public static Optional<RawPredicate> from(AbstractFilter filter) {
+        if (filter == null || filter.getColumn() == null) {
+            return Optional.empty();
+        }
+        String column = filter.getColumn();
+        if (filter instanceof RangeFilter<?> rangeFilter) {
+            return rangePredicate(rangeFilter.getMin(), rangeFilter.getMax())
+                    .map(test -> new RawPredicate(column, test));
+        } else if (filter instanceof InequalityFilter<?> inequalityFilter) {
+            return inequalityPredicate(inequalityFilter.getValue(), inequalityFilter.getOperator())
+                    .map(test -> new RawPredicate(column, test));
+        } else if (filter instanceof EqualsFilter<?> equalsFilter) {
+            return equalsPredicate(equalsFilter.getValue())
+                    .map(test -> new RawPredicate(column, test));
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<Predicate<String>> rangePredicate(Object min, Object max) {
+        if (min instanceof Number minNumber && max instanceof Number maxNumber) {
+            double low = minNumber.doubleValue();
+            double high = maxNumber.doubleValue();
+            return Optional.of(raw -> {
+                Double value = parseNumber(raw);
+                return value == null || (value >= low && value <= high);
+            });
+        }
+        if (min == null || max == null) {
+            return Optional.empty();
+        }
+        try {
+            LocalDateTime low = LocalDateTime.parse(min.toString());
+            LocalDateTime high = LocalDateTime.parse(max.toString());
+            return Optional.of(raw -> {
+                LocalDateTime value = parseDateTime(raw);
+                return value == null || (!value.isBefore(low) && !value.isAfter(high));
+            });
+        } catch (DateTimeParseException e) {
+            // Not date-times, try plain dates
+        }
+        try {
+            LocalDate low = LocalDate.parse(min.toString());
+            LocalDate high = LocalDate.parse(max.toString());
+            return Optional.of(raw -> {
+                LocalDate value = parseDate(raw);
+                return value == null || (!value.isBefore(low) && !value.isAfter(high));
+            });
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Predicate<String>> inequalityPredicate(Object bound, String operator) {
+        if (!(bound instanceof Number number) || operator == null) {
+            return Optional.empty();
+        }
+        double limit = number.doubleValue();
+        Predicate<Double> test;
+        switch (operator) {
+            case "gt":
+                test = value -> value > limit;
+                break;
+            case "lt":
+                test = value -> value < limit;
+                break;
+            case "gte":
+                test = value -> value >= limit;
+                break;
+            case "lte":
+                test = value -> value <= limit;
+                break;
+            default:
+                return Optional.empty();
+        }
+        return Optional.of(raw -> {
+            Double value = parseNumber(raw);
+            return value == null || test.test(value);
+        });
+    }
+
+    private static Optional<Predicate<String>> equalsPredicate(Object expected) {
+        if (expected instanceof Number number) {
+            double target = number.doubleValue();
+            return Optional.of(raw -> {
+                Double value = parseNumber(raw);
+                return value == null || value == target;
+            });
+        }
+        if (expected instanceof Boolean flag) {
+            String rejected = Boolean.toString(!flag);
+            return Optional.of(raw -> !raw.trim().equalsIgnoreCase(rejected));
+        }
+        return Optional.empty();
+    }
+
+    private static Double parseNumber(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        try {
+            double value = Double.parseDouble(raw.trim());
+            return Double.isNaN(value) ? null : value;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String raw) {
+        try {
+            return raw == null || raw.isBlank() ? null : LocalDateTime.parse(raw.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static LocalDate parseDate(String raw) {
+        try {
+            return raw == null || raw.isBlank() ? null : LocalDate.parse(raw.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.csv;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexes;
+import tech.tablesaw.api.Table;
+
+/**
+ * The rows and columns of a CSV file selected by a {@link ScanSpec}.
+ *
+ * @param table       the selected columns of the rows that passed the scan's predicates
+ * @param scannedRows the number of data rows in the file, including skipped ones
+ * @param indexes     the sorted indexes of {@code table} when it is a cached table, otherwise null
+ */
+public record ScanResult(Table table, int scannedRows, TableIndexes indexes) {
+
+    public ScanResult(Table table, int scannedRows) {
+        this(table, scannedRows, null);
+    }
+}
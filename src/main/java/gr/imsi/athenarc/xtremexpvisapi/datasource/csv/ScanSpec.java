@@ -0,0 +1,211 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.csv;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.CrossfilterDimension;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.OrderBy;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+
+/**
+ * The part of a CSV file a request needs: the columns it references, the
+ * filters the query executor will apply and the {@link RawPredicate}s a row
+ * must pass while it is being tokenized.
+ */
+public final class ScanSpec {
+
+    private static final ScanSpec ALL = new ScanSpec(null, List.of());
+
+    // null means every column
+    private final Set<String> columns;
+    private final List<AbstractFilter> filters;
+    private final List<RawPredicate> predicates;
+
+    private ScanSpec(Set<String> columns, List<AbstractFilter> filters) {
+        this.columns = columns;
+        this.filters = filters;
+        this.predicates = predicatesOf(filters);
+    }
+
+    public static ScanSpec all() {
+        return ALL;
+    }
+
+    /**
+     * Derives the scan of a tabular request from its {@code columns},
+     * {@code filters}, {@code groupBy}, {@code aggregation}, the strata of its
+     * {@code sample} and, unless it orders aggregated rows, {@code orderBy}.
+     * A sampled request scans every row: samples rank rows by their position
+     * in the table, so rows dropped while scanning would change which rows
+     * the same seed keeps.
+     */
+    public static ScanSpec forRequest(TabularRequest request) {
+        Set<String> columns = null;
+        if (request.getColumns() != null && !request.getColumns().isEmpty()) {
+            columns = new LinkedHashSet<>(request.getColumns());
+            addFilterColumns(columns, request.getFilters());
+            addAll(columns, request.getGroupBy());
+            if (request.getSample() != null && request.getSample().getColumn() != null) {
+                columns.add(request.getSample().getColumn());
+            }
+            if (request.getAggregation() != null && !request.getAggregation().isEmpty()) {
+                columns.addAll(request.getAggregation().keySet());
+            } else if (request.getOrderBy() != null) {
+                for (OrderBy orderBy : request.getOrderBy()) {
+                    if (orderBy != null && orderBy.getColumn() != null) {
+                        columns.add(orderBy.getColumn());
+                    }
+                }
+            }
+        }
+        return new ScanSpec(columns, request.getSample() != null ? List.of() : nonNull(request.getFilters()));
+    }
+
+    /**
+     * Derives the scan of a time series request. Its range and equality filters
+     * only take effect when both {@code from} and {@code to} are set, mirroring
+     * {@code TimeSeriesQueryExecutor}.
+     */
+    public static ScanSpec forRequest(TimeSeriesRequest request) {
+        boolean filtered = request.getFrom() != null && request.getTo() != null;
+        List<AbstractFilter> filters = filtered
+                ? nonNull(request.getFilters()).stream()
+                        .filter(filter -> filter instanceof RangeFilter || filter instanceof EqualsFilter)
+                        .toList()
+                : List.of();
+        Set<String> columns = null;
+        if (request.getColumns() != null && !request.getColumns().isEmpty()) {
+            columns = new LinkedHashSet<>(request.getColumns());
+            addFilterColumns(columns, filters);
+        }
+        return new ScanSpec(columns, filters);
+    }
+
+    /**
+     * Derives the scan of a crossfilter request: the columns of its dimensions
+     * and filters, and every row, since each histogram ignores some filters.
+     */
+    public static ScanSpec forRequest(CrossfilterRequest request) {
+        Set<String> columns = new LinkedHashSet<>();
+        if (request.getDimensions() != null) {
+            for (CrossfilterDimension dimension : request.getDimensions()) {
+                if (dimension != null && dimension.getColumn() != null) {
+                    columns.add(dimension.getColumn());
+                }
+            }
+        }
+        addFilterColumns(columns, request.getFilters());
+        return new ScanSpec(columns.isEmpty() ? null : columns, List.of());
+    }
+
+    /**
+     * Derives the scan of a histogram request: its binned, group-by and filter
+     * columns, and its filters.
+     */
+    public static ScanSpec forRequest(HistogramRequest request) {
+        Set<String> columns = new LinkedHashSet<>();
+        if (request.getColumn() != null) {
+            columns.add(request.getColumn());
+        }
+        addAll(columns, request.getGroupBy());
+        addFilterColumns(columns, request.getFilters());
+        return new ScanSpec(columns.isEmpty() ? null : columns, nonNull(request.getFilters()));
+    }
+
+    /**
+     * Derives the scan of a heatmap request: its axis, aggregated and filter
+     * columns, and its filters.
+     */
+    public static ScanSpec forRequest(HeatmapRequest request) {
+        Set<String> columns = new LinkedHashSet<>();
+        if (request.getX() != null) {
+            columns.add(request.getX());
+        }
+        if (request.getY() != null) {
+            columns.add(request.getY());
+        }
+        if (request.getAggregation() != null) {
+            columns.addAll(request.getAggregation().keySet());
+        }
+        addFilterColumns(columns, request.getFilters());
+        return new ScanSpec(columns.isEmpty() ? null : columns, nonNull(request.getFilters()));
+    }
+
+    /**
+     * Returns whether this scan needs every column and every row.
+     */
+    public boolean isFullScan() {
+        return columns == null && predicates.isEmpty();
+    }
+
+    public boolean selectsAllColumns() {
+        return columns == null;
+    }
+
+    public boolean selects(String column) {
+        return columns == null || columns.contains(column);
+    }
+
+    /**
+     * The filters of the request that the query executor will apply to the
+     * loaded rows.
+     */
+    public List<AbstractFilter> getFilters() {
+        return filters;
+    }
+
+    public List<RawPredicate> getPredicates() {
+        return predicates;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanSpec[columns=" + (columns == null ? "all" : columns) + ", predicates=" + predicates.size() + "]";
+    }
+
+    private static void addFilterColumns(Set<String> columns, List<AbstractFilter> filters) {
+        if (filters != null) {
+            for (AbstractFilter filter : filters) {
+                if (filter != null && filter.getColumn() != null) {
+                    columns.add(filter.getColumn());
+                }
+            }
+        }
+    }
+
+    private static void addAll(Set<String> columns, Collection<String> names) {
+        if (names != null) {
+            columns.addAll(names);
+        }
+    }
+
+    private static List<AbstractFilter> nonNull(List<AbstractFilter> filters) {
+        if (filters == null) {
+            return List.of();
+        }
+        return filters.stream().filter(Objects::nonNull).toList();
+    }
+
+    private static List<RawPredicate> predicatesOf(List<AbstractFilter> filters) {
+        if (filters.isEmpty()) {
+            return List.of();
+        }
+        List<RawPredicate> predicates = new ArrayList<>();
+        for (AbstractFilter filter : filters) {
+            RawPredicate.from(filter).ifPresent(predicates::add);
+        }
+        return Collections.unmodifiableList(predicates);
+    }
+}
@@ -0,0 +1,452 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.histogram;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongToDoubleFunction;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DateTimeColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.NumericColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.columns.dates.PackedLocalDate;
+import tech.tablesaw.columns.datetimes.PackedLocalDateTime;
+import tech.tablesaw.columns.strings.DictionaryMap;
+import tech.tablesaw.columns.times.PackedLocalTime;
+
+/**
+ * Maps the rows of one column to histogram bins.
+ * <p>
+ * Numeric and time columns get equal-width bins between given bounds, which
+ * default to the column's minimum and maximum, equal-frequency bins between
+ * quantiles of the column, or for time columns one bin per calendar unit
+ * (hour, day, month...) in UTC. Time values are binned in milliseconds since
+ * the epoch. String and boolean columns get one bin per distinct value, in
+ * sorted order. Missing values and values outside the bounds fall in no bin.
+ * <p>
+ * Binners only read their column and can be shared by concurrent scans.
+ */
+public final class Binner {
+
+    private static final int DEFAULT_BINS = 20;
+    private static final int MAX_BINS = 10_000;
+    private static final int MAX_CATEGORIES = 1_000;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final String column;
+    private final List<Object> bins;
+    private final Double binWidth;
+    private final Object end;
+    private final IntUnaryOperator binOf;
+
+    private Binner(String column, List<Object> bins, Double binWidth, Object end, IntUnaryOperator binOf) {
+        this.column = column;
+        this.bins = bins;
+        this.binWidth = binWidth;
+        this.end = end;
+        this.binOf = binOf;
+    }
+
+    /**
+     * Creates equal-width bins over a numeric or time column, or one bin per
+     * value of a string or boolean column.
+     *
+     * @param bins the number of bins, 20 if null
+     * @param min  the start of the first bin, the column's minimum if null
+     * @param max  the end of the last bin, the column's maximum if null
+     * @throws IllegalArgumentException if the column's type cannot be binned,
+     *                                  the bounds do not fit it or a string
+     *                                  column has too many distinct values
+     */
+    public static Binner fixedWidth(Table table, String columnName, Integer bins, Object min, Object max) {
+        Column<?> column = table.column(columnName);
+        String columnTypeName = column.type().name();
+        IntToDoubleFunction values = valuesOf(column);
+        if (values != null) {
+            boolean time = isTime(column);
+            return ranged(column, values, binCount(column, bins), bound(column, min, time), bound(column, max, time),
+                    time);
+        }
+        switch (columnTypeName) {
+            case "STRING":
+                return categories((StringColumn) column);
+            case "BOOLEAN": {
+                BooleanColumn booleans = (BooleanColumn) column;
+                return new Binner(column.name(), List.<Object>of(false, true), null, null, row -> {
+                    byte value = booleans.getByte(row);
+                    return value == 1 ? 1 : value == 0 ? 0 : -1;
+                });
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported column type for binning: " + columnTypeName);
+        }
+    }
+
+    /**
+     * Creates bins of a numeric or time column that hold about the same number
+     * of rows each, between the column's quantiles. Values repeated across a
+     * quantile merge bins, so there may be fewer bins than requested.
+     *
+     * @param bins the number of bins, 20 if null
+     * @throws IllegalArgumentException if the column is neither numeric nor a
+     *                                  time column
+     */
+    public static Binner quantiles(Table table, String columnName, Integer bins) {
+        Column<?> column = table.column(columnName);
+        IntToDoubleFunction values = valuesOf(column);
+        if (values == null) {
+            throw new IllegalArgumentException("Quantile bins need a numeric or time column: " + columnName);
+        }
+        int binCount = binCount(column, bins);
+        DoubleArrayList present = new DoubleArrayList();
+        for (int row = 0; row < column.size(); row++) {
+            double value = values.applyAsDouble(row);
+            if (!Double.isNaN(value)) {
+                present.add(value);
+            }
+        }
+        double[] sorted = present.toDoubleArray();
+        Arrays.sort(sorted);
+        if (sorted.length == 0) {
+            return new Binner(column.name(), List.of(), null, null, row -> -1);
+        }
+        DoubleArrayList edgeList = new DoubleArrayList();
+        edgeList.add(sorted[0]);
+        for (int i = 1; i <= binCount; i++) {
+            double edge = sorted[(int) Math.ceil((double) i * sorted.length / binCount) - 1];
+            if (edge > edgeList.getDouble(edgeList.size() - 1)) {
+                edgeList.add(edge);
+            }
+        }
+        double[] edges = edgeList.toDoubleArray();
+        int quantileBins = Math.max(1, edges.length - 1);
+        IntUnaryOperator binOf = row -> {
+            double value = values.applyAsDouble(row);
+            if (!(value >= edges[0] && value <= edges[edges.length - 1])) {
+                return -1;
+            }
+            int position = Arrays.binarySearch(edges, value);
+            int bin = position >= 0 ? position : -position - 2;
+            return Math.min(quantileBins - 1, bin);
+        };
+        boolean time = isTime(column);
+        List<Object> starts = new ArrayList<>(quantileBins);
+        for (int i = 0; i < quantileBins; i++) {
+            starts.add(time ? formatTime(column, edges[i]) : edges[i]);
+        }
+        double last = edges[edges.length - 1];
+        return new Binner(column.name(), starts, null, time ? formatTime(column, last) : last, binOf);
+    }
+
+    /**
+     * Creates one bin per calendar unit of a time column, in UTC, from the unit
+     * of its earliest value to that of its latest. Weeks start on Monday.
+     *
+     * @param unit one of {@code second}, {@code minute}, {@code hour},
+     *             {@code day}, {@code week}, {@code month} or {@code year}
+     * @throws IllegalArgumentException if the column is not a time column, the
+     *                                  unit is unknown or the values span more
+     *                                  than 10,000 units
+     */
+    public static Binner timeUnits(Table table, String columnName, String unit) {
+        Column<?> column = table.column(columnName);
+        if (!isTime(column)) {
+            throw new IllegalArgumentException("Time unit bins need a date or date-time column: " + columnName);
+        }
+        IntToDoubleFunction values = valuesOf(column);
+        DoubleToLongFunction unitOf;
+        LongToDoubleFunction startOf;
+        switch (unit == null ? "" : unit.toLowerCase()) {
+            case "second":
+                unitOf = millis -> Math.floorDiv((long) millis, 1_000L);
+                startOf = index -> index * 1_000.0;
+                break;
+            case "minute":
+                unitOf = millis -> Math.floorDiv((long) millis, 60_000L);
+                startOf = index -> index * 60_000.0;
+                break;
+            case "hour":
+                unitOf = millis -> Math.floorDiv((long) millis, 3_600_000L);
+                startOf = index -> index * 3_600_000.0;
+                break;
+            case "day":
+                unitOf = millis -> Math.floorDiv((long) millis, MILLIS_PER_DAY);
+                startOf = index -> index * (double) MILLIS_PER_DAY;
+                break;
+            case "week":
+                // Day 0 of the epoch is a Thursday
+                unitOf = millis -> Math.floorDiv(Math.floorDiv((long) millis, MILLIS_PER_DAY) + 3, 7);
+                startOf = index -> (index * 7 - 3) * (double) MILLIS_PER_DAY;
+                break;
+            case "month":
+                unitOf = millis -> {
+                    LocalDate date = LocalDate.ofEpochDay(Math.floorDiv((long) millis, MILLIS_PER_DAY));
+                    return date.getYear() * 12L + date.getMonthValue() - 1;
+                };
+                startOf = index -> LocalDate.of((int) Math.floorDiv(index, 12), Math.floorMod(index, 12) + 1, 1)
+                        .toEpochDay() * (double) MILLIS_PER_DAY;
+                break;
+            case "year":
+                unitOf = millis -> LocalDate.ofEpochDay(Math.floorDiv((long) millis, MILLIS_PER_DAY)).getYear();
+                startOf = index -> LocalDate.of((int) index, 1, 1).toEpochDay() * (double) MILLIS_PER_DAY;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported time unit '" + unit + "' for column: " + columnName
+                        + "; use second, minute, hour, day, week, month or year");
+        }
+
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int row = 0; row < column.size(); row++) {
+            double value = values.applyAsDouble(row);
+            if (!Double.isNaN(value)) {
+                long index = unitOf.applyAsLong(value);
+                first = Math.min(first, index);
+                last = Math.max(last, index);
+            }
+        }
+        if (first > last) {
+            return new Binner(column.name(), List.of(), null, null, row -> -1);
+        }
+        if (last - first >= MAX_BINS) {
+            throw new IllegalArgumentException("Column " + columnName + " spans more than " + MAX_BINS + " "
+                    + unit.toLowerCase() + "s; choose a coarser time unit");
+        }
+        long firstUnit = first;
+        List<Object> starts = new ArrayList<>();
+        for (long index = first; index <= last; index++) {
+            starts.add(formatTime(column, startOf.applyAsDouble(index)));
+        }
+        IntUnaryOperator binOf = row -> {
+            double value = values.applyAsDouble(row);
+            return Double.isNaN(value) ? -1 : (int) (unitOf.applyAsLong(value) - firstUnit);
+        };
+        return new Binner(column.name(), starts, null, formatTime(column, startOf.applyAsDouble(last + 1)), binOf);
+    }
+
+    /**
+     * Returns the bin of a row, or -1 if it falls in none.
+     */
+    public int bin(int row) {
+        return binOf.applyAsInt(row);
+    }
+
+    public int binCount() {
+        return bins.size();
+    }
+
+    public String column() {
+        return column;
+    }
+
+    /**
+     * The start of each bin, or each value of a string or boolean column.
+     * Bounds of time columns are ISO-8601 strings.
+     */
+    public List<Object> bins() {
+        return bins;
+    }
+
+    /**
+     * The width of equal-width bins, in milliseconds for time columns, or null
+     * for bins of other kinds.
+     */
+    public Double binWidth() {
+        return binWidth;
+    }
+
+    /**
+     * The end of the last bin, or null for values of string and boolean
+     * columns and for columns without values.
+     */
+    public Object end() {
+        return end;
+    }
+
+    private static Binner ranged(Column<?> column, IntToDoubleFunction values, int binCount, Double requestedMin,
+            Double requestedMax, boolean time) {
+        double min = requestedMin == null ? Double.POSITIVE_INFINITY : requestedMin;
+        double max = requestedMax == null ? Double.NEGATIVE_INFINITY : requestedMax;
+        if (requestedMin == null || requestedMax == null) {
+            for (int row = 0; row < column.size(); row++) {
+                double value = values.applyAsDouble(row);
+                if (!Double.isNaN(value)) {
+                    if (requestedMin == null) {
+                        min = Math.min(min, value);
+                    }
+                    if (requestedMax == null) {
+                        max = Math.max(max, value);
+                    }
+                }
+            }
+        }
+        // No values to take a default bound from
+        if (Double.isInfinite(min)) {
+            min = Double.isInfinite(max) ? 0 : max;
+        }
+        if (Double.isInfinite(max)) {
+            max = min;
+        }
+        if (max < min) {
+            throw new IllegalArgumentException("Max must not be less than min for column: " + column.name());
+        }
+
+        double width = (max - min) / binCount;
+        // A single value still gets bins of some width
+        double step = width > 0 ? width : 1;
+        double low = min;
+        double high = max;
+        IntUnaryOperator binOf = row -> {
+            double value = values.applyAsDouble(row);
+            if (!(value >= low && value <= high)) {
+                return -1;
+            }
+            int bin = Math.min(binCount - 1, (int) ((value - low) / step));
+            // The division can round across an edge; bins start where bins() says they do
+            if (value < low + bin * step) {
+                return bin - 1;
+            }
+            return bin + 1 < binCount && value >= low + (bin + 1) * step ? bin + 1 : bin;
+        };
+        List<Object> bins = new ArrayList<>(binCount);
+        for (int i = 0; i < binCount; i++) {
+            double start = min + i * step;
+            bins.add(time ? formatTime(column, start) : start);
+        }
+        return new Binner(column.name(), bins, step, time ? formatTime(column, min + binCount * step)
+                : min + binCount * step, binOf);
+    }
+
+    private static Binner categories(StringColumn strings) {
+        // Dictionary keys are numbered in order of appearance; bins follow the values' sorted order
+        DictionaryMap dictionary = strings.getDictionary();
+        Int2ObjectOpenHashMap<String> values = new Int2ObjectOpenHashMap<>();
+        for (int row = 0; row < strings.size(); row++) {
+            int key = dictionary.getKeyForIndex(row);
+            if (!values.containsKey(key)) {
+                String value = dictionary.getValueForKey(key);
+                if (value.isEmpty()) {
+                    continue;
+                }
+                values.put(key, value);
+                if (values.size() > MAX_CATEGORIES) {
+                    throw new IllegalArgumentException("Column " + strings.name() + " has more than "
+                            + MAX_CATEGORIES + " distinct values, too many to bin");
+                }
+            }
+        }
+        List<String> sorted = new ArrayList<>(values.values());
+        sorted.sort(null);
+        Object2IntOpenHashMap<String> binOfValue = new Object2IntOpenHashMap<>(sorted.size());
+        for (int bin = 0; bin < sorted.size(); bin++) {
+            binOfValue.put(sorted.get(bin), bin);
+        }
+        Int2IntOpenHashMap binOfKey = new Int2IntOpenHashMap(values.size());
+        binOfKey.defaultReturnValue(-1);
+        for (Int2ObjectOpenHashMap.Entry<String> entry : values.int2ObjectEntrySet()) {
+            binOfKey.put(entry.getIntKey(), binOfValue.getInt(entry.getValue()));
+        }
+        return new Binner(strings.name(), new ArrayList<>(sorted), null, null,
+                row -> binOfKey.get(dictionary.getKeyForIndex(row)));
+    }
+
+    private static int binCount(Column<?> column, Integer bins) {
+        int binCount = bins == null ? DEFAULT_BINS : bins;
+        if (binCount < 1 || binCount > MAX_BINS) {
+            throw new IllegalArgumentException(
+                    "Number of bins must be between 1 and " + MAX_BINS + " for column: " + column.name());
+        }
+        return binCount;
+    }
+
+    // The values of numeric and time columns as doubles, NaN when missing; null for other columns
+    private static IntToDoubleFunction valuesOf(Column<?> column) {
+        switch (column.type().name()) {
+            case "DOUBLE":
+            case "FLOAT":
+            case "INTEGER":
+            case "LONG":
+            case "SHORT": {
+                NumericColumn<?> numbers = (NumericColumn<?>) column;
+                return row -> numbers.isMissing(row) ? Double.NaN : numbers.getDouble(row);
+            }
+            case "LOCAL_DATE_TIME": {
+                DateTimeColumn dateTimes = (DateTimeColumn) column;
+                return row -> dateTimes.isMissing(row) ? Double.NaN : epochMillis(dateTimes.getLongInternal(row));
+            }
+            case "INSTANT": {
+                InstantColumn instants = (InstantColumn) column;
+                return row -> instants.isMissing(row) ? Double.NaN : epochMillis(instants.getLongInternal(row));
+            }
+            case "LOCAL_DATE": {
+                DateColumn dates = (DateColumn) column;
+                return row -> dates.isMissing(row) ? Double.NaN
+                        : PackedLocalDate.toEpochDay(dates.getIntInternal(row)) * (double) MILLIS_PER_DAY;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isTime(Column<?> column) {
+        return column instanceof DateTimeColumn || column instanceof InstantColumn || column instanceof DateColumn;
+    }
+
+    private static Double bound(Column<?> column, Object bound, boolean time) {
+        if (bound == null) {
+            return null;
+        }
+        if (!time) {
+            if (!(bound instanceof Number number)) {
+                throw new IllegalArgumentException("Min and Max must be numbers for column: " + column.name());
+            }
+            return number.doubleValue();
+        }
+        String columnTypeName = column.type().name();
+        try {
+            switch (columnTypeName) {
+                case "INSTANT":
+                    return (double) Instant.parse(bound.toString()).toEpochMilli();
+                case "LOCAL_DATE":
+                    return LocalDate.parse(bound.toString()).toEpochDay() * (double) MILLIS_PER_DAY;
+                default:
+                    return (double) LocalDateTime.parse(bound.toString()).toInstant(ZoneOffset.UTC).toEpochMilli();
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                    "Min and Max must be of type " + columnTypeName + " for column: " + column.name());
+        }
+    }
+
+    // Packed date-times and instants share one layout: a packed date and a packed time of day
+    private static double epochMillis(long packed) {
+        return PackedLocalDate.toEpochDay(PackedLocalDateTime.date(packed)) * (double) MILLIS_PER_DAY
+                + PackedLocalTime.getMillisecondOfDay(PackedLocalDateTime.time(packed));
+    }
+
+    private static String formatTime(Column<?> column, double epochMillis) {
+        Instant instant = Instant.ofEpochMilli((long) epochMillis);
+        if (column instanceof InstantColumn) {
+            return instant.toString();
+        }
+        if (column instanceof DateColumn && epochMillis % MILLIS_PER_DAY == 0) {
+            return LocalDate.ofEpochDay((long) (epochMillis / MILLIS_PER_DAY)).toString();
+        }
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC).toString();
+    }
+}
@@ -0,0 +1,116 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.histogram;
+
+/**
+ * A grid of rectangular or hexagonal cells laid over a viewport, mapping
+ * points of two numeric columns to the cell they are drawn in.
+ * <p>
+ * Points are first placed in pixels, with {@code (xMin, yMin)} at pixel
+ * {@code (0, 0)} and {@code (xMax, yMax)} at {@code (width, height)}; cell rows
+ * grow with y. Hexagons are laid out like d3-hexbin's: pointy-topped, of the
+ * given radius, odd rows shifted by half a hexagon, and each point goes to the
+ * hexagon whose center is nearest. Cells are identified by a
+ * {@code long} key packing their row and column. Both spans must be positive.
+ */
+final class CellGrid {
+
+    /** The key of points outside the grid or with a missing coordinate. */
+    static final long NONE = Long.MIN_VALUE;
+
+    private final boolean hex;
+    private final double xMin;
+    private final double xSpan;
+    private final double yMin;
+    private final double ySpan;
+    private final int width;
+    private final int height;
+    // Cell width and height in pixels; the spacing of hexagon centers for hexagons
+    private final double dx;
+    private final double dy;
+
+    /**
+     * @param size the side of a square cell or the radius of a hexagon, in
+     *             pixels
+     */
+    CellGrid(boolean hex, double xMin, double xMax, double yMin, double yMax, int width, int height, double size) {
+        this.hex = hex;
+        this.xMin = xMin;
+        this.xSpan = xMax - xMin;
+        this.yMin = yMin;
+        this.ySpan = yMax - yMin;
+        this.width = width;
+        this.height = height;
+        this.dx = hex ? size * 2 * Math.sin(Math.PI / 3) : size;
+        this.dy = hex ? size * 1.5 : size;
+    }
+
+    /**
+     * Returns the number of cell columns, including the partial hexagons along
+     * the edges.
+     */
+    int columns() {
+        return (int) Math.ceil(width / dx) + (hex ? 1 : 0);
+    }
+
+    int rows() {
+        return (int) Math.ceil(height / dy) + (hex ? 1 : 0);
+    }
+
+    /**
+     * Returns the key of the cell of a point, or {@link #NONE} if a coordinate
+     * is missing (NaN) or outside the bounds.
+     */
+    long cell(double x, double y) {
+        if (!(x >= xMin && x <= xMin + xSpan && y >= yMin && y <= yMin + ySpan)) {
+            return NONE;
+        }
+        double px = (x - xMin) / xSpan * width;
+        double py = (y - yMin) / ySpan * height;
+        if (!hex) {
+            int column = Math.min(columns() - 1, (int) (px / dx));
+            int row = Math.min(rows() - 1, (int) (py / dy));
+            return key(row, column);
+        }
+        // Centers of even and odd rows form two rectangular lattices; the
+        // nearest center is the nearer of the nearest in each
+        long evenRow = 2 * Math.round(py / (2 * dy));
+        long evenColumn = Math.round(px / dx);
+        long oddRow = 2 * Math.round((py - dy) / (2 * dy)) + 1;
+        long oddColumn = Math.round(px / dx - 0.5);
+        double evenX = evenColumn * dx - px;
+        double evenY = evenRow * dy - py;
+        double oddX = (oddColumn + 0.5) * dx - px;
+        double oddY = oddRow * dy - py;
+        if (evenX * evenX + evenY * evenY <= oddX * oddX + oddY * oddY) {
+            return key((int) evenRow, (int) evenColumn);
+        }
+        return key((int) oddRow, (int) oddColumn);
+    }
+
+    static int row(long key) {
+        return (int) (key >> 32);
+    }
+
+    static int column(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Returns the x value at the center of a cell.
+     */
+    double centerX(long key) {
+        double px = hex ? (column(key) + (row(key) & 1) / 2.0) * dx : (column(key) + 0.5) * dx;
+        return xMin + px / width * xSpan;
+    }
+
+    /**
+     * Returns the y value at the center of a cell.
+     */
+    double centerY(long key) {
+        double py = hex ? row(key) * dy : (row(key) + 0.5) * dy;
+        return yMin + py / height * ySpan;
+    }
+
+    private static long key(int row, int column) {
+        return (long) row << 32 | (column & 0xFFFFFFFFL);
+    }
+}
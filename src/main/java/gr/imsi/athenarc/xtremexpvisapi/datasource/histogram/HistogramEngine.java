@@ -0,0 +1,362 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.histogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate.Aggregate;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate.AggregateFunction;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate.HashAggregator;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate.RowKeys;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexes;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.FilterPlanCache;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.PartitionedScanner;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramSeries;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.ViewPort;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import tech.tablesaw.api.LongColumn;
+import tech.tablesaw.api.NumericColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * Answers histogram and heatmap requests: the rows that pass the filters are
+ * binned by one column, per group of the group-by columns, or by the cells of
+ * a grid over two columns, and only the counts and aggregates are returned.
+ * <p>
+ * Bins are computed over the filtered rows, so default bounds and quantiles
+ * follow the filters. Rows are counted in partitions, in parallel for large
+ * tables, into one array of counts per group that are summed afterwards. The
+ * cells of a heatmap are assigned in partitions the same way and aggregated
+ * with the {@link HashAggregator}, so a cell can have any tabular aggregate.
+ */
+public class HistogramEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HistogramEngine.class);
+
+    private static final int MAX_GROUPS = 1_000;
+    private static final double DEFAULT_CELL_SIZE = 10;
+    private static final int MAX_CELLS = 1_000_000;
+
+    private final FilterPlanCache filterPlanCache = new FilterPlanCache();
+    private final HashAggregator hashAggregator;
+    private final PartitionedScanner scanner;
+
+    public HistogramEngine(HashAggregator hashAggregator, PartitionedScanner scanner) {
+        this.hashAggregator = hashAggregator;
+        this.scanner = scanner;
+    }
+
+    /**
+     * Counts the rows of each bin of a request's column.
+     *
+     * @param indexes the indexes of the table, or null if it is not cached
+     * @throws IllegalArgumentException if the request has no column, its
+     *                                  binning does not fit the column, a
+     *                                  filter does not fit its column or there
+     *                                  are more than 1,000 groups
+     */
+    public HistogramResponse query(Table table, TableIndexes indexes, HistogramRequest request) {
+        if (request.getColumn() == null) {
+            throw new IllegalArgumentException("Histogram requests need a column");
+        }
+        Set<String> groupBy = new LinkedHashSet<>(request.getGroupBy() == null ? List.of() : request.getGroupBy());
+        Set<String> needed = new LinkedHashSet<>();
+        needed.add(request.getColumn());
+        needed.addAll(groupBy);
+        Table filtered = filter(table, indexes, request.getFilters(), needed);
+        String binning = request.getBinning() == null ? "fixed" : request.getBinning().toLowerCase();
+        Binner binner;
+        switch (binning) {
+            case "fixed":
+                binner = Binner.fixedWidth(filtered, request.getColumn(), request.getBins(), request.getMin(),
+                        request.getMax());
+                break;
+            case "quantile":
+                binner = Binner.quantiles(filtered, request.getColumn(), request.getBins());
+                break;
+            case "time":
+                binner = Binner.timeUnits(filtered, request.getColumn(), request.getTimeUnit());
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unsupported binning '" + request.getBinning() + "'; use fixed, quantile or time");
+        }
+
+        List<Column<?>> groupColumns = new ArrayList<>(groupBy.size());
+        for (String name : groupBy) {
+            groupColumns.add(filtered.column(name));
+        }
+        int rowCount = filtered.rowCount();
+        RowKeys keys = RowKeys.of(groupColumns, rowCount);
+        // Groups are numbered in order of first appearance, from the first row of each
+        Long2IntOpenHashMap groupOfKey = new Long2IntOpenHashMap();
+        groupOfKey.defaultReturnValue(-1);
+        int[] groups = new int[rowCount];
+        List<Integer> firstRows = new ArrayList<>();
+        for (int row = 0; row < rowCount; row++) {
+            long key = keys.key(row);
+            int group = groupOfKey.get(key);
+            if (group < 0) {
+                group = firstRows.size();
+                if (group == MAX_GROUPS) {
+                    throw new IllegalArgumentException(
+                            "Histogram requests can have at most " + MAX_GROUPS + " groups");
+                }
+                groupOfKey.put(key, group);
+                firstRows.add(row);
+            }
+            groups[row] = group;
+        }
+
+        int binCount = binner.binCount();
+        int groupCount = Math.max(1, firstRows.size());
+        LOG.debug("Counting {} bins of {} for {} groups over {} rows", binCount, request.getColumn(), groupCount,
+                rowCount);
+        List<int[]> partials = scanner.mapRanges(rowCount, (partition, from, to) -> {
+            int[] counts = new int[groupCount * binCount];
+            for (int row = from; row < to; row++) {
+                int bin = binner.bin(row);
+                if (bin >= 0) {
+                    counts[groups[row] * binCount + bin]++;
+                }
+            }
+            return counts;
+        });
+        int[] counts = partials.get(0);
+        for (int i = 1; i < partials.size(); i++) {
+            int[] partial = partials.get(i);
+            for (int j = 0; j < counts.length; j++) {
+                counts[j] += partial[j];
+            }
+        }
+
+        List<HistogramSeries> series = new ArrayList<>(groupCount);
+        for (int group = 0; group < groupCount; group++) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            if (group < firstRows.size()) {
+                for (Column<?> column : groupColumns) {
+                    values.put(column.name(), column.get(firstRows.get(group)));
+                }
+            }
+            int[] groupCounts = new int[binCount];
+            System.arraycopy(counts, group * binCount, groupCounts, 0, binCount);
+            series.add(new HistogramSeries(values, groupCounts));
+        }
+
+        HistogramResponse response = new HistogramResponse();
+        response.setColumn(binner.column());
+        response.setBinning(binning);
+        response.setBins(binner.bins());
+        response.setEnd(binner.end());
+        response.setBinWidth(binner.binWidth());
+        response.setSeries(series);
+        response.setTotalItems(table.rowCount());
+        response.setFilteredItems(rowCount);
+        return response;
+    }
+
+    /**
+     * Counts the rows in each cell of a grid over the request's viewport, and
+     * aggregates their values per cell. Only non-empty cells are returned.
+     *
+     * @param indexes the indexes of the table, or null if it is not cached
+     * @throws IllegalArgumentException if the request has no x or y column,
+     *                                  they are not numeric, the viewport,
+     *                                  shape, cell size, bounds or an
+     *                                  aggregation is invalid, the grid has
+     *                                  more than 1,000,000 cells or a filter
+     *                                  does not fit its column
+     */
+    public HeatmapResponse heatmap(Table table, TableIndexes indexes, HeatmapRequest request) {
+        if (request.getX() == null || request.getY() == null) {
+            throw new IllegalArgumentException("Heatmap requests need an x and a y column");
+        }
+        ViewPort viewPort = request.getViewPort();
+        if (viewPort == null || viewPort.getWidth() <= 0 || viewPort.getHeight() <= 0) {
+            throw new IllegalArgumentException("Heatmap requests need a viewport with a positive width and height");
+        }
+        String shape = request.getShape() == null ? "rect" : request.getShape().toLowerCase();
+        if (!shape.equals("rect") && !shape.equals("hex")) {
+            throw new IllegalArgumentException("Unsupported heatmap shape '" + request.getShape() + "'; use rect or hex");
+        }
+        double cellSize = request.getCellSize() == null ? DEFAULT_CELL_SIZE : request.getCellSize();
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Heatmap cell size must be positive");
+        }
+        List<Aggregate> aggregates = parseAggregation(request.getAggregation());
+
+        Set<String> needed = new LinkedHashSet<>();
+        needed.add(request.getX());
+        needed.add(request.getY());
+        for (Aggregate aggregate : aggregates) {
+            needed.add(aggregate.column());
+        }
+        Table filtered = filter(table, indexes, request.getFilters(), needed);
+        NumericColumn<?> xs = numericColumn(filtered, request.getX());
+        NumericColumn<?> ys = numericColumn(filtered, request.getY());
+        double[] xBounds = bounds(xs, request.getMinX(), request.getMaxX());
+        double[] yBounds = bounds(ys, request.getMinY(), request.getMaxY());
+        CellGrid grid = new CellGrid(shape.equals("hex"), xBounds[0], xBounds[1], yBounds[0], yBounds[1],
+                viewPort.getWidth(), viewPort.getHeight(), cellSize);
+        if ((long) grid.columns() * grid.rows() > MAX_CELLS) {
+            throw new IllegalArgumentException(
+                    "Heatmap grids can have at most " + MAX_CELLS + " cells; use a larger cell size");
+        }
+
+        int rowCount = filtered.rowCount();
+        long[] cells = new long[rowCount];
+        scanner.mapRanges(rowCount, (partition, from, to) -> {
+            for (int row = from; row < to; row++) {
+                cells[row] = xs.isMissing(row) || ys.isMissing(row) ? CellGrid.NONE
+                        : grid.cell(xs.getDouble(row), ys.getDouble(row));
+            }
+            return to - from;
+        });
+        IntArrayList binnedRows = new IntArrayList();
+        LongArrayList binnedCells = new LongArrayList();
+        for (int row = 0; row < rowCount; row++) {
+            if (cells[row] != CellGrid.NONE) {
+                binnedRows.add(row);
+                binnedCells.add(cells[row]);
+            }
+        }
+        LOG.debug("Aggregating {} of {} rows into a {}x{} {} grid", binnedRows.size(), rowCount, grid.columns(),
+                grid.rows(), shape);
+
+        // The cell key is a column of its own, named apart from the aggregated columns
+        String cellColumn = "cell";
+        while (needed.contains(cellColumn)) {
+            cellColumn = "_" + cellColumn;
+        }
+        Table binned = Table.create(filtered.name(), LongColumn.create(cellColumn, binnedCells.toLongArray()));
+        int[] rows = binnedRows.toIntArray();
+        for (Aggregate aggregate : aggregates) {
+            if (!binned.containsColumn(aggregate.column())) {
+                binned.addColumns(filtered.column(aggregate.column()).subset(rows));
+            }
+        }
+        Aggregate count = new Aggregate(cellColumn, AggregateFunction.COUNT);
+        List<Aggregate> cellAggregates = new ArrayList<>();
+        cellAggregates.add(count);
+        cellAggregates.addAll(aggregates);
+        Table result = hashAggregator.aggregate(binned, List.of(cellColumn), cellAggregates);
+
+        LongColumn keys = result.longColumn(cellColumn);
+        NumericColumn<?> counts = result.numberColumn(count.resultName());
+        int cellCount = result.rowCount();
+        HeatmapResponse response = new HeatmapResponse();
+        response.setX(request.getX());
+        response.setY(request.getY());
+        response.setShape(shape);
+        response.setMinX(xBounds[0]);
+        response.setMaxX(xBounds[1]);
+        response.setMinY(yBounds[0]);
+        response.setMaxY(yBounds[1]);
+        response.setColumns(grid.columns());
+        response.setRows(grid.rows());
+        response.setCellColumns(new int[cellCount]);
+        response.setCellRows(new int[cellCount]);
+        response.setCenterX(new double[cellCount]);
+        response.setCenterY(new double[cellCount]);
+        response.setCounts(new int[cellCount]);
+        for (int i = 0; i < cellCount; i++) {
+            long key = keys.getLong(i);
+            response.getCellColumns()[i] = CellGrid.column(key);
+            response.getCellRows()[i] = CellGrid.row(key);
+            response.getCenterX()[i] = grid.centerX(key);
+            response.getCenterY()[i] = grid.centerY(key);
+            response.getCounts()[i] = (int) counts.getDouble(i);
+        }
+        Map<String, List<Object>> values = new LinkedHashMap<>();
+        for (Aggregate aggregate : aggregates) {
+            Column<?> column = result.column(aggregate.resultName());
+            List<Object> columnValues = new ArrayList<>(cellCount);
+            for (int i = 0; i < cellCount; i++) {
+                columnValues.add(column.isMissing(i) ? null : column.get(i));
+            }
+            values.put(aggregate.resultName(), columnValues);
+        }
+        response.setAggregates(values);
+        response.setTotalItems(table.rowCount());
+        response.setFilteredItems(rowCount);
+        return response;
+    }
+
+    // Aggregations are named as in tabular requests: one function or a list of them per column
+    private static List<Aggregate> parseAggregation(Map<String, Object> aggregation) {
+        List<Aggregate> aggregates = new ArrayList<>();
+        if (aggregation == null) {
+            return aggregates;
+        }
+        for (Map.Entry<String, Object> entry : aggregation.entrySet()) {
+            List<?> names = entry.getValue() instanceof List<?> list ? list : List.of(String.valueOf(entry.getValue()));
+            for (Object name : names) {
+                Aggregate aggregate = Aggregate.parse(entry.getKey(), String.valueOf(name));
+                if (aggregate == null) {
+                    throw new IllegalArgumentException(
+                            "Unsupported aggregation function '" + name + "' for column: " + entry.getKey());
+                }
+                aggregates.add(aggregate);
+            }
+        }
+        return aggregates;
+    }
+
+    private static NumericColumn<?> numericColumn(Table table, String name) {
+        Column<?> column = table.column(name);
+        if (!(column instanceof NumericColumn<?> numbers)) {
+            throw new IllegalArgumentException("Heatmap axes must be numeric columns: " + name);
+        }
+        return numbers;
+    }
+
+    // The requested bounds of an axis, or the column's minimum and maximum; a single value still gets a span
+    private static double[] bounds(NumericColumn<?> column, Double requestedMin, Double requestedMax) {
+        double min = requestedMin == null ? Double.POSITIVE_INFINITY : requestedMin;
+        double max = requestedMax == null ? Double.NEGATIVE_INFINITY : requestedMax;
+        if (requestedMin == null || requestedMax == null) {
+            for (int row = 0; row < column.size(); row++) {
+                if (!column.isMissing(row)) {
+                    double value = column.getDouble(row);
+                    min = requestedMin == null ? Math.min(min, value) : min;
+                    max = requestedMax == null ? Math.max(max, value) : max;
+                }
+            }
+        }
+        if (Double.isInfinite(min)) {
+            min = Double.isInfinite(max) ? 0 : max;
+        }
+        if (Double.isInfinite(max)) {
+            max = min;
+        }
+        if (max < min) {
+            throw new IllegalArgumentException("Max must not be less than min for column: " + column.name());
+        }
+        return new double[] { min, max > min ? max : min + 1 };
+    }
+
+    // Keeps the rows that pass the filters, with only the needed columns
+    private Table filter(Table table, TableIndexes indexes, List<AbstractFilter> filters, Set<String> needed) {
+        Table columns = table.selectColumns(needed.toArray(new String[0]));
+        if (filters == null || filters.isEmpty()) {
+            return columns;
+        }
+        Selection selection = filterPlanCache.planFor(table, filters).select(table, filters, indexes, scanner);
+        return selection == null ? columns : scanner.where(columns, selection);
+    }
+}
@@ -0,0 +1,100 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.index;
+
+import java.util.function.Predicate;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.columns.strings.DictionaryMap;
+
+/**
+ * One compressed bitmap of rows per distinct value of a string column, so that
+ * a string filter is evaluated once per distinct value and its rows are the
+ * union of the matching values' bitmaps.
+ * <p>
+ * Missing strings are stored by Tablesaw as the empty string and are indexed
+ * as such, matching how string filters treat them.
+ */
+public final class BitmapColumnIndex implements ColumnIndex {
+
+    private final String column;
+    private final String[] values;
+    private final RoaringBitmap[] bitmaps;
+    private final long buildMillis;
+
+    private BitmapColumnIndex(String column, String[] values, RoaringBitmap[] bitmaps, long buildMillis) {
+        this.column = column;
+        this.values = values;
+        this.bitmaps = bitmaps;
+        this.buildMillis = buildMillis;
+    }
+
+    /**
+     * Collects the rows of every distinct value of a column, in one pass over
+     * its dictionary keys.
+     */
+    public static BitmapColumnIndex build(StringColumn column) {
+        long start = System.currentTimeMillis();
+        DictionaryMap dictionary = column.getDictionary();
+        Int2ObjectOpenHashMap<RoaringBitmap> rowsByKey = new Int2ObjectOpenHashMap<>();
+        for (int row = 0; row < column.size(); row++) {
+            int key = dictionary.getKeyForIndex(row);
+            RoaringBitmap rows = rowsByKey.get(key);
+            if (rows == null) {
+                rows = new RoaringBitmap();
+                rowsByKey.put(key, rows);
+            }
+            rows.add(row);
+        }
+        String[] values = new String[rowsByKey.size()];
+        RoaringBitmap[] bitmaps = new RoaringBitmap[rowsByKey.size()];
+        int i = 0;
+        for (Int2ObjectOpenHashMap.Entry<RoaringBitmap> entry : rowsByKey.int2ObjectEntrySet()) {
+            values[i] = dictionary.getValueForKey(entry.getIntKey());
+            bitmaps[i] = entry.getValue();
+            bitmaps[i].runOptimize();
+            i++;
+        }
+        return new BitmapColumnIndex(column.name(), values, bitmaps, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns the rows whose value passes the given test. The test runs once
+     * per distinct value.
+     *
+     * @return a new bitmap, free to be modified by the caller
+     */
+    public RoaringBitmap rows(Predicate<String> test) {
+        RoaringBitmap rows = new RoaringBitmap();
+        for (int i = 0; i < values.length; i++) {
+            if (test.test(values[i])) {
+                rows.or(bitmaps[i]);
+            }
+        }
+        return rows;
+    }
+
+    public int cardinality() {
+        return values.length;
+    }
+
+    @Override
+    public String column() {
+        return column;
+    }
+
+    @Override
+    public long sizeBytes() {
+        long sizeBytes = 0;
+        for (RoaringBitmap bitmap : bitmaps) {
+            sizeBytes += bitmap.getSizeInBytes();
+        }
+        return sizeBytes;
+    }
+
+    @Override
+    public long buildMillis() {
+        return buildMillis;
+    }
+}
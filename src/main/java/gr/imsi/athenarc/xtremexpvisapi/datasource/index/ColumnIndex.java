@@ -0,0 +1,13 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.index;
+
+/**
+ * An index over the values of one column of a cached table.
+ */
+public interface ColumnIndex {
+
+    String column();
+
+    long sizeBytes();
+
+    long buildMillis();
+}
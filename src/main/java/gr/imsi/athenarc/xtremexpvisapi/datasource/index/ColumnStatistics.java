@@ -0,0 +1,231 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.index;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import tech.tablesaw.columns.Column;
+
+/**
+ * Value statistics of one column of a cached table, used to estimate how many
+ * rows a filter keeps.
+ * <p>
+ * Statistics are kept over the same keys as {@link SortedColumnIndex}, so
+ * {@link #excludes(KeyRange)} is exact: a range that misses the smallest and
+ * largest key matches no row. The distinct count and the equi-depth histogram
+ * come from a random sample of the rows and are estimates.
+ * <p>
+ * Statistics of a table that grows by appended rows are {@linkplain #extend
+ * extended} with the new rows only: counts and bounds stay exact, while the
+ * sampled estimates are kept until the rows they were sampled from are less
+ * than four fifths of the column, and then collected again.
+ */
+public final class ColumnStatistics {
+
+    private static final int SAMPLE_SIZE = 4096;
+    private static final int BUCKETS = 64;
+
+    private final String column;
+    private final int rowCount;
+    private final int nullCount;
+    private final int keyCount;
+    private final long min;
+    private final long max;
+    private final long distinctEstimate;
+    // The number of rows the distinct estimate and histogram were sampled from
+    private final int sampledRows;
+    // Bucket boundaries: each bucket holds about the same number of keys
+    private final long[] bounds;
+
+    private ColumnStatistics(String column, int rowCount, int nullCount, int keyCount, long min, long max,
+            long distinctEstimate, int sampledRows, long[] bounds) {
+        this.column = column;
+        this.rowCount = rowCount;
+        this.nullCount = nullCount;
+        this.keyCount = keyCount;
+        this.min = min;
+        this.max = max;
+        this.distinctEstimate = distinctEstimate;
+        this.sampledRows = sampledRows;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Collects the statistics of a column in one pass.
+     *
+     * @throws IllegalArgumentException if the column's type is not
+     *                                  {@linkplain SortedColumnIndex#supports
+     *                                  indexable}
+     */
+    public static ColumnStatistics collect(Column<?> column) {
+        long[] rowKeys = new long[column.size()];
+        int[] rows = new int[column.size()];
+        int keyCount = SortedColumnIndex.keys(column, rowKeys, rows);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < keyCount; i++) {
+            long key = rowKeys[rows[i]];
+            min = Math.min(min, key);
+            max = Math.max(max, key);
+        }
+
+        // Random rather than evenly spaced rows, which would alias with periodic data
+        long[] sample;
+        if (keyCount <= SAMPLE_SIZE) {
+            sample = new long[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                sample[i] = rowKeys[rows[i]];
+            }
+        } else {
+            SplittableRandom random = new SplittableRandom(column.name().hashCode());
+            sample = new long[SAMPLE_SIZE];
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                sample[i] = rowKeys[rows[random.nextInt(keyCount)]];
+            }
+        }
+        Arrays.sort(sample);
+        long distinctEstimate = estimateDistinct(sample, keyCount);
+
+        long[] bounds = new long[sample.length == 0 ? 0 : BUCKETS + 1];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = sample[(int) ((long) i * (sample.length - 1) / BUCKETS)];
+        }
+        if (bounds.length > 0) {
+            bounds[0] = min;
+            bounds[BUCKETS] = max;
+        }
+        return new ColumnStatistics(column.name(), column.size(), column.countMissing(), keyCount, min, max,
+                distinctEstimate, column.size(), bounds);
+    }
+
+    /**
+     * Returns the statistics of a column made of the rows these statistics
+     * were collected from followed by appended rows, looking only at the
+     * appended rows unless the estimates have to be sampled again.
+     *
+     * @param column the column including the appended rows
+     * @throws IllegalArgumentException if the column's type is not
+     *                                  {@linkplain SortedColumnIndex#supports
+     *                                  indexable}
+     */
+    public ColumnStatistics extend(Column<?> column) {
+        if (column.size() == rowCount) {
+            return this;
+        }
+        if (keyCount == 0 || column.size() - sampledRows > sampledRows / 4) {
+            return collect(column);
+        }
+        Column<?> appended = column.inRange(rowCount, column.size());
+        long[] rowKeys = new long[appended.size()];
+        int[] rows = new int[appended.size()];
+        int appendedKeys = SortedColumnIndex.keys(appended, rowKeys, rows);
+        long newMin = min;
+        long newMax = max;
+        for (int i = 0; i < appendedKeys; i++) {
+            long key = rowKeys[rows[i]];
+            newMin = Math.min(newMin, key);
+            newMax = Math.max(newMax, key);
+        }
+        long[] newBounds = bounds.clone();
+        newBounds[0] = newMin;
+        newBounds[BUCKETS] = newMax;
+        return new ColumnStatistics(this.column, column.size(), nullCount + appended.countMissing(),
+                keyCount + appendedKeys, newMin, newMax, distinctEstimate, sampledRows, newBounds);
+    }
+
+    /**
+     * Returns whether no row can have a key in the given range.
+     */
+    public boolean excludes(KeyRange range) {
+        return range.isEmpty() || keyCount == 0 || range.high() < min || range.low() > max;
+    }
+
+    /**
+     * Estimates the fraction of all rows with a key in the given range.
+     */
+    public double selectivity(KeyRange range) {
+        if (excludes(range) || rowCount == 0) {
+            return 0;
+        }
+        double below = range.low() == Long.MIN_VALUE ? 0 : fractionAtMost(range.low() - 1);
+        double keyFraction = Math.max(0, fractionAtMost(range.high()) - below);
+        return keyFraction * keyCount / rowCount;
+    }
+
+    /**
+     * Estimates the fraction of all rows equal to one value.
+     */
+    public double equalitySelectivity() {
+        if (rowCount == 0 || keyCount == 0) {
+            return 0;
+        }
+        return (double) keyCount / rowCount / Math.max(1, distinctEstimate);
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public int nullCount() {
+        return nullCount;
+    }
+
+    public long min() {
+        return min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public long distinctEstimate() {
+        return distinctEstimate;
+    }
+
+    /**
+     * Estimates the number of distinct keys from a sorted sample with the GEE
+     * estimator: values seen once in the sample stand for {@code sqrt(n / s)}
+     * values each, values seen more often are assumed to have been found.
+     */
+    private static long estimateDistinct(long[] sample, int keyCount) {
+        long seenOnce = 0;
+        long seenMore = 0;
+        for (int i = 0; i < sample.length;) {
+            int j = i + 1;
+            while (j < sample.length && sample[j] == sample[i]) {
+                j++;
+            }
+            if (j - i == 1) {
+                seenOnce++;
+            } else {
+                seenMore++;
+            }
+            i = j;
+        }
+        if (sample.length == keyCount) {
+            return seenOnce + seenMore;
+        }
+        double scale = Math.sqrt((double) keyCount / sample.length);
+        return Math.min(keyCount, Math.round(scale * seenOnce + seenMore));
+    }
+
+    // Fraction of keys <= key, interpolating linearly within a bucket
+    private double fractionAtMost(long key) {
+        if (key < bounds[0]) {
+            return 0;
+        }
+        if (key >= bounds[BUCKETS]) {
+            return 1;
+        }
+        int bucket = 0;
+        while (bucket < BUCKETS - 1 && bounds[bucket + 1] <= key) {
+            bucket++;
+        }
+        double width = (double) bounds[bucket + 1] - (double) bounds[bucket];
+        double within = width <= 0 ? 1 : ((double) key - (double) bounds[bucket]) / width;
+        return (bucket + Math.min(1, within)) / BUCKETS;
+    }
+}
@@ -0,0 +1,12 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.index;
+
+public record IndexStats(
+        long builds,
+        long buildMillis,
+        long lookups,
+        int tables,
+        int sortedIndexes,
+        int bitmapIndexes,
+        int columnStatistics,
+        long sizeBytes) {
+}
@@ -0,0 +1,47 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.index;
+
+/**
+ * An inclusive range of {@link SortedColumnIndex} keys on one column. The
+ * range is empty when {@code low > high}.
+ *
+ * @param column the column the range applies to
+ * @param low    the smallest key in the range
+ * @param high   the largest key in the range
+ */
+public record KeyRange(String column, long low, long high) {
+
+    /**
+     * Returns the keys between two bounds, each of which may be excluded.
+     */
+    public static KeyRange between(String column, long low, boolean lowInclusive, long high, boolean highInclusive) {
+        if (!lowInclusive) {
+            if (low == Long.MAX_VALUE) {
+                return empty(column);
+            }
+            low++;
+        }
+        if (!highInclusive) {
+            if (high == Long.MIN_VALUE) {
+                return empty(column);
+            }
+            high--;
+        }
+        return new KeyRange(column, low, high);
+    }
+
+    public static KeyRange greaterThan(String column, long limit, boolean inclusive) {
+        return between(column, limit, inclusive, Long.MAX_VALUE, true);
+    }
+
+    public static KeyRange lessThan(String column, long limit, boolean inclusive) {
+        return between(column, Long.MIN_VALUE, true, limit, inclusive);
+    }
+
+    public static KeyRange empty(String column) {
+        return new KeyRange(column, Long.MAX_VALUE, Long.MIN_VALUE);
+    }
+
+    public boolean isEmpty() {
+        return low > high;
+    }
+}
@@ -0,0 +1,205 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.index;
+
+import java.util.Arrays;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import tech.tablesaw.api.ColumnType;
+import tech.tablesaw.api.DateTimeColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.columns.Column;
+
+/**
+ * The rows of one column sorted by value, so that a range of values is found
+ * with two binary searches instead of a scan.
+ * <p>
+ * Values are stored as {@code long} keys that order like the values: integers
+ * as they are, packed date-times and instants as Tablesaw stores them, and
+ * doubles through {@link #keyOf(double)}. Missing integers and doubles never
+ * pass a range or inequality filter and are left out. Missing date-times and
+ * instants are kept, as they sort before every value just like in Tablesaw's
+ * own filters.
+ */
+public final class SortedColumnIndex implements ColumnIndex {
+
+    private final String column;
+    private final long[] keys;
+    private final int[] rows;
+    private final long buildMillis;
+
+    private SortedColumnIndex(String column, long[] keys, int[] rows, long buildMillis) {
+        this.column = column;
+        this.keys = keys;
+        this.rows = rows;
+        this.buildMillis = buildMillis;
+    }
+
+    /**
+     * Returns whether columns of the given type can be indexed.
+     */
+    public static boolean supports(ColumnType columnType) {
+        switch (columnType.name()) {
+            case "DOUBLE":
+            case "INTEGER":
+            case "LOCAL_DATE_TIME":
+            case "INSTANT":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Sorts the rows of a column by value.
+     *
+     * @throws IllegalArgumentException if the column's type is not
+     *                                  {@linkplain #supports supported}
+     */
+    public static SortedColumnIndex build(Column<?> column) {
+        long start = System.currentTimeMillis();
+        long[] rowKeys = new long[column.size()];
+        int[] rows = new int[column.size()];
+        int indexed = keys(column, rowKeys, rows);
+        rows = indexed == rows.length ? rows : Arrays.copyOf(rows, indexed);
+        IntArrays.parallelQuickSort(rows, (left, right) -> Long.compare(rowKeys[left], rowKeys[right]));
+        long[] keys = new long[indexed];
+        for (int i = 0; i < indexed; i++) {
+            keys[i] = rowKeys[rows[i]];
+        }
+        return new SortedColumnIndex(column.name(), keys, rows, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Computes the key of every indexed row of a column.
+     *
+     * @param rowKeys receives the key of each indexed row, at the row's position
+     * @param rows    receives the indexed rows, in ascending order
+     * @return the number of indexed rows
+     * @throws IllegalArgumentException if the column's type is not
+     *                                  {@linkplain #supports supported}
+     */
+    static int keys(Column<?> column, long[] rowKeys, int[] rows) {
+        int rowCount = column.size();
+        int indexed = 0;
+        switch (column.type().name()) {
+            case "DOUBLE": {
+                DoubleColumn doubles = (DoubleColumn) column;
+                for (int row = 0; row < rowCount; row++) {
+                    double value = doubles.getDouble(row);
+                    if (!Double.isNaN(value)) {
+                        rowKeys[row] = keyOf(value);
+                        rows[indexed++] = row;
+                    }
+                }
+                break;
+            }
+            case "INTEGER": {
+                IntColumn ints = (IntColumn) column;
+                for (int row = 0; row < rowCount; row++) {
+                    int value = ints.getInt(row);
+                    if (value != Integer.MIN_VALUE) {
+                        rowKeys[row] = value;
+                        rows[indexed++] = row;
+                    }
+                }
+                break;
+            }
+            case "LOCAL_DATE_TIME": {
+                DateTimeColumn dateTimes = (DateTimeColumn) column;
+                for (int row = 0; row < rowCount; row++) {
+                    rowKeys[row] = dateTimes.getLongInternal(row);
+                    rows[indexed++] = row;
+                }
+                break;
+            }
+            case "INSTANT": {
+                InstantColumn instants = (InstantColumn) column;
+                for (int row = 0; row < rowCount; row++) {
+                    rowKeys[row] = instants.getLongInternal(row);
+                    rows[indexed++] = row;
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported column type for sorted index: " + column.type().name());
+        }
+        return indexed;
+    }
+
+    /**
+     * Maps a double to a key with the same order. Negative zero is mapped like
+     * positive zero, as the two compare equal in filters.
+     */
+    public static long keyOf(double value) {
+        long bits = Double.doubleToRawLongBits(value + 0.0);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    @Override
+    public String column() {
+        return column;
+    }
+
+    /**
+     * Returns how many indexed rows have a key in the given range.
+     */
+    public int count(KeyRange range) {
+        if (range.isEmpty()) {
+            return 0;
+        }
+        return firstAbove(range.high()) - firstAtLeast(range.low());
+    }
+
+    /**
+     * Returns the indexed rows with a key in the given range.
+     */
+    public RoaringBitmap rows(KeyRange range) {
+        if (range.isEmpty()) {
+            return new RoaringBitmap();
+        }
+        int from = firstAtLeast(range.low());
+        int to = firstAbove(range.high());
+        return from >= to ? new RoaringBitmap() : RoaringBitmap.bitmapOfUnordered(Arrays.copyOfRange(rows, from, to));
+    }
+
+    @Override
+    public long sizeBytes() {
+        return (long) keys.length * Long.BYTES + (long) rows.length * Integer.BYTES;
+    }
+
+    @Override
+    public long buildMillis() {
+        return buildMillis;
+    }
+
+    private int firstAtLeast(long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int firstAbove(long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,128 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.index;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.CacheBuilder;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import tech.tablesaw.api.Table;
+
+/**
+ * Column indexes of cached tables, used to answer filters without a full scan:
+ * sorted indexes for range and inequality filters and bitmap indexes for
+ * equality and string filters on low-cardinality string columns.
+ * <p>
+ * Indexes are keyed by table identity and held weakly, so they go away together
+ * with the table once the table cache evicts it or a changed file is reloaded.
+ * Small tables are not indexed.
+ */
+@Component
+public class TableIndexStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TableIndexStore.class);
+
+    private final ConcurrentMap<Table, TableIndexes> tables = CacheBuilder.newBuilder()
+            .weakKeys()
+            .<Table, TableIndexes>build()
+            .asMap();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder buildMillis = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final boolean enabled;
+    private final int minimumRows;
+    private final int bitmapMaxCardinality;
+
+    public TableIndexStore(DataEngineProperties dataEngineProperties) {
+        this.enabled = dataEngineProperties.isIndexEnabled();
+        this.minimumRows = dataEngineProperties.getIndexMinRows();
+        this.bitmapMaxCardinality = dataEngineProperties.getBitmapIndexMaxCardinality();
+    }
+
+    /**
+     * Returns the indexes of a cached table.
+     *
+     * @param table a table shared through the table cache, never modified
+     * @return the table's indexes, or null if indexes are disabled or the table
+     *         is too small to benefit
+     */
+    public TableIndexes indexesFor(Table table) {
+        if (!enabled || table.rowCount() < minimumRows) {
+            return null;
+        }
+        return tables.computeIfAbsent(table, key -> new TableIndexes(this, bitmapMaxCardinality));
+    }
+
+    /**
+     * Collects the column statistics of a table that is about to be cached, so
+     * that its first queries are already planned with them.
+     *
+     * @param table the table to be cached
+     * @return the same table
+     */
+    public Table prepare(Table table) {
+        TableIndexes indexes = indexesFor(table);
+        if (indexes != null) {
+            long start = System.currentTimeMillis();
+            indexes.collectStatistics(table);
+            LOG.info("Collected column statistics of {} in {} ms", table.name(), System.currentTimeMillis() - start);
+        }
+        return table;
+    }
+
+    /**
+     * Prepares a table made of a cached table followed by appended rows,
+     * extending the cached table's statistics instead of collecting them
+     * again. Columns without statistics to extend are collected in full.
+     *
+     * @param previous the cached table the rows were appended to
+     * @param extended the table to be cached in its place
+     * @return the extended table
+     */
+    public Table extend(Table previous, Table extended) {
+        TableIndexes indexes = indexesFor(extended);
+        TableIndexes previousIndexes = tables.get(previous);
+        if (indexes != null && previousIndexes != null) {
+            long start = System.currentTimeMillis();
+            indexes.extendStatistics(previousIndexes, extended);
+            LOG.debug("Extended column statistics of {} in {} ms", extended.name(),
+                    System.currentTimeMillis() - start);
+        }
+        return prepare(extended);
+    }
+
+    public IndexStats stats() {
+        int sortedIndexes = 0;
+        int bitmapIndexes = 0;
+        int statistics = 0;
+        long sizeBytes = 0;
+        for (TableIndexes tableIndexes : tables.values()) {
+            statistics += tableIndexes.statisticsCount();
+            for (ColumnIndex index : tableIndexes.built()) {
+                if (index instanceof BitmapColumnIndex) {
+                    bitmapIndexes++;
+                } else {
+                    sortedIndexes++;
+                }
+                sizeBytes += index.sizeBytes();
+            }
+        }
+        return new IndexStats(builds.sum(), buildMillis.sum(), lookups.sum(), tables.size(), sortedIndexes,
+                bitmapIndexes, statistics, sizeBytes);
+    }
+
+    void recordBuild(Table table, ColumnIndex index) {
+        builds.increment();
+        buildMillis.add(index.buildMillis());
+        LOG.info("Built {} on {}.{} in {} ms ({} bytes)", index.getClass().getSimpleName(), table.name(),
+                index.column(), index.buildMillis(), index.sizeBytes());
+    }
+
+    void recordLookup() {
+        lookups.increment();
+    }
+}
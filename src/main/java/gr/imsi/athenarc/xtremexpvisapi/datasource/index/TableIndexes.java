@@ -0,0 +1,133 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+
+/**
+ * The column indexes and statistics of one cached table, built per column on
+ * first use.
+ * <p>
+ * Instances do not hold on to their table, so that {@link TableIndexStore}
+ * can drop them once the table is evicted; callers pass the table in.
+ */
+public final class TableIndexes {
+
+    private final TableIndexStore store;
+    private final int bitmapMaxCardinality;
+    private final Map<String, SortedColumnIndex> sortedIndexes = new ConcurrentHashMap<>();
+    private final Map<String, BitmapColumnIndex> bitmapIndexes = new ConcurrentHashMap<>();
+    private final Map<String, ColumnStatistics> statistics = new ConcurrentHashMap<>();
+
+    TableIndexes(TableIndexStore store, int bitmapMaxCardinality) {
+        this.store = store;
+        this.bitmapMaxCardinality = bitmapMaxCardinality;
+    }
+
+    /**
+     * Returns the sorted index of the given column, building it if needed.
+     *
+     * @param table  the table these indexes belong to
+     * @param column the column name
+     * @return the index, or null if the column's type cannot be indexed
+     */
+    public SortedColumnIndex index(Table table, String column) {
+        Column<?> tableColumn = table.column(column);
+        if (!SortedColumnIndex.supports(tableColumn.type())) {
+            return null;
+        }
+        SortedColumnIndex index = sortedIndexes.computeIfAbsent(tableColumn.name(), name -> {
+            SortedColumnIndex built = SortedColumnIndex.build(tableColumn);
+            store.recordBuild(table, built);
+            return built;
+        });
+        store.recordLookup();
+        return index;
+    }
+
+    /**
+     * Returns the bitmap index of the given string column, building it if
+     * needed.
+     *
+     * @param table  the table these indexes belong to
+     * @param column the column name
+     * @return the index, or null if the column is not a string column or has
+     *         too many distinct values
+     */
+    public BitmapColumnIndex bitmapIndex(Table table, String column) {
+        Column<?> tableColumn = table.column(column);
+        if (!(tableColumn instanceof StringColumn stringColumn)) {
+            return null;
+        }
+        BitmapColumnIndex index = bitmapIndexes.get(tableColumn.name());
+        if (index == null) {
+            if (stringColumn.countUnique() > bitmapMaxCardinality) {
+                return null;
+            }
+            index = bitmapIndexes.computeIfAbsent(tableColumn.name(), name -> {
+                BitmapColumnIndex built = BitmapColumnIndex.build(stringColumn);
+                store.recordBuild(table, built);
+                return built;
+            });
+        }
+        store.recordLookup();
+        return index;
+    }
+
+    /**
+     * Returns the statistics of the given column, collecting them if needed.
+     *
+     * @param table  the table these indexes belong to
+     * @param column the column name
+     * @return the statistics, or null if the column's type has no sorted keys
+     */
+    public ColumnStatistics statistics(Table table, String column) {
+        Column<?> tableColumn = table.column(column);
+        if (!SortedColumnIndex.supports(tableColumn.type())) {
+            return null;
+        }
+        return statistics.computeIfAbsent(tableColumn.name(), name -> ColumnStatistics.collect(tableColumn));
+    }
+
+    /**
+     * Collects the statistics of every column that has sorted keys.
+     *
+     * @param table the table these indexes belong to
+     */
+    public void collectStatistics(Table table) {
+        for (Column<?> column : table.columns()) {
+            statistics(table, column.name());
+        }
+    }
+
+    /**
+     * Takes over the statistics of an earlier version of the table, extended
+     * with the rows appended since. Indexes are not taken over and are built
+     * again on first use.
+     *
+     * @param previous the indexes of the earlier version
+     * @param table    the table these indexes belong to
+     */
+    void extendStatistics(TableIndexes previous, Table table) {
+        previous.statistics.forEach((name, columnStatistics) -> {
+            if (table.containsColumn(name)) {
+                statistics.computeIfAbsent(name, key -> columnStatistics.extend(table.column(name)));
+            }
+        });
+    }
+
+    int statisticsCount() {
+        return statistics.size();
+    }
+
+    List<ColumnIndex> built() {
+        List<ColumnIndex> built = new ArrayList<>(sortedIndexes.values());
+        built.addAll(bitmapIndexes.values());
+        return built;
+    }
+}
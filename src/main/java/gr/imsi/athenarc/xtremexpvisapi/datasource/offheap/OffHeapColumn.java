@@ -0,0 +1,384 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.ColumnType;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DateTimeColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.FloatColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.LongColumn;
+import tech.tablesaw.api.ShortColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.TimeColumn;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.columns.numbers.ShortColumnType;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * One column of an {@link OffHeapTable}.
+ * <p>
+ * Values are stored outside the Java heap in their Tablesaw internal form
+ * (packed dates and times, one byte per boolean), split into fixed-size
+ * segments so that a column may exceed the 2GB limit of a single buffer.
+ * String columns keep their distinct values in an on-heap dictionary and one
+ * int code per row off-heap. Columns of other types stay on the heap as they
+ * are.
+ */
+public final class OffHeapColumn {
+
+    // 2^24 rows per segment, i.e. at most 128MB for 8-byte values
+    private static final int SEGMENT_SHIFT = 24;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+    private final String name;
+    private final ColumnType type;
+    private final int size;
+    private final int width;
+    private final ByteBuffer[] segments;
+    private final String[] dictionary;
+    private final Column<?> heapColumn;
+
+    private OffHeapColumn(String name, ColumnType type, int size, int width, ByteBuffer[] segments,
+            String[] dictionary, Column<?> heapColumn) {
+        this.name = name;
+        this.type = type;
+        this.size = size;
+        this.width = width;
+        this.segments = segments;
+        this.dictionary = dictionary;
+        this.heapColumn = heapColumn;
+    }
+
+    /**
+     * Copies a Tablesaw column into buffers obtained from {@code allocator}.
+     *
+     * @param column    the column to copy
+     * @param allocator returns a zeroed buffer of the requested size in bytes
+     * @return the off-heap column, or a wrapper around {@code column} if its type
+     *         has no off-heap layout
+     */
+    static OffHeapColumn copyOf(Column<?> column, IntFunction<ByteBuffer> allocator) {
+        int width = widthOf(column.type());
+        if (width == 0) {
+            return new OffHeapColumn(column.name(), column.type(), column.size(), 0, null, null, column);
+        }
+        int size = column.size();
+        ByteBuffer[] segments = new ByteBuffer[(size + SEGMENT_MASK) >>> SEGMENT_SHIFT];
+        for (int s = 0; s < segments.length; s++) {
+            int rows = Math.min(SEGMENT_MASK + 1, size - (s << SEGMENT_SHIFT));
+            segments[s] = allocator.apply(rows * width).order(ByteOrder.nativeOrder());
+        }
+        String[] dictionary = null;
+        switch (column.type().name()) {
+            case "SHORT": {
+                ShortColumn shorts = (ShortColumn) column;
+                for (int row = 0; row < size; row++) {
+                    segments[row >>> SEGMENT_SHIFT].putShort((row & SEGMENT_MASK) << 1, shorts.getShort(row));
+                }
+                break;
+            }
+            case "INTEGER": {
+                IntColumn ints = (IntColumn) column;
+                for (int row = 0; row < size; row++) {
+                    segments[row >>> SEGMENT_SHIFT].putInt((row & SEGMENT_MASK) << 2, ints.getInt(row));
+                }
+                break;
+            }
+            case "FLOAT": {
+                FloatColumn floats = (FloatColumn) column;
+                for (int row = 0; row < size; row++) {
+                    segments[row >>> SEGMENT_SHIFT].putFloat((row & SEGMENT_MASK) << 2, floats.getFloat(row));
+                }
+                break;
+            }
+            case "LOCAL_DATE": {
+                DateColumn dates = (DateColumn) column;
+                for (int row = 0; row < size; row++) {
+                    segments[row >>> SEGMENT_SHIFT].putInt((row & SEGMENT_MASK) << 2, dates.getIntInternal(row));
+                }
+                break;
+            }
+            case "LOCAL_TIME": {
+                TimeColumn times = (TimeColumn) column;
+                for (int row = 0; row < size; row++) {
+                    segments[row >>> SEGMENT_SHIFT].putInt((row & SEGMENT_MASK) << 2, times.getIntInternal(row));
+                }
+                break;
+            }
+            case "LONG": {
+                LongColumn longs = (LongColumn) column;
+                for (int row = 0; row < size; row++) {
+                    segments[row >>> SEGMENT_SHIFT].putLong((row & SEGMENT_MASK) << 3, longs.getLong(row));
+                }
+                break;
+            }
+            case "DOUBLE": {
+                DoubleColumn doubles = (DoubleColumn) column;
+                for (int row = 0; row < size; row++) {
+                    segments[row >>> SEGMENT_SHIFT].putDouble((row & SEGMENT_MASK) << 3, doubles.getDouble(row));
+                }
+                break;
+            }
+            case "LOCAL_DATE_TIME": {
+                DateTimeColumn dateTimes = (DateTimeColumn) column;
+                for (int row = 0; row < size; row++) {
+                    segments[row >>> SEGMENT_SHIFT].putLong((row & SEGMENT_MASK) << 3,
+                            dateTimes.getLongInternal(row));
+                }
+                break;
+            }
+            case "INSTANT": {
+                InstantColumn instants = (InstantColumn) column;
+                for (int row = 0; row < size; row++) {
+                    segments[row >>> SEGMENT_SHIFT].putLong((row & SEGMENT_MASK) << 3,
+                            instants.getLongInternal(row));
+                }
+                break;
+            }
+            case "BOOLEAN": {
+                BooleanColumn booleans = (BooleanColumn) column;
+                for (int row = 0; row < size; row++) {
+                    segments[row >>> SEGMENT_SHIFT].put(row & SEGMENT_MASK, booleans.getByte(row));
+                }
+                break;
+            }
+            case "STRING": {
+                StringColumn strings = (StringColumn) column;
+                Map<String, Integer> codes = new HashMap<>();
+                for (int row = 0; row < size; row++) {
+                    String value = strings.get(row);
+                    Integer code = codes.get(value);
+                    if (code == null) {
+                        code = codes.size();
+                        codes.put(value, code);
+                    }
+                    segments[row >>> SEGMENT_SHIFT].putInt((row & SEGMENT_MASK) << 2, code);
+                }
+                dictionary = new String[codes.size()];
+                for (Map.Entry<String, Integer> entry : codes.entrySet()) {
+                    dictionary[entry.getValue()] = entry.getKey();
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("No off-heap layout for column type " + column.type().name());
+        }
+        return new OffHeapColumn(column.name(), column.type(), size, width, segments, dictionary, null);
+    }
+
+    // Bytes per value, or 0 for types that stay on the heap
+    private static int widthOf(ColumnType type) {
+        switch (type.name()) {
+            case "BOOLEAN":
+                return 1;
+            case "SHORT":
+                return 2;
+            case "INTEGER":
+            case "FLOAT":
+            case "LOCAL_DATE":
+            case "LOCAL_TIME":
+            case "STRING":
+                return 4;
+            case "LONG":
+            case "DOUBLE":
+            case "LOCAL_DATE_TIME":
+            case "INSTANT":
+                return 8;
+            default:
+                return 0;
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public ColumnType type() {
+        return type;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the values of this column live off-heap. Columns for which
+     * this is {@code false} can only be materialized, not read value by value.
+     */
+    public boolean isOffHeap() {
+        return segments != null;
+    }
+
+    /**
+     * Returns the number of bytes this column holds outside the heap.
+     */
+    public long offHeapBytes() {
+        return (long) size * width;
+    }
+
+    public short getShort(int row) {
+        return segments[row >>> SEGMENT_SHIFT].getShort((row & SEGMENT_MASK) << 1);
+    }
+
+    /**
+     * Returns an INTEGER value, the packed form of a LOCAL_DATE or LOCAL_TIME, or
+     * the dictionary code of a STRING.
+     */
+    public int getInt(int row) {
+        return segments[row >>> SEGMENT_SHIFT].getInt((row & SEGMENT_MASK) << 2);
+    }
+
+    public float getFloat(int row) {
+        return segments[row >>> SEGMENT_SHIFT].getFloat((row & SEGMENT_MASK) << 2);
+    }
+
+    /**
+     * Returns a LONG value or the packed form of a LOCAL_DATE_TIME or INSTANT.
+     */
+    public long getLong(int row) {
+        return segments[row >>> SEGMENT_SHIFT].getLong((row & SEGMENT_MASK) << 3);
+    }
+
+    public double getDouble(int row) {
+        return segments[row >>> SEGMENT_SHIFT].getDouble((row & SEGMENT_MASK) << 3);
+    }
+
+    public byte getByte(int row) {
+        return segments[row >>> SEGMENT_SHIFT].get(row & SEGMENT_MASK);
+    }
+
+    /**
+     * Returns the value of a numeric column as a double, with missing values as
+     * NaN, the way Tablesaw compares numbers of different types.
+     */
+    public double getNumber(int row) {
+        switch (type.name()) {
+            case "SHORT": {
+                short value = getShort(row);
+                return ShortColumnType.valueIsMissing(value) ? Double.NaN : value;
+            }
+            case "INTEGER": {
+                int value = getInt(row);
+                return value == Integer.MIN_VALUE ? Double.NaN : value;
+            }
+            case "LONG": {
+                long value = getLong(row);
+                return value == Long.MIN_VALUE ? Double.NaN : value;
+            }
+            case "FLOAT":
+                return getFloat(row);
+            case "DOUBLE":
+                return getDouble(row);
+            default:
+                throw new IllegalStateException("Column " + name + " is not numeric");
+        }
+    }
+
+    /**
+     * The distinct values of a STRING column, indexed by code.
+     */
+    public String[] dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Copies the selected rows, or all rows if {@code rows} is null, into a new
+     * Tablesaw column.
+     */
+    public Column<?> materialize(Selection rows) {
+        if (heapColumn != null) {
+            return rows == null ? heapColumn.copy() : heapColumn.where(rows);
+        }
+        int[] index = rows == null ? null : rows.toArray();
+        int count = index == null ? size : index.length;
+        switch (type.name()) {
+            case "SHORT": {
+                short[] values = new short[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = getShort(index == null ? i : index[i]);
+                }
+                return ShortColumn.create(name, values);
+            }
+            case "INTEGER": {
+                int[] values = new int[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = getInt(index == null ? i : index[i]);
+                }
+                return IntColumn.create(name, values);
+            }
+            case "FLOAT": {
+                float[] values = new float[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = getFloat(index == null ? i : index[i]);
+                }
+                return FloatColumn.create(name, values);
+            }
+            case "LOCAL_DATE": {
+                int[] values = new int[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = getInt(index == null ? i : index[i]);
+                }
+                return DateColumn.createInternal(name, values);
+            }
+            case "LOCAL_TIME": {
+                int[] values = new int[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = getInt(index == null ? i : index[i]);
+                }
+                return TimeColumn.createInternal(name, values);
+            }
+            case "LONG": {
+                long[] values = new long[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = getLong(index == null ? i : index[i]);
+                }
+                return LongColumn.create(name, values);
+            }
+            case "DOUBLE": {
+                double[] values = new double[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = getDouble(index == null ? i : index[i]);
+                }
+                return DoubleColumn.create(name, values);
+            }
+            case "LOCAL_DATE_TIME": {
+                long[] values = new long[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = getLong(index == null ? i : index[i]);
+                }
+                return DateTimeColumn.createInternal(name, values);
+            }
+            case "INSTANT": {
+                long[] values = new long[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = getLong(index == null ? i : index[i]);
+                }
+                return InstantColumn.createInternal(name, values);
+            }
+            case "BOOLEAN": {
+                BooleanColumn column = BooleanColumn.create(name);
+                for (int i = 0; i < count; i++) {
+                    column.append(getByte(index == null ? i : index[i]));
+                }
+                return column;
+            }
+            case "STRING": {
+                String[] values = new String[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = dictionary[getInt(index == null ? i : index[i])];
+                }
+                return StringColumn.create(name, values);
+            }
+            default:
+                throw new IllegalStateException("No off-heap layout for column type " + type.name());
+        }
+    }
+}
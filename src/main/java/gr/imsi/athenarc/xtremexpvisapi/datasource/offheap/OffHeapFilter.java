@@ -0,0 +1,248 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.offheap;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.InequalityFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.StringFilter;
+import tech.tablesaw.columns.dates.PackedLocalDate;
+import tech.tablesaw.columns.datetimes.PackedLocalDateTime;
+import tech.tablesaw.columns.instant.PackedInstant;
+import tech.tablesaw.columns.times.PackedLocalTime;
+
+/**
+ * Evaluates query filters on the values of an {@link OffHeapColumn}, comparing
+ * packed temporal values and dictionary codes the same way Tablesaw's column
+ * filters do.
+ * <p>
+ * Filters whose value does not fit the column type are not evaluated here; the
+ * rows are kept and {@code TabularQueryExecutor} reports the error when it
+ * applies the original filters to the materialized rows.
+ */
+final class OffHeapFilter {
+
+    private OffHeapFilter() {
+    }
+
+    /**
+     * @param filter the request filter
+     * @param column the column it refers to
+     * @return a test on row indexes, or empty if the filter cannot be evaluated
+     *         off-heap
+     */
+    static Optional<IntPredicate> of(AbstractFilter filter, OffHeapColumn column) {
+        if (!column.isOffHeap()) {
+            return Optional.empty();
+        }
+        try {
+            if (filter instanceof RangeFilter<?> rangeFilter) {
+                return range(column, rangeFilter.getMin(), rangeFilter.getMax());
+            } else if (filter instanceof EqualsFilter<?> equalsFilter) {
+                return equalTo(column, equalsFilter.getValue());
+            } else if (filter instanceof InequalityFilter<?> inequalityFilter) {
+                return inequality(column, inequalityFilter.getValue(), inequalityFilter.getOperator());
+            } else if (filter instanceof StringFilter stringFilter) {
+                return string(column, stringFilter.getValue(), stringFilter.getOperator());
+            }
+        } catch (RuntimeException e) {
+            // Unparseable filter values are reported by the executor
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<IntPredicate> range(OffHeapColumn column, Object min, Object max) {
+        if (min == null || max == null) {
+            return Optional.empty();
+        }
+        switch (column.type().name()) {
+            case "SHORT":
+            case "INTEGER":
+            case "LONG":
+            case "FLOAT":
+            case "DOUBLE": {
+                if (!(min instanceof Number low) || !(max instanceof Number high)) {
+                    return Optional.empty();
+                }
+                double lowValue = low.doubleValue();
+                double highValue = high.doubleValue();
+                return Optional.of(row -> {
+                    double value = column.getNumber(row);
+                    return value >= lowValue && value <= highValue;
+                });
+            }
+            case "LOCAL_DATE": {
+                int low = PackedLocalDate.pack(LocalDate.parse(min.toString()));
+                int high = PackedLocalDate.pack(LocalDate.parse(max.toString()));
+                return Optional.of(row -> column.getInt(row) >= low && column.getInt(row) <= high);
+            }
+            case "LOCAL_TIME": {
+                int low = PackedLocalTime.pack(LocalTime.parse(min.toString()));
+                int high = PackedLocalTime.pack(LocalTime.parse(max.toString()));
+                return Optional.of(row -> column.getInt(row) >= low && column.getInt(row) <= high);
+            }
+            case "LOCAL_DATE_TIME": {
+                long low = PackedLocalDateTime.pack(LocalDateTime.parse(min.toString()));
+                long high = PackedLocalDateTime.pack(LocalDateTime.parse(max.toString()));
+                return Optional.of(row -> column.getLong(row) >= low && column.getLong(row) <= high);
+            }
+            case "INSTANT": {
+                // Instant ranges exclude their bounds, as in TabularQueryExecutor
+                long low = PackedInstant.pack(Instant.parse(min.toString()));
+                long high = PackedInstant.pack(Instant.parse(max.toString()));
+                return Optional.of(row -> column.getLong(row) > low && column.getLong(row) < high);
+            }
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<IntPredicate> equalTo(OffHeapColumn column, Object expected) {
+        if (expected == null) {
+            return Optional.empty();
+        }
+        switch (column.type().name()) {
+            case "BOOLEAN": {
+                byte target = Boolean.parseBoolean(expected.toString().toLowerCase()) ? (byte) 1 : (byte) 0;
+                return Optional.of(row -> column.getByte(row) == target);
+            }
+            case "SHORT":
+            case "INTEGER":
+            case "LONG":
+            case "FLOAT":
+            case "DOUBLE": {
+                if (!(expected instanceof Number number)) {
+                    return Optional.empty();
+                }
+                double target = number.doubleValue();
+                return Optional.of(row -> column.getNumber(row) == target);
+            }
+            case "STRING": {
+                boolean[] matches = matchingCodes(column, expected.toString()::equals);
+                return Optional.of(row -> matches[column.getInt(row)]);
+            }
+            case "LOCAL_DATE": {
+                int target = PackedLocalDate.pack(LocalDate.parse(expected.toString()));
+                return Optional.of(row -> column.getInt(row) == target);
+            }
+            case "LOCAL_TIME": {
+                int target = PackedLocalTime.pack(LocalTime.parse(expected.toString()));
+                return Optional.of(row -> column.getInt(row) == target);
+            }
+            case "LOCAL_DATE_TIME": {
+                long target = PackedLocalDateTime.pack(LocalDateTime.parse(expected.toString()));
+                return Optional.of(row -> column.getLong(row) == target);
+            }
+            case "INSTANT": {
+                long target = PackedInstant.pack(Instant.parse(expected.toString()));
+                return Optional.of(row -> column.getLong(row) == target);
+            }
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<IntPredicate> inequality(OffHeapColumn column, Object bound, String operator) {
+        if (bound == null || operator == null) {
+            return Optional.empty();
+        }
+        switch (column.type().name()) {
+            case "SHORT":
+            case "INTEGER":
+            case "LONG":
+            case "FLOAT":
+            case "DOUBLE": {
+                double limit = Double.parseDouble(bound.toString());
+                switch (operator) {
+                    case "gt":
+                        return Optional.of(row -> column.getNumber(row) > limit);
+                    case "lt":
+                        return Optional.of(row -> column.getNumber(row) < limit);
+                    case "gte":
+                        return Optional.of(row -> column.getNumber(row) >= limit);
+                    case "lte":
+                        return Optional.of(row -> column.getNumber(row) <= limit);
+                    default:
+                        return Optional.empty();
+                }
+            }
+            case "LOCAL_DATE": {
+                int limit = PackedLocalDate.pack(LocalDate.parse(bound.toString()));
+                return compare(operator, row -> Integer.compare(column.getInt(row), limit));
+            }
+            case "LOCAL_TIME": {
+                int limit = PackedLocalTime.pack(LocalTime.parse(bound.toString()));
+                return compare(operator, row -> Integer.compare(column.getInt(row), limit));
+            }
+            case "LOCAL_DATE_TIME": {
+                long limit = PackedLocalDateTime.pack(LocalDateTime.parse(bound.toString()));
+                return compare(operator, row -> Long.compare(column.getLong(row), limit));
+            }
+            case "INSTANT": {
+                long limit = PackedInstant.pack(Instant.parse(bound.toString()));
+                return compare(operator, row -> Long.compare(column.getLong(row), limit));
+            }
+            default:
+                return Optional.empty();
+        }
+    }
+
+    // Packed temporal values order chronologically, with missing values first
+    private static Optional<IntPredicate> compare(String operator, RowComparison comparison) {
+        switch (operator) {
+            case "gt":
+                return Optional.of(row -> comparison.compare(row) > 0);
+            case "lt":
+                return Optional.of(row -> comparison.compare(row) < 0);
+            case "gte":
+                return Optional.of(row -> comparison.compare(row) >= 0);
+            case "lte":
+                return Optional.of(row -> comparison.compare(row) <= 0);
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<IntPredicate> string(OffHeapColumn column, String value, String operator) {
+        if (!"STRING".equals(column.type().name()) || value == null || operator == null) {
+            return Optional.empty();
+        }
+        boolean[] matches;
+        switch (operator) {
+            case "contains":
+                matches = matchingCodes(column, entry -> entry.contains(value));
+                break;
+            case "startsWith":
+                matches = matchingCodes(column, entry -> entry.startsWith(value));
+                break;
+            case "endsWith":
+                matches = matchingCodes(column, entry -> entry.endsWith(value));
+                break;
+            default:
+                return Optional.empty();
+        }
+        return Optional.of(row -> matches[column.getInt(row)]);
+    }
+
+    // Evaluates a string test once per distinct value instead of once per row
+    private static boolean[] matchingCodes(OffHeapColumn column, Predicate<String> test) {
+        String[] dictionary = column.dictionary();
+        boolean[] matches = new boolean[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++) {
+            matches[code] = test.test(dictionary[code]);
+        }
+        return matches;
+    }
+
+    @FunctionalInterface
+    private interface RowComparison {
+        int compare(int row);
+    }
+}
@@ -0,0 +1,153 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.ScanResult;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.ScanSpec;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.selection.BitmapBackedSelection;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * A parsed table whose column values are kept outside the Java heap.
+ * <p>
+ * Requests are answered by {@link #scan}: the request's filters are evaluated
+ * directly on the off-heap values and only the matching rows of the columns
+ * the request references are copied into a regular Tablesaw table, which the
+ * query executors then finish (and re-check) as usual. Instances are
+ * immutable and shared between requests.
+ */
+public final class OffHeapTable {
+
+    private final String name;
+    private final int rowCount;
+    private final List<OffHeapColumn> columns;
+
+    private OffHeapTable(String name, int rowCount, List<OffHeapColumn> columns) {
+        this.name = name;
+        this.rowCount = rowCount;
+        this.columns = columns;
+    }
+
+    /**
+     * Copies a table off-heap.
+     *
+     * @param table     the parsed table, which can be discarded afterwards
+     * @param allocator returns a zeroed buffer of the requested size in bytes
+     * @return the off-heap copy
+     */
+    public static OffHeapTable copyOf(Table table, IntFunction<ByteBuffer> allocator) {
+        List<OffHeapColumn> columns = new ArrayList<>(table.columnCount());
+        for (Column<?> column : table.columns()) {
+            columns.add(OffHeapColumn.copyOf(column, allocator));
+        }
+        return new OffHeapTable(table.name(), table.rowCount(), List.copyOf(columns));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public List<OffHeapColumn> columns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of bytes held outside the heap.
+     */
+    public long offHeapBytes() {
+        return columns.stream().mapToLong(OffHeapColumn::offHeapBytes).sum();
+    }
+
+    /**
+     * Returns the part of this table a request needs.
+     *
+     * @param spec the columns and filters of the request
+     * @return the columns selected by {@code spec}, restricted to the rows that
+     *         pass its filters, and the total row count of this table
+     */
+    public ScanResult scan(ScanSpec spec) {
+        Selection rows = select(spec.getFilters());
+        Table result = Table.create(name);
+        for (OffHeapColumn column : columns) {
+            if (spec.selects(column.name())) {
+                result.addColumns(column.materialize(rows));
+            }
+        }
+        return new ScanResult(result, rowCount);
+    }
+
+    /**
+     * Copies the whole table back onto the heap.
+     */
+    public Table toTable() {
+        return scan(ScanSpec.all()).table();
+    }
+
+    /**
+     * Returns the first rows of every column, which is enough to look at the
+     * table's schema without copying it onto the heap.
+     *
+     * @param rows the number of rows to copy, at most
+     * @return the first rows, and the total row count of this table
+     */
+    public ScanResult head(int rows) {
+        Selection head = Selection.withRange(0, Math.min(rows, rowCount));
+        Table result = Table.create(name);
+        for (OffHeapColumn column : columns) {
+            result.addColumns(column.materialize(head));
+        }
+        return new ScanResult(result, rowCount);
+    }
+
+    /**
+     * Evaluates the filters that have an off-heap form. Filters on unknown
+     * columns or with values that do not fit the column are skipped and left to
+     * the executor.
+     *
+     * @return the rows that pass, or null if no filter could be evaluated
+     */
+    private Selection select(List<AbstractFilter> filters) {
+        List<IntPredicate> tests = new ArrayList<>();
+        for (AbstractFilter filter : filters) {
+            OffHeapColumn column = column(filter.getColumn());
+            if (column != null) {
+                OffHeapFilter.of(filter, column).ifPresent(tests::add);
+            }
+        }
+        if (tests.isEmpty()) {
+            return null;
+        }
+        IntPredicate[] conjunction = tests.toArray(new IntPredicate[0]);
+        IntArrayList matches = new IntArrayList();
+        rows: for (int row = 0; row < rowCount; row++) {
+            for (IntPredicate test : conjunction) {
+                if (!test.test(row)) {
+                    continue rows;
+                }
+            }
+            matches.add(row);
+        }
+        return new BitmapBackedSelection(matches.toIntArray());
+    }
+
+    private OffHeapColumn column(String columnName) {
+        for (OffHeapColumn column : columns) {
+            if (column.name().equalsIgnoreCase(columnName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,188 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.offheap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DatasetFingerprint;
+import tech.tablesaw.api.Table;
+
+/**
+ * Cache of {@link OffHeapTable}s keyed by {@link DatasetFingerprint}, used
+ * instead of the on-heap table cache when {@code app.data.off-heap-enabled} is
+ * set.
+ * <p>
+ * Column data lives in memory-mapped buffers backed by files that are unlinked
+ * as soon as they are mapped. These count neither against {@code -Xmx} nor
+ * against {@code -XX:MaxDirectMemorySize}, and the operating system can page
+ * them out under memory pressure, so the budget ({@code app.data.off-heap-cache-size})
+ * can be far larger than the heap. Least recently used tables are dropped once
+ * the budget is exceeded; their memory is returned when the buffers are
+ * garbage collected.
+ */
+@Component
+public class OffHeapTableStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffHeapTableStore.class);
+
+    private final boolean enabled;
+    private final long maximumBytes;
+    private final Path directory;
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<DatasetFingerprint, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Path, DatasetFingerprint> currentFingerprints = new LinkedHashMap<>();
+    private long usedBytes;
+
+    public OffHeapTableStore(DataEngineProperties dataEngineProperties) {
+        this.enabled = dataEngineProperties.isOffHeapEnabled();
+        this.maximumBytes = dataEngineProperties.getOffHeapCacheSize().toBytes();
+        String configuredDirectory = dataEngineProperties.getOffHeapDirectory();
+        this.directory = configuredDirectory == null || configuredDirectory.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"))
+                : Paths.get(configuredDirectory);
+        if (enabled) {
+            LOG.info("Off-heap table store initialized with a budget of {} bytes in {}", maximumBytes, directory);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the off-heap table for the current version of the given file,
+     * parsing it with {@code loader} and copying it off-heap if it is not cached
+     * yet. Concurrent requests for the same version share a single load.
+     *
+     * @param path   the file to read
+     * @param loader loads the on-heap table for the given version of the file
+     * @return the cached or freshly loaded table
+     */
+    public OffHeapTable get(Path path, Function<DatasetFingerprint, Table> loader) {
+        DatasetFingerprint fingerprint = DatasetFingerprint.of(path);
+        Entry existing;
+        Entry entry = new Entry();
+        synchronized (this) {
+            existing = entries.get(fingerprint);
+            if (existing == null) {
+                entries.put(fingerprint, entry);
+                DatasetFingerprint previous = currentFingerprints.put(fingerprint.path(), fingerprint);
+                if (previous != null && !previous.equals(fingerprint)) {
+                    LOG.info("File {} changed on disk, dropping the off-heap table", fingerprint.path());
+                    remove(previous);
+                }
+            }
+        }
+        if (existing != null) {
+            // Wait outside the lock, which the loading request needs to finish
+            return existing.join();
+        }
+
+        OffHeapTable table;
+        try {
+            long start = System.currentTimeMillis();
+            table = OffHeapTable.copyOf(loader.apply(fingerprint), this::allocate);
+            LOG.info("Moved {} ({} rows, {} bytes) off-heap in {} ms", path.getFileName(), table.rowCount(),
+                    table.offHeapBytes(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                entries.remove(fingerprint, entry);
+                currentFingerprints.remove(fingerprint.path(), fingerprint);
+            }
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        entry.future.complete(table);
+        synchronized (this) {
+            // The entry may have been replaced by a newer version while it was loading
+            if (entries.get(fingerprint) == entry) {
+                entry.bytes = table.offHeapBytes();
+                usedBytes += entry.bytes;
+                evictIfNeeded(fingerprint);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns whether the current version of the given file is held off-heap or
+     * being loaded.
+     */
+    public synchronized boolean contains(Path path) {
+        return entries.containsKey(DatasetFingerprint.of(path));
+    }
+
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    public long maximumBytes() {
+        return maximumBytes;
+    }
+
+    private void remove(DatasetFingerprint fingerprint) {
+        Entry removed = entries.remove(fingerprint);
+        if (removed != null) {
+            usedBytes -= removed.bytes;
+        }
+    }
+
+    private void evictIfNeeded(DatasetFingerprint justLoaded) {
+        Iterator<Map.Entry<DatasetFingerprint, Entry>> iterator = entries.entrySet().iterator();
+        while (usedBytes > maximumBytes && iterator.hasNext()) {
+            Map.Entry<DatasetFingerprint, Entry> candidate = iterator.next();
+            if (candidate.getKey().equals(justLoaded) || !candidate.getValue().future.isDone()) {
+                continue;
+            }
+            LOG.info("Evicting off-heap table {} ({} bytes)", candidate.getKey().path(), candidate.getValue().bytes);
+            usedBytes -= candidate.getValue().bytes;
+            currentFingerprints.remove(candidate.getKey().path(), candidate.getKey());
+            iterator.remove();
+        }
+    }
+
+    // Maps a fresh temporary file; the file is unlinked on close while the mapping stays valid
+    private ByteBuffer allocate(int bytes) {
+        try {
+            Path file = Files.createTempFile(directory, "offheap-", ".col");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to allocate off-heap storage in " + directory, e);
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<OffHeapTable> future = new CompletableFuture<>();
+        private long bytes;
+
+        private OffHeapTable join() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.OrderBy;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+
+/**
+ * Where the next page of a query's rows starts, handed to clients as an opaque
+ * token.
+ * <p>
+ * Positions count rows of the filtered (and ordered) result, not rows of the
+ * table, so a cursor stays valid whether the dataset is served from the cache
+ * or scanned for one request. Ordered results also remember the rank of the
+ * last row returned among the filtered rows in file order, so the next page is
+ * the rows ordered after it rather than a deeper top-N.
+ *
+ * @param query    identifies the filters and order the cursor was issued for
+ * @param position how many rows the previous pages returned
+ * @param lastRank the rank of the last returned row among the filtered rows,
+ *                 or -1 if the next page is found by position alone
+ */
+public record PageCursor(String query, int position, int lastRank) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Returns the cursor of the first row at the given position of a query.
+     */
+    public static PageCursor at(String query, int position) {
+        return new PageCursor(query, Math.max(0, position), -1);
+    }
+
+    /**
+     * Identifies the row sequence of a query: its filters in any order and its
+     * ordering. Columns and page size do not change which rows come next, so a
+     * cursor can be used with a different projection or limit.
+     */
+    public static String queryOf(List<AbstractFilter> filters, List<OrderBy> orderBy) {
+        List<String> parts = new ArrayList<>();
+        if (filters != null) {
+            for (AbstractFilter filter : filters) {
+                parts.add(toJson(filter));
+            }
+            parts.sort(null);
+        }
+        parts.add(toJson(orderBy == null ? List.of() : orderBy));
+        return Hashing.murmur3_128().hashString(String.join("\n", parts), StandardCharsets.UTF_8).toString()
+                .substring(0, 16);
+    }
+
+    /**
+     * Reads a token issued for the given query.
+     *
+     * @throws IllegalArgumentException if the token is malformed or was issued
+     *                                  for other filters or another order
+     */
+    public static PageCursor decode(String token, String query) {
+        String[] parts;
+        int position;
+        int lastRank;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", -1);
+            position = parts.length == 3 ? Integer.parseInt(parts[1]) : -1;
+            lastRank = parts.length == 3 ? Integer.parseInt(parts[2]) : -1;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+        if (position < 0 || lastRank < -1) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        if (!parts[0].equals(query)) {
+            throw new IllegalArgumentException("Cursor was issued for different filters or ordering: " + token);
+        }
+        return new PageCursor(query, position, lastRank);
+    }
+
+    public String encode() {
+        String value = query + ":" + position + ":" + lastRank;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be serialized: " + e.getOriginalMessage(), e);
+        }
+    }
+}
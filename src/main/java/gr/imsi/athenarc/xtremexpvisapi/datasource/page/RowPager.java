@@ -0,0 +1,114 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.page;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.sort.RowSorter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.OrderBy;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntIterators;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * Cuts one page out of the rows a query selected, without copying the
+ * selected rows first.
+ * <p>
+ * Unordered pages are read by rank straight from the selection, so a page
+ * costs its own size however deep it is. Ordered pages continue after the last
+ * row of the previous page with a heap of one page, instead of collecting
+ * every row up to the end of the page.
+ */
+public final class RowPager {
+
+    /**
+     * One page of a query's result.
+     *
+     * @param table       the rows of the page, in result order
+     * @param matchedRows how many rows the query selected in total
+     * @param next        where the following page starts, or null if this is
+     *                    the last page or the page size is unlimited
+     */
+    public record Page(Table table, int matchedRows, PageCursor next) {
+    }
+
+    private RowPager() {
+    }
+
+    /**
+     * Returns the page that starts at the given cursor.
+     *
+     * @param selection the selected rows of {@code table}, or null for all rows
+     * @param orderBy   the result order, or null or empty for table order
+     * @param limit     the page size, or 0 or less for all remaining rows
+     * @throws IllegalArgumentException if a sort direction is not supported
+     */
+    public static Page page(Table table, Selection selection, List<OrderBy> orderBy, PageCursor from, int limit) {
+        int matchedRows = selection == null ? table.rowCount() : selection.size();
+        int position = Math.min(from.position(), matchedRows);
+        int pageSize = limit > 0 ? Math.min(limit, matchedRows - position) : matchedRows - position;
+        boolean ordered = orderBy != null && !orderBy.isEmpty();
+
+        int[] rows;
+        int lastRank = -1;
+        if (pageSize == 0) {
+            rows = new int[0];
+        } else if (!ordered) {
+            rows = new int[pageSize];
+            for (int i = 0; i < pageSize; i++) {
+                rows[i] = rowAt(selection, position + i);
+            }
+        } else if (from.lastRank() >= 0 && from.lastRank() < matchedRows) {
+            rows = RowSorter.firstRows(table, orderBy, rows(table, selection), rowAt(selection, from.lastRank()),
+                    pageSize);
+        } else {
+            // No row to continue from, e.g. a request with an offset: keep everything up to the page's end
+            int[] firstRows = RowSorter.firstRows(table, orderBy, rows(table, selection), -1, position + pageSize);
+            rows = Arrays.copyOfRange(firstRows, Math.min(position, firstRows.length), firstRows.length);
+        }
+        if (ordered && rows.length > 0) {
+            lastRank = rankOf(selection, rows[rows.length - 1]);
+        }
+
+        PageCursor next = null;
+        if (limit > 0 && rows.length > 0 && position + rows.length < matchedRows) {
+            next = new PageCursor(from.query(), position + rows.length, lastRank);
+        }
+        List<Column<?>> columns = new ArrayList<>(table.columnCount());
+        for (Column<?> column : table.columns()) {
+            columns.add(column.subset(rows));
+        }
+        return new Page(Table.create(table.name(), columns), matchedRows, next);
+    }
+
+    private static IntIterator rows(Table table, Selection selection) {
+        return selection == null ? IntIterators.fromTo(0, table.rowCount()) : selection.iterator();
+    }
+
+    private static int rowAt(Selection selection, int rank) {
+        return selection == null ? rank : selection.get(rank);
+    }
+
+    // Selections are sorted, so the rank of a selected row is found by bisection
+    private static int rankOf(Selection selection, int row) {
+        if (selection == null) {
+            return row;
+        }
+        int low = 0;
+        int high = selection.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleRow = selection.get(middle);
+            if (middleRow < row) {
+                low = middle + 1;
+            } else if (middleRow > row) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        throw new IllegalStateException("Row " + row + " is not selected");
+    }
+}
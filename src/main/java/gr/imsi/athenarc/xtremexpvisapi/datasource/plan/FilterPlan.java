@@ -0,0 +1,958 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.plan;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.RoaringBitmapWriter;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.BitmapColumnIndex;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.ColumnStatistics;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.KeyRange;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.SortedColumnIndex;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexes;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.InequalityFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.StringFilter;
+import it.unimi.dsi.fastutil.ints.Int2ByteOpenHashMap;
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DateTimeColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.api.TimeColumn;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.columns.dates.PackedLocalDate;
+import tech.tablesaw.columns.datetimes.PackedLocalDateTime;
+import tech.tablesaw.columns.instant.PackedInstant;
+import tech.tablesaw.columns.strings.DictionaryMap;
+import tech.tablesaw.columns.times.PackedLocalTime;
+import tech.tablesaw.selection.BitmapBackedSelection;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * The filters of a tabular request compiled for one shape: the filter kinds,
+ * columns, operators and column types, but not the filter values.
+ * <p>
+ * Compiling resolves the type dispatch once. Each request then only
+ * {@linkplain #bind binds} its values, which validates and parses them with
+ * the same rules and messages {@code TabularQueryExecutor} has always used,
+ * and evaluates every filter in a single pass over the rows, reading the
+ * columns' primitive values (packed dates and times, dictionary keys) instead
+ * of building one selection per filter.
+ * <p>
+ * When the table has {@link TableIndexes}, string equality and string filters
+ * on low-cardinality columns are answered from bitmap indexes, testing each
+ * distinct value once, and range and inequality filters on indexable columns
+ * are looked up in their sorted index. The selective ones provide the candidate
+ * rows and only those are tested against the other filters.
+ */
+public final class FilterPlan {
+
+    // Indexed lookups only pay off when they skip most of the table
+    private static final int INDEX_SELECTIVITY = 4;
+    // Guesses for filters that column statistics say nothing about
+    private static final double DEFAULT_EQUALITY_SELECTIVITY = 0.1;
+    private static final double DEFAULT_SELECTIVITY = 1.0 / 3;
+
+    private final String shape;
+    private final List<Binder> binders;
+    private final List<KeyRangeBinder> keyRangeBinders;
+    private final List<ValueTestBinder> valueTestBinders;
+
+    private FilterPlan(String shape, List<Binder> binders, List<KeyRangeBinder> keyRangeBinders,
+            List<ValueTestBinder> valueTestBinders) {
+        this.shape = shape;
+        this.binders = binders;
+        this.keyRangeBinders = keyRangeBinders;
+        this.valueTestBinders = valueTestBinders;
+    }
+
+    /**
+     * Returns the key under which plans are shared: one entry per filter with
+     * its kind, column, operator and the column's type in {@code table}.
+     *
+     * @throws IllegalStateException if a filter refers to a missing column
+     */
+    public static String shapeOf(Table table, List<AbstractFilter> filters) {
+        StringBuilder shape = new StringBuilder();
+        for (AbstractFilter filter : filters) {
+            shape.append(filter.getClass().getSimpleName()).append('|')
+                    .append(filter.getColumn()).append('|')
+                    .append(operatorOf(filter)).append('|')
+                    .append(table.column(filter.getColumn()).type().name()).append(';');
+        }
+        return shape.toString();
+    }
+
+    /**
+     * Compiles the filters of a request against the column types of a table.
+     * A filter that does not support its column's type or has an unknown
+     * operator is reported when it is bound, so that errors come in filter
+     * order, after those of the values of the filters before it.
+     */
+    public static FilterPlan compile(Table table, List<AbstractFilter> filters) {
+        List<Binder> binders = new ArrayList<>(filters.size());
+        List<KeyRangeBinder> keyRangeBinders = new ArrayList<>(filters.size());
+        List<ValueTestBinder> valueTestBinders = new ArrayList<>(filters.size());
+        for (AbstractFilter filter : filters) {
+            String columnTypeName = table.column(filter.getColumn()).type().name();
+            Binder binder;
+            KeyRangeBinder keyRangeBinder;
+            ValueTestBinder valueTestBinder;
+            try {
+                binder = binder(filter, columnTypeName);
+                keyRangeBinder = keyRangeBinder(filter, columnTypeName);
+                valueTestBinder = valueTestBinder(filter, columnTypeName);
+            } catch (IllegalArgumentException e) {
+                String message = e.getMessage();
+                binder = (t, f) -> {
+                    throw new IllegalArgumentException(message);
+                };
+                keyRangeBinder = null;
+                valueTestBinder = null;
+            }
+            binders.add(binder);
+            keyRangeBinders.add(keyRangeBinder);
+            valueTestBinders.add(valueTestBinder);
+        }
+        return new FilterPlan(shapeOf(table, filters), List.copyOf(binders),
+                Collections.unmodifiableList(keyRangeBinders), Collections.unmodifiableList(valueTestBinders));
+    }
+
+    public String shape() {
+        return shape;
+    }
+
+    private static Binder binder(AbstractFilter filter, String columnTypeName) {
+        if (filter instanceof RangeFilter) {
+            return rangeBinder(columnTypeName);
+        } else if (filter instanceof EqualsFilter) {
+            return equalsBinder(columnTypeName);
+        } else if (filter instanceof InequalityFilter<?> inequalityFilter) {
+            return inequalityBinder(columnTypeName, inequalityFilter.getOperator());
+        } else if (filter instanceof StringFilter stringFilter) {
+            return stringBinder(columnTypeName, stringFilter.getOperator());
+        }
+        // Other filter kinds have never restricted the result
+        return (t, f) -> null;
+    }
+
+    /**
+     * Validates the values of the given filters and turns them into row tests.
+     * The filters must have this plan's shape.
+     *
+     * @return one test per filter that restricts rows, in filter order
+     * @throws IllegalArgumentException if a value does not fit its column
+     */
+    public IntPredicate[] bind(Table table, List<AbstractFilter> filters) {
+        List<IntPredicate> predicates = new ArrayList<>(filters.size());
+        for (int i = 0; i < binders.size(); i++) {
+            IntPredicate predicate = binders.get(i).bind(table, filters.get(i));
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        return predicates.toArray(new IntPredicate[0]);
+    }
+
+    /**
+     * Returns the rows that pass all the given filters.
+     *
+     * @return the selected rows, or null if no filter restricts the rows
+     */
+    public Selection select(Table table, List<AbstractFilter> filters) {
+        return select(table, filters, null);
+    }
+
+    /**
+     * Returns the rows that pass all the given filters, planned with the table's
+     * column indexes and statistics when it has them: a filter that provably
+     * matches nothing ends the query at once, selective filters are answered
+     * from indexes, and the remaining tests run most selective first so that
+     * each row is dropped as early as possible.
+     *
+     * @param indexes the indexes of {@code table}, or null to scan it in
+     *                request order
+     * @return the selected rows, or null if no filter restricts the rows
+     */
+    public Selection select(Table table, List<AbstractFilter> filters, TableIndexes indexes) {
+        return select(table, filters, indexes, PartitionedScanner.SEQUENTIAL);
+    }
+
+    /**
+     * Like {@link #select(Table, List, TableIndexes)}, with the remaining tests
+     * evaluated by the given scanner, which may split the rows into partitions
+     * scanned in parallel.
+     */
+    public Selection select(Table table, List<AbstractFilter> filters, TableIndexes indexes,
+            PartitionedScanner scanner) {
+        IntPredicate[] predicates = new IntPredicate[binders.size()];
+        boolean restricts = false;
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = binders.get(i).bind(table, filters.get(i));
+            restricts |= predicates[i] != null;
+        }
+        if (!restricts) {
+            return null;
+        }
+        if (indexes == null) {
+            int[] order = IntStream.range(0, predicates.length).filter(i -> predicates[i] != null).toArray();
+            return scan(table, filters, predicates, order, null, scanner);
+        }
+
+        KeyRange[] ranges = new KeyRange[predicates.length];
+        double[] selectivities = new double[predicates.length];
+        for (int i = 0; i < predicates.length; i++) {
+            if (predicates[i] == null) {
+                continue;
+            }
+            if (keyRangeBinders.get(i) != null) {
+                ranges[i] = keyRangeBinders.get(i).bind(filters.get(i));
+                ColumnStatistics statistics = indexes.statistics(table, ranges[i].column());
+                if (statistics != null && statistics.excludes(ranges[i])) {
+                    return new BitmapBackedSelection();
+                }
+            }
+            selectivities[i] = estimateSelectivity(table, indexes, filters.get(i), ranges[i]);
+        }
+        double indexedFraction = 1.0 / INDEX_SELECTIVITY;
+
+        // String filters: the union of the matching values' bitmaps, intersected across filters
+        RoaringBitmap candidates = null;
+        for (int i = 0; i < predicates.length; i++) {
+            if (predicates[i] == null || valueTestBinders.get(i) == null) {
+                continue;
+            }
+            BitmapColumnIndex index = indexes.bitmapIndex(table, filters.get(i).getColumn());
+            if (index == null) {
+                continue;
+            }
+            RoaringBitmap rows = index.rows(valueTestBinders.get(i).bind(filters.get(i)));
+            if (rows.getCardinality() <= table.rowCount() * indexedFraction) {
+                predicates[i] = null;
+                if (candidates == null) {
+                    candidates = rows;
+                } else {
+                    candidates.and(rows);
+                }
+            }
+        }
+        // Range filters: the most selective sorted index lookup, if it narrows the rows down further.
+        // Filters estimated to keep much more than that do not get an index built for them.
+        int driver = -1;
+        int driverRows = candidates == null ? (int) (table.rowCount() * indexedFraction) : candidates.getCardinality();
+        SortedColumnIndex driverIndex = null;
+        for (int i = 0; i < predicates.length; i++) {
+            if (ranges[i] == null || selectivities[i] > 2 * indexedFraction) {
+                continue;
+            }
+            SortedColumnIndex index = indexes.index(table, ranges[i].column());
+            if (index == null) {
+                continue;
+            }
+            int rows = index.count(ranges[i]);
+            if (rows <= driverRows) {
+                driver = i;
+                driverRows = rows;
+                driverIndex = index;
+            }
+        }
+        if (driver >= 0) {
+            predicates[driver] = null;
+            RoaringBitmap rows = driverIndex.rows(ranges[driver]);
+            if (candidates == null) {
+                candidates = rows;
+            } else {
+                candidates.and(rows);
+            }
+        }
+
+        int[] order = IntStream.range(0, predicates.length)
+                .filter(i -> predicates[i] != null)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> selectivities[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return scan(table, filters, predicates, order, candidates, scanner);
+    }
+
+    /**
+     * Returns the given candidate rows that pass all the filters, testing them
+     * in request order. Used to narrow down rows already known to pass other
+     * filters, without looking at the rest of the table.
+     *
+     * @return the selected rows, a subset of {@code candidates}
+     */
+    public Selection select(Table table, List<AbstractFilter> filters, RoaringBitmap candidates,
+            PartitionedScanner scanner) {
+        IntPredicate[] predicates = new IntPredicate[binders.size()];
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = binders.get(i).bind(table, filters.get(i));
+        }
+        int[] order = IntStream.range(0, predicates.length).filter(i -> predicates[i] != null).toArray();
+        return scan(table, filters, predicates, order, candidates, scanner);
+    }
+
+    /**
+     * Returns, for each filter, the range of sorted index keys whose rows it
+     * accepts, or null if it has none. The filters must have this plan's shape
+     * and values that {@linkplain #bind bind}.
+     */
+    public KeyRange[] keyRanges(List<AbstractFilter> filters) {
+        KeyRange[] ranges = new KeyRange[keyRangeBinders.size()];
+        for (int i = 0; i < ranges.length; i++) {
+            if (keyRangeBinders.get(i) != null) {
+                ranges[i] = keyRangeBinders.get(i).bind(filters.get(i));
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Runs the tests of the given filters, in the given order, over the table or
+     * the candidate rows. Tests are not thread-safe, so every partition after
+     * the first binds its own.
+     */
+    private Selection scan(Table table, List<AbstractFilter> filters, IntPredicate[] bound, int[] order,
+            RoaringBitmap candidates, PartitionedScanner scanner) {
+        return scanner.select(partition -> {
+            IntPredicate[] predicates = new IntPredicate[order.length];
+            for (int i = 0; i < order.length; i++) {
+                predicates[i] = partition == 0 ? bound[order[i]]
+                        : binders.get(order[i]).bind(table, filters.get(order[i]));
+            }
+            return predicates;
+        }, table.rowCount(), candidates);
+    }
+
+    /**
+     * Estimates the fraction of rows a filter keeps, from column statistics
+     * where there are any and from fixed guesses otherwise.
+     */
+    private static double estimateSelectivity(Table table, TableIndexes indexes, AbstractFilter filter,
+            KeyRange range) {
+        if (range != null) {
+            ColumnStatistics statistics = indexes.statistics(table, range.column());
+            if (statistics != null) {
+                return statistics.selectivity(range);
+            }
+        }
+        Column<?> column = table.column(filter.getColumn());
+        if (filter instanceof EqualsFilter) {
+            if (column instanceof StringColumn stringColumn) {
+                return 1.0 / Math.max(1, stringColumn.countUnique());
+            }
+            if (column instanceof BooleanColumn) {
+                return 0.5;
+            }
+            ColumnStatistics statistics = indexes.statistics(table, filter.getColumn());
+            return statistics != null ? statistics.equalitySelectivity() : DEFAULT_EQUALITY_SELECTIVITY;
+        }
+        return DEFAULT_SELECTIVITY;
+    }
+
+    /**
+     * Evaluates bound tests on the rows {@code [from, to)} in one pass, stopping
+     * at the first test a row fails.
+     */
+    public static Selection select(IntPredicate[] predicates, int from, int to) {
+        return new BitmapBackedSelection(matches(predicates, from, to, null));
+    }
+
+    /**
+     * Evaluates bound tests on the given candidate rows only.
+     */
+    public static Selection select(IntPredicate[] predicates, RoaringBitmap candidates) {
+        if (predicates.length == 0) {
+            return new BitmapBackedSelection(candidates);
+        }
+        return new BitmapBackedSelection(matches(predicates, 0, Integer.MAX_VALUE, candidates));
+    }
+
+    /**
+     * Evaluates bound tests on the rows {@code [from, to)}, or on the candidate
+     * rows in that range if there are candidates, stopping at the first test a
+     * row fails.
+     */
+    static RoaringBitmap matches(IntPredicate[] predicates, int from, int to, RoaringBitmap candidates) {
+        RoaringBitmapWriter<RoaringBitmap> matches = RoaringBitmapWriter.writer().get();
+        if (candidates == null) {
+            rows: for (int row = from; row < to; row++) {
+                for (IntPredicate predicate : predicates) {
+                    if (!predicate.test(row)) {
+                        continue rows;
+                    }
+                }
+                matches.add(row);
+            }
+            return matches.get();
+        }
+        PeekableIntIterator iterator = candidates.getIntIterator();
+        iterator.advanceIfNeeded(from);
+        rows: while (iterator.hasNext() && iterator.peekNext() < to) {
+            int row = iterator.next();
+            for (IntPredicate predicate : predicates) {
+                if (!predicate.test(row)) {
+                    continue rows;
+                }
+            }
+            matches.add(row);
+        }
+        return matches.get();
+    }
+
+    private static String operatorOf(AbstractFilter filter) {
+        if (filter instanceof InequalityFilter<?> inequalityFilter) {
+            return inequalityFilter.getOperator();
+        } else if (filter instanceof StringFilter stringFilter) {
+            return stringFilter.getOperator();
+        }
+        return "";
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        IntPredicate bind(Table table, AbstractFilter filter);
+    }
+
+    /**
+     * Turns the values of an already bound filter into a range of sorted index
+     * keys with exactly the rows the filter's test accepts.
+     */
+    @FunctionalInterface
+    private interface KeyRangeBinder {
+        KeyRange bind(AbstractFilter filter);
+    }
+
+    /**
+     * Turns the value of an already bound string filter into the test that its
+     * column's distinct values must pass.
+     */
+    @FunctionalInterface
+    private interface ValueTestBinder {
+        Predicate<String> bind(AbstractFilter filter);
+    }
+
+    private static ValueTestBinder valueTestBinder(AbstractFilter filter, String columnTypeName) {
+        if (!columnTypeName.equals("STRING")) {
+            return null;
+        }
+        if (filter instanceof EqualsFilter) {
+            return f -> ((EqualsFilter<?>) f).getValue()::equals;
+        } else if (filter instanceof StringFilter stringFilter) {
+            Function<String, Predicate<String>> matcher = stringMatcher(stringFilter.getOperator());
+            return f -> matcher.apply(((StringFilter) f).getValue());
+        }
+        return null;
+    }
+
+    private static KeyRangeBinder keyRangeBinder(AbstractFilter filter, String columnTypeName) {
+        if (filter instanceof RangeFilter) {
+            switch (columnTypeName) {
+                case "DOUBLE":
+                    return f -> {
+                        RangeFilter<?> rangeFilter = (RangeFilter<?>) f;
+                        double min = (Double) rangeFilter.getMin();
+                        double max = (Double) rangeFilter.getMax();
+                        if (Double.isNaN(min) || Double.isNaN(max)) {
+                            return KeyRange.empty(f.getColumn());
+                        }
+                        return KeyRange.between(f.getColumn(), SortedColumnIndex.keyOf(min), true,
+                                SortedColumnIndex.keyOf(max), true);
+                    };
+                case "INTEGER":
+                    return f -> {
+                        RangeFilter<?> rangeFilter = (RangeFilter<?>) f;
+                        return KeyRange.between(f.getColumn(), (Integer) rangeFilter.getMin(), true,
+                                (Integer) rangeFilter.getMax(), true);
+                    };
+                case "LOCAL_DATE_TIME":
+                    return f -> {
+                        RangeFilter<?> rangeFilter = (RangeFilter<?>) f;
+                        return KeyRange.between(f.getColumn(),
+                                PackedLocalDateTime.pack(LocalDateTime.parse(rangeFilter.getMin().toString())), true,
+                                PackedLocalDateTime.pack(LocalDateTime.parse(rangeFilter.getMax().toString())), true);
+                    };
+                case "INSTANT":
+                    return f -> {
+                        RangeFilter<?> rangeFilter = (RangeFilter<?>) f;
+                        return KeyRange.between(f.getColumn(),
+                                PackedInstant.pack(Instant.parse(rangeFilter.getMin().toString())), false,
+                                PackedInstant.pack(Instant.parse(rangeFilter.getMax().toString())), false);
+                    };
+                default:
+                    return null;
+            }
+        } else if (filter instanceof InequalityFilter<?> inequalityFilter) {
+            Comparison comparison = Comparison.of(inequalityFilter.getOperator());
+            if (comparison == null) {
+                return null;
+            }
+            switch (columnTypeName) {
+                case "DOUBLE":
+                    return f -> {
+                        double limit = Double.parseDouble(String.valueOf(((InequalityFilter<?>) f).getValue()));
+                        return Double.isNaN(limit) ? KeyRange.empty(f.getColumn())
+                                : comparison.range(f.getColumn(), SortedColumnIndex.keyOf(limit));
+                    };
+                case "INTEGER":
+                    return f -> comparison.range(f.getColumn(),
+                            Integer.parseInt(String.valueOf(((InequalityFilter<?>) f).getValue())));
+                case "LOCAL_DATE_TIME":
+                    return f -> comparison.range(f.getColumn(), PackedLocalDateTime
+                            .pack(LocalDateTime.parse(((InequalityFilter<?>) f).getValue().toString())));
+                case "INSTANT":
+                    return f -> comparison.range(f.getColumn(),
+                            PackedInstant.pack(Instant.parse(((InequalityFilter<?>) f).getValue().toString())));
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    private static Binder rangeBinder(String columnTypeName) {
+        switch (columnTypeName) {
+            case "DOUBLE":
+                return (table, filter) -> {
+                    RangeFilter<?> rangeFilter = (RangeFilter<?>) filter;
+                    if (!(rangeFilter.getMin() instanceof Double min) || !(rangeFilter.getMax() instanceof Double max)) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type Double for column: " + rangeFilter.getColumn());
+                    }
+                    DoubleColumn column = table.doubleColumn(rangeFilter.getColumn());
+                    double low = min;
+                    double high = max;
+                    return row -> {
+                        double value = column.getDouble(row);
+                        return value >= low && value <= high;
+                    };
+                };
+            case "INTEGER":
+                return (table, filter) -> {
+                    RangeFilter<?> rangeFilter = (RangeFilter<?>) filter;
+                    if (!(rangeFilter.getMin() instanceof Integer min)
+                            || !(rangeFilter.getMax() instanceof Integer max)) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type Integer for column: " + rangeFilter.getColumn());
+                    }
+                    IntColumn column = table.intColumn(rangeFilter.getColumn());
+                    int low = min;
+                    int high = max;
+                    return row -> {
+                        int value = column.getInt(row);
+                        return value != Integer.MIN_VALUE && value >= low && value <= high;
+                    };
+                };
+            case "LOCAL_DATE_TIME":
+                return (table, filter) -> {
+                    RangeFilter<?> rangeFilter = (RangeFilter<?>) filter;
+                    long low;
+                    long high;
+                    try {
+                        low = PackedLocalDateTime.pack(LocalDateTime.parse(rangeFilter.getMin().toString()));
+                        high = PackedLocalDateTime.pack(LocalDateTime.parse(rangeFilter.getMax().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type LocalDateTime for column: " + rangeFilter.getColumn());
+                    }
+                    DateTimeColumn column = table.dateTimeColumn(rangeFilter.getColumn());
+                    return row -> {
+                        long value = column.getLongInternal(row);
+                        return value >= low && value <= high;
+                    };
+                };
+            case "LOCAL_DATE":
+                return (table, filter) -> {
+                    RangeFilter<?> rangeFilter = (RangeFilter<?>) filter;
+                    int low;
+                    int high;
+                    try {
+                        low = PackedLocalDate.pack(LocalDate.parse(rangeFilter.getMin().toString()));
+                        high = PackedLocalDate.pack(LocalDate.parse(rangeFilter.getMax().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type LocalDate for column: " + rangeFilter.getColumn());
+                    }
+                    DateColumn column = table.dateColumn(rangeFilter.getColumn());
+                    return row -> {
+                        int value = column.getIntInternal(row);
+                        return value >= low && value <= high;
+                    };
+                };
+            case "LOCAL_TIME":
+                return (table, filter) -> {
+                    RangeFilter<?> rangeFilter = (RangeFilter<?>) filter;
+                    int low;
+                    int high;
+                    try {
+                        low = PackedLocalTime.pack(LocalTime.parse(rangeFilter.getMin().toString()));
+                        high = PackedLocalTime.pack(LocalTime.parse(rangeFilter.getMax().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type LocalTime for column: " + rangeFilter.getColumn());
+                    }
+                    TimeColumn column = table.timeColumn(rangeFilter.getColumn());
+                    return row -> {
+                        int value = column.getIntInternal(row);
+                        return value >= low && value <= high;
+                    };
+                };
+            case "INSTANT":
+                return (table, filter) -> {
+                    RangeFilter<?> rangeFilter = (RangeFilter<?>) filter;
+                    long low;
+                    long high;
+                    try {
+                        low = PackedInstant.pack(Instant.parse(rangeFilter.getMin().toString()));
+                        high = PackedInstant.pack(Instant.parse(rangeFilter.getMax().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type Instant for column: " + rangeFilter.getColumn());
+                    }
+                    InstantColumn column = table.instantColumn(rangeFilter.getColumn());
+                    // Instant ranges have always excluded their bounds
+                    return row -> {
+                        long value = column.getLongInternal(row);
+                        return value > low && value < high;
+                    };
+                };
+            default:
+                throw new IllegalArgumentException("Unsupported column type for range filter: " + columnTypeName);
+        }
+    }
+
+    private static Binder equalsBinder(String columnTypeName) {
+        switch (columnTypeName) {
+            case "BOOLEAN":
+                return (table, filter) -> {
+                    EqualsFilter<?> equalsFilter = (EqualsFilter<?>) filter;
+                    byte expected = Boolean.parseBoolean(equalsFilter.getValue().toString().toLowerCase())
+                            ? (byte) 1
+                            : (byte) 0;
+                    BooleanColumn column = table.booleanColumn(equalsFilter.getColumn());
+                    return row -> column.getByte(row) == expected;
+                };
+            case "DOUBLE":
+                return (table, filter) -> {
+                    EqualsFilter<?> equalsFilter = (EqualsFilter<?>) filter;
+                    if (!(equalsFilter.getValue() instanceof Double value)) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type DOUBLE for column: " + equalsFilter.getColumn());
+                    }
+                    DoubleColumn column = table.doubleColumn(equalsFilter.getColumn());
+                    double expected = value;
+                    return row -> column.getDouble(row) == expected;
+                };
+            case "INTEGER":
+                return (table, filter) -> {
+                    EqualsFilter<?> equalsFilter = (EqualsFilter<?>) filter;
+                    if (!(equalsFilter.getValue() instanceof Integer value)) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type Integer for column: " + equalsFilter.getColumn());
+                    }
+                    IntColumn column = table.intColumn(equalsFilter.getColumn());
+                    int expected = value;
+                    return row -> column.getInt(row) == expected && expected != Integer.MIN_VALUE;
+                };
+            case "STRING":
+                return (table, filter) -> {
+                    EqualsFilter<?> equalsFilter = (EqualsFilter<?>) filter;
+                    if (!(equalsFilter.getValue() instanceof String value)) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type String for column: " + equalsFilter.getColumn());
+                    }
+                    return stringTest(table.stringColumn(equalsFilter.getColumn()), value::equals);
+                };
+            case "LOCAL_DATE_TIME":
+                return (table, filter) -> {
+                    EqualsFilter<?> equalsFilter = (EqualsFilter<?>) filter;
+                    long expected;
+                    try {
+                        expected = PackedLocalDateTime.pack(LocalDateTime.parse(equalsFilter.getValue().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalDateTime for column: " + equalsFilter.getColumn());
+                    }
+                    DateTimeColumn column = table.dateTimeColumn(equalsFilter.getColumn());
+                    return row -> column.getLongInternal(row) == expected;
+                };
+            case "LOCAL_DATE":
+                return (table, filter) -> {
+                    EqualsFilter<?> equalsFilter = (EqualsFilter<?>) filter;
+                    int expected;
+                    try {
+                        expected = PackedLocalDate.pack(LocalDate.parse(equalsFilter.getValue().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalDate for column: " + equalsFilter.getColumn());
+                    }
+                    DateColumn column = table.dateColumn(equalsFilter.getColumn());
+                    return row -> column.getIntInternal(row) == expected;
+                };
+            case "LOCAL_TIME":
+                return (table, filter) -> {
+                    EqualsFilter<?> equalsFilter = (EqualsFilter<?>) filter;
+                    int expected;
+                    try {
+                        expected = PackedLocalTime.pack(LocalTime.parse(equalsFilter.getValue().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalTime for column: " + equalsFilter.getColumn());
+                    }
+                    TimeColumn column = table.timeColumn(equalsFilter.getColumn());
+                    return row -> column.getIntInternal(row) == expected;
+                };
+            case "INSTANT":
+                return (table, filter) -> {
+                    EqualsFilter<?> equalsFilter = (EqualsFilter<?>) filter;
+                    long expected;
+                    try {
+                        expected = PackedInstant.pack(Instant.parse(equalsFilter.getValue().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type Instant for column: " + equalsFilter.getColumn());
+                    }
+                    InstantColumn column = table.instantColumn(equalsFilter.getColumn());
+                    return row -> column.getLongInternal(row) == expected;
+                };
+            default:
+                throw new IllegalArgumentException("Unsupported column type for equals filter: " + columnTypeName);
+        }
+    }
+
+    private static Binder inequalityBinder(String columnTypeName, String operator) {
+        // An unknown operator is reported once the value has been parsed, as it always has been
+        Comparison comparison = Comparison.of(operator);
+        switch (columnTypeName) {
+            case "DOUBLE":
+                return (table, filter) -> {
+                    InequalityFilter<?> inequalityFilter = (InequalityFilter<?>) filter;
+                    double limit;
+                    try {
+                        limit = Double.parseDouble(String.valueOf(inequalityFilter.getValue()));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type Double for column: " + inequalityFilter.getColumn());
+                    }
+                    DoubleColumn column = table.doubleColumn(inequalityFilter.getColumn());
+                    return Comparison.require(comparison, operator).doubles(column::getDouble, limit);
+                };
+            case "INTEGER":
+                return (table, filter) -> {
+                    InequalityFilter<?> inequalityFilter = (InequalityFilter<?>) filter;
+                    int limit;
+                    try {
+                        limit = Integer.parseInt(String.valueOf(inequalityFilter.getValue()));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type Integer for column: " + inequalityFilter.getColumn());
+                    }
+                    IntColumn column = table.intColumn(inequalityFilter.getColumn());
+                    // Missing integers compare as NaN, so no comparison holds for them
+                    IntPredicate test = Comparison.require(comparison, operator).longs(column::getInt, limit);
+                    return row -> column.getInt(row) != Integer.MIN_VALUE && test.test(row);
+                };
+            case "LOCAL_DATE_TIME":
+                return (table, filter) -> {
+                    InequalityFilter<?> inequalityFilter = (InequalityFilter<?>) filter;
+                    long limit;
+                    try {
+                        limit = PackedLocalDateTime.pack(LocalDateTime.parse(inequalityFilter.getValue().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalDateTime for column: " + inequalityFilter.getColumn());
+                    }
+                    DateTimeColumn column = table.dateTimeColumn(inequalityFilter.getColumn());
+                    return Comparison.require(comparison, operator).longs(column::getLongInternal, limit);
+                };
+            case "LOCAL_DATE":
+                return (table, filter) -> {
+                    InequalityFilter<?> inequalityFilter = (InequalityFilter<?>) filter;
+                    int limit;
+                    try {
+                        limit = PackedLocalDate.pack(LocalDate.parse(inequalityFilter.getValue().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalDate for column: " + inequalityFilter.getColumn());
+                    }
+                    DateColumn column = table.dateColumn(inequalityFilter.getColumn());
+                    return Comparison.require(comparison, operator).longs(column::getIntInternal, limit);
+                };
+            case "LOCAL_TIME":
+                return (table, filter) -> {
+                    InequalityFilter<?> inequalityFilter = (InequalityFilter<?>) filter;
+                    int limit;
+                    try {
+                        limit = PackedLocalTime.pack(LocalTime.parse(inequalityFilter.getValue().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalTime for column: " + inequalityFilter.getColumn());
+                    }
+                    TimeColumn column = table.timeColumn(inequalityFilter.getColumn());
+                    return Comparison.require(comparison, operator).longs(column::getIntInternal, limit);
+                };
+            case "INSTANT":
+                return (table, filter) -> {
+                    InequalityFilter<?> inequalityFilter = (InequalityFilter<?>) filter;
+                    long limit;
+                    try {
+                        limit = PackedInstant.pack(Instant.parse(inequalityFilter.getValue().toString()));
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type Instant for column: " + inequalityFilter.getColumn());
+                    }
+                    InstantColumn column = table.instantColumn(inequalityFilter.getColumn());
+                    return Comparison.require(comparison, operator).longs(column::getLongInternal, limit);
+                };
+            default:
+                throw new IllegalArgumentException(
+                        "Unsupported column type for inequality filter: " + columnTypeName);
+        }
+    }
+
+    private static Binder stringBinder(String columnTypeName, String operator) {
+        if (!columnTypeName.equals("STRING")) {
+            throw new IllegalArgumentException(
+                    "String filter can only be applied to STRING columns, but column type is: " + columnTypeName);
+        }
+        Function<String, Predicate<String>> matcher = stringMatcher(operator);
+        return (table, filter) -> stringTest(table.stringColumn(filter.getColumn()),
+                matcher.apply(((StringFilter) filter).getValue()));
+    }
+
+    private static Function<String, Predicate<String>> stringMatcher(String operator) {
+        if (operator == null) {
+            throw new IllegalArgumentException("Unsupported string operator: " + operator);
+        }
+        switch (operator) {
+            case "contains":
+                return value -> entry -> entry.contains(value);
+            case "startsWith":
+                return value -> entry -> entry.startsWith(value);
+            case "endsWith":
+                return value -> entry -> entry.endsWith(value);
+            default:
+                throw new IllegalArgumentException("Unsupported string operator: " + operator);
+        }
+    }
+
+    /**
+     * Tests string rows through their dictionary keys, so the string test runs
+     * once per distinct value rather than once per row.
+     */
+    private static IntPredicate stringTest(StringColumn column, Predicate<String> test) {
+        DictionaryMap dictionary = column.getDictionary();
+        Int2ByteOpenHashMap results = new Int2ByteOpenHashMap();
+        return row -> {
+            int key = dictionary.getKeyForIndex(row);
+            byte result = results.getOrDefault(key, (byte) -1);
+            if (result < 0) {
+                result = test.test(dictionary.getValueForKey(key)) ? (byte) 1 : (byte) 0;
+                results.put(key, result);
+            }
+            return result == 1;
+        };
+    }
+
+    @FunctionalInterface
+    private interface LongValues {
+        long get(int row);
+    }
+
+    @FunctionalInterface
+    private interface DoubleValues {
+        double get(int row);
+    }
+
+    /**
+     * The comparison operator of an inequality filter.
+     */
+    private enum Comparison {
+        GT, LT, GTE, LTE;
+
+        /**
+         * Returns the comparison of an operator, or null if it is unknown.
+         */
+        static Comparison of(String operator) {
+            if (operator == null) {
+                return null;
+            }
+            switch (operator) {
+                case "gt":
+                    return GT;
+                case "lt":
+                    return LT;
+                case "gte":
+                    return GTE;
+                case "lte":
+                    return LTE;
+                default:
+                    return null;
+            }
+        }
+
+        static Comparison require(Comparison comparison, String operator) {
+            if (comparison == null) {
+                throw new IllegalArgumentException("Unsupported operator: " + operator);
+            }
+            return comparison;
+        }
+
+        IntPredicate doubles(DoubleValues values, double limit) {
+            switch (this) {
+                case GT:
+                    return row -> values.get(row) > limit;
+                case LT:
+                    return row -> values.get(row) < limit;
+                case GTE:
+                    return row -> values.get(row) >= limit;
+                default:
+                    return row -> values.get(row) <= limit;
+            }
+        }
+
+        KeyRange range(String column, long limit) {
+            switch (this) {
+                case GT:
+                    return KeyRange.greaterThan(column, limit, false);
+                case LT:
+                    return KeyRange.lessThan(column, limit, false);
+                case GTE:
+                    return KeyRange.greaterThan(column, limit, true);
+                default:
+                    return KeyRange.lessThan(column, limit, true);
+            }
+        }
+
+        IntPredicate longs(LongValues values, long limit) {
+            switch (this) {
+                case GT:
+                    return row -> values.get(row) > limit;
+                case LT:
+                    return row -> values.get(row) < limit;
+                case GTE:
+                    return row -> values.get(row) >= limit;
+                default:
+                    return row -> values.get(row) <= limit;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.plan;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import tech.tablesaw.api.Table;
+
+/**
+ * Compiled {@link FilterPlan}s keyed by {@linkplain FilterPlan#shapeOf shape},
+ * so repeated requests that only change filter values skip compilation.
+ * <p>
+ * Dashboards issue a handful of shapes, so the cache is simply emptied when it
+ * grows past its bound rather than tracking recency.
+ */
+public class FilterPlanCache {
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private final Map<String, FilterPlan> plans = new ConcurrentHashMap<>();
+    private final int maximumSize;
+
+    public FilterPlanCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public FilterPlanCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns the plan for the filters' shape in the given table, compiling it
+     * on first use. Shapes whose filters do not fit their columns are cached
+     * too, with plans that reject them when they are bound.
+     */
+    public FilterPlan planFor(Table table, List<AbstractFilter> filters) {
+        String shape = FilterPlan.shapeOf(table, filters);
+        FilterPlan plan = plans.get(shape);
+        if (plan == null) {
+            plan = FilterPlan.compile(table, filters);
+            if (plans.size() >= maximumSize) {
+                plans.clear();
+            }
+            plans.putIfAbsent(shape, plan);
+        }
+        return plan;
+    }
+
+    public int size() {
+        return plans.size();
+    }
+}
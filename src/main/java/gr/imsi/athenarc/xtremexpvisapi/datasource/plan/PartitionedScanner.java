@@ -0,0 +1,160 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.plan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.selection.BitmapBackedSelection;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * Evaluates filter tests over row partitions in a {@link ForkJoinPool}, so a
+ * scan of a large table uses every core instead of one.
+ * <p>
+ * Tables or candidate sets below the configured number of rows are scanned on
+ * the calling thread. Larger ones are split into ranges of whole 64K-row
+ * blocks, matching the containers of the {@link RoaringBitmap} each partition
+ * fills, so merging the partitions' matches only links their containers.
+ */
+public class PartitionedScanner {
+
+    /** Scans every table on the calling thread. */
+    public static final PartitionedScanner SEQUENTIAL = new PartitionedScanner(null, Integer.MAX_VALUE);
+
+    private static final int PARTITIONS_PER_THREAD = 4;
+    private static final int BLOCK_ROWS = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int parallelMinRows;
+
+    /**
+     * @param pool            the pool that scans partitions
+     * @param parallelMinRows fewer rows than this are scanned on the calling
+     *                        thread
+     */
+    public PartitionedScanner(ForkJoinPool pool, int parallelMinRows) {
+        this.pool = pool;
+        this.parallelMinRows = parallelMinRows;
+    }
+
+    /**
+     * Returns the rows that pass all tests.
+     *
+     * @param predicates returns the tests for the given partition; the tests of
+     *                   different partitions must not share mutable state
+     * @param rowCount   the number of rows of the table
+     * @param candidates the only rows to test, or null to test all rows
+     */
+    Selection select(IntFunction<IntPredicate[]> predicates, int rowCount, RoaringBitmap candidates) {
+        int rows = candidates == null ? rowCount : candidates.getCardinality();
+        if (!isParallel(rows)) {
+            return candidates == null ? FilterPlan.select(predicates.apply(0), 0, rowCount)
+                    : FilterPlan.select(predicates.apply(0), candidates);
+        }
+        int partitionRows = partitionRows(rowCount);
+        int partitions = (rowCount + partitionRows - 1) / partitionRows;
+        RoaringBitmap[] matches = pool.submit(() -> IntStream.range(0, partitions).parallel()
+                .mapToObj(partition -> FilterPlan.matches(predicates.apply(partition),
+                        partition * partitionRows, (int) Math.min(rowCount, (long) (partition + 1) * partitionRows),
+                        candidates))
+                .toArray(RoaringBitmap[]::new)).join();
+        return new BitmapBackedSelection(FastAggregation.or(matches));
+    }
+
+    /**
+     * Copies the selected rows of a table, one column per task when there are
+     * enough rows. Equivalent to {@link Table#where(Selection)}.
+     */
+    public Table where(Table table, Selection selection) {
+        if (!isParallel(selection.size()) || table.columnCount() < 2) {
+            return table.where(selection);
+        }
+        List<Column<?>> columns = pool.submit(() -> table.columns().parallelStream()
+                .<Column<?>>map(column -> column.where(selection))
+                .toList()).join();
+        return Table.create(table.name(), columns);
+    }
+
+    /**
+     * Applies a function to every item, one task per item when the table has
+     * enough rows, e.g. to build one selection per filter. If some items fail,
+     * the failure of the first of them is thrown, as in a sequential loop.
+     *
+     * @param rowCount the number of rows the function scans per item
+     * @return the results, in item order
+     */
+    public <T, R> List<R> map(int rowCount, List<T> items, Function<T, R> function) {
+        if (!isParallel(rowCount) || items.size() < 2) {
+            return items.stream().map(function).toList();
+        }
+        Object[] results = pool.submit(() -> items.parallelStream()
+                .map(item -> {
+                    try {
+                        return function.apply(item);
+                    } catch (RuntimeException e) {
+                        return new Failure(e);
+                    }
+                })
+                .toArray()).join();
+        List<R> mapped = new ArrayList<>(results.length);
+        for (Object result : results) {
+            if (result instanceof Failure failure) {
+                throw failure.exception();
+            }
+            @SuppressWarnings("unchecked")
+            R value = (R) result;
+            mapped.add(value);
+        }
+        return mapped;
+    }
+
+    /**
+     * Applies a function to consecutive row ranges that cover the table, one task
+     * per range when the table has enough rows, e.g. to count rows into partial
+     * results that are merged afterwards.
+     *
+     * @param function receives the partition number, starting at 0, and its
+     *                 rows {@code [from, to)}
+     * @return the results, in row order
+     */
+    public <R> List<R> mapRanges(int rowCount, RangeFunction<R> function) {
+        if (!isParallel(rowCount)) {
+            return List.of(function.apply(0, 0, rowCount));
+        }
+        int partitionRows = partitionRows(rowCount);
+        int partitions = (rowCount + partitionRows - 1) / partitionRows;
+        return map(rowCount, IntStream.range(0, partitions).boxed().toList(),
+                partition -> function.apply(partition, partition * partitionRows,
+                        (int) Math.min(rowCount, (long) (partition + 1) * partitionRows)));
+    }
+
+    private int partitionRows(int rowCount) {
+        int blocks = (rowCount + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        int partitionBlocks = Math.max(1, blocks / (pool.getParallelism() * PARTITIONS_PER_THREAD));
+        return partitionBlocks * BLOCK_ROWS;
+    }
+
+    private boolean isParallel(int rows) {
+        return pool != null && rows >= parallelMinRows && pool.getParallelism() > 1;
+    }
+
+    /**
+     * A function of a range of rows.
+     */
+    @FunctionalInterface
+    public interface RangeFunction<R> {
+        R apply(int partition, int from, int to);
+    }
+
+    private record Failure(RuntimeException exception) {
+    }
+}
@@ -0,0 +1,188 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.plan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.KeyRange;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexes;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.page.PageCursor;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * The rows recent filters selected in each cached table, so the pages of one
+ * query do not run its filters again, and a query that narrows an earlier one
+ * only tests the rows the earlier one kept.
+ * <p>
+ * Selections are kept per {@link TableIndexes}, which only cached tables have
+ * and which are dropped with their table, so a new version of a dataset never
+ * sees the selections of the previous one. Tables scanned for one request are
+ * not cached here. Cached selections are shared and must not be modified.
+ */
+public class SelectionCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SelectionCache.class);
+
+    private static final int SELECTIONS_PER_TABLE = 32;
+    private static final long EXPIRE_AFTER_ACCESS_MINUTES = 10;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Cache<TableIndexes, Cache<String, CachedSelection>> selections = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    /**
+     * Returns the selection cached for the given filters of a table, or runs
+     * them and caches the result.
+     *
+     * @param indexes the indexes of the table, or null if it is not cached
+     * @param filters identifies the filters, e.g. by
+     *                {@link gr.imsi.athenarc.xtremexpvisapi.datasource.page.PageCursor#queryOf}
+     * @param select  runs the filters; a null result (no restriction) is not
+     *                cached
+     */
+    public Selection get(TableIndexes indexes, String filters, Supplier<Selection> select) {
+        if (indexes == null) {
+            return select.get();
+        }
+        Cache<String, CachedSelection> tableSelections = tableSelections(indexes);
+        CachedSelection cached = tableSelections.getIfPresent(filters);
+        if (cached != null) {
+            return cached.selection();
+        }
+        Selection selection = select.get();
+        if (selection != null) {
+            tableSelections.put(filters, new CachedSelection(selection, null, null, null));
+        }
+        return selection;
+    }
+
+    /**
+     * Returns the rows of a table that pass the given filters, compiled with
+     * the given plan cache. If the filters provably narrow those of a cached
+     * selection, keeping each of its filters or a tighter range on the same
+     * column and possibly adding more, only the rows of the narrowest such
+     * selection are tested, and only against the filters it did not have.
+     * Otherwise the filters are planned over the whole table.
+     *
+     * @param indexes the indexes of the table, or null if it is not cached
+     * @return the selected rows, or null if no filter restricts the rows
+     * @throws IllegalArgumentException if a filter does not fit its column
+     */
+    public Selection select(Table table, TableIndexes indexes, List<AbstractFilter> filters,
+            FilterPlanCache filterPlanCache, PartitionedScanner scanner) {
+        FilterPlan plan = filterPlanCache.planFor(table, filters);
+        if (indexes == null) {
+            return plan.select(table, filters, (TableIndexes) null, scanner);
+        }
+        Cache<String, CachedSelection> tableSelections = tableSelections(indexes);
+        String query = PageCursor.queryOf(filters, null);
+        CachedSelection cached = tableSelections.getIfPresent(query);
+        if (cached != null) {
+            return cached.selection();
+        }
+
+        // Binding first validates the values, which key ranges take for granted
+        plan.bind(table, filters);
+        KeyRange[] ranges = plan.keyRanges(filters);
+        List<String> jsons = filters.stream().map(SelectionCache::toJson).toList();
+        CachedSelection base = null;
+        for (CachedSelection candidate : tableSelections.asMap().values()) {
+            if (candidate.refinedBy(jsons, ranges)
+                    && (base == null || candidate.rows().getCardinality() < base.rows().getCardinality())) {
+                base = candidate;
+            }
+        }
+
+        Selection selection;
+        if (base == null) {
+            selection = plan.select(table, filters, indexes, scanner);
+        } else {
+            List<AbstractFilter> added = new ArrayList<>();
+            for (int i = 0; i < filters.size(); i++) {
+                if (!base.jsons().contains(jsons.get(i))) {
+                    added.add(filters.get(i));
+                }
+            }
+            LOG.debug("Refining a cached selection of {} rows with {} new filters", base.rows().getCardinality(),
+                    added.size());
+            selection = added.isEmpty() ? base.selection()
+                    : filterPlanCache.planFor(table, added).select(table, added, base.rows(), scanner);
+        }
+        if (selection != null) {
+            tableSelections.put(query,
+                    new CachedSelection(selection, RoaringBitmap.bitmapOf(selection.toArray()), jsons, ranges));
+        }
+        return selection;
+    }
+
+    private Cache<String, CachedSelection> tableSelections(TableIndexes indexes) {
+        return selections.asMap().computeIfAbsent(indexes,
+                key -> CacheBuilder.newBuilder()
+                        .maximumSize(SELECTIONS_PER_TABLE)
+                        .expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+                        .build());
+    }
+
+    private static String toJson(AbstractFilter filter) {
+        try {
+            return MAPPER.writeValueAsString(filter);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be serialized: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * A cached selection, with the filters that made it when they are known,
+     * so later filters can be checked against them.
+     *
+     * @param rows   the selected rows, or null if the filters are not known
+     * @param jsons  the filters in JSON, to recognize identical filters
+     * @param ranges the key range each filter accepts, or null for filters
+     *               without one
+     */
+    private record CachedSelection(Selection selection, RoaringBitmap rows, List<String> jsons, KeyRange[] ranges) {
+
+        /**
+         * Returns whether every row that passes the given filters is one of these
+         * rows: each of this selection's filters is among them, or one of them
+         * accepts a range of keys of the same column within its range.
+         */
+        boolean refinedBy(List<String> otherJsons, KeyRange[] otherRanges) {
+            if (rows == null) {
+                return false;
+            }
+            for (int i = 0; i < jsons.size(); i++) {
+                if (!otherJsons.contains(jsons.get(i)) && !containsAny(ranges[i], otherRanges)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean containsAny(KeyRange range, KeyRange[] others) {
+            if (range == null) {
+                return false;
+            }
+            for (KeyRange other : others) {
+                if (other != null && other.column().equals(range.column())
+                        && (other.isEmpty() || other.low() >= range.low() && other.high() <= range.high())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.sample;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+import java.util.function.LongToIntFunction;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate.RowKeys;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.PartitionedScanner;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Sample;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongComparators;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+import tech.tablesaw.api.Table;
+
+/**
+ * Draws seeded random samples of the rows of a table.
+ * <p>
+ * Uniform and stratified samples give every row a pseudo-random rank derived
+ * from the seed and the row number, so the same seed keeps the same rows
+ * however the rows are partitioned. A sample by rate keeps the rows whose rank
+ * falls below the rate; a sample by size keeps the rows of smallest rank, with
+ * a bounded heap per partition (and per stratum) that is merged afterwards.
+ * Narrowing the filters keeps the sampled rows that still pass, except in
+ * stratified samples by rate, whose strata are sized by the rows that pass.
+ * <p>
+ * Reservoir samples read the candidate rows once, in row order, keeping at
+ * most {@code size} of them, so they suit candidates that are tested as they
+ * stream by rather than collected first.
+ * <p>
+ * Sampled rows are returned in row order.
+ */
+public final class RowSampler {
+
+    private RowSampler() {
+    }
+
+    /**
+     * Returns the rows of a sample of a table's candidate rows.
+     *
+     * @param candidates the rows that may be sampled, e.g. those passing the
+     *                   filters, or null for every row
+     * @return the sampled row numbers, in ascending order
+     * @throws IllegalArgumentException if the sample's method is unknown, it
+     *                                  has neither or both of a rate and a
+     *                                  size, its rate is not in (0, 1], its
+     *                                  size is not positive or a stratified
+     *                                  sample has no column
+     */
+    public static int[] sample(Table table, IntPredicate candidates, Sample sample, PartitionedScanner scanner) {
+        String method = sample.getMethod() == null ? "uniform" : sample.getMethod().toLowerCase();
+        long seed = sample.getSeed() == null ? 0 : sample.getSeed();
+        Double rate = sample.getRate();
+        Integer size = sample.getSize();
+        if ((rate == null) == (size == null)) {
+            throw new IllegalArgumentException("A sample needs either a rate or a size");
+        }
+        if (rate != null && !(rate > 0 && rate <= 1)) {
+            throw new IllegalArgumentException("Sample rate must be greater than 0 and at most 1");
+        }
+        if (size != null && size < 1) {
+            throw new IllegalArgumentException("Sample size must be positive");
+        }
+        int rowCount = table.rowCount();
+        switch (method) {
+            case "uniform":
+                if (rate != null) {
+                    return belowRate(rowCount, candidates, rate, seed, scanner);
+                }
+                return smallestRanks(rowCount, candidates, row -> 0, stratum -> size, seed, scanner);
+            case "stratified": {
+                if (sample.getColumn() == null) {
+                    throw new IllegalArgumentException("Stratified samples need a column");
+                }
+                RowKeys strata = RowKeys.of(List.of(table.column(sample.getColumn())), rowCount);
+                if (size != null) {
+                    return smallestRanks(rowCount, candidates, strata, stratum -> size, seed, scanner);
+                }
+                // Every stratum keeps its share of the rate, and at least one row
+                Long2IntOpenHashMap counts = stratumCounts(rowCount, candidates, strata, scanner);
+                return smallestRanks(rowCount, candidates, strata,
+                        stratum -> (int) Math.max(1, Math.ceil(rate * counts.get(stratum) - 1e-9)), seed, scanner);
+            }
+            case "reservoir":
+                if (size == null) {
+                    throw new IllegalArgumentException("Reservoir samples need a size");
+                }
+                return reservoir(rowCount, candidates, size, seed);
+            default:
+                throw new IllegalArgumentException("Unsupported sample method '" + sample.getMethod()
+                        + "'; use uniform, stratified or reservoir");
+        }
+    }
+
+    private static int[] belowRate(int rowCount, IntPredicate candidates, double rate, long seed,
+            PartitionedScanner scanner) {
+        List<IntArrayList> partials = scanner.mapRanges(rowCount, (partition, from, to) -> {
+            IntArrayList rows = new IntArrayList();
+            for (int row = from; row < to; row++) {
+                if ((candidates == null || candidates.test(row)) && (mix(seed, row) >>> 11) * 0x1.0p-53 < rate) {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        });
+        IntArrayList rows = new IntArrayList();
+        for (IntArrayList partial : partials) {
+            rows.addAll(partial);
+        }
+        return rows.toIntArray();
+    }
+
+    private static Long2IntOpenHashMap stratumCounts(int rowCount, IntPredicate candidates, RowKeys strata,
+            PartitionedScanner scanner) {
+        List<Long2IntOpenHashMap> partials = scanner.mapRanges(rowCount, (partition, from, to) -> {
+            Long2IntOpenHashMap counts = new Long2IntOpenHashMap();
+            for (int row = from; row < to; row++) {
+                if (candidates == null || candidates.test(row)) {
+                    counts.addTo(strata.key(row), 1);
+                }
+            }
+            return counts;
+        });
+        Long2IntOpenHashMap counts = partials.get(0);
+        for (int i = 1; i < partials.size(); i++) {
+            for (Long2IntOpenHashMap.Entry entry : partials.get(i).long2IntEntrySet()) {
+                counts.addTo(entry.getLongKey(), entry.getIntValue());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Keeps the rows of smallest rank of each stratum. Ranks carry their row
+     * number in the low bits, so they are distinct and the row is recovered
+     * from the rank.
+     */
+    private static int[] smallestRanks(int rowCount, IntPredicate candidates, RowKeys strata,
+            LongToIntFunction limit, long seed, PartitionedScanner scanner) {
+        List<Long2ObjectOpenHashMap<LongHeapPriorityQueue>> partials = scanner.mapRanges(rowCount,
+                (partition, from, to) -> {
+                    // Max-heaps, whose head is the largest rank kept so far
+                    Long2ObjectOpenHashMap<LongHeapPriorityQueue> heaps = new Long2ObjectOpenHashMap<>();
+                    for (int row = from; row < to; row++) {
+                        if (candidates != null && !candidates.test(row)) {
+                            continue;
+                        }
+                        long stratum = strata.key(row);
+                        LongHeapPriorityQueue heap = heaps.get(stratum);
+                        if (heap == null) {
+                            heap = new LongHeapPriorityQueue(LongComparators.OPPOSITE_COMPARATOR);
+                            heaps.put(stratum, heap);
+                        }
+                        long rank = mix(seed, row) & 0xFFFFFFFF00000000L | row;
+                        if (heap.size() < limit.applyAsInt(stratum)) {
+                            heap.enqueue(rank);
+                        } else if (rank < heap.firstLong()) {
+                            heap.dequeueLong();
+                            heap.enqueue(rank);
+                        }
+                    }
+                    return heaps;
+                });
+
+        Long2ObjectOpenHashMap<LongArrayList> ranks = new Long2ObjectOpenHashMap<>();
+        for (Long2ObjectOpenHashMap<LongHeapPriorityQueue> heaps : partials) {
+            for (Long2ObjectOpenHashMap.Entry<LongHeapPriorityQueue> entry : heaps.long2ObjectEntrySet()) {
+                LongArrayList stratumRanks = ranks.computeIfAbsent(entry.getLongKey(), key -> new LongArrayList());
+                LongHeapPriorityQueue heap = entry.getValue();
+                while (!heap.isEmpty()) {
+                    stratumRanks.add(heap.dequeueLong());
+                }
+            }
+        }
+        IntArrayList rows = new IntArrayList();
+        for (Long2ObjectOpenHashMap.Entry<LongArrayList> entry : ranks.long2ObjectEntrySet()) {
+            long[] stratumRanks = entry.getValue().toLongArray();
+            Arrays.sort(stratumRanks);
+            int kept = Math.min(stratumRanks.length, limit.applyAsInt(entry.getLongKey()));
+            for (int i = 0; i < kept; i++) {
+                rows.add((int) stratumRanks[i]);
+            }
+        }
+        int[] sampled = rows.toIntArray();
+        Arrays.sort(sampled);
+        return sampled;
+    }
+
+    // Algorithm R: the n-th candidate replaces a kept row with probability size / n
+    private static int[] reservoir(int rowCount, IntPredicate candidates, int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        IntArrayList kept = new IntArrayList();
+        long seen = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (candidates != null && !candidates.test(row)) {
+                continue;
+            }
+            seen++;
+            if (kept.size() < size) {
+                kept.add(row);
+            } else {
+                long slot = random.nextLong(seen);
+                if (slot < size) {
+                    kept.set((int) slot, row);
+                }
+            }
+        }
+        int[] sampled = kept.toIntArray();
+        Arrays.sort(sampled);
+        return sampled;
+    }
+
+    // The pseudo-random bits of a row: the MurmurHash3 finalizer of the seed and row number
+    private static long mix(long seed, int row) {
+        long value = seed * 0xC2B2AE3D27D4EB4FL + (row + 1L) * 0x9E3779B97F4A7C15L;
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,149 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.schema;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DatasetFingerprint;
+import tech.tablesaw.api.ColumnType;
+import tech.tablesaw.api.Table;
+
+/**
+ * Remembers the column types resolved for each version of a CSV file, so that
+ * later parses of the same file can skip type inference.
+ * <p>
+ * The catalog is a single JSON file, {@code .schema-catalog.json}, in the
+ * working directory. It maps each file's absolute path to the fingerprint and
+ * columns it was last parsed with; an entry is only used while the file still
+ * has that fingerprint.
+ */
+@Component
+public class SchemaCatalog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaCatalog.class);
+    private static final String CATALOG_FILE_NAME = ".schema-catalog.json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path catalogPath;
+    private final Map<String, DatasetSchema> schemas = new ConcurrentHashMap<>();
+
+    public SchemaCatalog(@Value("${app.working.directory}") String workingDirectory) {
+        this.catalogPath = Paths.get(workingDirectory, CATALOG_FILE_NAME);
+        load();
+    }
+
+    /**
+     * Returns the column types recorded for the given file version.
+     *
+     * @param fingerprint the current fingerprint of the CSV file
+     * @return the schema, or empty if the file is unknown or has changed since
+     */
+    public Optional<DatasetSchema> lookup(DatasetFingerprint fingerprint) {
+        DatasetSchema schema = schemas.get(keyOf(fingerprint));
+        if (schema == null || !schema.matches(fingerprint)) {
+            return Optional.empty();
+        }
+        return Optional.of(schema);
+    }
+
+    /**
+     * Records the column types of a table parsed from the given file version.
+     *
+     * @param fingerprint the fingerprint of the file the table was parsed from
+     * @param table       the parsed table, with all of the file's columns
+     */
+    public void record(DatasetFingerprint fingerprint, Table table) {
+        List<ColumnSchema> columns = table.columns().stream()
+                .map(column -> new ColumnSchema(column.name(), column.type().name()))
+                .toList();
+        DatasetSchema schema = new DatasetSchema(fingerprint.lastModified(), fingerprint.size(), columns);
+        DatasetSchema previous = schemas.put(keyOf(fingerprint), schema);
+        if (!schema.equals(previous)) {
+            save();
+        }
+    }
+
+    /**
+     * Drops the entry of a file whose recorded types turned out not to fit it.
+     *
+     * @param fingerprint the fingerprint of the file
+     */
+    public void forget(DatasetFingerprint fingerprint) {
+        if (schemas.remove(keyOf(fingerprint)) != null) {
+            save();
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(catalogPath)) {
+            return;
+        }
+        try {
+            schemas.putAll(objectMapper.readValue(catalogPath.toFile(),
+                    new TypeReference<Map<String, DatasetSchema>>() {
+                    }));
+            LOG.info("Loaded {} dataset schemas from {}", schemas.size(), catalogPath);
+        } catch (IOException e) {
+            LOG.warn("Ignoring unreadable schema catalog {}", catalogPath, e);
+        }
+    }
+
+    private synchronized void save() {
+        Path temporaryPath = catalogPath.resolveSibling(CATALOG_FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(catalogPath.getParent());
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temporaryPath.toFile(), schemas);
+            Files.move(temporaryPath, catalogPath, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Failed to write schema catalog {}", catalogPath, e);
+        }
+    }
+
+    private static String keyOf(DatasetFingerprint fingerprint) {
+        return fingerprint.path().toString();
+    }
+
+    /**
+     * Name and Tablesaw type name of a column.
+     */
+    public record ColumnSchema(String name, String type) {
+    }
+
+    /**
+     * The columns of one version of a CSV file, identified by its modification
+     * time and size.
+     */
+    public record DatasetSchema(long lastModified, long size, List<ColumnSchema> columns) {
+
+        boolean matches(DatasetFingerprint fingerprint) {
+            return lastModified == fingerprint.lastModified() && size == fingerprint.size();
+        }
+
+        /**
+         * Returns the column types in file order, as expected by
+         * {@code CsvReadOptions.Builder#columnTypes(ColumnType[])}.
+         */
+        public ColumnType[] columnTypes() {
+            return columns.stream().map(column -> ColumnType.valueOf(column.type())).toArray(ColumnType[]::new);
+        }
+
+        public List<String> columnNames() {
+            return columns.stream().map(ColumnSchema::name).toList();
+        }
+    }
+}
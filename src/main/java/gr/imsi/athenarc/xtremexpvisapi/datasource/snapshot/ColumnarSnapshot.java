@@ -0,0 +1,517 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DatasetFingerprint;
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.ColumnType;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DateTimeColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.FloatColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.LongColumn;
+import tech.tablesaw.api.ShortColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.api.TimeColumn;
+import tech.tablesaw.columns.Column;
+
+/**
+ * Binary columnar encoding of a parsed table.
+ * <p>
+ * A snapshot starts with a schema header (source fingerprint, row count and,
+ * per column, its name, type and the position of its data block) followed by
+ * one block per column holding the column's internal values: primitives for
+ * numeric, boolean and temporal columns and a dictionary plus one code per row
+ * for string columns. Blocks are memory-mapped on load and copied straight into
+ * Tablesaw columns, so no text is tokenized or re-parsed.
+ */
+public final class ColumnarSnapshot {
+
+    private static final int MAGIC = 0x58565331; // "XVS1"
+    private static final int FORMAT_VERSION = 1;
+    // Blocks are mapped in segments so that columns larger than 2GB can still be read
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private static final Set<ColumnType> SUPPORTED_TYPES = Set.of(
+            ColumnType.SHORT, ColumnType.INTEGER, ColumnType.LONG, ColumnType.FLOAT, ColumnType.DOUBLE,
+            ColumnType.BOOLEAN, ColumnType.STRING, ColumnType.LOCAL_DATE, ColumnType.LOCAL_TIME,
+            ColumnType.LOCAL_DATE_TIME, ColumnType.INSTANT);
+
+    private ColumnarSnapshot() {
+    }
+
+    public static boolean supports(Table table) {
+        return table.columns().stream().allMatch(column -> SUPPORTED_TYPES.contains(column.type()));
+    }
+
+    /**
+     * Writes the table to {@code target}, recording the fingerprint of the file it
+     * was parsed from.
+     *
+     * @param target      the snapshot file to create or replace
+     * @param fingerprint the source file the table was parsed from
+     * @param table       the table to encode; all column types must be supported
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void write(Path target, DatasetFingerprint fingerprint, Table table) throws IOException {
+        if (!supports(table)) {
+            throw new IllegalArgumentException("Table contains column types that cannot be snapshotted");
+        }
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BlockWriter writer = new BlockWriter(channel);
+            writer.putInt(MAGIC);
+            writer.putInt(FORMAT_VERSION);
+            writer.putLong(fingerprint.lastModified());
+            writer.putLong(fingerprint.size());
+            writer.putInt(table.rowCount());
+            writer.putInt(table.columnCount());
+
+            // Block positions are not known yet; remember where to patch them in
+            long[] directoryPositions = new long[table.columnCount()];
+            for (int i = 0; i < table.columnCount(); i++) {
+                Column<?> column = table.column(i);
+                writer.putString(column.name());
+                writer.putString(column.type().name());
+                directoryPositions[i] = writer.position();
+                writer.putLong(0L);
+                writer.putLong(0L);
+            }
+
+            long[] blockOffsets = new long[table.columnCount()];
+            long[] blockLengths = new long[table.columnCount()];
+            for (int i = 0; i < table.columnCount(); i++) {
+                blockOffsets[i] = writer.position();
+                writeBlock(writer, table.column(i));
+                blockLengths[i] = writer.position() - blockOffsets[i];
+            }
+            writer.flush();
+
+            ByteBuffer entry = ByteBuffer.allocate(Long.BYTES * 2);
+            for (int i = 0; i < table.columnCount(); i++) {
+                entry.clear();
+                entry.putLong(blockOffsets[i]).putLong(blockLengths[i]).flip();
+                while (entry.hasRemaining()) {
+                    channel.write(entry, directoryPositions[i] + entry.position());
+                }
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Loads a snapshot if it was taken from the given version of its source file.
+     *
+     * @param source      the snapshot file
+     * @param fingerprint the current fingerprint of the source file
+     * @param tableName   the name to give the loaded table
+     * @return the table, or empty if the snapshot belongs to another version of the
+     *         source file
+     * @throws IOException if the snapshot cannot be read or is malformed
+     */
+    public static Optional<Table> read(Path source, DatasetFingerprint fingerprint, String tableName)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            DataInputStream header = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel)));
+            if (header.readInt() != MAGIC || header.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a columnar snapshot (or an unsupported version): " + source);
+            }
+            if (header.readLong() != fingerprint.lastModified() || header.readLong() != fingerprint.size()) {
+                return Optional.empty();
+            }
+            int rowCount = header.readInt();
+            int columnCount = header.readInt();
+            List<String> names = new ArrayList<>(columnCount);
+            List<ColumnType> types = new ArrayList<>(columnCount);
+            long[] blockOffsets = new long[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                names.add(readString(header));
+                types.add(ColumnType.valueOf(readString(header)));
+                blockOffsets[i] = header.readLong();
+                header.readLong(); // block length, implied by the type and row count
+            }
+
+            Table table = Table.create(tableName);
+            for (int i = 0; i < columnCount; i++) {
+                table.addColumns(readBlock(channel, blockOffsets[i], names.get(i), types.get(i), rowCount));
+            }
+            return Optional.of(table);
+        }
+    }
+
+    private static void writeBlock(BlockWriter writer, Column<?> column) throws IOException {
+        int size = column.size();
+        switch (column.type().name()) {
+            case "SHORT": {
+                ShortColumn shorts = (ShortColumn) column;
+                for (int row = 0; row < size; row++) {
+                    writer.putShort(shorts.getShort(row));
+                }
+                break;
+            }
+            case "INTEGER": {
+                IntColumn ints = (IntColumn) column;
+                for (int row = 0; row < size; row++) {
+                    writer.putInt(ints.getInt(row));
+                }
+                break;
+            }
+            case "LONG": {
+                LongColumn longs = (LongColumn) column;
+                for (int row = 0; row < size; row++) {
+                    writer.putLong(longs.getLong(row));
+                }
+                break;
+            }
+            case "FLOAT": {
+                FloatColumn floats = (FloatColumn) column;
+                for (int row = 0; row < size; row++) {
+                    writer.putFloat(floats.getFloat(row));
+                }
+                break;
+            }
+            case "DOUBLE": {
+                DoubleColumn doubles = (DoubleColumn) column;
+                for (int row = 0; row < size; row++) {
+                    writer.putDouble(doubles.getDouble(row));
+                }
+                break;
+            }
+            case "BOOLEAN": {
+                BooleanColumn booleans = (BooleanColumn) column;
+                for (int row = 0; row < size; row++) {
+                    writer.putByte(booleans.getByte(row));
+                }
+                break;
+            }
+            case "LOCAL_DATE": {
+                DateColumn dates = (DateColumn) column;
+                for (int row = 0; row < size; row++) {
+                    writer.putInt(dates.getIntInternal(row));
+                }
+                break;
+            }
+            case "LOCAL_TIME": {
+                TimeColumn times = (TimeColumn) column;
+                for (int row = 0; row < size; row++) {
+                    writer.putInt(times.getIntInternal(row));
+                }
+                break;
+            }
+            case "LOCAL_DATE_TIME": {
+                DateTimeColumn dateTimes = (DateTimeColumn) column;
+                for (int row = 0; row < size; row++) {
+                    writer.putLong(dateTimes.getLongInternal(row));
+                }
+                break;
+            }
+            case "INSTANT": {
+                InstantColumn instants = (InstantColumn) column;
+                for (int row = 0; row < size; row++) {
+                    writer.putLong(instants.getLongInternal(row));
+                }
+                break;
+            }
+            case "STRING": {
+                StringColumn strings = (StringColumn) column;
+                Map<String, Integer> dictionary = new HashMap<>();
+                List<String> values = new ArrayList<>();
+                int[] codes = new int[size];
+                for (int row = 0; row < size; row++) {
+                    String value = strings.get(row);
+                    Integer code = dictionary.get(value);
+                    if (code == null) {
+                        code = values.size();
+                        dictionary.put(value, code);
+                        values.add(value);
+                    }
+                    codes[row] = code;
+                }
+                writer.putInt(values.size());
+                for (String value : values) {
+                    writer.putString(value);
+                }
+                for (int code : codes) {
+                    writer.putInt(code);
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported column type: " + column.type().name());
+        }
+    }
+
+    private static Column<?> readBlock(FileChannel channel, long offset, String name, ColumnType type, int rowCount)
+            throws IOException {
+        switch (type.name()) {
+            case "SHORT": {
+                short[] values = new short[rowCount];
+                new BlockReader(channel, offset).getShorts(values);
+                return ShortColumn.create(name, values);
+            }
+            case "INTEGER": {
+                int[] values = new int[rowCount];
+                new BlockReader(channel, offset).getInts(values);
+                return IntColumn.create(name, values);
+            }
+            case "LONG": {
+                long[] values = new long[rowCount];
+                new BlockReader(channel, offset).getLongs(values);
+                return LongColumn.create(name, values);
+            }
+            case "FLOAT": {
+                float[] values = new float[rowCount];
+                new BlockReader(channel, offset).getFloats(values);
+                return FloatColumn.create(name, values);
+            }
+            case "DOUBLE": {
+                double[] values = new double[rowCount];
+                new BlockReader(channel, offset).getDoubles(values);
+                return DoubleColumn.create(name, values);
+            }
+            case "BOOLEAN": {
+                byte[] values = new byte[rowCount];
+                new BlockReader(channel, offset).getBytes(values);
+                BooleanColumn column = BooleanColumn.create(name);
+                for (byte value : values) {
+                    column.append(value);
+                }
+                return column;
+            }
+            case "LOCAL_DATE": {
+                int[] values = new int[rowCount];
+                new BlockReader(channel, offset).getInts(values);
+                return DateColumn.createInternal(name, values);
+            }
+            case "LOCAL_TIME": {
+                int[] values = new int[rowCount];
+                new BlockReader(channel, offset).getInts(values);
+                return TimeColumn.createInternal(name, values);
+            }
+            case "LOCAL_DATE_TIME": {
+                long[] values = new long[rowCount];
+                new BlockReader(channel, offset).getLongs(values);
+                return DateTimeColumn.createInternal(name, values);
+            }
+            case "INSTANT": {
+                long[] values = new long[rowCount];
+                new BlockReader(channel, offset).getLongs(values);
+                return InstantColumn.createInternal(name, values);
+            }
+            case "STRING": {
+                BlockReader reader = new BlockReader(channel, offset);
+                String[] dictionary = new String[reader.getInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    byte[] bytes = new byte[reader.getInt()];
+                    reader.getBytes(bytes);
+                    dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                int[] codes = new int[rowCount];
+                reader.getInts(codes);
+                String[] values = new String[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    values[row] = dictionary[codes[row]];
+                }
+                return StringColumn.create(name, values);
+            }
+            default:
+                throw new IOException("Unsupported column type in snapshot: " + type.name());
+        }
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Buffered sequential writer that keeps track of its absolute file position.
+     */
+    private static final class BlockWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+        private long flushedBytes;
+
+        private BlockWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private long position() {
+            return flushedBytes + buffer.position();
+        }
+
+        private void ensureCapacity(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushedBytes += channel.write(buffer, flushedBytes);
+            }
+            buffer.clear();
+        }
+
+        private void putByte(byte value) throws IOException {
+            ensureCapacity(Byte.BYTES);
+            buffer.put(value);
+        }
+
+        private void putShort(short value) throws IOException {
+            ensureCapacity(Short.BYTES);
+            buffer.putShort(value);
+        }
+
+        private void putInt(int value) throws IOException {
+            ensureCapacity(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        private void putLong(long value) throws IOException {
+            ensureCapacity(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        private void putFloat(float value) throws IOException {
+            ensureCapacity(Float.BYTES);
+            buffer.putFloat(value);
+        }
+
+        private void putDouble(double value) throws IOException {
+            ensureCapacity(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        private void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            int written = 0;
+            while (written < bytes.length) {
+                ensureCapacity(1);
+                int chunk = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, chunk);
+                written += chunk;
+            }
+        }
+    }
+
+    /**
+     * Sequential reader over a memory-mapped region, remapping the next segment
+     * whenever the current one is exhausted.
+     */
+    private static final class BlockReader {
+        private final FileChannel channel;
+        private long nextSegmentOffset;
+        private MappedByteBuffer segment;
+
+        private BlockReader(FileChannel channel, long offset) {
+            this.channel = channel;
+            this.nextSegmentOffset = offset;
+        }
+
+        private MappedByteBuffer segment(int bytesNeeded) throws IOException {
+            if (segment == null || segment.remaining() < bytesNeeded) {
+                long start = nextSegmentOffset - (segment == null ? 0 : segment.remaining());
+                long length = Math.min(MAX_SEGMENT_BYTES, channel.size() - start);
+                if (length < bytesNeeded) {
+                    throw new IOException("Truncated columnar snapshot");
+                }
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                nextSegmentOffset = start + length;
+            }
+            return segment;
+        }
+
+        private int getInt() throws IOException {
+            return segment(Integer.BYTES).getInt();
+        }
+
+        private void getBytes(byte[] values) throws IOException {
+            int read = 0;
+            while (read < values.length) {
+                MappedByteBuffer buffer = segment(1);
+                int chunk = Math.min(buffer.remaining(), values.length - read);
+                buffer.get(values, read, chunk);
+                read += chunk;
+            }
+        }
+
+        private void getShorts(short[] values) throws IOException {
+            int read = 0;
+            while (read < values.length) {
+                MappedByteBuffer buffer = segment(Short.BYTES);
+                int chunk = Math.min(buffer.remaining() / Short.BYTES, values.length - read);
+                buffer.asShortBuffer().get(values, read, chunk);
+                buffer.position(buffer.position() + chunk * Short.BYTES);
+                read += chunk;
+            }
+        }
+
+        private void getInts(int[] values) throws IOException {
+            int read = 0;
+            while (read < values.length) {
+                MappedByteBuffer buffer = segment(Integer.BYTES);
+                int chunk = Math.min(buffer.remaining() / Integer.BYTES, values.length - read);
+                buffer.asIntBuffer().get(values, read, chunk);
+                buffer.position(buffer.position() + chunk * Integer.BYTES);
+                read += chunk;
+            }
+        }
+
+        private void getLongs(long[] values) throws IOException {
+            int read = 0;
+            while (read < values.length) {
+                MappedByteBuffer buffer = segment(Long.BYTES);
+                int chunk = Math.min(buffer.remaining() / Long.BYTES, values.length - read);
+                buffer.asLongBuffer().get(values, read, chunk);
+                buffer.position(buffer.position() + chunk * Long.BYTES);
+                read += chunk;
+            }
+        }
+
+        private void getFloats(float[] values) throws IOException {
+            int read = 0;
+            while (read < values.length) {
+                MappedByteBuffer buffer = segment(Float.BYTES);
+                int chunk = Math.min(buffer.remaining() / Float.BYTES, values.length - read);
+                buffer.asFloatBuffer().get(values, read, chunk);
+                buffer.position(buffer.position() + chunk * Float.BYTES);
+                read += chunk;
+            }
+        }
+
+        private void getDoubles(double[] values) throws IOException {
+            int read = 0;
+            while (read < values.length) {
+                MappedByteBuffer buffer = segment(Double.BYTES);
+                int chunk = Math.min(buffer.remaining() / Double.BYTES, values.length - read);
+                buffer.asDoubleBuffer().get(values, read, chunk);
+                buffer.position(buffer.position() + chunk * Double.BYTES);
+                read += chunk;
+            }
+        }
+    }
+}
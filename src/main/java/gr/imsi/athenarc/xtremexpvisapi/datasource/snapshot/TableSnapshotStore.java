@@ -0,0 +1,146 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DatasetFingerprint;
+import jakarta.annotation.PreDestroy;
+import tech.tablesaw.api.Table;
+
+/**
+ * Keeps a {@link ColumnarSnapshot} sidecar next to each parsed CSV file so that
+ * later loads, including the first one after a restart, can skip CSV parsing.
+ * <p>
+ * The sidecar of {@code data.csv} is the hidden file {@code .data.csv.snapshot}
+ * in the same directory. Snapshots are written in the background after a parse
+ * and are ignored (and replaced) once the source file's modification time or
+ * size changes.
+ */
+@Component
+public class TableSnapshotStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TableSnapshotStore.class);
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    private final boolean enabled;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "table-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<DatasetFingerprint> pendingWrites = ConcurrentHashMap.newKeySet();
+
+    public TableSnapshotStore(DataEngineProperties dataEngineProperties) {
+        this.enabled = dataEngineProperties.isSnapshotEnabled();
+    }
+
+    /**
+     * Loads the snapshot of the given file version, if one exists.
+     *
+     * @param fingerprint the current fingerprint of the CSV file
+     * @return the snapshotted table, or empty if there is no valid snapshot
+     */
+    public Optional<Table> load(DatasetFingerprint fingerprint) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Path snapshotPath = snapshotPathFor(fingerprint.path());
+        if (!Files.isRegularFile(snapshotPath)) {
+            return Optional.empty();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Optional<Table> table = ColumnarSnapshot.read(snapshotPath, fingerprint,
+                    fingerprint.path().getFileName().toString());
+            if (table.isPresent()) {
+                LOG.info("Loaded {} from snapshot in {} ms", fingerprint.path().getFileName(),
+                        System.currentTimeMillis() - start);
+            } else {
+                LOG.info("Snapshot of {} is stale, it will be rebuilt", fingerprint.path().getFileName());
+            }
+            return table;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Discarding unreadable snapshot {}", snapshotPath, e);
+            deleteQuietly(snapshotPath);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns whether the given file has a snapshot that is at least as recent
+     * as the file itself. This only compares modification times; {@link #load}
+     * still validates the snapshot against the full fingerprint.
+     *
+     * @param csvPath the CSV file
+     * @return {@code true} if a load would probably be served from the snapshot
+     */
+    public boolean hasSnapshot(Path csvPath) {
+        if (!enabled) {
+            return false;
+        }
+        Path snapshotPath = snapshotPathFor(csvPath);
+        try {
+            return Files.isRegularFile(snapshotPath)
+                    && Files.getLastModifiedTime(snapshotPath).compareTo(Files.getLastModifiedTime(csvPath)) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Schedules a snapshot of a freshly parsed table to be written next to its
+     * source file.
+     *
+     * @param fingerprint the fingerprint of the file the table was parsed from
+     * @param table       the parsed table, which must not be modified afterwards
+     */
+    public void save(DatasetFingerprint fingerprint, Table table) {
+        if (!enabled || !ColumnarSnapshot.supports(table) || !pendingWrites.add(fingerprint)) {
+            return;
+        }
+        writer.execute(() -> {
+            Path snapshotPath = snapshotPathFor(fingerprint.path());
+            Path temporaryPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            try {
+                ColumnarSnapshot.write(temporaryPath, fingerprint, table);
+                Files.move(temporaryPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                LOG.info("Wrote snapshot {}", snapshotPath);
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Failed to write snapshot {}", snapshotPath, e);
+                deleteQuietly(temporaryPath);
+            } finally {
+                pendingWrites.remove(fingerprint);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdown();
+    }
+
+    private static Path snapshotPathFor(Path csvPath) {
+        return csvPath.resolveSibling("." + csvPath.getFileName() + SNAPSHOT_SUFFIX);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOG.debug("Could not delete {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.OrderBy;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import it.unimi.dsi.fastutil.ints.IntHeapPriorityQueue;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntIterators;
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DateTimeColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.FloatColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.LongColumn;
+import tech.tablesaw.api.ShortColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.api.TimeColumn;
+import tech.tablesaw.columns.Column;
+
+/**
+ * Orders the rows of a table by one or more columns.
+ * <p>
+ * Rows are compared on the values Tablesaw stores (packed dates and times,
+ * primitives), with missing values last in either direction and ties broken
+ * by row number. The order is total, so a page of sorted rows is the same
+ * whether the table was sorted completely or only its first rows were kept.
+ * <p>
+ * When only the first rows are needed, they are collected with a bounded heap
+ * in one pass over the rows instead of sorting the whole table.
+ */
+public final class RowSorter {
+
+    private RowSorter() {
+    }
+
+    /**
+     * Returns the first rows of a table in the given order.
+     *
+     * @param orderBy the sort columns, most significant first
+     * @param maxRows how many of the first rows to keep
+     * @return a new table with at most {@code maxRows} rows
+     * @throws IllegalArgumentException if a direction is neither {@code asc}
+     *                                  nor {@code desc}
+     */
+    public static Table sort(Table table, List<OrderBy> orderBy, int maxRows) {
+        IntComparator order = comparator(table, orderBy);
+        int rowCount = table.rowCount();
+        int[] rows;
+        if (maxRows < rowCount) {
+            rows = firstRows(order, IntIterators.fromTo(0, rowCount), -1, maxRows);
+        } else {
+            rows = new int[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                rows[row] = row;
+            }
+            IntArrays.parallelQuickSort(rows, order);
+        }
+        List<Column<?>> columns = new ArrayList<>(table.columnCount());
+        for (Column<?> column : table.columns()) {
+            columns.add(column.subset(rows));
+        }
+        return Table.create(table.name(), columns);
+    }
+
+    /**
+     * Returns the first of the given rows in the given order, skipping those
+     * that do not come after {@code afterRow}. This is how the next page of an
+     * ordered result is found from the last row of the previous one.
+     *
+     * @param rows     the rows to choose from, e.g. those passing the filters
+     * @param afterRow the last row already returned, or -1 to start from the
+     *                 first row
+     * @param maxRows  how many rows to return at most
+     * @return the row numbers in order
+     * @throws IllegalArgumentException if a direction is neither {@code asc}
+     *                                  nor {@code desc}
+     */
+    public static int[] firstRows(Table table, List<OrderBy> orderBy, IntIterator rows, int afterRow, int maxRows) {
+        return firstRows(comparator(table, orderBy), rows, afterRow, maxRows);
+    }
+
+    /**
+     * Keeps the first {@code maxRows} rows in a heap whose head is the last
+     * of them, so each further row costs one comparison unless it belongs in
+     * the heap.
+     */
+    private static int[] firstRows(IntComparator order, IntIterator candidates, int afterRow, int maxRows) {
+        if (maxRows <= 0) {
+            return new int[0];
+        }
+        IntHeapPriorityQueue heap = new IntHeapPriorityQueue(maxRows, order.reversed());
+        while (candidates.hasNext()) {
+            int row = candidates.nextInt();
+            if (afterRow >= 0 && order.compare(row, afterRow) <= 0) {
+                continue;
+            }
+            if (heap.size() < maxRows) {
+                heap.enqueue(row);
+            } else if (order.compare(row, heap.firstInt()) < 0) {
+                heap.dequeueInt();
+                heap.enqueue(row);
+            }
+        }
+        int[] rows = new int[heap.size()];
+        for (int i = rows.length - 1; i >= 0; i--) {
+            rows[i] = heap.dequeueInt();
+        }
+        return rows;
+    }
+
+    private static IntComparator comparator(Table table, List<OrderBy> orderBy) {
+        List<IntComparator> comparators = new ArrayList<>(orderBy.size());
+        for (OrderBy sortColumn : orderBy) {
+            Column<?> column = table.column(sortColumn.getColumn());
+            boolean descending = isDescending(sortColumn);
+            IntComparator values = valueComparator(column);
+            IntPredicate missing = column::isMissing;
+            comparators.add((left, right) -> {
+                boolean leftMissing = missing.test(left);
+                boolean rightMissing = missing.test(right);
+                if (leftMissing || rightMissing) {
+                    return Boolean.compare(leftMissing, rightMissing);
+                }
+                int compared = values.compare(left, right);
+                return descending ? -compared : compared;
+            });
+        }
+        IntComparator[] chain = comparators.toArray(new IntComparator[0]);
+        return (left, right) -> {
+            for (IntComparator comparator : chain) {
+                int compared = comparator.compare(left, right);
+                if (compared != 0) {
+                    return compared;
+                }
+            }
+            return Integer.compare(left, right);
+        };
+    }
+
+    private static boolean isDescending(OrderBy orderBy) {
+        String direction = orderBy.getDirection();
+        if (direction == null) {
+            return false;
+        }
+        switch (direction.toLowerCase()) {
+            case "asc":
+                return false;
+            case "desc":
+                return true;
+            default:
+                throw new IllegalArgumentException(
+                        "Unsupported sort direction '" + direction + "' for column: " + orderBy.getColumn());
+        }
+    }
+
+    private static IntComparator valueComparator(Column<?> column) {
+        switch (column.type().name()) {
+            case "DOUBLE": {
+                DoubleColumn doubles = (DoubleColumn) column;
+                return (left, right) -> Double.compare(doubles.getDouble(left), doubles.getDouble(right));
+            }
+            case "FLOAT": {
+                FloatColumn floats = (FloatColumn) column;
+                return (left, right) -> Float.compare(floats.getFloat(left), floats.getFloat(right));
+            }
+            case "INTEGER": {
+                IntColumn ints = (IntColumn) column;
+                return (left, right) -> Integer.compare(ints.getInt(left), ints.getInt(right));
+            }
+            case "SHORT": {
+                ShortColumn shorts = (ShortColumn) column;
+                return (left, right) -> Short.compare(shorts.getShort(left), shorts.getShort(right));
+            }
+            case "LONG": {
+                LongColumn longs = (LongColumn) column;
+                return (left, right) -> Long.compare(longs.getLong(left), longs.getLong(right));
+            }
+            case "BOOLEAN": {
+                BooleanColumn booleans = (BooleanColumn) column;
+                return (left, right) -> Byte.compare(booleans.getByte(left), booleans.getByte(right));
+            }
+            case "STRING": {
+                StringColumn strings = (StringColumn) column;
+                return (left, right) -> strings.get(left).compareTo(strings.get(right));
+            }
+            case "LOCAL_DATE": {
+                DateColumn dates = (DateColumn) column;
+                return (left, right) -> Integer.compare(dates.getIntInternal(left), dates.getIntInternal(right));
+            }
+            case "LOCAL_TIME": {
+                TimeColumn times = (TimeColumn) column;
+                return (left, right) -> Integer.compare(times.getIntInternal(left), times.getIntInternal(right));
+            }
+            case "LOCAL_DATE_TIME": {
+                DateTimeColumn dateTimes = (DateTimeColumn) column;
+                return (left, right) -> Long.compare(dateTimes.getLongInternal(left),
+                        dateTimes.getLongInternal(right));
+            }
+            case "INSTANT": {
+                InstantColumn instants = (InstantColumn) column;
+                return (left, right) -> Long.compare(instants.getLongInternal(left), instants.getLongInternal(right));
+            }
+            default:
+                return (left, right) -> column.getString(left).compareTo(column.getString(right));
+        }
+    }
+}
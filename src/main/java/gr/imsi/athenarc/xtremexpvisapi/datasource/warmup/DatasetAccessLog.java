@@ -0,0 +1,125 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Counts how often each dataset is requested, across restarts, so that warm-up
+ * can preload the most used ones.
+ * <p>
+ * Counts are kept in {@code .dataset-access.json} in the working directory,
+ * keyed by dataset ID (the path relative to the working directory). The file
+ * is rewritten every few minutes while there are new accesses and on shutdown.
+ */
+@Component
+public class DatasetAccessLog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DatasetAccessLog.class);
+    private static final String LOG_FILE_NAME = ".dataset-access.json";
+    private static final long SAVE_INTERVAL_MINUTES = 5;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path logPath;
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dataset-access-log-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DatasetAccessLog(@Value("${app.working.directory}") String workingDirectory) {
+        this.logPath = Paths.get(workingDirectory, LOG_FILE_NAME);
+        load();
+        saver.scheduleWithFixedDelay(this::saveIfDirty, SAVE_INTERVAL_MINUTES, SAVE_INTERVAL_MINUTES,
+                TimeUnit.MINUTES);
+    }
+
+    /**
+     * Records one request for the given dataset.
+     *
+     * @param datasetId the dataset path relative to the working directory
+     */
+    public void record(String datasetId) {
+        if (datasetId == null || datasetId.isBlank()) {
+            return;
+        }
+        counts.computeIfAbsent(datasetId, key -> new LongAdder()).increment();
+        dirty.set(true);
+    }
+
+    /**
+     * Returns the most requested datasets, most requested first.
+     *
+     * @param limit the maximum number of datasets to return
+     * @return dataset IDs
+     */
+    public List<String> mostAccessed(int limit) {
+        return counts.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum())
+                        .reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        saver.shutdown();
+        saveIfDirty();
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(logPath)) {
+            return;
+        }
+        try {
+            Map<String, Long> saved = objectMapper.readValue(logPath.toFile(), new TypeReference<Map<String, Long>>() {
+            });
+            saved.forEach((datasetId, count) -> counts.computeIfAbsent(datasetId, key -> new LongAdder()).add(count));
+            LOG.info("Loaded access counts of {} datasets from {}", counts.size(), logPath);
+        } catch (IOException e) {
+            LOG.warn("Ignoring unreadable dataset access log {}", logPath, e);
+        }
+    }
+
+    private synchronized void saveIfDirty() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        Map<String, Long> snapshot = counts.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+        Path temporaryPath = logPath.resolveSibling(LOG_FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(logPath.getParent());
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temporaryPath.toFile(), snapshot);
+            Files.move(temporaryPath, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Failed to write dataset access log {}", logPath, e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.CsvDataSource;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Preloads datasets in the background once the application has started, so
+ * the first requests after a deploy do not pay the parse cost.
+ * <p>
+ * The datasets come from the manifest file {@code app.data.warmup-manifest}
+ * (one dataset ID per line, {@code #} starts a comment) or, without one, from
+ * the most accessed datasets recorded by {@link DatasetAccessLog}. They are
+ * loaded through {@link CsvDataSource#preload(String)} on a small dedicated
+ * pool, so requests are served while warm-up runs; {@link #status()} reports
+ * its progress.
+ */
+@Component
+public class DatasetWarmup {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DatasetWarmup.class);
+
+    private final CsvDataSource csvDataSource;
+    private final DatasetAccessLog datasetAccessLog;
+    private final DataEngineProperties dataEngineProperties;
+    private final ExecutorService loaders;
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger remaining = new AtomicInteger();
+    private volatile String state;
+    private volatile int total;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    public DatasetWarmup(CsvDataSource csvDataSource, DatasetAccessLog datasetAccessLog,
+            DataEngineProperties dataEngineProperties) {
+        this.csvDataSource = csvDataSource;
+        this.datasetAccessLog = datasetAccessLog;
+        this.dataEngineProperties = dataEngineProperties;
+        this.state = dataEngineProperties.isWarmupEnabled() ? "PENDING" : "DISABLED";
+        AtomicInteger threadCount = new AtomicInteger();
+        this.loaders = Executors.newFixedThreadPool(Math.max(1, dataEngineProperties.getWarmupParallelism()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dataset-warmup-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!dataEngineProperties.isWarmupEnabled()) {
+            return;
+        }
+        List<String> datasetIds = datasetsToLoad();
+        startedAt = System.currentTimeMillis();
+        total = datasetIds.size();
+        if (datasetIds.isEmpty()) {
+            finish();
+            return;
+        }
+        remaining.set(datasetIds.size());
+        state = "RUNNING";
+        LOG.info("Warming up {} datasets", datasetIds.size());
+        for (String datasetId : datasetIds) {
+            loaders.execute(() -> load(datasetId));
+        }
+    }
+
+    public WarmupStatus status() {
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        return new WarmupStatus(state, total, loaded.get(), failed.get(), startedAt > 0 ? end - startedAt : 0);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loaders.shutdownNow();
+    }
+
+    private void load(String datasetId) {
+        long start = System.currentTimeMillis();
+        try {
+            csvDataSource.preload(datasetId);
+            loaded.incrementAndGet();
+            LOG.info("Warmed up {} in {} ms", datasetId, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            LOG.warn("Could not warm up {}", datasetId, e);
+        }
+        if (remaining.decrementAndGet() == 0) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        finishedAt = System.currentTimeMillis();
+        state = "DONE";
+        LOG.info("Warm-up finished: {} of {} datasets loaded in {} ms", loaded.get(), total, finishedAt - startedAt);
+    }
+
+    private List<String> datasetsToLoad() {
+        String manifest = dataEngineProperties.getWarmupManifest();
+        if (manifest == null || manifest.isBlank()) {
+            return datasetAccessLog.mostAccessed(dataEngineProperties.getWarmupTopDatasets());
+        }
+        Path manifestPath = Paths.get(manifest);
+        try {
+            return Files.readAllLines(manifestPath).stream()
+                    .map(line -> line.contains("#") ? line.substring(0, line.indexOf('#')) : line)
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .distinct()
+                    .toList();
+        } catch (IOException e) {
+            LOG.warn("Could not read warm-up manifest {}, using the most accessed datasets", manifestPath, e);
+            return datasetAccessLog.mostAccessed(dataEngineProperties.getWarmupTopDatasets());
+        }
+    }
+}
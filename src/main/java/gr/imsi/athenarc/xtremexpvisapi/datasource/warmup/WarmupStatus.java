@@ -0,0 +1,23 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.warmup;
+
+/**
+ * Progress of the startup warm-up.
+ *
+ * @param state         {@code DISABLED}, {@code PENDING}, {@code RUNNING} or
+ *                      {@code DONE}
+ * @param total         the number of datasets to preload
+ * @param loaded        the number of datasets preloaded so far
+ * @param failed        the number of datasets that could not be loaded
+ * @param elapsedMillis time spent since warm-up started
+ */
+public record WarmupStatus(
+        String state,
+        int total,
+        int loaded,
+        int failed,
+        long elapsedMillis) {
+
+    public boolean isReady() {
+        return !"PENDING".equals(state) && !"RUNNING".equals(state);
+    }
+}
@@ -0,0 +1,18 @@
+package gr.imsi.athenarc.xtremexpvisapi.domain.Query;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrossfilterHistogram {
+
+    private String column;
+    private List<Object> bins; // Start of each bin, or each category of a string or boolean column
+    private Double binWidth; // Null for categories; milliseconds for time columns
+    private int[] counts;
+}
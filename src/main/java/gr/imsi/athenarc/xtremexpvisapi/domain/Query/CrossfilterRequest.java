@@ -0,0 +1,21 @@
+package gr.imsi.athenarc.xtremexpvisapi.domain.Query;
+
+import java.util.List;
+
+import org.springframework.lang.NonNull;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.CrossfilterDimension;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.SourceType;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CrossfilterRequest {
+    @NonNull
+    String datasetId;
+    SourceType type;
+    List<CrossfilterDimension> dimensions; // One histogram per dimension
+    List<AbstractFilter> filters; // The active brushes; a dimension's own filters do not apply to its histogram
+}
@@ -0,0 +1,14 @@
+package gr.imsi.athenarc.xtremexpvisapi.domain.Query;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class CrossfilterResponse {
+
+    private List<CrossfilterHistogram> histograms; // In the order of the requested dimensions
+    private int totalItems;
+    private int filteredItems; // Rows that pass every filter
+    private boolean incremental; // Whether the histograms were updated from an earlier request's rather than counted anew
+}
@@ -0,0 +1,31 @@
+package gr.imsi.athenarc.xtremexpvisapi.domain.Query;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.lang.NonNull;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.SourceType;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.ViewPort;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class HeatmapRequest {
+    @NonNull
+    String datasetId;
+    SourceType type;
+    String x; // Numeric column on the horizontal axis
+    String y; // Numeric column on the vertical axis
+    ViewPort viewPort; // Size of the plot in pixels
+    String shape; // rect (default) or hex
+    Double cellSize; // Side of a rect or radius of a hex in pixels, 10 by default
+    Double minX; // Bounds of the plot, the columns' minimum and maximum by default
+    Double maxX;
+    Double minY;
+    Double maxY;
+    Map<String, Object> aggregation; // Aggregates per cell, as in tabular requests, e.g. {"value": ["avg", "max"]}
+    List<AbstractFilter> filters;
+}
@@ -0,0 +1,29 @@
+package gr.imsi.athenarc.xtremexpvisapi.domain.Query;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+public class HeatmapResponse {
+
+    private String x;
+    private String y;
+    private String shape;
+    private double minX;
+    private double maxX;
+    private double minY;
+    private double maxY;
+    private int columns; // Cells per row of the grid
+    private int rows; // Rows of cells of the grid, the first at minY
+    // One entry per non-empty cell in each of the following
+    private int[] cellColumns;
+    private int[] cellRows;
+    private double[] centerX; // Center of the cell in x units
+    private double[] centerY;
+    private int[] counts;
+    private Map<String, List<Object>> aggregates; // By result name, e.g. Mean_value; null where there are no values
+    private int totalItems;
+    private int filteredItems; // Rows that pass every filter
+}
@@ -0,0 +1,26 @@
+package gr.imsi.athenarc.xtremexpvisapi.domain.Query;
+
+import java.util.List;
+
+import org.springframework.lang.NonNull;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.SourceType;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class HistogramRequest {
+    @NonNull
+    String datasetId;
+    SourceType type;
+    String column; // The column to bin
+    String binning; // fixed (default), quantile or time
+    Integer bins; // Number of fixed or quantile bins, 20 by default
+    Object min; // Start of the first fixed bin, the column's minimum by default
+    Object max; // End of the last fixed bin, the column's maximum by default
+    String timeUnit; // second, minute, hour, day, week, month or year, for time bins
+    List<String> groupBy; // One series of counts per group
+    List<AbstractFilter> filters;
+}
@@ -0,0 +1,18 @@
+package gr.imsi.athenarc.xtremexpvisapi.domain.Query;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class HistogramResponse {
+
+    private String column;
+    private String binning;
+    private List<Object> bins; // Start of each bin, or each category of a string or boolean column
+    private Object end; // End of the last bin; null for categories
+    private Double binWidth; // Only for fixed bins; milliseconds for time columns
+    private List<HistogramSeries> series; // One per group, or a single one without groups
+    private int totalItems;
+    private int filteredItems; // Rows that pass every filter
+}
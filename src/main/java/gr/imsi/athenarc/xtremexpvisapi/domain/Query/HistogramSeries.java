@@ -0,0 +1,16 @@
+package gr.imsi.athenarc.xtremexpvisapi.domain.Query;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistogramSeries {
+
+    private Map<String, Object> group; // The group's value of each group-by column; empty without groups
+    private int[] counts; // Rows in each bin
+}
@@ -9,4 +9,5 @@ import tech.tablesaw.api.Table;
 public class QueryResult {
     private Table resultTable;
     private int rowCount;
+    private String nextCursor;
 }
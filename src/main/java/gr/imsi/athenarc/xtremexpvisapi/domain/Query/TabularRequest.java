@@ -5,6 +5,8 @@ import java.util.Map;
 
 import org.springframework.lang.NonNull;
 
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.OrderBy;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Sample;
 import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.SourceType;
 import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
 import lombok.AllArgsConstructor;
@@ -22,4 +24,7 @@ public class TabularRequest {
     List<AbstractFilter> filters;
     List<String> groupBy;
     Map<String, Object> aggregation;
+    List<OrderBy> orderBy;
+    String cursor; // nextCursor of the previous page, used instead of offset
+    Sample sample; // Keeps a random subset of the filtered rows, before ordering and aggregation
 }
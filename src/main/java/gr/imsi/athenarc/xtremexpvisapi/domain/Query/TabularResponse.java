@@ -12,4 +12,5 @@ public class TabularResponse {
     private List<TabularColumn> columns; // List to store column metadata
     private int totalItems; // New field for total item count
     private int querySize;
+    private String nextCursor; // Pass as cursor to get the next page, null on the last page
 }
@@ -23,5 +23,6 @@ public class TimeSeriesRequest {
     String from;
     String to;
     DataReduction dataReduction;
+    String cursor; // nextCursor of the previous page, used instead of offset
 }
 
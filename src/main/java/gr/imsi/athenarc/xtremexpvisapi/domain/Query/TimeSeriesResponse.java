@@ -10,4 +10,5 @@ public class TimeSeriesResponse {
     private Integer totalRecords;
     private Integer limit;
     private Integer offset;
+    private String nextCursor; // Pass as cursor to get the next page, null on the last page
 }
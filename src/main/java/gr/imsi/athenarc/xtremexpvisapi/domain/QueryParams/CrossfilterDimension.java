@@ -0,0 +1,16 @@
+package gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrossfilterDimension {
+
+    private String column;
+    private Integer bins; // Equal-width bins of a numeric or time column, 20 by default
+    private Object min; // Start of the first bin, the column's minimum by default
+    private Object max; // End of the last bin, the column's maximum by default
+}
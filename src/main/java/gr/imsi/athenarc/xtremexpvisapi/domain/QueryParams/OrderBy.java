@@ -0,0 +1,14 @@
+package gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBy {
+
+    private String column;
+    private String direction; // asc (default) or desc
+}
@@ -0,0 +1,17 @@
+package gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Sample {
+
+    private String method; // uniform (default), stratified or reservoir
+    private Double rate; // Fraction of the rows to keep, per stratum when stratified; instead of size
+    private Integer size; // Number of rows to keep, per stratum when stratified; instead of rate
+    private Long seed; // The same seed keeps the same rows, 0 by default
+    private String column; // The column whose values are the strata of a stratified sample
+}
@@ -7,27 +7,49 @@ import org.springframework.stereotype.Service;
 
 import gr.imsi.athenarc.xtremexpvisapi.datasource.DataSource;
 import gr.imsi.athenarc.xtremexpvisapi.datasource.DataSourceFactory;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.cache.QueryResultCache;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.cache.QueryResultCacheStats;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.cache.TableCache;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.cache.TableCacheStats;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.IndexStats;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexStore;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.warmup.DatasetWarmup;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.warmup.WarmupStatus;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Metadata.MetadataRequest;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Metadata.MetadataResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramRequest;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularRequest;
-import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularResponse;
 import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesRequest;
-import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TimeSeriesResponse;
 import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.SourceType;
 import tagbio.umap.Umap;
 
 @Service
 public class DataService {
     private final DataSourceFactory dataSourceFactory;
+    private final TableCache tableCache;
+    private final DatasetWarmup datasetWarmup;
+    private final TableIndexStore tableIndexStore;
+    private final QueryResultCache queryResultCache;
 
     @Autowired
-    public DataService(DataSourceFactory dataSourceFactory) {
+    public DataService(DataSourceFactory dataSourceFactory, TableCache tableCache, DatasetWarmup datasetWarmup,
+            TableIndexStore tableIndexStore, QueryResultCache queryResultCache) {
         this.dataSourceFactory = dataSourceFactory;
+        this.tableCache = tableCache;
+        this.datasetWarmup = datasetWarmup;
+        this.tableIndexStore = tableIndexStore;
+        this.queryResultCache = queryResultCache;
     }
 
     private static final Logger LOG = LoggerFactory.getLogger(DataService.class);
 
-    public TabularResponse getTabularData(TabularRequest tabularRequest) {
+    /**
+     * Returns the JSON response to a tabular query, from the query result cache
+     * if the same query already ran on the current version of the dataset.
+     */
+    public byte[] getTabularData(TabularRequest tabularRequest) {
         String datasetId = tabularRequest.getDatasetId();
         // datasetId = "I2Cat_phising/dataset/I2Cat_phising_dataset.csv"   ;     
         datasetId = "I2Cat_phising/dataset/moby.csv";
@@ -37,19 +59,64 @@ public class DataService {
         DataSource dataSource = dataSourceFactory.createDataSource(type, datasetId);
 
         LOG.info("Processing data for datasetId: {}", datasetId);
-        TabularResponse results = dataSource.fetchTabularData(tabularRequest);
-        return results;
+        return queryResultCache.get("tabular", dataSource, tabularRequest,
+                () -> dataSource.fetchTabularData(tabularRequest));
     }
 
-    public TimeSeriesResponse getTimeSeriesData(TimeSeriesRequest timeSeriesRequest) {
+    /**
+     * Returns the JSON response to a time series query, from the query result
+     * cache if the same query already ran on the current version of the dataset.
+     */
+    public byte[] getTimeSeriesData(TimeSeriesRequest timeSeriesRequest) {
         String datasetId = timeSeriesRequest.getDatasetId();
         SourceType type = timeSeriesRequest.getType();
         DataSource dataSource = dataSourceFactory.createDataSource(type, datasetId);
 
         LOG.info("Processing data for datasetId: {}", datasetId);
-        TimeSeriesResponse results = dataSource.fetchTimeSeriesData(timeSeriesRequest);
-        return results;
+        return queryResultCache.get("timeseries", dataSource, timeSeriesRequest,
+                () -> dataSource.fetchTimeSeriesData(timeSeriesRequest));
+    }
+
+    /**
+     * Returns the JSON response to a crossfilter query, from the query result
+     * cache if the same query already ran on the current version of the dataset.
+     */
+    public byte[] getCrossfilterData(CrossfilterRequest crossfilterRequest) {
+        String datasetId = crossfilterRequest.getDatasetId();
+        SourceType type = crossfilterRequest.getType();
+        DataSource dataSource = dataSourceFactory.createDataSource(type, datasetId);
+
+        LOG.info("Processing data for datasetId: {}", datasetId);
+        return queryResultCache.get("crossfilter", dataSource, crossfilterRequest,
+                () -> dataSource.fetchCrossfilterData(crossfilterRequest));
+    }
+
+    /**
+     * Returns the JSON response to a histogram query, from the query result
+     * cache if the same query already ran on the current version of the dataset.
+     */
+    public byte[] getHistogramData(HistogramRequest histogramRequest) {
+        String datasetId = histogramRequest.getDatasetId();
+        SourceType type = histogramRequest.getType();
+        DataSource dataSource = dataSourceFactory.createDataSource(type, datasetId);
+
+        LOG.info("Processing data for datasetId: {}", datasetId);
+        return queryResultCache.get("histogram", dataSource, histogramRequest,
+                () -> dataSource.fetchHistogramData(histogramRequest));
+    }
 
+    /**
+     * Returns the JSON response to a heatmap query, from the query result cache
+     * if the same query already ran on the current version of the dataset.
+     */
+    public byte[] getHeatmapData(HeatmapRequest heatmapRequest) {
+        String datasetId = heatmapRequest.getDatasetId();
+        SourceType type = heatmapRequest.getType();
+        DataSource dataSource = dataSourceFactory.createDataSource(type, datasetId);
+
+        LOG.info("Processing data for datasetId: {}", datasetId);
+        return queryResultCache.get("heatmap", dataSource, heatmapRequest,
+                () -> dataSource.fetchHeatmapData(heatmapRequest));
     }
 
     public MetadataResponse getFileMetadata(MetadataRequest metadataRequest) {
@@ -67,6 +134,22 @@ public class DataService {
         return dataSource.getFileMetadata(metadataRequest);
     }
 
+    public TableCacheStats getTableCacheStats() {
+        return tableCache.stats();
+    }
+
+    public QueryResultCacheStats getQueryResultCacheStats() {
+        return queryResultCache.stats();
+    }
+
+    public IndexStats getIndexStats() {
+        return tableIndexStore.stats();
+    }
+
+    public WarmupStatus getWarmupStatus() {
+        return datasetWarmup.status();
+    }
+
     public float[][] getUmap(float[][] data) {
         LOG.info("Performing dimensionality reduction");
         Umap umap = new Umap();
@@ -19,8 +19,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import gr.imsi.athenarc.xtremexpvisapi.datasource.CsvDataSource;
-import gr.imsi.athenarc.xtremexpvisapi.datasource.DataSourceFactory;
-import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.SourceType;
 import gr.imsi.athenarc.xtremexpvisapi.domain.experiment.Run;
 import gr.imsi.athenarc.xtremexpvisapi.domain.mlevaluation.ConfusionMatrixResult;
 import gr.imsi.athenarc.xtremexpvisapi.domain.mlevaluation.ModelEvaluationSummary;
@@ -35,7 +33,7 @@ import tech.tablesaw.api.Table;
 @Service
 public class ModelEvaluationService {
 
-    private final DataSourceFactory dataSourceFactory;
+    private final CsvDataSource csvDataSource;
     private final ExperimentServiceFactory experimentServiceFactory;
 
     private static final Logger LOG = LoggerFactory.getLogger(ModelEvaluationService.class);
@@ -48,9 +46,9 @@ public class ModelEvaluationService {
 
     private final MlAnalysisResourceHelper mlAnalysisResourceHelper;
 
-    public ModelEvaluationService(DataSourceFactory dataSourceFactory,
+    public ModelEvaluationService(CsvDataSource csvDataSource,
             ExperimentServiceFactory experimentServiceFactory, MlAnalysisResourceHelper mlAnalysisResourceHelper) {
-        this.dataSourceFactory = dataSourceFactory;
+        this.csvDataSource = csvDataSource;
         this.experimentServiceFactory = experimentServiceFactory;
         this.mlAnalysisResourceHelper = mlAnalysisResourceHelper;
     }
@@ -87,13 +85,8 @@ public class ModelEvaluationService {
     }
 
     private Table loadTable(Path path) {
-        SourceType type = SourceType.csv;
-        CsvDataSource ds = (CsvDataSource) dataSourceFactory.createDataSource(type, path.toString());
-        if (ds == null) {
-            throw new IllegalStateException("Failed to create data source for path: " + path);
-        }
         LOG.info("Loading ML evaluation table from path: {}", path);
-        return ds.readCsvFromFile(path);
+        return csvDataSource.readCsvFromFile(path);
     }
 
     private void validateAlignment(Table x, Table y, Table yPred) {
@@ -0,0 +1,154 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+/**
+ * Checks the counts of {@link FrequentItems} against exact counts, for a
+ * single pass over a column and for summaries of its chunks merged together,
+ * as {@code top_k} aggregates chunks in parallel.
+ * <p>
+ * Every reduction subtracts the median count from at least half of the
+ * {@code capacity + 1} counters, so the subtracted total, which bounds the
+ * error of any count, is at most {@code 2n / (capacity + 1)}.
+ */
+class FrequentItemsTest {
+
+    private static final int CAPACITY = 64;
+
+    @Test
+    void fewDistinctValuesAreCountedExactly() {
+        Random random = new Random(1);
+        long[] keys = random.ints(20_000, 0, CAPACITY).asLongStream().toArray();
+        Long2LongOpenHashMap exact = countsOf(keys);
+        FrequentItems single = summaryOf(keys, 0, keys.length);
+        FrequentItems merged = mergedSummaryOf(keys, 8);
+        for (long key : exact.keySet()) {
+            assertEquals(exact.get(key), single.count(key));
+            assertEquals(exact.get(key), merged.count(key));
+            assertEquals(firstRowOf(keys, key), single.row(key));
+            assertEquals(firstRowOf(keys, key), merged.row(key));
+        }
+        assertArrayEquals(single.topKeys(CAPACITY), merged.topKeys(CAPACITY));
+    }
+
+    @Test
+    void tiesAreOrderedByTheirFirstRow() {
+        long[] keys = { 5, 3, 3, 9, 5, 9, 1 };
+        FrequentItems single = summaryOf(keys, 0, keys.length);
+        assertArrayEquals(new long[] { 5, 3, 9, 1 }, single.topKeys(10));
+        assertArrayEquals(new long[] { 5, 3 }, single.topKeys(2));
+        FrequentItems merged = new FrequentItems(CAPACITY);
+        merged.merge(summaryOf(keys, 4, keys.length));
+        merged.merge(summaryOf(keys, 0, 4));
+        assertArrayEquals(single.topKeys(10), merged.topKeys(10));
+    }
+
+    @Test
+    void countsOfManyDistinctValuesAreWithinTheErrorBound() {
+        Random random = new Random(2);
+        // Zipf-like: value v has weight 1 / (v + 1), over far more values than the capacity
+        double[] cumulative = new double[10_000];
+        double total = 0;
+        for (int value = 0; value < cumulative.length; value++) {
+            total += 1.0 / (value + 1);
+            cumulative[value] = total;
+        }
+        long[] keys = new long[200_000];
+        for (int row = 0; row < keys.length; row++) {
+            double point = random.nextDouble() * total;
+            int value = 0;
+            while (cumulative[value] < point) {
+                value++;
+            }
+            keys[row] = HyperLogLog.hash(value);
+        }
+        assertWithinErrorBound(keys, summaryOf(keys, 0, keys.length), "single pass");
+        for (int chunks : new int[] { 2, 16, 64 }) {
+            assertWithinErrorBound(keys, mergedSummaryOf(keys, chunks), chunks + " chunks");
+        }
+    }
+
+    @Test
+    void heavyValuesSurviveAStreamOfDistinctOnes() {
+        // Every other row holds a value of its own; a few values hide in between
+        long[] keys = new long[100_000];
+        for (int row = 0; row < keys.length; row++) {
+            keys[row] = row % 2 == 0 ? 1_000_000 + row : row % 10;
+        }
+        assertWithinErrorBound(keys, summaryOf(keys, 0, keys.length), "single pass");
+        assertWithinErrorBound(keys, mergedSummaryOf(keys, 16), "16 chunks");
+        assertArrayEquals(new long[] { 1, 3, 5, 7, 9 }, mergedSummaryOf(keys, 16).topKeys(5));
+    }
+
+    /**
+     * Checks that counts are lower bounds within the error bound, that every
+     * value more frequent than the bound is kept, and that the top values are
+     * the truly most frequent ones wherever their counts are further apart
+     * than the bound.
+     */
+    private static void assertWithinErrorBound(long[] keys, FrequentItems summary, String description) {
+        Long2LongOpenHashMap exact = countsOf(keys);
+        double bound = 2.0 * keys.length / (CAPACITY + 1);
+        for (long key : exact.keySet()) {
+            long count = summary.count(key);
+            long trueCount = exact.get(key);
+            assertTrue(count <= trueCount && count >= trueCount - bound,
+                    description + ": counted " + count + " of " + trueCount + " rows");
+            if (trueCount > bound) {
+                assertTrue(count > 0, description + ": dropped a value of " + trueCount + " rows");
+            }
+        }
+        long[] top = summary.topKeys(5);
+        long[] sorted = exact.values().toLongArray();
+        Arrays.sort(sorted);
+        for (int i = 0; i < top.length; i++) {
+            long trueRankCount = sorted[sorted.length - 1 - i];
+            assertTrue(exact.get(top[i]) >= trueRankCount - bound,
+                    description + ": top value " + i + " has " + exact.get(top[i]) + " rows, not about "
+                            + trueRankCount);
+        }
+    }
+
+    private static Long2LongOpenHashMap countsOf(long[] keys) {
+        Long2LongOpenHashMap counts = new Long2LongOpenHashMap();
+        for (long key : keys) {
+            counts.addTo(key, 1);
+        }
+        return counts;
+    }
+
+    private static int firstRowOf(long[] keys, long key) {
+        for (int row = 0; row < keys.length; row++) {
+            if (keys[row] == key) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private static FrequentItems summaryOf(long[] keys, int from, int to) {
+        FrequentItems summary = new FrequentItems(CAPACITY);
+        for (int row = from; row < to; row++) {
+            summary.add(keys[row], row);
+        }
+        return summary;
+    }
+
+    // Chunks are merged in reverse, as parallel chunks may finish in any order
+    private static FrequentItems mergedSummaryOf(long[] keys, int chunks) {
+        FrequentItems merged = new FrequentItems(CAPACITY);
+        for (int chunk = chunks - 1; chunk >= 0; chunk--) {
+            merged.merge(summaryOf(keys, keys.length * chunk / chunks, keys.length * (chunk + 1) / chunks));
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,115 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the error of {@link HyperLogLog} against exact distinct counts, and
+ * that sketches of the chunks of a column merge into the sketch of the whole
+ * column, as {@code approx_distinct} counts chunks in parallel.
+ */
+class HyperLogLogTest {
+
+    // Three standard errors of 4096 registers (1.04 / sqrt(4096) = 1.6%)
+    private static final double MAX_ERROR = 0.05;
+
+    @Test
+    void smallCountsAreExact() {
+        for (int distinct : new int[] { 0, 1, 17, 256 }) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int row = 0; row < 3 * distinct; row++) {
+                sketch.add(HyperLogLog.hash(row % distinct));
+            }
+            assertEquals(distinct, sketch.estimate());
+        }
+    }
+
+    @Test
+    void largeCountsAreWithinTheErrorBound() {
+        Random random = new Random(1);
+        for (int distinct : new int[] { 257, 1_000, 5_000, 20_000, 100_000, 1_000_000 }) {
+            HyperLogLog sketch = new HyperLogLog();
+            // Repeated values in random order must not change the estimate
+            for (int row = 0; row < 2 * distinct; row++) {
+                sketch.add(HyperLogLog.hash(random.nextInt(distinct)));
+            }
+            for (int value = 0; value < distinct; value++) {
+                sketch.add(HyperLogLog.hash(value));
+            }
+            assertWithinError(distinct, sketch.estimate());
+        }
+    }
+
+    @Test
+    void hashedKeysOfTypicalColumnsAreWithinTheErrorBound() {
+        // Dictionary keys, packed dates and millisecond timestamps are dense or regularly spaced
+        long[] starts = { 0, 19_000, 1_700_000_000_000L };
+        long[] steps = { 1, 1, 60_000 };
+        for (int c = 0; c < starts.length; c++) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < 50_000; i++) {
+                sketch.add(HyperLogLog.hash(starts[c] + i * steps[c]));
+            }
+            assertWithinError(50_000, sketch.estimate());
+        }
+    }
+
+    @Test
+    void mergedChunksMatchASinglePass() {
+        Random random = new Random(2);
+        // Chunks below, around and above the size at which the exact set turns into registers
+        for (int distinct : new int[] { 100, 300, 10_000, 200_000 }) {
+            int rows = 3 * distinct;
+            long[] hashes = new long[rows];
+            for (int row = 0; row < rows; row++) {
+                hashes[row] = HyperLogLog.hash(random.nextInt(distinct));
+            }
+            HyperLogLog single = new HyperLogLog();
+            for (long hash : hashes) {
+                single.add(hash);
+            }
+
+            for (int chunkCount : new int[] { 2, 7, 64 }) {
+                List<HyperLogLog> chunks = new ArrayList<>();
+                for (int chunk = 0; chunk < chunkCount; chunk++) {
+                    HyperLogLog sketch = new HyperLogLog();
+                    for (int row = rows * chunk / chunkCount; row < rows * (chunk + 1) / chunkCount; row++) {
+                        sketch.add(hashes[row]);
+                    }
+                    chunks.add(sketch);
+                }
+                HyperLogLog merged = new HyperLogLog();
+                for (HyperLogLog chunk : chunks) {
+                    merged.merge(chunk);
+                }
+                assertEquals(single.estimate(), merged.estimate(), distinct + " values in " + chunkCount + " chunks");
+            }
+        }
+    }
+
+    @Test
+    void mergingEmptySketchesChangesNothing() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int value = 0; value < 10_000; value++) {
+            sketch.add(HyperLogLog.hash(value));
+        }
+        long estimate = sketch.estimate();
+        sketch.merge(new HyperLogLog());
+        assertEquals(estimate, sketch.estimate());
+
+        HyperLogLog empty = new HyperLogLog();
+        empty.merge(sketch);
+        assertEquals(estimate, empty.estimate());
+    }
+
+    private static void assertWithinError(long expected, long estimate) {
+        double error = Math.abs(estimate - expected) / (double) expected;
+        assertTrue(error <= MAX_ERROR, "estimated " + estimate + " distinct values for " + expected);
+    }
+}
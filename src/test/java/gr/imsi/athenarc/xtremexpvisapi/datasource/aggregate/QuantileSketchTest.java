@@ -0,0 +1,166 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the rank error of {@link QuantileSketch} against exact quantiles, for
+ * a single pass over a column and for sketches of its chunks merged together,
+ * as {@code median} and {@code p95} aggregate chunks in parallel.
+ */
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = { 0.001, 0.01, 0.05, 0.25, 0.5, 0.75, 0.95, 0.99, 0.999 };
+    // The documented error is about 1% of the rank; this leaves room for unlucky compactions
+    private static final double MAX_RANK_ERROR = 0.015;
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.merge(new QuantileSketch());
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+    }
+
+    @Test
+    void smallGroupsAreExact() {
+        Random random = new Random(1);
+        for (int n : new int[] { 1, 2, 7, 100, 199 }) {
+            double[] values = random.doubles(n).toArray();
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            QuantileSketch single = sketchOf(values, 0, n);
+            QuantileSketch merged = mergedSketchOf(values, 3);
+            for (double q : QUANTILES) {
+                double exact = sorted[(int) Math.max(1, Math.ceil(q * n)) - 1];
+                assertEquals(exact, single.quantile(q), "q=" + q + " of " + n);
+                assertEquals(exact, merged.quantile(q), "q=" + q + " of " + n + ", merged");
+            }
+        }
+    }
+
+    @Test
+    void randomValuesAreWithinTheErrorBound() {
+        Random random = new Random(2);
+        for (int n : new int[] { 1_000, 50_000, 1_000_000 }) {
+            assertWithinErrorBound(random.doubles(n).map(value -> value * 1e6 - 5e5).toArray());
+        }
+        assertWithinErrorBound(random.doubles(100_000).map(Math::exp).toArray());
+    }
+
+    @Test
+    void sortedValuesAreWithinTheErrorBound() {
+        double[] ascending = new double[200_000];
+        double[] descending = new double[ascending.length];
+        for (int i = 0; i < ascending.length; i++) {
+            ascending[i] = i;
+            descending[i] = ascending.length - i;
+        }
+        assertWithinErrorBound(ascending);
+        assertWithinErrorBound(descending);
+    }
+
+    @Test
+    void repeatedValuesAreWithinTheErrorBound() {
+        Random random = new Random(3);
+        assertWithinErrorBound(random.ints(100_000, 0, 20).asDoubleStream().toArray());
+        // One value makes up most of the column
+        assertWithinErrorBound(random.ints(100_000, 0, 1000).mapToDouble(value -> value < 900 ? 0 : value).toArray());
+    }
+
+    @Test
+    void errorsOfEqualChunksDoNotAddUp() {
+        // Chunks of the same size are compacted at the same moments; unless their
+        // choices are independent, their errors add up instead of cancelling out
+        double singleError = 0;
+        double mergedError = 0;
+        for (int seed = 0; seed < 10; seed++) {
+            double[] values = new Random(seed).doubles(96_000).toArray();
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            QuantileSketch merged = new QuantileSketch();
+            for (int chunk = 0; chunk < 16; chunk++) {
+                merged.merge(sketchOf(values, chunk * 6_000, (chunk + 1) * 6_000));
+            }
+            singleError += meanRankError(sorted, sketchOf(values, 0, values.length));
+            mergedError += meanRankError(sorted, merged);
+        }
+        assertTrue(mergedError <= 2 * singleError,
+                "merged error " + mergedError / 10 + ", single pass error " + singleError / 10);
+    }
+
+    private static double meanRankError(double[] sorted, QuantileSketch sketch) {
+        double sum = 0;
+        for (double q : QUANTILES) {
+            double rank = Math.max(1, Math.ceil(q * sorted.length));
+            sum += Math.abs(firstIndexAtLeast(sorted, sketch.quantile(q)) + 1 - rank) / sorted.length;
+        }
+        return sum / QUANTILES.length;
+    }
+
+    private static void assertWithinErrorBound(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertWithinErrorBound(sorted, sketchOf(values, 0, values.length), "single pass");
+        for (int chunks : new int[] { 2, 16, 64 }) {
+            assertWithinErrorBound(sorted, mergedSketchOf(values, chunks), chunks + " chunks");
+        }
+    }
+
+    /**
+     * Checks the distance between the requested rank and the ranks the
+     * estimate holds among the sorted values, as a fraction of the count.
+     */
+    private static void assertWithinErrorBound(double[] sorted, QuantileSketch sketch, String description) {
+        int n = sorted.length;
+        for (double q : QUANTILES) {
+            double estimate = sketch.quantile(q);
+            double rank = Math.max(1, Math.ceil(q * n));
+            // The estimate holds ranks (first, last]
+            int first = firstIndexAtLeast(sorted, estimate);
+            int last = firstIndexAtLeast(sorted, Math.nextUp(estimate));
+            assertTrue(last > first, description + ": estimate " + estimate + " is not a value of the column");
+            double error = rank <= first ? first + 1 - rank : rank > last ? rank - last : 0;
+            assertTrue(error / n <= MAX_RANK_ERROR,
+                    description + ": q=" + q + " of " + n + " values is off by " + error / n + " of the rank");
+        }
+    }
+
+    private static int firstIndexAtLeast(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static QuantileSketch sketchOf(double[] values, int from, int to) {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = from; i < to; i++) {
+            sketch.add(values[i]);
+        }
+        return sketch;
+    }
+
+    // Chunks of unequal sizes, some of them possibly empty
+    private static QuantileSketch mergedSketchOf(double[] values, int chunks) {
+        QuantileSketch merged = new QuantileSketch();
+        int from = 0;
+        for (int chunk = 1; chunk <= chunks; chunk++) {
+            int to = (int) ((long) values.length * chunk * chunk / ((long) chunks * chunks));
+            merged.merge(sketchOf(values, from, to));
+            from = to;
+        }
+        return merged;
+    }
+}
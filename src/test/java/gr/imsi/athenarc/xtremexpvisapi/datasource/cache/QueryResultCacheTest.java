@@ -0,0 +1,112 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.StringFilter;
+
+/**
+ * Checks that {@link QueryResultCache#canonicalHash} gives requests that only
+ * differ in spelling the same hash, and requests that ask for different
+ * results different ones.
+ */
+class QueryResultCacheTest {
+
+    private static final List<AbstractFilter> FILTERS = List.of(
+            new RangeFilter<>("value", 1.0, 5.0),
+            new EqualsFilter<>("label", "a"),
+            new StringFilter("name", "x", "contains"));
+
+    private final QueryResultCache cache = new QueryResultCache(new ObjectMapper(), new DataEngineProperties());
+
+    @Test
+    void fieldOrderDoesNotMatter() {
+        TabularRequest request = request(List.of("id"), 10, 20, FILTERS);
+        Map<String, Object> fields = new ObjectMapper().convertValue(request,
+                new TypeReference<LinkedHashMap<String, Object>>() {
+                });
+        List<String> names = new ArrayList<>(fields.keySet());
+        Map<String, Object> reversed = new LinkedHashMap<>();
+        for (int i = names.size() - 1; i >= 0; i--) {
+            reversed.put(names.get(i), fields.get(names.get(i)));
+        }
+        assertEquals(cache.canonicalHash(request), cache.canonicalHash(reversed));
+    }
+
+    @Test
+    void filterOrderDoesNotMatter() {
+        List<AbstractFilter> reversed = new ArrayList<>(FILTERS);
+        Collections.reverse(reversed);
+        assertEquals(hash(List.of("id"), 10, 20, FILTERS), hash(List.of("id"), 10, 20, reversed));
+    }
+
+    @Test
+    void nullAndEmptyFieldsAreTheSame() {
+        String missing = hash(null, 10, 20, null);
+        assertEquals(missing, hash(List.of(), 10, 20, List.of()));
+        TabularRequest empty = request(null, 10, 20, null);
+        empty.setGroupBy(List.of());
+        empty.setAggregation(Map.of());
+        empty.setOrderBy(List.of());
+        assertEquals(missing, cache.canonicalHash(empty));
+    }
+
+    @Test
+    void offsetsOfNoRowsAreTheSame() {
+        String missing = hash(null, 10, null, null);
+        assertEquals(missing, hash(null, 10, 0, null));
+        assertEquals(missing, hash(null, 10, -5, null));
+        assertNotEquals(missing, hash(null, 10, 1, null));
+    }
+
+    @Test
+    void limitsBelowOneMeanNoLimit() {
+        String missing = hash(null, null, 20, null);
+        assertEquals(missing, hash(null, 0, 20, null));
+        assertEquals(missing, hash(null, -1, 20, null));
+        assertNotEquals(missing, hash(null, 1, 20, null));
+    }
+
+    @Test
+    void differentRequestsHashDifferently() {
+        String hash = hash(List.of("id"), 10, 20, FILTERS);
+        assertNotEquals(hash, hash(List.of("id", "value"), 10, 20, FILTERS));
+        assertNotEquals(hash, hash(List.of("id"), 11, 20, FILTERS));
+        assertNotEquals(hash, hash(List.of("id"), 10, 21, FILTERS));
+        assertNotEquals(hash, hash(List.of("id"), 10, 20, FILTERS.subList(0, 2)));
+        assertNotEquals(hash, hash(List.of("id"), 10, 20,
+                List.of(new RangeFilter<>("value", 1.0, 6.0), FILTERS.get(1), FILTERS.get(2))));
+    }
+
+    @Test
+    void datasetIsNotPartOfTheHash() {
+        TabularRequest other = request(List.of("id"), 10, 20, FILTERS);
+        other.setDatasetId("other");
+        assertEquals(hash(List.of("id"), 10, 20, FILTERS), cache.canonicalHash(other));
+    }
+
+    private String hash(List<String> columns, Integer limit, Integer offset, List<AbstractFilter> filters) {
+        return cache.canonicalHash(request(columns, limit, offset, filters));
+    }
+
+    private static TabularRequest request(List<String> columns, Integer limit, Integer offset,
+            List<AbstractFilter> filters) {
+        return new TabularRequest("dataset", null, columns, limit, offset, filters, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,168 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.crossfilter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.histogram.Binner;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexStore;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexes;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.FilterPlan;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.PartitionedScanner;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterHistogram;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.CrossfilterResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.CrossfilterDimension;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.InequalityFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * Moves the brushes of a crossfilter view one step at a time and checks that
+ * the histograms {@link CrossfilterEngine} updates from its earlier states
+ * equal those counted from scratch, and those counted row by row: every row
+ * passing the filters on other columns than the dimension's, in the
+ * dimension's bin.
+ */
+class CrossfilterEngineTest {
+
+    private static final int ROWS = 20_000;
+    private static final List<CrossfilterDimension> DIMENSIONS = List.of(
+            new CrossfilterDimension("price", 12, 0.0, 120.0),
+            new CrossfilterDimension("quantity", null, null, null),
+            new CrossfilterDimension("category", null, null, null),
+            new CrossfilterDimension("day", 10, null, null),
+            new CrossfilterDimension("PRICE", 5, null, null));
+
+    private static ForkJoinPool pool;
+    private static PartitionedScanner scanner;
+    private static Table table;
+    private static TableIndexes indexes;
+
+    @BeforeAll
+    static void createTable() {
+        pool = new ForkJoinPool(4);
+        scanner = new PartitionedScanner(pool, 1000);
+        Random random = new Random(5);
+        DoubleColumn price = DoubleColumn.create("Price");
+        IntColumn quantity = IntColumn.create("quantity");
+        StringColumn category = StringColumn.create("category");
+        DateColumn day = DateColumn.create("day");
+        for (int row = 0; row < ROWS; row++) {
+            if (random.nextInt(20) == 0) {
+                price.appendMissing();
+            } else {
+                price.append(random.nextInt(10) == 0 ? 10 * random.nextInt(12) : random.nextDouble() * 120);
+            }
+            if (random.nextInt(25) == 0) {
+                quantity.appendMissing();
+            } else {
+                quantity.append(random.nextInt(50));
+            }
+            category.append(random.nextInt(15) == 0 ? "" : "c" + random.nextInt(6));
+            if (random.nextInt(30) == 0) {
+                day.appendMissing();
+            } else {
+                day.append(LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365)));
+            }
+        }
+        table = Table.create("sales", price, quantity, category, day);
+        DataEngineProperties properties = new DataEngineProperties();
+        properties.setIndexMinRows(1);
+        TableIndexStore indexStore = new TableIndexStore(properties);
+        indexStore.prepare(table);
+        indexes = indexStore.indexesFor(table);
+    }
+
+    @AfterAll
+    static void shutDownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void incrementalUpdatesMatchRecomputation() {
+        List<List<AbstractFilter>> steps = new ArrayList<>();
+        AbstractFilter category = new EqualsFilter<>("category", "c2");
+        AbstractFilter quantity = new InequalityFilter<>("quantity", 10, "gte");
+        steps.add(List.of());
+        steps.add(List.of(new RangeFilter<>("price", 20.0, 60.0)));
+        // Moving a brush, and bounds exactly on bin edges
+        steps.add(List.of(new RangeFilter<>("price", 30.0, 70.0)));
+        steps.add(List.of(new RangeFilter<>("price", 30.0, 70.0), category));
+        steps.add(List.of(new RangeFilter<>("price", 30.0, 70.0), category, quantity));
+        // Two filters on one column form one brush, named differently from its dimensions
+        steps.add(List.of(new RangeFilter<>("PRICE", 30.0, 70.0), new InequalityFilter<>("Price", 50.0, "lt"),
+                category, quantity));
+        steps.add(List.of(category, quantity));
+        steps.add(List.of(category, new InequalityFilter<>("quantity", 40, "lt")));
+        steps.add(List.of(category, new InequalityFilter<>("quantity", 40, "lt"),
+                new RangeFilter<>("day", "2024-03-01", "2024-06-30")));
+        steps.add(List.of(category, new RangeFilter<>("day", "2024-03-01", "2024-06-30")));
+        steps.add(List.of(new RangeFilter<>("day", "2024-03-01", "2024-06-30")));
+        // Two brushes move at once, which is counted anew
+        steps.add(List.of(new RangeFilter<>("day", "2024-02-01", "2024-08-31"),
+                new EqualsFilter<>("category", "c4")));
+        // Back to the first filters, whose state is still kept
+        steps.add(List.of());
+
+        CrossfilterEngine engine = new CrossfilterEngine(scanner);
+        int incremental = 0;
+        for (int step = 0; step < steps.size(); step++) {
+            CrossfilterRequest request = new CrossfilterRequest("sales", null, DIMENSIONS, steps.get(step));
+            CrossfilterResponse updated = engine.query(table, indexes, request);
+            CrossfilterResponse recomputed = new CrossfilterEngine(scanner).query(table, null, request);
+            incremental += updated.isIncremental() ? 1 : 0;
+
+            String message = "Step " + step + " " + steps.get(step);
+            assertEquals(recomputed.getFilteredItems(), updated.getFilteredItems(), message);
+            assertEquals(ROWS, updated.getTotalItems(), message);
+            assertEquals(filteredRows(steps.get(step)), updated.getFilteredItems(), message);
+            for (int d = 0; d < DIMENSIONS.size(); d++) {
+                CrossfilterHistogram histogram = updated.getHistograms().get(d);
+                assertEquals(recomputed.getHistograms().get(d), histogram, message);
+                assertArrayEquals(rowByRow(DIMENSIONS.get(d), steps.get(step)), histogram.getCounts(),
+                        message + " " + histogram.getColumn());
+            }
+        }
+        assertEquals(steps.size() - 2, incremental, "Only the first and the two-brush step count anew");
+    }
+
+    private static int filteredRows(List<AbstractFilter> filters) {
+        return filters.isEmpty() ? ROWS : FilterPlan.compile(table, filters).select(table, filters).size();
+    }
+
+    private static int[] rowByRow(CrossfilterDimension dimension, List<AbstractFilter> filters) {
+        Binner binner = Binner.fixedWidth(table, dimension.getColumn(), dimension.getBins(), dimension.getMin(),
+                dimension.getMax());
+        List<AbstractFilter> others = filters.stream()
+                .filter(filter -> !filter.getColumn().equalsIgnoreCase(dimension.getColumn()))
+                .toList();
+        Selection rows = others.isEmpty() ? Selection.withRange(0, ROWS)
+                : FilterPlan.compile(table, others).select(table, others);
+        int[] counts = new int[binner.binCount()];
+        for (int row : rows) {
+            int bin = binner.bin(row);
+            if (bin >= 0) {
+                counts[bin]++;
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,120 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.csv;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DatasetFingerprint;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.CsvTailReader.TailPosition;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.CsvTailReader.TailResult;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.io.csv.CsvReadOptions;
+
+/**
+ * Checks that every version {@link CsvTailReader} appends to holds the same
+ * rows as Tablesaw's reader on the whole file, and keeps holding them when
+ * another version is appended to the same table, as when two requests poll a
+ * growing file at once.
+ */
+class CsvTailReaderTest {
+
+    private static final String HEADER = "id,value,label,day,flag,big\n";
+
+    private final CsvTailReader tailReader = new CsvTailReader();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void versionsAppendedFromTheSameTableStayIntact() throws IOException {
+        Random random = new Random(3);
+        String base = HEADER + rows(random, 0, 2000);
+        String a = rows(random, 2000, 300);
+        String b = rows(random, 2300, 200);
+        String c = rows(random, 2300, 250);
+        String d = rows(random, 2000, 100);
+
+        Path file = write(base);
+        Table table = read(file);
+        TailPosition basePosition = tailReader.positionOf(DatasetFingerprint.of(file)).orElseThrow();
+
+        write(base + a);
+        TailResult first = append(table, basePosition, file);
+        write(base + a + b);
+        Table extended = append(first.table(), first.position(), file).table();
+        // first.table() has been extended already, so these must not overwrite its successor's rows
+        write(base + a + c);
+        Table branched = append(first.table(), first.position(), file).table();
+        write(base + d);
+        Table fromBase = append(table, basePosition, file).table();
+
+        assertSameRows(read(base), table);
+        assertSameRows(read(base + a), first.table());
+        assertSameRows(read(base + a + b), extended);
+        assertSameRows(read(base + a + c), branched);
+        assertSameRows(read(base + d), fromBase);
+    }
+
+    @Test
+    void repeatedPollsExtendTheLatestVersion() throws IOException {
+        Random random = new Random(4);
+        StringBuilder content = new StringBuilder(HEADER).append(rows(random, 0, 500));
+        Path file = write(content.toString());
+        Table table = read(file);
+        TailPosition position = tailReader.positionOf(DatasetFingerprint.of(file)).orElseThrow();
+        for (int poll = 0; poll < 20; poll++) {
+            content.append(rows(random, 500 + poll * 50, 1 + random.nextInt(50)));
+            write(content.toString());
+            TailResult result = append(table, position, file);
+            table = result.table();
+            position = result.position();
+        }
+        assertSameRows(read(content.toString()), table);
+    }
+
+    private TailResult append(Table table, TailPosition position, Path file) {
+        return tailReader.append(table, position, DatasetFingerprint.of(file)).orElseThrow();
+    }
+
+    // Rows with missing values in every column
+    private static String rows(Random random, int firstId, int count) {
+        StringBuilder csv = new StringBuilder();
+        for (int i = firstId; i < firstId + count; i++) {
+            csv.append(i).append(',')
+                    .append(random.nextInt(10) == 0 ? "" : String.valueOf(random.nextDouble() * 100)).append(',')
+                    .append(random.nextInt(8) == 0 ? "" : "label" + random.nextInt(40)).append(',')
+                    .append(random.nextInt(10) == 0 ? "" : "2024-02-" + String.format("%02d", 1 + random.nextInt(28)))
+                    .append(',')
+                    .append(random.nextInt(10) == 0 ? "" : String.valueOf(random.nextBoolean())).append(',')
+                    .append(random.nextInt(10) == 0 ? "" : String.valueOf(10_000_000_000L + random.nextInt()))
+                    .append('\n');
+        }
+        return csv.toString();
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("growing.csv"), content);
+    }
+
+    private Table read(String content) throws IOException {
+        return read(Files.writeString(directory.resolve("expected.csv"), content));
+    }
+
+    private static Table read(Path file) throws IOException {
+        return Table.read().usingOptions(CsvReadOptions.builder(file.toFile()).header(true).sample(false));
+    }
+
+    private static void assertSameRows(Table expected, Table actual) {
+        assertEquals(expected.types(), actual.types());
+        assertEquals(expected.rowCount(), actual.rowCount());
+        for (int c = 0; c < expected.columnCount(); c++) {
+            assertEquals(expected.column(c).asList(), actual.column(c).asList(), expected.column(c).name());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.csv;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DatasetFingerprint;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.io.csv.CsvReadOptions;
+
+/**
+ * Checks that {@link ParallelCsvReader} parses files exactly like Tablesaw's
+ * reader with {@code sample(false)}. Chunks are made small so that even these
+ * files are split many times, with boundaries inside quoted fields.
+ */
+class ParallelCsvReaderTest {
+
+    private static final long MIN_CHUNK_BYTES = 64;
+
+    private static ForkJoinPool pool;
+    private static ParallelCsvReader reader;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void createReader() {
+        pool = new ForkJoinPool(4);
+        reader = new ParallelCsvReader(pool, 0, MIN_CHUNK_BYTES);
+    }
+
+    @AfterAll
+    static void shutDownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void typedColumnsWithMissingValues() throws IOException {
+        Random random = new Random(1);
+        StringBuilder csv = new StringBuilder("id,value,label,day,flag,big\n");
+        for (int i = 0; i < 3000; i++) {
+            csv.append(i).append(',')
+                    .append(random.nextInt(10) == 0 ? "" : String.valueOf(random.nextDouble() * 100)).append(',')
+                    .append(random.nextInt(8) == 0 ? "" : "label" + random.nextInt(20)).append(',')
+                    .append(random.nextInt(10) == 0 ? "" : "2024-01-" + String.format("%02d", 1 + random.nextInt(28)))
+                    .append(',')
+                    .append(random.nextBoolean()).append(',')
+                    .append(random.nextLong()).append('\n');
+        }
+        assertSameAsTablesaw(write("typed.csv", csv.toString()));
+    }
+
+    @Test
+    void typesWidenedAcrossChunks() throws IOException {
+        // Early chunks see integers only; later ones decimals, text and longs
+        StringBuilder csv = new StringBuilder("a,b,c,d\n");
+        for (int i = 0; i < 2000; i++) {
+            csv.append(i).append(',')
+                    .append(i < 1900 ? String.valueOf(i) : i + ".5").append(',')
+                    .append(i < 1990 ? String.valueOf(i) : "text" + i).append(',')
+                    .append(i < 1500 ? String.valueOf(i) : String.valueOf(10_000_000_000L + i)).append('\n');
+        }
+        assertSameAsTablesaw(write("widened.csv", csv.toString()));
+    }
+
+    @Test
+    void quotedMultiLineFields() throws IOException {
+        Random random = new Random(2);
+        StringBuilder csv = new StringBuilder("id,note,score\n");
+        for (int i = 0; i < 1500; i++) {
+            // Quoted fields make up most of the file, so most boundaries fall inside one
+            csv.append(i).append(",\"line one of ").append(i).append('\n')
+                    .append("line two, with a comma and \"\"quotes\"\"\n")
+                    .append("x".repeat(random.nextInt(40))).append("\",")
+                    .append(random.nextInt(1000)).append('\n');
+        }
+        assertSameAsTablesaw(write("quoted.csv", csv.toString()));
+    }
+
+    @Test
+    void byteOrderMark() throws IOException {
+        StringBuilder csv = new StringBuilder("\uFEFFname,count\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append("name").append(i).append(',').append(i * 3).append('\n');
+        }
+        assertSameAsTablesaw(write("bom.csv", csv.toString()));
+    }
+
+    @Test
+    void crlfLineEndings() throws IOException {
+        StringBuilder csv = new StringBuilder("id,note,value\r\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append(i).append(',')
+                    .append(i % 3 == 0 ? "\"first\r\nsecond\"" : "plain" + i).append(',')
+                    .append(i * 0.25).append("\r\n");
+        }
+        assertSameAsTablesaw(write("crlf.csv", csv.toString()));
+    }
+
+    @Test
+    void lastRowWithoutLineBreak() throws IOException {
+        StringBuilder csv = new StringBuilder("a,b\n");
+        for (int i = 0; i < 800; i++) {
+            csv.append(i).append(",\"v\n").append(i).append('"').append(i < 799 ? "\n" : "");
+        }
+        assertSameAsTablesaw(write("unterminated.csv", csv.toString()));
+    }
+
+    @Test
+    void filesWithoutRowsAreLeftToTablesaw() throws IOException {
+        assertThrows(IllegalStateException.class, () -> reader.read(write("empty.csv", ""), "empty.csv"));
+        assertThrows(IllegalStateException.class, () -> reader.read(write("header.csv", "a,b\n"), "header.csv"));
+    }
+
+    @Test
+    void readsOnlyTheFingerprintedLength() throws IOException {
+        StringBuilder csv = new StringBuilder("id,note\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append(i).append(",note").append(i).append('\n');
+        }
+        // The last row is still being written: longer than a chunk and without a line break yet
+        csv.append("1000,").append("y".repeat(3000));
+        String original = csv.toString();
+        Path file = write("growing.csv", original);
+        DatasetFingerprint fingerprint = DatasetFingerprint.of(file);
+        Files.writeString(file, "zzz\n1001,more\n", StandardOpenOption.APPEND);
+
+        Table expected = Table.read().usingOptions(
+                CsvReadOptions.builder(new ByteArrayInputStream(original.getBytes(StandardCharsets.UTF_8)))
+                        .header(true)
+                        .sample(false));
+        assertSameTable(expected, reader.read(fingerprint, "growing.csv", null));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+
+    private static void assertSameAsTablesaw(Path file) throws IOException {
+        Table expected = Table.read().usingOptions(CsvReadOptions.builder(file.toFile()).header(true).sample(false));
+        assertSameTable(expected, reader.read(file, file.getFileName().toString()));
+    }
+
+    private static void assertSameTable(Table expected, Table actual) {
+        assertEquals(expected.columnNames(), actual.columnNames());
+        assertEquals(expected.types(), actual.types());
+        assertEquals(expected.rowCount(), actual.rowCount());
+        for (int c = 0; c < expected.columnCount(); c++) {
+            assertEquals(expected.column(c).asList(), actual.column(c).asList(), expected.column(c).name());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.csv;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.FilterPlan;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.InequalityFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+import tech.tablesaw.api.ColumnType;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.io.csv.CsvReadOptions;
+
+/**
+ * Checks that the rows a {@link ParallelCsvReader} scan skips on the raw text
+ * of their cells are only rows the request's filters reject: filtering the
+ * scanned rows returns the same table as filtering Tablesaw's load of the whole
+ * file, including for missing cells, cells Tablesaw reads as missing but that
+ * are not empty, and cells that do not parse as the column's type.
+ */
+class RawPredicateTest {
+
+    private static final int ROWS = 4000;
+
+    private static ForkJoinPool pool;
+    private static ParallelCsvReader reader;
+
+    @TempDir
+    static Path directory;
+
+    private static Path file;
+    private static Table loaded;
+
+    @BeforeAll
+    static void writeFile() throws IOException {
+        pool = new ForkJoinPool(4);
+        reader = new ParallelCsvReader(pool, 0, 64);
+
+        Random random = new Random(17);
+        StringBuilder csv = new StringBuilder("id,value,count,day,at,flag,code,label\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append(i).append(',')
+                    .append(oneOf(random, "", "NA", "NaN", String.valueOf(random.nextInt(400) * 0.25))).append(',')
+                    .append(oneOf(random, "", "N/A", String.valueOf(random.nextInt(1000) - 500))).append(',')
+                    .append(oneOf(random, "", "NA", LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365)).toString()))
+                    .append(',')
+                    .append(oneOf(random, "", LocalDateTime.of(2024, 1, 1, 0, 0)
+                            .plusMinutes(random.nextInt(500_000)).toString() + ":00"))
+                    .append(',')
+                    .append(oneOf(random, "", random.nextBoolean() ? "true" : "FALSE"))
+                    .append(',')
+                    // Numbers with the odd unparsable cell, so the column is read as text
+                    .append(random.nextInt(100) == 0 ? "x" + random.nextInt(10) : String.valueOf(random.nextInt(50)))
+                    .append(',')
+                    .append(oneOf(random, "", "label" + random.nextInt(10)))
+                    .append('\n');
+        }
+        file = Files.writeString(directory.resolve("pruned.csv"), csv.toString());
+        loaded = Table.read().usingOptions(CsvReadOptions.builder(file.toFile()).header(true).sample(false));
+        assertEquals(List.of(ColumnType.INTEGER, ColumnType.DOUBLE, ColumnType.INTEGER, ColumnType.LOCAL_DATE,
+                ColumnType.LOCAL_DATE_TIME, ColumnType.BOOLEAN, ColumnType.STRING, ColumnType.STRING),
+                loaded.types());
+    }
+
+    @AfterAll
+    static void shutDownPool() {
+        pool.shutdown();
+    }
+
+    private static String oneOf(Random random, String... missingOrValue) {
+        return random.nextInt(10) == 0 ? missingOrValue[random.nextInt(missingOrValue.length - 1)]
+                : missingOrValue[missingOrValue.length - 1];
+    }
+
+    static Stream<Arguments> filters() {
+        AbstractFilter values = new RangeFilter<>("value", 20.0, 60.0);
+        AbstractFilter days = new RangeFilter<>("day", "2024-03-01", "2024-06-30");
+        return Stream.of(
+                Arguments.of(List.of(values), List.of("id")),
+                Arguments.of(List.of(new RangeFilter<>("value", 20.25, 20.25)), List.of()),
+                Arguments.of(List.of(new EqualsFilter<>("value", 50.0)), List.of("id")),
+                Arguments.of(List.of(new InequalityFilter<>("count", 100, "gte")), List.of("id")),
+                Arguments.of(List.of(new InequalityFilter<>("count", -200, "lt")), List.of("label")),
+                Arguments.of(List.of(new InequalityFilter<>("value", 90.0, "gt")), List.of("id")),
+                Arguments.of(List.of(new InequalityFilter<>("value", 10.0, "lte")), List.of()),
+                Arguments.of(List.of(new EqualsFilter<>("count", 5)), List.of("id")),
+                Arguments.of(List.of(days), List.of("id", "label")),
+                Arguments.of(List.of(new RangeFilter<>("at", "2024-02-01T00:00:00", "2024-05-01T12:00:00")),
+                        List.of("id")),
+                Arguments.of(List.of(new EqualsFilter<>("flag", true)), List.of("id")),
+                Arguments.of(List.of(new EqualsFilter<>("flag", false)), List.of("id")),
+                Arguments.of(List.of(values, days, new EqualsFilter<>("flag", true)), List.of("id", "code")),
+                // Filters without a raw form are left to the executor
+                Arguments.of(List.of(values, new EqualsFilter<>("label", "label3")), List.of("id")),
+                Arguments.of(List.of(new EqualsFilter<>("code", "7")), List.of("id")));
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void filteredScansMatchFilteredLoads(List<AbstractFilter> filters, List<String> columns) throws IOException {
+        ScanSpec spec = ScanSpec.forRequest(request(filters, columns));
+        ScanResult scan = reader.scan(file, "pruned.csv", spec, null);
+        assertEquals(ROWS, scan.scannedRows());
+        if (!spec.getPredicates().isEmpty()) {
+            assertTrue(scan.table().rowCount() < ROWS, "Rows are skipped while scanning");
+        }
+
+        Table expected = filter(loaded, filters);
+        expected = expected.selectColumns(expected.columnNames().stream().filter(spec::selects)
+                .toArray(String[]::new));
+        assertSameTable(expected, filter(scan.table(), filters));
+    }
+
+    @Test
+    void numericFiltersOnTextColumnsFailAsInAFullLoad() throws IOException {
+        List<AbstractFilter> filters = List.of(new RangeFilter<>("code", 0.0, 10.0));
+        assertThrows(IllegalArgumentException.class, () -> filter(loaded, filters));
+        Table scanned = reader.scan(file, "pruned.csv", ScanSpec.forRequest(request(filters, List.of("id"))), null)
+                .table();
+        assertEquals(ColumnType.STRING, scanned.column("code").type());
+        assertThrows(IllegalArgumentException.class, () -> filter(scanned, filters));
+    }
+
+    private static TabularRequest request(List<AbstractFilter> filters, List<String> columns) {
+        return new TabularRequest("pruned.csv", null, columns, 0, 0, filters, null, null, null, null, null);
+    }
+
+    private static Table filter(Table table, List<AbstractFilter> filters) {
+        return table.where(FilterPlan.compile(table, filters).select(table, filters));
+    }
+
+    private static void assertSameTable(Table expected, Table actual) {
+        assertEquals(expected.columnNames(), actual.columnNames());
+        assertEquals(expected.types(), actual.types());
+        assertEquals(expected.rowCount(), actual.rowCount());
+        for (int c = 0; c < expected.columnCount(); c++) {
+            assertEquals(expected.column(c).asList(), actual.column(c).asList(), expected.column(c).name());
+        }
+    }
+}
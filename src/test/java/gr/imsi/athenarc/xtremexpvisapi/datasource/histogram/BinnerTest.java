@@ -0,0 +1,298 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.histogram;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DateTimeColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+/**
+ * Checks that {@link Binner} puts every value in the bin its reported bounds
+ * say it belongs to: values exactly on a bin's start in that bin, the maximum
+ * in the last bin and anything outside the bounds or missing in none, and for
+ * time units the bin of the value's calendar month, week or day in UTC.
+ */
+class BinnerTest {
+
+    static Stream<Arguments> bounds() {
+        return Stream.of(
+                Arguments.of(0.0, 100.0, 10),
+                Arguments.of(0.0, 1.0, 10),
+                Arguments.of(0.1, 0.7, 6),
+                Arguments.of(-3.7, 12.9, 7),
+                Arguments.of(0.001, 1000.0, 13),
+                Arguments.of(-1e9, 1e9, 9999),
+                Arguments.of(5.0, 5.0, 4));
+    }
+
+    @ParameterizedTest
+    @MethodSource("bounds")
+    void valuesFallInTheBinTheirBoundsSay(double min, double max, int bins) {
+        // Values on every reported edge and next to it, then random ones
+        Binner bounds = Binner.fixedWidth(Table.create("t", DoubleColumn.create("v", min)), "v", bins, min, max);
+        DoubleColumn values = DoubleColumn.create("v");
+        for (Object start : bounds.bins()) {
+            double edge = (Double) start;
+            values.append(edge);
+            values.append(Math.nextDown(edge));
+            values.append(Math.nextUp(edge));
+        }
+        values.append(max);
+        values.append(Math.nextDown(max));
+        values.append(Math.nextUp(max));
+        values.appendMissing();
+        Random random = new Random(bins);
+        for (int i = 0; i < 2000; i++) {
+            values.append(min - 1 + random.nextDouble() * (max - min + 2));
+        }
+        Table table = Table.create("t", values);
+
+        Binner binner = Binner.fixedWidth(table, "v", bins, min, max);
+        assertEquals(bins, binner.binCount());
+        assertEquals(bounds.bins(), binner.bins());
+        assertEquals(max > min ? max : min + bins, (Double) binner.end(), Math.ulp(max) * bins);
+        for (int row = 0; row < values.size(); row++) {
+            assertEquals(expectedBin(binner, values.getDouble(row), min, max), binner.bin(row),
+                    "Value " + values.getDouble(row));
+        }
+    }
+
+    // The last bin whose reported start is at most the value, if it is within the bounds
+    private static int expectedBin(Binner binner, double value, double min, double max) {
+        if (Double.isNaN(value) || value < min || value > max) {
+            return -1;
+        }
+        int bin = 0;
+        while (bin + 1 < binner.binCount() && (Double) binner.bins().get(bin + 1) <= value) {
+            bin++;
+        }
+        return bin;
+    }
+
+    @Test
+    void defaultBoundsAreTheColumnsMinimumAndMaximum() {
+        Table table = Table.create("t", IntColumn.create("v", new int[] { 7, -3, 12, Integer.MIN_VALUE, 2 }));
+        Binner binner = Binner.fixedWidth(table, "v", 3, null, null);
+        assertEquals(List.of(-3.0, 2.0, 7.0), binner.bins());
+        assertEquals(12.0, binner.end());
+        assertEquals(5.0, binner.binWidth());
+        assertEquals(List.of(2, 0, 2, -1, 1), bins(binner, table));
+
+        // The bound that is given is kept
+        assertEquals(List.of(1, -1, 1, -1, 0), bins(Binner.fixedWidth(table, "v", 2, 0, null), table));
+        assertThrows(IllegalArgumentException.class, () -> Binner.fixedWidth(table, "v", 2, 10, 5));
+        assertThrows(IllegalArgumentException.class, () -> Binner.fixedWidth(table, "v", 0, null, null));
+        assertThrows(IllegalArgumentException.class, () -> Binner.fixedWidth(table, "v", 2, "0", null));
+    }
+
+    @Test
+    void datesOnBinEdgesStartTheirBin() {
+        DateColumn dates = DateColumn.create("day");
+        for (LocalDate day = LocalDate.of(2023, 12, 31); !day.isAfter(LocalDate.of(2024, 1, 12)); day = day
+                .plusDays(1)) {
+            dates.append(day);
+        }
+        dates.appendMissing();
+        Table table = Table.create("t", dates);
+        Binner binner = Binner.fixedWidth(table, "day", 5, "2024-01-01", "2024-01-11");
+        assertEquals(List.of("2024-01-01", "2024-01-03", "2024-01-05", "2024-01-07", "2024-01-09"), binner.bins());
+        assertEquals("2024-01-11", binner.end());
+        assertEquals(2 * 86_400_000.0, binner.binWidth());
+        // Dec 31, then two days per bin, the end in the last bin, then Jan 12 and the missing date
+        assertEquals(List.of(-1, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 4, -1, -1), bins(binner, table));
+    }
+
+    @Test
+    void monthsFollowTheCalendarInUtc() {
+        Random random = new Random(2);
+        DateTimeColumn dateTimes = DateTimeColumn.create("at");
+        InstantColumn instants = InstantColumn.create("instant");
+        DateColumn dates = DateColumn.create("day");
+        List<LocalDateTime> edges = List.of(
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59),
+                LocalDateTime.of(1970, 1, 1, 0, 0),
+                LocalDateTime.of(2024, 1, 31, 23, 59, 59, 999_000_000),
+                LocalDateTime.of(2024, 2, 1, 0, 0),
+                LocalDateTime.of(2024, 2, 29, 12, 0),
+                LocalDateTime.of(2024, 3, 1, 0, 0),
+                LocalDateTime.of(2024, 12, 31, 23, 59),
+                LocalDateTime.of(2025, 1, 1, 0, 0));
+        List<LocalDateTime> values = new ArrayList<>(edges);
+        for (int i = 0; i < 3000; i++) {
+            values.add(LocalDateTime.of(1969, 12, 1, 0, 0).plusSeconds(random.nextInt(1_800_000_000)));
+        }
+        for (LocalDateTime value : values) {
+            dateTimes.append(value);
+            instants.append(value.toInstant(ZoneOffset.UTC));
+            dates.append(value.toLocalDate());
+        }
+        dateTimes.appendMissing();
+        instants.appendMissing();
+        dates.appendMissing();
+        Table table = Table.create("t", dateTimes, instants, dates);
+
+        YearMonth first = values.stream().map(YearMonth::from).min(YearMonth::compareTo).orElseThrow();
+        YearMonth last = values.stream().map(YearMonth::from).max(YearMonth::compareTo).orElseThrow();
+        List<Integer> expected = new ArrayList<>();
+        for (LocalDateTime value : values) {
+            expected.add((int) ChronoUnit.MONTHS.between(first, YearMonth.from(value)));
+        }
+        expected.add(-1);
+
+        for (String column : List.of("at", "instant", "day")) {
+            Binner binner = Binner.timeUnits(table, column, "Month");
+            assertEquals(expected, bins(binner, table), column);
+            assertEquals(monthStarts(first, last.plusMonths(1), column), binner.bins(), column);
+            assertEquals(monthStarts(last.plusMonths(1), last.plusMonths(2), column).get(0), binner.end(), column);
+            assertEquals(null, binner.binWidth());
+        }
+    }
+
+    private static List<Object> monthStarts(YearMonth from, YearMonth to, String column) {
+        List<Object> starts = new ArrayList<>();
+        for (YearMonth month = from; month.isBefore(to); month = month.plusMonths(1)) {
+            LocalDateTime start = month.atDay(1).atStartOfDay();
+            switch (column) {
+                case "instant":
+                    starts.add(start.toInstant(ZoneOffset.UTC).toString());
+                    break;
+                case "day":
+                    starts.add(start.toLocalDate().toString());
+                    break;
+                default:
+                    starts.add(start.toString());
+            }
+        }
+        return starts;
+    }
+
+    @Test
+    void weeksStartOnMonday() {
+        DateColumn dates = DateColumn.create("day");
+        LocalDate start = LocalDate.of(1969, 12, 20);
+        for (int day = 0; day < 60; day++) {
+            dates.append(start.plusDays(day));
+        }
+        Table table = Table.create("t", dates);
+        Binner binner = Binner.timeUnits(table, "day", "week");
+        for (Object weekStart : binner.bins()) {
+            assertEquals(DayOfWeek.MONDAY, LocalDate.parse((String) weekStart).getDayOfWeek());
+        }
+        for (int row = 0; row < dates.size(); row++) {
+            LocalDate monday = dates.get(row).with(DayOfWeek.MONDAY);
+            assertEquals(monday.toString(), binner.bins().get(binner.bin(row)), dates.get(row).toString());
+        }
+    }
+
+    @Test
+    void daysOfInstantsAreUtcDays() {
+        InstantColumn instants = InstantColumn.create("instant");
+        instants.append(Instant.parse("2024-03-30T23:59:59Z"));
+        instants.append(Instant.parse("2024-03-31T00:00:00Z"));
+        instants.append(Instant.parse("2024-03-31T23:59:59.999Z"));
+        instants.append(Instant.parse("2024-04-01T00:00:00Z"));
+        Table table = Table.create("t", instants);
+        Binner binner = Binner.timeUnits(table, "instant", "day");
+        assertEquals(List.of("2024-03-30T00:00:00Z", "2024-03-31T00:00:00Z", "2024-04-01T00:00:00Z"),
+                binner.bins());
+        assertEquals(List.of(0, 1, 1, 2), bins(binner, table));
+    }
+
+    @Test
+    void timeUnitsAreChecked() {
+        DateColumn dates = DateColumn.create("day", LocalDate.of(2000, 1, 1), LocalDate.of(2030, 1, 1));
+        Table table = Table.create("t", dates, IntColumn.create("v", 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> Binner.timeUnits(table, "day", "minute"));
+        assertThrows(IllegalArgumentException.class, () -> Binner.timeUnits(table, "day", "fortnight"));
+        assertThrows(IllegalArgumentException.class, () -> Binner.timeUnits(table, "v", "day"));
+        assertEquals(31, Binner.timeUnits(table, "day", "year").binCount());
+    }
+
+    @Test
+    void quantileBinsHoldTheirShareOfValues() {
+        Random random = new Random(8);
+        DoubleColumn values = DoubleColumn.create("v");
+        for (int row = 0; row < 10_000; row++) {
+            if (row % 10 == 0) {
+                values.appendMissing();
+            } else {
+                values.append(Math.exp(random.nextGaussian()));
+            }
+        }
+        Table table = Table.create("t", values);
+        Binner binner = Binner.quantiles(table, "v", 9);
+        assertEquals(9, binner.binCount());
+        int[] counts = new int[binner.binCount()];
+        for (int row = 0; row < values.size(); row++) {
+            int bin = binner.bin(row);
+            if (values.isMissing(row)) {
+                assertEquals(-1, bin);
+                continue;
+            }
+            double value = values.getDouble(row);
+            assertTrue((Double) binner.bins().get(bin) <= value);
+            assertTrue(bin + 1 == binner.binCount() ? value <= (Double) binner.end()
+                    : value < (Double) binner.bins().get(bin + 1),
+                    "Value " + value + " in bin " + bin);
+            counts[bin]++;
+        }
+        for (int count : counts) {
+            assertEquals(1000, count, 1);
+        }
+    }
+
+    @Test
+    void repeatedQuantilesMergeBins() {
+        Table table = Table.create("t", IntColumn.create("v", new int[] { 1, 1, 1, 1, 1, 1, 2, 3, 4, 5 }));
+        Binner binner = Binner.quantiles(table, "v", 5);
+        assertEquals(List.of(1.0, 3.0), binner.bins());
+        assertEquals(5.0, binner.end());
+        assertEquals(List.of(0, 0, 0, 0, 0, 0, 0, 1, 1, 1), bins(binner, table));
+    }
+
+    @Test
+    void categoriesAreSortedWithoutMissingValues() {
+        Table table = Table.create("t",
+                StringColumn.create("s", "b", "", "a", "c", "a", "b"),
+                BooleanColumn.create("flag", new boolean[] { true, false, true, true, false, false }));
+        ((BooleanColumn) table.column("flag")).setMissing(2);
+        Binner strings = Binner.fixedWidth(table, "s", null, null, null);
+        assertEquals(List.of("a", "b", "c"), strings.bins());
+        assertEquals(List.of(1, -1, 0, 2, 0, 1), bins(strings, table));
+        Binner booleans = Binner.fixedWidth(table, "flag", null, null, null);
+        assertEquals(List.of(false, true), booleans.bins());
+        assertEquals(List.of(1, 0, -1, 1, 0, 0), bins(booleans, table));
+    }
+
+    private static List<Integer> bins(Binner binner, Table table) {
+        List<Integer> bins = new ArrayList<>();
+        for (int row = 0; row < table.rowCount(); row++) {
+            bins.add(binner.bin(row));
+        }
+        return bins;
+    }
+}
@@ -0,0 +1,125 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.histogram;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Checks that {@link CellGrid} puts points in the square whose edges enclose
+ * them, with points on an edge in the cell starting there, and in the hexagon
+ * whose center is nearest of all the grid's centers, comparing distances in
+ * pixels.
+ */
+class CellGridTest {
+
+    static Stream<Arguments> grids() {
+        return Stream.of(
+                Arguments.of(0.0, 100.0, 0.0, 100.0, 400, 300, 10.0),
+                Arguments.of(-5.5, 3.25, 1000.0, 1010.0, 640, 480, 7.5),
+                Arguments.of(0.0, 1.0, -1.0, 0.0, 99, 101, 13.0),
+                Arguments.of(2.0, 3.0, 2.0, 3.0, 50, 50, 60.0));
+    }
+
+    @ParameterizedTest
+    @MethodSource("grids")
+    void pointsGoToTheNearestHexagonCenter(double xMin, double xMax, double yMin, double yMax, int width,
+            int height, double radius) {
+        CellGrid grid = new CellGrid(true, xMin, xMax, yMin, yMax, width, height, radius);
+        Random random = new Random(width);
+        for (int i = 0; i < 5000; i++) {
+            double x = i < 4 ? (i % 2 == 0 ? xMin : xMax) : xMin + random.nextDouble() * (xMax - xMin);
+            double y = i < 4 ? (i / 2 == 0 ? yMin : yMax) : yMin + random.nextDouble() * (yMax - yMin);
+            long cell = grid.cell(x, y);
+            assertInGrid(grid, cell);
+
+            double px = (x - xMin) / (xMax - xMin) * width;
+            double py = (y - yMin) / (yMax - yMin) * height;
+            double nearest = Double.POSITIVE_INFINITY;
+            for (int row = -1; row <= grid.rows(); row++) {
+                for (int column = -1; column <= grid.columns(); column++) {
+                    nearest = Math.min(nearest, pixelDistance(grid, key(row, column), px, py, xMin, xMax, yMin, yMax,
+                            width, height));
+                }
+            }
+            assertEquals(nearest, pixelDistance(grid, cell, px, py, xMin, xMax, yMin, yMax, width, height), 1e-6,
+                    "Point (" + x + ", " + y + ")");
+        }
+    }
+
+    @Test
+    void hexagonCentersAreLaidOutInShiftedRows() {
+        double radius = 10;
+        double dx = radius * Math.sqrt(3);
+        CellGrid grid = new CellGrid(true, 0, 100 * dx, 0, 150, 100, 150, radius);
+        // Rows are 1.5 radii apart and odd rows shifted by half a hexagon
+        assertEquals(0, grid.centerX(key(0, 0)), 1e-9);
+        assertEquals(0, grid.centerY(key(0, 0)), 1e-9);
+        assertEquals(dx * dx, grid.centerX(key(0, 1)), 1e-9);
+        assertEquals(dx * dx / 2, grid.centerX(key(1, 0)), 1e-9);
+        assertEquals(15, grid.centerY(key(1, 0)), 1e-9);
+        assertEquals(30, grid.centerY(key(2, 3)), 1e-9);
+        assertEquals(key(1, 0), grid.cell(dx * dx / 2, 15));
+        assertEquals(key(2, 3), grid.cell(3 * dx * dx, 30));
+        assertEquals(Math.ceil(100 / dx) + 1, grid.columns());
+        assertEquals(Math.ceil(150 / 15.0) + 1, grid.rows());
+    }
+
+    @Test
+    void squaresIncludeTheirStartingEdges() {
+        // 4 by 3 cells of 10 pixels, each 2.5 x units and 10 y units
+        CellGrid grid = new CellGrid(false, 0, 10, 100, 130, 40, 30, 10);
+        assertEquals(4, grid.columns());
+        assertEquals(3, grid.rows());
+        assertEquals(key(0, 0), grid.cell(0, 100));
+        assertEquals(key(0, 0), grid.cell(Math.nextDown(2.5), Math.nextDown(110)));
+        assertEquals(key(0, 1), grid.cell(2.5, 100));
+        assertEquals(key(1, 0), grid.cell(0, 110));
+        assertEquals(key(2, 3), grid.cell(7.5, 120));
+        // The maximum is in the last cell
+        assertEquals(key(2, 3), grid.cell(10, 130));
+        assertEquals(1.25, grid.centerX(key(0, 0)), 1e-9);
+        assertEquals(125, grid.centerY(key(2, 3)), 1e-9);
+
+        for (double[] point : List.of(new double[] { -0.1, 105 }, new double[] { 10.1, 105 },
+                new double[] { 5, 99 }, new double[] { 5, 131 }, new double[] { Double.NaN, 105 },
+                new double[] { 5, Double.NaN })) {
+            assertEquals(CellGrid.NONE, grid.cell(point[0], point[1]));
+            assertEquals(CellGrid.NONE, new CellGrid(true, 0, 10, 100, 130, 40, 30, 10).cell(point[0], point[1]));
+        }
+    }
+
+    @Test
+    void partialSquaresAlongTheEdgesAreCells() {
+        CellGrid grid = new CellGrid(false, 0, 1, 0, 1, 25, 25, 10);
+        assertEquals(3, grid.columns());
+        assertEquals(3, grid.rows());
+        assertEquals(key(2, 2), grid.cell(1, 1));
+        assertEquals(key(1, 1), grid.cell(0.79, 0.4));
+        assertEquals(key(2, 2), grid.cell(0.8, 0.8));
+    }
+
+    private static void assertInGrid(CellGrid grid, long cell) {
+        assertTrue(CellGrid.row(cell) >= 0 && CellGrid.row(cell) < grid.rows(), "Row " + CellGrid.row(cell));
+        assertTrue(CellGrid.column(cell) >= 0 && CellGrid.column(cell) < grid.columns(),
+                "Column " + CellGrid.column(cell));
+    }
+
+    private static double pixelDistance(CellGrid grid, long cell, double px, double py, double xMin, double xMax,
+            double yMin, double yMax, int width, int height) {
+        double cx = (grid.centerX(cell) - xMin) / (xMax - xMin) * width;
+        double cy = (grid.centerY(cell) - yMin) / (yMax - yMin) * height;
+        return Math.hypot(cx - px, cy - py);
+    }
+
+    private static long key(int row, int column) {
+        return (long) row << 32 | (column & 0xFFFFFFFFL);
+    }
+}
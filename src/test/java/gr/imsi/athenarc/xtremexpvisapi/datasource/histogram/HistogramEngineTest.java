@@ -0,0 +1,314 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.histogram;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate.HashAggregator;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexStore;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexes;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.FilterPlan;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.PartitionedScanner;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HeatmapResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramResponse;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.HistogramSeries;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.ViewPort;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.InequalityFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+/**
+ * Checks that {@link HistogramEngine} answers histogram requests with the
+ * counts of binning the filtered rows one by one, per group of the group-by
+ * columns in order of first appearance, and heatmap requests with the count
+ * and aggregates of the rows in each cell of the grid, whether the table is
+ * scanned in one partition or many and with or without its indexes.
+ */
+class HistogramEngineTest {
+
+    private static final int ROWS = 20_000;
+
+    private static ForkJoinPool pool;
+    private static Table table;
+    private static TableIndexes indexes;
+
+    @BeforeAll
+    static void createTable() {
+        pool = new ForkJoinPool(4);
+        Random random = new Random(31);
+        DoubleColumn price = DoubleColumn.create("price");
+        IntColumn quantity = IntColumn.create("quantity");
+        StringColumn category = StringColumn.create("category");
+        StringColumn region = StringColumn.create("region");
+        DateColumn day = DateColumn.create("day");
+        for (int row = 0; row < ROWS; row++) {
+            if (random.nextInt(20) == 0) {
+                price.appendMissing();
+            } else {
+                // Many prices exactly on the edges of bins of 10
+                price.append(random.nextInt(4) == 0 ? 10 * random.nextInt(13) : random.nextDouble() * 120);
+            }
+            if (random.nextInt(25) == 0) {
+                quantity.appendMissing();
+            } else {
+                quantity.append(random.nextInt(50));
+            }
+            category.append(random.nextInt(15) == 0 ? "" : "c" + random.nextInt(6));
+            region.append(random.nextInt(10) == 0 ? "" : "r" + random.nextInt(3));
+            if (random.nextInt(30) == 0) {
+                day.appendMissing();
+            } else {
+                day.append(LocalDate.of(2023, 11, 1).plusDays(random.nextInt(500)));
+            }
+        }
+        table = Table.create("sales", price, quantity, category, region, day);
+        DataEngineProperties properties = new DataEngineProperties();
+        properties.setIndexMinRows(1);
+        TableIndexStore indexStore = new TableIndexStore(properties);
+        indexStore.prepare(table);
+        indexes = indexStore.indexesFor(table);
+    }
+
+    @AfterAll
+    static void shutDownPool() {
+        pool.shutdown();
+    }
+
+    private static HistogramEngine engine(int minPartitionRows) {
+        return new HistogramEngine(new HashAggregator(pool, 1000),
+                new PartitionedScanner(pool, minPartitionRows));
+    }
+
+    static Stream<Arguments> histograms() {
+        List<AbstractFilter> cheap = List.of(new RangeFilter<>("price", 0.0, 60.0));
+        List<AbstractFilter> bulk = List.of(new InequalityFilter<>("quantity", 10, "gte"),
+                new EqualsFilter<>("region", "r1"));
+        return Stream.of(
+                Arguments.of(histogram("price", "fixed", 12, 0.0, 120.0, null, null, null)),
+                Arguments.of(histogram("price", null, 7, null, null, null, List.of("category"), bulk)),
+                Arguments.of(histogram("price", "fixed", 5, 20.0, 70.0, null, List.of("region", "category"),
+                        null)),
+                Arguments.of(histogram("quantity", "fixed", null, null, null, null, List.of("region"), cheap)),
+                Arguments.of(histogram("price", "quantile", 10, null, null, null, List.of("region"), bulk)),
+                Arguments.of(histogram("day", "time", null, null, null, "month", List.of("category"), cheap)),
+                Arguments.of(histogram("day", "TIME", null, null, null, "week", null, bulk)),
+                Arguments.of(histogram("day", "fixed", 10, "2024-01-01", "2024-06-30", null, null, null)),
+                Arguments.of(histogram("category", null, null, null, null, null, List.of("region"), cheap)),
+                // No row passes
+                Arguments.of(histogram("price", "fixed", 4, null, null, null, List.of("region"),
+                        List.of(new RangeFilter<>("price", 500.0, 600.0)))));
+    }
+
+    private static HistogramRequest histogram(String column, String binning, Integer bins, Object min, Object max,
+            String timeUnit, List<String> groupBy, List<AbstractFilter> filters) {
+        return new HistogramRequest("sales", null, column, binning, bins, min, max, timeUnit, groupBy, filters);
+    }
+
+    @ParameterizedTest
+    @MethodSource("histograms")
+    void countsMatchBinningRowByRow(HistogramRequest request) {
+        Table filtered = request.getFilters() == null ? table
+                : table.where(FilterPlan.compile(table, request.getFilters()).select(table, request.getFilters()));
+        Binner binner = binner(filtered, request);
+        Map<List<Object>, int[]> expected = new LinkedHashMap<>();
+        List<String> groupBy = request.getGroupBy() == null ? List.of() : request.getGroupBy();
+        for (int row = 0; row < filtered.rowCount(); row++) {
+            List<Object> group = new ArrayList<>();
+            for (String column : groupBy) {
+                group.add(filtered.column(column).get(row));
+            }
+            int[] counts = expected.computeIfAbsent(group, key -> new int[binner.binCount()]);
+            int bin = binner.bin(row);
+            if (bin >= 0) {
+                counts[bin]++;
+            }
+        }
+        if (expected.isEmpty()) {
+            expected.put(List.of(), new int[binner.binCount()]);
+        }
+
+        for (HistogramResponse response : List.of(engine(ROWS).query(table, null, request),
+                engine(100).query(table, indexes, request))) {
+            assertEquals(ROWS, response.getTotalItems());
+            assertEquals(filtered.rowCount(), response.getFilteredItems());
+            assertEquals(binner.bins(), response.getBins());
+            assertEquals(binner.end(), response.getEnd());
+            assertEquals(binner.binWidth(), response.getBinWidth());
+            assertEquals(expected.size(), response.getSeries().size());
+            int series = 0;
+            for (Map.Entry<List<Object>, int[]> group : expected.entrySet()) {
+                HistogramSeries actual = response.getSeries().get(series++);
+                assertEquals(group.getKey(), new ArrayList<>(actual.getGroup().values()));
+                if (!group.getKey().isEmpty()) {
+                    assertEquals(groupBy, new ArrayList<>(actual.getGroup().keySet()));
+                }
+                assertArrayEquals(group.getValue(), actual.getCounts(), "Group " + group.getKey());
+            }
+        }
+    }
+
+    private static Binner binner(Table filtered, HistogramRequest request) {
+        String binning = request.getBinning() == null ? "fixed" : request.getBinning().toLowerCase();
+        switch (binning) {
+            case "quantile":
+                return Binner.quantiles(filtered, request.getColumn(), request.getBins());
+            case "time":
+                return Binner.timeUnits(filtered, request.getColumn(), request.getTimeUnit());
+            default:
+                return Binner.fixedWidth(filtered, request.getColumn(), request.getBins(), request.getMin(),
+                        request.getMax());
+        }
+    }
+
+    @Test
+    void invalidHistogramRequestsAreRejected() {
+        HistogramEngine engine = engine(ROWS);
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.query(table, null, histogram(null, null, null, null, null, null, null, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.query(table, null, histogram("price", "log", null, null, null, null, null, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.query(table, null, histogram("price", "time", null, null, null, "day", null, null)));
+        assertThrows(IllegalArgumentException.class, () -> engine.query(table, null,
+                histogram("price", null, null, null, null, null, List.of("quantity", "day"), null)));
+    }
+
+    static Stream<Arguments> heatmaps() {
+        Map<String, Object> aggregation = new LinkedHashMap<>();
+        aggregation.put("price", List.of("sum", "max"));
+        aggregation.put("quantity", "avg");
+        List<AbstractFilter> filters = List.of(new EqualsFilter<>("region", "r1"));
+        return Stream.of(
+                Arguments.of(heatmap("rect", null, null, null, null, null, null, null)),
+                Arguments.of(heatmap("rect", 25.0, 0.0, 120.0, 0.0, 50.0, aggregation, null)),
+                Arguments.of(heatmap(null, 7.0, 20.0, 80.0, 10.0, 30.0, aggregation, filters)),
+                Arguments.of(heatmap("hex", null, null, null, null, null, aggregation, null)),
+                Arguments.of(heatmap("HEX", 30.0, 0.0, 120.0, 0.0, 50.0, null, filters)),
+                Arguments.of(heatmap("hex", 4.5, 50.0, 60.0, 20.0, 21.0, aggregation, null)));
+    }
+
+    private static HeatmapRequest heatmap(String shape, Double cellSize, Double minX, Double maxX, Double minY,
+            Double maxY, Map<String, Object> aggregation, List<AbstractFilter> filters) {
+        return new HeatmapRequest("sales", null, "price", "quantity", new ViewPort(300, 200), shape, cellSize, minX,
+                maxX, minY, maxY, aggregation, filters);
+    }
+
+    @ParameterizedTest
+    @MethodSource("heatmaps")
+    void cellsAggregateTheirRows(HeatmapRequest request) {
+        Table filtered = request.getFilters() == null ? table
+                : table.where(FilterPlan.compile(table, request.getFilters()).select(table, request.getFilters()));
+        DoubleColumn prices = filtered.doubleColumn("price");
+        IntColumn quantities = filtered.intColumn("quantity");
+
+        for (HeatmapResponse response : List.of(engine(ROWS).heatmap(table, null, request),
+                engine(100).heatmap(table, indexes, request))) {
+            assertEquals(ROWS, response.getTotalItems());
+            assertEquals(filtered.rowCount(), response.getFilteredItems());
+            double minX = request.getMinX() == null ? prices.min() : request.getMinX();
+            double maxX = request.getMaxX() == null ? prices.max() : request.getMaxX();
+            double minY = request.getMinY() == null ? quantities.min() : request.getMinY();
+            double maxY = request.getMaxY() == null ? quantities.max() : request.getMaxY();
+            assertArrayEquals(new double[] { minX, maxX, minY, maxY }, new double[] { response.getMinX(),
+                    response.getMaxX(), response.getMinY(), response.getMaxY() });
+            boolean hex = "hex".equalsIgnoreCase(request.getShape());
+            CellGrid grid = new CellGrid(hex, minX, maxX, minY, maxY, 300, 200,
+                    request.getCellSize() == null ? 10 : request.getCellSize());
+            assertEquals(hex ? "hex" : "rect", response.getShape());
+            assertEquals(grid.columns(), response.getColumns());
+            assertEquals(grid.rows(), response.getRows());
+
+            // Rows of each cell, row by row
+            Map<Long, List<Integer>> expected = new HashMap<>();
+            for (int row = 0; row < filtered.rowCount(); row++) {
+                if (!prices.isMissing(row) && !quantities.isMissing(row)) {
+                    long cell = grid.cell(prices.getDouble(row), quantities.getDouble(row));
+                    if (cell != CellGrid.NONE) {
+                        expected.computeIfAbsent(cell, key -> new ArrayList<>()).add(row);
+                    }
+                }
+            }
+            assertEquals(expected.size(), response.getCounts().length);
+            for (int i = 0; i < response.getCounts().length; i++) {
+                long cell = (long) response.getCellRows()[i] << 32 | (response.getCellColumns()[i] & 0xFFFFFFFFL);
+                List<Integer> rows = expected.get(cell);
+                String message = "Cell " + response.getCellRows()[i] + "," + response.getCellColumns()[i];
+                assertEquals(rows.size(), response.getCounts()[i], message);
+                assertEquals(grid.centerX(cell), response.getCenterX()[i], message);
+                assertEquals(grid.centerY(cell), response.getCenterY()[i], message);
+                if (request.getAggregation() != null) {
+                    assertAggregate(sum(prices, rows), response.getAggregates().get("Sum_price").get(i), message);
+                    assertAggregate(max(prices, rows), response.getAggregates().get("Max_price").get(i), message);
+                    assertAggregate(mean(quantities, rows), response.getAggregates().get("Mean_quantity").get(i),
+                            message);
+                } else {
+                    assertEquals(Map.of(), response.getAggregates());
+                }
+            }
+        }
+    }
+
+    // Every binned row has a price, so price aggregates always have values
+    private static Double sum(DoubleColumn column, List<Integer> rows) {
+        return rows.stream().mapToDouble(column::getDouble).sum();
+    }
+
+    private static Double max(DoubleColumn column, List<Integer> rows) {
+        return rows.stream().mapToDouble(column::getDouble).max().getAsDouble();
+    }
+
+    private static Double mean(IntColumn column, List<Integer> rows) {
+        return rows.stream().mapToInt(column::getInt).average().getAsDouble();
+    }
+
+    private static void assertAggregate(Double expected, Object actual, String message) {
+        assertEquals(expected, ((Number) actual).doubleValue(), Math.abs(expected) * 1e-12, message);
+    }
+
+    @Test
+    void invalidHeatmapRequestsAreRejected() {
+        HistogramEngine engine = engine(ROWS);
+        List<HeatmapRequest> requests = List.of(
+                new HeatmapRequest("sales", null, "price", null, new ViewPort(300, 200), null, null, null, null,
+                        null, null, null, null),
+                new HeatmapRequest("sales", null, "price", "quantity", new ViewPort(0, 200), null, null, null, null,
+                        null, null, null, null),
+                new HeatmapRequest("sales", null, "price", "category", new ViewPort(300, 200), null, null, null,
+                        null, null, null, null, null),
+                heatmap("triangle", null, null, null, null, null, null, null),
+                heatmap("rect", 0.0, null, null, null, null, null, null),
+                heatmap("rect", 0.01, null, null, null, null, null, null),
+                heatmap("rect", null, 10.0, 5.0, null, null, null, null),
+                heatmap("rect", null, null, null, null, null, Map.of("price", "mode"), null));
+        for (HeatmapRequest request : requests) {
+            assertThrows(IllegalArgumentException.class, () -> engine.heatmap(table, null, request),
+                    request.toString());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.offheap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.ScanResult;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.ScanSpec;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.FilterPlan;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.InequalityFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.StringFilter;
+import tech.tablesaw.api.FloatColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.LongColumn;
+import tech.tablesaw.api.ShortColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.api.TimeColumn;
+import tech.tablesaw.io.csv.CsvReadOptions;
+
+/**
+ * Checks that {@link OffHeapTable#scan} returns the rows and columns that
+ * filtering the heap table it was copied from returns, for filters evaluated
+ * by {@link OffHeapFilter} on columns with missing values, and that filters it
+ * cannot evaluate keep every row and still fail or pass as they do on the heap.
+ */
+class OffHeapTableTest {
+
+    private static final int ROWS = 5000;
+
+    @TempDir
+    static Path directory;
+
+    private static Table table;
+    private static OffHeapTable offHeap;
+
+    @BeforeAll
+    static void createTables() throws IOException {
+        Random random = new Random(29);
+        StringBuilder csv = new StringBuilder("id,value,count,day,at,flag,label\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append(i).append(',')
+                    .append(oneOf(random, "", "NA", "NaN", String.valueOf(random.nextInt(400) * 0.25))).append(',')
+                    .append(oneOf(random, "", "N/A", String.valueOf(random.nextInt(1000) - 500))).append(',')
+                    .append(oneOf(random, "", "NA", LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365)).toString()))
+                    .append(',')
+                    .append(oneOf(random, "", LocalDateTime.of(2024, 1, 1, 0, 0)
+                            .plusMinutes(random.nextInt(500_000)).toString() + ":00"))
+                    .append(',')
+                    .append(oneOf(random, "", String.valueOf(random.nextBoolean())))
+                    .append(',')
+                    .append(oneOf(random, "", "label" + random.nextInt(12)))
+                    .append('\n');
+        }
+        Path file = Files.writeString(directory.resolve("offheap.csv"), csv.toString());
+        table = Table.read().usingOptions(CsvReadOptions.builder(file.toFile()).header(true).sample(false));
+
+        // Types Tablesaw does not infer from CSV files
+        ShortColumn shorts = ShortColumn.create("short");
+        FloatColumn floats = FloatColumn.create("float");
+        LongColumn longs = LongColumn.create("long");
+        TimeColumn times = TimeColumn.create("time");
+        InstantColumn instants = InstantColumn.create("instant");
+        for (int row = 0; row < ROWS; row++) {
+            if (missing(random)) {
+                shorts.appendMissing();
+                floats.appendMissing();
+                longs.appendMissing();
+                times.appendMissing();
+                instants.appendMissing();
+                continue;
+            }
+            shorts.append((short) (random.nextInt(200) - 100));
+            floats.append(random.nextInt(100) * 0.5f);
+            longs.append(random.nextInt(1_000_000) * 1_000_000L);
+            times.append(LocalTime.of(random.nextInt(24), random.nextInt(4) * 15));
+            instants.append(Instant.parse("2024-01-01T00:00:00Z").plusSeconds(3600L * random.nextInt(24 * 365)));
+        }
+        table.addColumns(shorts, floats, longs, times, instants);
+        offHeap = OffHeapTable.copyOf(table, ByteBuffer::allocateDirect);
+    }
+
+    private static String oneOf(Random random, String... missingOrValue) {
+        return missing(random) ? missingOrValue[random.nextInt(missingOrValue.length - 1)]
+                : missingOrValue[missingOrValue.length - 1];
+    }
+
+    private static boolean missing(Random random) {
+        return random.nextInt(10) == 0;
+    }
+
+    static Stream<Arguments> filters() {
+        AbstractFilter values = new RangeFilter<>("value", 20.0, 60.0);
+        AbstractFilter days = new RangeFilter<>("day", "2024-03-01", "2024-06-30");
+        return Stream.of(
+                Arguments.of(List.of(values), List.of("id")),
+                Arguments.of(List.of(new RangeFilter<>("value", 20.25, 20.25)), List.of()),
+                Arguments.of(List.of(new RangeFilter<>("count", -100, 100)), List.of("id")),
+                Arguments.of(List.of(new EqualsFilter<>("value", 50.0)), List.of("id")),
+                Arguments.of(List.of(new EqualsFilter<>("count", 5)), List.of("id")),
+                Arguments.of(List.of(new InequalityFilter<>("count", 100, "gte")), List.of("id")),
+                Arguments.of(List.of(new InequalityFilter<>("count", -200, "lt")), List.of("label")),
+                Arguments.of(List.of(new InequalityFilter<>("value", 90.0, "gt")), List.of("id")),
+                Arguments.of(List.of(new InequalityFilter<>("value", 10.0, "lte")), List.of()),
+                Arguments.of(List.of(days), List.of("id", "label")),
+                Arguments.of(List.of(new EqualsFilter<>("day", "2024-02-29")), List.of("id")),
+                Arguments.of(List.of(new InequalityFilter<>("day", "2024-10-01", "gt")), List.of("id")),
+                Arguments.of(List.of(new InequalityFilter<>("day", "2024-02-01", "lt")), List.of("id")),
+                Arguments.of(List.of(new RangeFilter<>("at", "2024-02-01T00:00:00", "2024-05-01T12:00:00")),
+                        List.of("id")),
+                Arguments.of(List.of(new InequalityFilter<>("at", "2024-10-01T00:00:00", "gte")), List.of("id")),
+                Arguments.of(List.of(new RangeFilter<>("time", "06:00", "09:15")), List.of("id")),
+                Arguments.of(List.of(new InequalityFilter<>("time", "20:00", "gt")), List.of("id")),
+                Arguments.of(List.of(new RangeFilter<>("instant", "2024-03-01T00:00:00Z", "2024-04-01T00:00:00Z")),
+                        List.of("id")),
+                Arguments.of(List.of(new InequalityFilter<>("instant", "2024-12-01T00:00:00Z", "lte")), List.of("id")),
+                Arguments.of(List.of(new EqualsFilter<>("flag", true)), List.of("id")),
+                Arguments.of(List.of(new EqualsFilter<>("flag", false)), List.of("id")),
+                Arguments.of(List.of(new EqualsFilter<>("label", "label3")), List.of("id")),
+                Arguments.of(List.of(new EqualsFilter<>("label", "")), List.of("id")),
+                Arguments.of(List.of(new StringFilter("label", "label1", "startsWith")), List.of("id")),
+                Arguments.of(List.of(new StringFilter("label", "1", "endsWith")), List.of("id")),
+                Arguments.of(List.of(new StringFilter("label", "el", "contains")), List.of()),
+                Arguments.of(List.of(values, days, new EqualsFilter<>("flag", true),
+                        new StringFilter("label", "label1", "startsWith")), List.of("id", "count")));
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void scansMatchHeapFilters(List<AbstractFilter> filters, List<String> columns) {
+        ScanSpec spec = ScanSpec.forRequest(request(filters, columns));
+        ScanResult scan = offHeap.scan(spec);
+        assertEquals(ROWS, scan.scannedRows());
+        assertSameTable(projected(filter(table, filters), spec), scan.table());
+    }
+
+    static Stream<Arguments> numericFilters() {
+        // Columns of types the executor cannot filter, but whose values the off-heap filters compare as numbers
+        return Stream.of(
+                Arguments.of(new RangeFilter<>("short", -20, 20), (short) -20, (short) 20),
+                Arguments.of(new RangeFilter<>("float", 10.5, 30.0), 10.5f, 30.0f),
+                Arguments.of(new RangeFilter<>("long", 1_000_000_000L, 500_000_000_000L), 1_000_000_000L,
+                        500_000_000_000L));
+    }
+
+    @ParameterizedTest
+    @MethodSource("numericFilters")
+    void numericRangesOfOtherTypesKeepTheirValues(AbstractFilter filter, Number min, Number max) {
+        ScanSpec spec = ScanSpec.forRequest(request(List.of(filter), List.of("id")));
+        Table scanned = offHeap.scan(spec).table();
+        Table expected = table.where(table.numberColumn(filter.getColumn())
+                .isBetweenInclusive(min.doubleValue(), max.doubleValue()));
+        assertSameTable(projected(expected, spec), scanned);
+    }
+
+    @Test
+    void filtersWithoutAnOffHeapFormKeepEveryRow() {
+        List<List<AbstractFilter>> unparsable = List.of(
+                List.of(new RangeFilter<>("day", "March", "June")),
+                List.of(new EqualsFilter<>("at", "yesterday")),
+                List.of(new InequalityFilter<>("value", "many", "gt")),
+                List.of(new StringFilter("label", "label", "matches")));
+        for (List<AbstractFilter> filters : unparsable) {
+            Table scanned = offHeap.scan(ScanSpec.forRequest(request(filters, List.of("id")))).table();
+            assertEquals(ROWS, scanned.rowCount(), filters.toString());
+            assertThrows(IllegalArgumentException.class, () -> filter(table, filters), filters.toString());
+            assertThrows(IllegalArgumentException.class, () -> filter(scanned, filters), filters.toString());
+        }
+
+        // Evaluable filters still apply next to those on unknown columns
+        List<AbstractFilter> filters = List.of(new RangeFilter<>("value", 20.0, 60.0),
+                new EqualsFilter<>("missing", 1));
+        assertEquals(filter(table, filters.subList(0, 1)).rowCount(),
+                offHeap.scan(ScanSpec.forRequest(request(filters, List.of("id")))).table().rowCount());
+    }
+
+    @Test
+    void copiesBackTheWholeTable() {
+        assertSameTable(table, offHeap.toTable());
+    }
+
+    private static TabularRequest request(List<AbstractFilter> filters, List<String> columns) {
+        return new TabularRequest("offheap.csv", null, columns, 0, 0, filters, null, null, null, null, null);
+    }
+
+    private static Table filter(Table source, List<AbstractFilter> filters) {
+        return source.where(FilterPlan.compile(source, filters).select(source, filters));
+    }
+
+    private static Table projected(Table source, ScanSpec spec) {
+        return source.selectColumns(source.columnNames().stream().filter(spec::selects).toArray(String[]::new));
+    }
+
+    private static void assertSameTable(Table expected, Table actual) {
+        assertEquals(expected.columnNames(), actual.columnNames());
+        assertEquals(expected.types(), actual.types());
+        assertEquals(expected.rowCount(), actual.rowCount());
+        for (int c = 0; c < expected.columnCount(); c++) {
+            assertEquals(expected.column(c).asList(), actual.column(c).asList(), expected.column(c).name());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.page;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.OrderBy;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+
+/**
+ * Checks that {@link PageCursor} tokens read back as the cursor they were
+ * issued as, and only for the query they were issued for.
+ */
+class PageCursorTest {
+
+    private static final List<AbstractFilter> FILTERS = List.of(
+            new RangeFilter<>("value", 1.0, 5.0),
+            new EqualsFilter<>("label", "a"));
+    private static final List<OrderBy> ORDER = List.of(new OrderBy("value", "desc"));
+
+    @Test
+    void tokensRoundTrip() {
+        String query = PageCursor.queryOf(FILTERS, ORDER);
+        for (PageCursor cursor : List.of(PageCursor.at(query, 0), PageCursor.at(query, 250),
+                new PageCursor(query, 100, 7345), new PageCursor(query, Integer.MAX_VALUE, 0))) {
+            assertEquals(cursor, PageCursor.decode(cursor.encode(), query));
+        }
+    }
+
+    @Test
+    void negativePositionsStartAtTheFirstRow() {
+        assertEquals(0, PageCursor.at("query", -5).position());
+        assertEquals(-1, PageCursor.at("query", 10).lastRank());
+    }
+
+    @Test
+    void queriesIgnoreFilterOrderOnly() {
+        String query = PageCursor.queryOf(FILTERS, ORDER);
+        assertEquals(query, PageCursor.queryOf(List.of(FILTERS.get(1), FILTERS.get(0)), ORDER));
+        assertEquals(PageCursor.queryOf(null, null), PageCursor.queryOf(List.of(), List.of()));
+        assertNotEquals(query, PageCursor.queryOf(FILTERS, List.of(new OrderBy("value", "asc"))));
+        assertNotEquals(query, PageCursor.queryOf(FILTERS, null));
+        assertNotEquals(query, PageCursor.queryOf(FILTERS.subList(0, 1), ORDER));
+        assertNotEquals(query, PageCursor.queryOf(List.of(new RangeFilter<>("value", 1.0, 6.0), FILTERS.get(1)),
+                ORDER));
+    }
+
+    @Test
+    void cursorsOfOtherQueriesAreRejected() {
+        String token = new PageCursor(PageCursor.queryOf(FILTERS, ORDER), 100, 42).encode();
+        assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode(token, PageCursor.queryOf(FILTERS, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode(token, PageCursor.queryOf(FILTERS.subList(1, 2), ORDER)));
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        String query = PageCursor.queryOf(FILTERS, ORDER);
+        for (String value : List.of(query, query + ":1", query + ":x:-1", query + ":-1:-1", query + ":5:-2",
+                query + ":5:-1:3")) {
+            String token = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+            assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(token, query), value);
+        }
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not base64!", query));
+    }
+}
@@ -0,0 +1,134 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.page;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.page.RowPager.Page;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.FilterPlan;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.sort.RowSorter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.OrderBy;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterators;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * Walks every page of a query with the cursor each page hands out, read back
+ * from its token as a client would send it, and checks that the pages
+ * together are the query's rows in order, each exactly once. Values repeat a
+ * lot, so pages often end in the middle of a run of ties.
+ */
+class RowPagerTest {
+
+    private static final int ROWS = 2000;
+
+    private static Table table;
+
+    @BeforeAll
+    static void createTable() {
+        Random random = new Random(13);
+        IntColumn ids = IntColumn.create("id");
+        DoubleColumn doubles = DoubleColumn.create("d");
+        StringColumn strings = StringColumn.create("s");
+        for (int row = 0; row < ROWS; row++) {
+            ids.append(row);
+            if (random.nextInt(10) == 0) {
+                doubles.appendMissing();
+            } else {
+                doubles.append(random.nextInt(20));
+            }
+            strings.append(random.nextInt(10) == 0 ? "" : "s" + random.nextInt(5));
+        }
+        table = Table.create("paged", ids, doubles, strings);
+    }
+
+    static Stream<Arguments> queries() {
+        List<List<AbstractFilter>> filters = List.of(List.of(), List.of(new RangeFilter<>("d", 3.0, 15.0)));
+        List<List<OrderBy>> orders = List.of(
+                List.of(),
+                List.of(new OrderBy("d", "desc")),
+                List.of(new OrderBy("s", "asc")),
+                List.of(new OrderBy("s", "desc"), new OrderBy("d", "asc")));
+        List<Arguments> cases = new ArrayList<>();
+        for (List<AbstractFilter> filter : filters) {
+            for (List<OrderBy> orderBy : orders) {
+                for (int limit : new int[] { 1, 7, 100, 999, ROWS + 1 }) {
+                    if (limit > 1 || filter.isEmpty() && orderBy.size() == 1) {
+                        cases.add(Arguments.of(filter, orderBy, limit));
+                    }
+                }
+            }
+        }
+        return cases.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("queries")
+    void cursorsContinueWithoutDuplicatesOrGaps(List<AbstractFilter> filters, List<OrderBy> orderBy, int limit) {
+        Selection selection = filters.isEmpty() ? null : FilterPlan.compile(table, filters).select(table, filters);
+        int[] expected = resultRows(selection, orderBy);
+        String query = PageCursor.queryOf(filters, orderBy);
+
+        IntArrayList paged = new IntArrayList();
+        PageCursor cursor = PageCursor.at(query, 0);
+        int pages = 0;
+        while (cursor != null) {
+            Page page = RowPager.page(table, selection, orderBy, cursor, limit);
+            assertEquals(expected.length, page.matchedRows());
+            paged.addElements(paged.size(), ids(page.table()));
+            cursor = page.next() == null ? null : PageCursor.decode(page.next().encode(), query);
+            pages++;
+        }
+        assertArrayEquals(expected, paged.toIntArray(), filters + " " + orderBy + " in pages of " + limit);
+        assertEquals(Math.max(1, (expected.length + limit - 1) / limit), pages);
+    }
+
+    @ParameterizedTest
+    @MethodSource("queries")
+    void offsetsStartAtTheirRank(List<AbstractFilter> filters, List<OrderBy> orderBy, int limit) {
+        Selection selection = filters.isEmpty() ? null : FilterPlan.compile(table, filters).select(table, filters);
+        int[] expected = resultRows(selection, orderBy);
+        String query = PageCursor.queryOf(filters, orderBy);
+        for (int offset : new int[] { 0, 1, 333, expected.length - 1, expected.length, expected.length + 5 }) {
+            Page page = RowPager.page(table, selection, orderBy, PageCursor.at(query, offset), limit);
+            int from = Math.min(offset, expected.length);
+            int[] slice = Arrays.copyOfRange(expected, from, (int) Math.min(expected.length, (long) from + limit));
+            assertArrayEquals(slice, ids(page.table()), "Offset " + offset);
+            if (from + slice.length >= expected.length) {
+                assertNull(page.next(), "Offset " + offset);
+            } else {
+                assertEquals(from + slice.length, page.next().position(), "Offset " + offset);
+            }
+        }
+    }
+
+    // The selected rows in result order; RowSorter orders them as its own tests check
+    private static int[] resultRows(Selection selection, List<OrderBy> orderBy) {
+        int[] rows = selection == null ? IntIterators.unwrap(IntIterators.fromTo(0, ROWS)) : selection.toArray();
+        if (orderBy.isEmpty() || rows.length == 0) {
+            return rows;
+        }
+        return RowSorter.firstRows(table, orderBy, IntIterators.wrap(rows), -1, rows.length);
+    }
+
+    private static int[] ids(Table page) {
+        return ((IntColumn) page.column("id")).asIntArray();
+    }
+}
@@ -0,0 +1,660 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.plan;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexStore;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexes;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.InequalityFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.StringFilter;
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DateTimeColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.api.TimeColumn;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * Checks that {@link FilterPlan} selects the same rows and rejects the same
+ * filters, with the same messages, as the per-filter Tablesaw selections that
+ * {@code TabularQueryExecutor} built before filters were compiled.
+ * <p>
+ * Every column type gets every operator, with values inside, on and outside
+ * the column's values, over columns in which about a tenth of the values are
+ * missing. Plans are evaluated by a sequential scan, with column indexes and
+ * statistics, and by a parallel scan.
+ */
+class FilterPlanTest {
+
+    private static final int ROWS = 2000;
+    private static final String DATE = "2024-01-01";
+    private static final String DATE_TIME = "2024-01-01T00:00";
+    private static final String INSTANT = "2024-01-01T00:00:00Z";
+
+    private static Table table;
+    private static TableIndexStore indexStore;
+    private static ForkJoinPool pool;
+    private static PartitionedScanner parallelScanner;
+
+    @BeforeAll
+    static void createTable() {
+        Random random = new Random(1);
+        DoubleColumn doubles = DoubleColumn.create("d");
+        IntColumn ints = IntColumn.create("i");
+        StringColumn strings = StringColumn.create("s");
+        BooleanColumn booleans = BooleanColumn.create("b");
+        DateColumn dates = DateColumn.create("date");
+        TimeColumn times = TimeColumn.create("time");
+        DateTimeColumn dateTimes = DateTimeColumn.create("dt");
+        InstantColumn instants = InstantColumn.create("in");
+        for (int row = 0; row < ROWS; row++) {
+            // Fifty distinct values per column, so that equality filters match rows
+            int value = random.nextInt(50);
+            if (missing(random)) {
+                doubles.appendMissing();
+            } else {
+                doubles.append(value * 0.5);
+            }
+            if (missing(random)) {
+                ints.appendMissing();
+            } else {
+                ints.append(value);
+            }
+            strings.append(missing(random) ? "" : "value" + value);
+            if (missing(random)) {
+                booleans.appendMissing();
+            } else {
+                booleans.append(value % 2 == 0);
+            }
+            if (missing(random)) {
+                dates.appendMissing();
+            } else {
+                dates.append(LocalDate.parse(DATE).plusDays(value));
+            }
+            if (missing(random)) {
+                times.appendMissing();
+            } else {
+                times.append(LocalTime.MIDNIGHT.plusMinutes(15L * value));
+            }
+            if (missing(random)) {
+                dateTimes.appendMissing();
+            } else {
+                dateTimes.append(LocalDateTime.parse(DATE_TIME).plusHours(value));
+            }
+            if (missing(random)) {
+                instants.appendMissing();
+            } else {
+                instants.append(Instant.parse(INSTANT).plusSeconds(3600L * value));
+            }
+        }
+        table = Table.create("filters", doubles, ints, strings, booleans, dates, times, dateTimes, instants);
+
+        DataEngineProperties properties = new DataEngineProperties();
+        properties.setIndexMinRows(1);
+        indexStore = new TableIndexStore(properties);
+        indexStore.prepare(table);
+        pool = new ForkJoinPool(4);
+        parallelScanner = new PartitionedScanner(pool, 1);
+    }
+
+    @AfterAll
+    static void shutDownPool() {
+        pool.shutdown();
+    }
+
+    private static boolean missing(Random random) {
+        return random.nextInt(10) == 0;
+    }
+
+    static Stream<Arguments> rangeFilters() {
+        return Stream.of(
+                range("d", 0.0, 24.5), range("d", 5.0, 5.0), range("d", 5.25, 10.75), range("d", -10.0, -1.0),
+                range("d", 10.0, 5.0), range("d", 1, 5), range("d", "1.0", "5.0"),
+                range("i", 0, 49), range("i", 10, 10), range("i", -5, 3), range("i", 48, 100), range("i", 30, 20),
+                range("i", 1.0, 5.0), range("i", Integer.MIN_VALUE, 0),
+                range("date", DATE, "2024-01-10"), range("date", "2024-02-19", "2024-02-19"),
+                range("date", "2023-01-01", "2023-12-31"), range("date", "2024-01-10", DATE),
+                range("date", DATE, "not a date"),
+                range("time", "00:00", "01:00"), range("time", "03:15", "03:15"), range("time", "12:00:00", "23:59"),
+                range("time", "25:00", "26:00"),
+                range("dt", DATE_TIME, "2024-01-01T10:00"), range("dt", "2024-01-02T01:00", "2024-01-02T01:00"),
+                range("dt", "2024-01-01T00:30", "2024-01-01T05:30"), range("dt", "2023-01-01T00:00", DATE_TIME),
+                range("dt", DATE, "2024-01-02T00:00"),
+                // Instant ranges have always excluded their bounds
+                range("in", INSTANT, "2024-01-01T10:00:00Z"), range("in", "2024-01-01T05:00:00Z", "2024-01-01T05:00:00Z"),
+                range("in", "2023-12-31T23:00:00Z", "2024-01-01T01:00:00Z"), range("in", "2024-01-01", INSTANT),
+                range("s", "a", "z"), range("b", true, true));
+    }
+
+    static Stream<Arguments> equalsFilters() {
+        return Stream.of(
+                equalTo("d", 12.5), equalTo("d", 12.25), equalTo("d", -1.0), equalTo("d", 12), equalTo("d", "12.5"),
+                equalTo("i", 25), equalTo("i", 0), equalTo("i", 75), equalTo("i", Integer.MIN_VALUE),
+                equalTo("i", 25.0), equalTo("i", "25"),
+                equalTo("s", "value7"), equalTo("s", "value70"), equalTo("s", ""), equalTo("s", 7),
+                equalTo("b", true), equalTo("b", false), equalTo("b", "TRUE"), equalTo("b", "no"),
+                equalTo("date", "2024-01-05"), equalTo("date", "2025-01-05"), equalTo("date", "05/01/2024"),
+                equalTo("time", "02:00"), equalTo("time", "02:05"), equalTo("time", "2pm"),
+                equalTo("dt", "2024-01-01T05:00"), equalTo("dt", "2024-01-01T05:00:01"), equalTo("dt", DATE),
+                equalTo("in", "2024-01-01T05:00:00Z"), equalTo("in", "2024-01-01T05:30:00Z"),
+                equalTo("in", "2024-01-01T05:00"));
+    }
+
+    static Stream<Arguments> inequalityFilters() {
+        List<Arguments> cases = new ArrayList<>();
+        String[] operators = { "gt", "lt", "gte", "lte" };
+        Object[][] values = {
+                { "d", 12.5, 12.75, -1.0, 30.0, 12, "12.5", "abc" },
+                { "i", 25, 0, 49, -1, 50, "25", 25.0, "abc" },
+                { "date", "2024-01-05", DATE, "2024-02-19", "2023-12-31", "2024-13-01" },
+                { "time", "02:00", "00:00", "12:15", "23:59", "noon" },
+                { "dt", "2024-01-01T05:00", "2024-01-01T05:30", DATE_TIME, "2024-01-03T01:00", DATE },
+                { "in", "2024-01-01T05:00:00Z", "2024-01-01T05:30:00Z", INSTANT, "2024-01-03T01:00:00Z", DATE },
+                { "s", "value1" },
+                { "b", true } };
+        for (Object[] column : values) {
+            for (int v = 1; v < column.length; v++) {
+                for (String operator : operators) {
+                    cases.add(inequality((String) column[0], column[v], operator));
+                }
+                cases.add(inequality((String) column[0], column[v], "eq"));
+            }
+        }
+        return cases.stream();
+    }
+
+    static Stream<Arguments> stringFilters() {
+        List<Arguments> cases = new ArrayList<>();
+        for (String operator : new String[] { "contains", "startsWith", "endsWith", "matches" }) {
+            for (String value : new String[] { "value1", "1", "alu", "value", "", "x" }) {
+                cases.add(Arguments.of(new StringFilter("s", value, operator)));
+            }
+            cases.add(Arguments.of(new StringFilter("i", "1", operator)));
+        }
+        return cases.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource({ "rangeFilters", "equalsFilters", "inequalityFilters", "stringFilters" })
+    void singleFilterSelectsTheBaselineRows(AbstractFilter filter) {
+        assertSameAsBaseline(List.of(filter));
+    }
+
+    @Test
+    void combinedFiltersSelectTheBaselineRows() {
+        List<AbstractFilter> filters = Stream.of(rangeFilters(), equalsFilters(), inequalityFilters(), stringFilters())
+                .flatMap(cases -> cases)
+                .map(arguments -> (AbstractFilter) arguments.get()[0])
+                .toList();
+        Random random = new Random(2);
+        for (int i = 0; i < 500; i++) {
+            List<AbstractFilter> combined = new ArrayList<>();
+            for (int f = 0; f < 2 + random.nextInt(3); f++) {
+                combined.add(filters.get(random.nextInt(filters.size())));
+            }
+            assertSameAsBaseline(combined);
+        }
+    }
+
+    private static void assertSameAsBaseline(List<AbstractFilter> filters) {
+        int[] expected;
+        try {
+            expected = baselineRows(filters);
+        } catch (IllegalArgumentException e) {
+            IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                    () -> FilterPlan.compile(table, filters).select(table, filters), describe(filters));
+            assertEquals(e.getMessage(), thrown.getMessage(), describe(filters));
+            return;
+        }
+        FilterPlan plan = FilterPlan.compile(table, filters);
+        assertArrayEquals(expected, rowsOf(plan.select(table, filters)), describe(filters) + ", scanned");
+        assertArrayEquals(expected, rowsOf(plan.select(table, filters, indexStore.indexesFor(table))),
+                describe(filters) + ", indexed");
+        assertArrayEquals(expected, rowsOf(plan.select(table, filters, (TableIndexes) null, parallelScanner)),
+                describe(filters) + ", scanned in parallel");
+    }
+
+    private static int[] rowsOf(Selection selection) {
+        return selection == null ? IntStream.range(0, ROWS).toArray() : selection.toArray();
+    }
+
+    private static String describe(List<AbstractFilter> filters) {
+        StringBuilder description = new StringBuilder();
+        for (AbstractFilter filter : filters) {
+            description.append(description.length() == 0 ? "" : " and ").append(filter.getClass().getSimpleName())
+                    .append(' ').append(filter.getColumn());
+            if (filter instanceof RangeFilter<?> range) {
+                description.append(" [").append(range.getMin()).append(", ").append(range.getMax()).append(']');
+            } else if (filter instanceof EqualsFilter<?> equals) {
+                description.append(" = ").append(equals.getValue());
+            } else if (filter instanceof InequalityFilter<?> inequality) {
+                description.append(' ').append(inequality.getOperator()).append(' ').append(inequality.getValue());
+            } else if (filter instanceof StringFilter string) {
+                description.append(' ').append(string.getOperator()).append(" '").append(string.getValue()).append('\'');
+            }
+        }
+        return description.toString();
+    }
+
+    private static Arguments range(String column, Object min, Object max) {
+        return Arguments.of(new RangeFilter<>(column, min, max));
+    }
+
+    private static Arguments equalTo(String column, Object value) {
+        return Arguments.of(new EqualsFilter<>(column, value));
+    }
+
+    private static Arguments inequality(String column, Object value, String operator) {
+        return Arguments.of(new InequalityFilter<>(column, value, operator));
+    }
+
+    /**
+     * The filtering of {@code TabularQueryExecutor} before filters were
+     * compiled, as of the baseline commit, without its logging.
+     */
+    private static int[] baselineRows(List<AbstractFilter> filters) {
+        Selection selection = null;
+        for (AbstractFilter filter : filters) {
+            Selection filterSelection = baselineSelection(filter);
+            selection = selection == null ? filterSelection : selection.and(filterSelection);
+        }
+        return selection == null ? IntStream.range(0, ROWS).toArray() : selection.toArray();
+    }
+
+    private static Selection baselineSelection(AbstractFilter filter) {
+        Selection filterSelection = null;
+        if (filter instanceof RangeFilter) {
+            RangeFilter<?> rangeFilter = (RangeFilter<?>) filter;
+            Column<?> column = table.column(rangeFilter.getColumn());
+            String columnTypeName = column.type().name();
+            switch (columnTypeName) {
+                case "DOUBLE":
+                    if (!(rangeFilter.getMin() instanceof Double)
+                            || !(rangeFilter.getMax() instanceof Double)) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type Double for column: " + rangeFilter.getColumn());
+                    }
+                    filterSelection = table.numberColumn(rangeFilter.getColumn())
+                            .isGreaterThanOrEqualTo((Double) rangeFilter.getMin())
+                            .and(table.numberColumn(rangeFilter.getColumn())
+                                    .isLessThanOrEqualTo((Double) rangeFilter.getMax()));
+                    break;
+                case "INTEGER":
+                    if (!(rangeFilter.getMin() instanceof Integer)
+                            || !(rangeFilter.getMax() instanceof Integer)) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type Integer for column: " + rangeFilter.getColumn());
+                    }
+                    filterSelection = table.intColumn(rangeFilter.getColumn())
+                            .isGreaterThanOrEqualTo((Integer) rangeFilter.getMin())
+                            .and(table.intColumn(rangeFilter.getColumn())
+                                    .isLessThanOrEqualTo((Integer) rangeFilter.getMax()));
+                    break;
+                case "LOCAL_DATE_TIME":
+                    LocalDateTime minDateTime;
+                    LocalDateTime maxDateTime;
+                    try {
+                        minDateTime = LocalDateTime.parse(rangeFilter.getMin().toString());
+                        maxDateTime = LocalDateTime.parse(rangeFilter.getMax().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type LocalDateTime for column: "
+                                        + rangeFilter.getColumn());
+                    }
+                    filterSelection = table.dateTimeColumn(rangeFilter.getColumn())
+                            .isBetweenIncluding(minDateTime, maxDateTime);
+                    break;
+                case "LOCAL_DATE":
+                    LocalDate minDate;
+                    LocalDate maxDate;
+                    try {
+                        minDate = LocalDate.parse(rangeFilter.getMin().toString());
+                        maxDate = LocalDate.parse(rangeFilter.getMax().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type LocalDate for column: " + rangeFilter.getColumn());
+                    }
+                    filterSelection = table.dateColumn(rangeFilter.getColumn())
+                            .isBetweenIncluding(minDate, maxDate);
+                    break;
+                case "LOCAL_TIME":
+                    LocalTime minTime;
+                    LocalTime maxTime;
+                    try {
+                        minTime = LocalTime.parse(rangeFilter.getMin().toString());
+                        maxTime = LocalTime.parse(rangeFilter.getMax().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type LocalTime for column: " + rangeFilter.getColumn());
+                    }
+                    filterSelection = table.timeColumn(rangeFilter.getColumn())
+                            .isOnOrAfter(minTime)
+                            .and(table.timeColumn(rangeFilter.getColumn())
+                                    .isOnOrBefore(maxTime));
+                    break;
+                case "INSTANT":
+                    Instant minInstant;
+                    Instant maxInstant;
+                    try {
+                        minInstant = Instant.parse(rangeFilter.getMin().toString());
+                        maxInstant = Instant.parse(rangeFilter.getMax().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Min and Max must be of type Instant for column: " + rangeFilter.getColumn());
+                    }
+                    filterSelection = table.instantColumn(rangeFilter.getColumn())
+                            .isAfter(minInstant)
+                            .and(table.instantColumn(rangeFilter.getColumn())
+                                    .isBefore(maxInstant));
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Unsupported column type for range filter: " + columnTypeName);
+            }
+        } else if (filter instanceof EqualsFilter) {
+            EqualsFilter<?> equalsFilter = (EqualsFilter<?>) filter;
+            Column<?> column = table.column(equalsFilter.getColumn());
+            String columnTypeName = column.type().name();
+            switch (columnTypeName) {
+                case "BOOLEAN":
+                    boolean booleanValue = Boolean.parseBoolean(equalsFilter.getValue().toString().toLowerCase());
+                    if (booleanValue) {
+                        filterSelection = table.booleanColumn(equalsFilter.getColumn()).isTrue();
+                    } else {
+                        filterSelection = table.booleanColumn(equalsFilter.getColumn()).isFalse();
+                    }
+                    break;
+                case "DOUBLE":
+                    if (!(equalsFilter.getValue() instanceof Double)) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type DOUBLE for column: " + equalsFilter.getColumn());
+                    }
+                    double doubleValue = Double.parseDouble(equalsFilter.getValue().toString());
+                    filterSelection = table.doubleColumn(equalsFilter.getColumn()).isEqualTo(doubleValue);
+                    break;
+                case "INTEGER":
+                    if (!(equalsFilter.getValue() instanceof Integer)) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type Integer for column: " + equalsFilter.getColumn());
+                    }
+                    int intValue = Integer.parseInt(equalsFilter.getValue().toString());
+                    filterSelection = table.intColumn(equalsFilter.getColumn()).isEqualTo(intValue);
+                    break;
+                case "STRING":
+                    if (!(equalsFilter.getValue() instanceof String)) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type String for column: " + equalsFilter.getColumn());
+                    }
+                    filterSelection = table.stringColumn(equalsFilter.getColumn())
+                            .isEqualTo(equalsFilter.getValue().toString());
+                    break;
+                case "LOCAL_DATE_TIME":
+                    LocalDateTime localDateTimeValue;
+                    try {
+                        localDateTimeValue = LocalDateTime.parse(equalsFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalDateTime for column: " + equalsFilter.getColumn());
+                    }
+                    filterSelection = table.dateTimeColumn(equalsFilter.getColumn())
+                            .isEqualTo(localDateTimeValue);
+                    break;
+                case "LOCAL_DATE":
+                    LocalDate date;
+                    try {
+                        date = LocalDate.parse(equalsFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalDate for column: " + equalsFilter.getColumn());
+                    }
+                    filterSelection = table.dateColumn(equalsFilter.getColumn())
+                            .isEqualTo(date);
+                    break;
+                case "LOCAL_TIME":
+                    LocalTime timeValue;
+                    try {
+                        timeValue = LocalTime.parse(equalsFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalTime for column: " + equalsFilter.getColumn());
+                    }
+                    filterSelection = table.timeColumn(equalsFilter.getColumn())
+                            .isEqualTo(timeValue);
+                    break;
+                case "INSTANT":
+                    Instant instantValue;
+                    try {
+                        instantValue = Instant.parse(equalsFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type Instant for column: " + equalsFilter.getColumn());
+                    }
+                    filterSelection = table.instantColumn(equalsFilter.getColumn())
+                            .isEqualTo(instantValue);
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Unsupported column type for equals filter: " + columnTypeName);
+            }
+        } else if (filter instanceof InequalityFilter) {
+            InequalityFilter<?> inequalityFilter = (InequalityFilter<?>) filter;
+            Column<?> column = table.column(inequalityFilter.getColumn());
+            String columnTypeName = column.type().name();
+            String operator = inequalityFilter.getOperator();
+            String name = inequalityFilter.getColumn();
+            switch (columnTypeName) {
+                case "DOUBLE":
+                    if (!(inequalityFilter.getValue() instanceof Double)) {
+                        try {
+                            Double.parseDouble(inequalityFilter.getValue().toString());
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException(
+                                    "Value must be of type Double for column: " + inequalityFilter.getColumn());
+                        }
+                    }
+                    double doubleValue = Double.parseDouble(inequalityFilter.getValue().toString());
+                    switch (operator) {
+                        case "gt":
+                            filterSelection = table.doubleColumn(name).isGreaterThan(doubleValue);
+                            break;
+                        case "lt":
+                            filterSelection = table.doubleColumn(name).isLessThan(doubleValue);
+                            break;
+                        case "gte":
+                            filterSelection = table.doubleColumn(name).isGreaterThanOrEqualTo(doubleValue);
+                            break;
+                        case "lte":
+                            filterSelection = table.doubleColumn(name).isLessThanOrEqualTo(doubleValue);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unsupported operator: " + operator);
+                    }
+                    break;
+                case "INTEGER":
+                    if (!(inequalityFilter.getValue() instanceof Integer)) {
+                        try {
+                            Integer.parseInt(inequalityFilter.getValue().toString());
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException(
+                                    "Value must be of type Integer for column: " + inequalityFilter.getColumn());
+                        }
+                    }
+                    int intValue = Integer.parseInt(inequalityFilter.getValue().toString());
+                    switch (operator) {
+                        case "gt":
+                            filterSelection = table.intColumn(name).isGreaterThan(intValue);
+                            break;
+                        case "lt":
+                            filterSelection = table.intColumn(name).isLessThan(intValue);
+                            break;
+                        case "gte":
+                            filterSelection = table.intColumn(name).isGreaterThanOrEqualTo(intValue);
+                            break;
+                        case "lte":
+                            filterSelection = table.intColumn(name).isLessThanOrEqualTo(intValue);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unsupported operator: " + operator);
+                    }
+                    break;
+                case "LOCAL_DATE_TIME":
+                    LocalDateTime dateTimeValue;
+                    try {
+                        dateTimeValue = LocalDateTime.parse(inequalityFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalDateTime for column: " + inequalityFilter.getColumn());
+                    }
+                    switch (operator) {
+                        case "gt":
+                            filterSelection = table.dateTimeColumn(name).isAfter(dateTimeValue);
+                            break;
+                        case "lt":
+                            filterSelection = table.dateTimeColumn(name).isBefore(dateTimeValue);
+                            break;
+                        case "gte":
+                            filterSelection = table.dateTimeColumn(name).isOnOrAfter(dateTimeValue);
+                            break;
+                        case "lte":
+                            filterSelection = table.dateTimeColumn(name).isOnOrBefore(dateTimeValue);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unsupported operator: " + operator);
+                    }
+                    break;
+                case "LOCAL_DATE":
+                    LocalDate dateValue;
+                    try {
+                        dateValue = LocalDate.parse(inequalityFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalDate for column: " + inequalityFilter.getColumn());
+                    }
+                    switch (operator) {
+                        case "gt":
+                            filterSelection = table.dateColumn(name).isAfter(dateValue);
+                            break;
+                        case "lt":
+                            filterSelection = table.dateColumn(name).isBefore(dateValue);
+                            break;
+                        case "gte":
+                            filterSelection = table.dateColumn(name).isOnOrAfter(dateValue);
+                            break;
+                        case "lte":
+                            filterSelection = table.dateColumn(name).isOnOrBefore(dateValue);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unsupported operator: " + operator);
+                    }
+                    break;
+                case "LOCAL_TIME":
+                    LocalTime timeValue;
+                    try {
+                        timeValue = LocalTime.parse(inequalityFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type LocalTime for column: " + inequalityFilter.getColumn());
+                    }
+                    switch (operator) {
+                        case "gt":
+                            filterSelection = table.timeColumn(name).isAfter(timeValue);
+                            break;
+                        case "lt":
+                            filterSelection = table.timeColumn(name).isBefore(timeValue);
+                            break;
+                        case "gte":
+                            filterSelection = table.timeColumn(name).isOnOrAfter(timeValue);
+                            break;
+                        case "lte":
+                            filterSelection = table.timeColumn(name).isOnOrBefore(timeValue);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unsupported operator: " + operator);
+                    }
+                    break;
+                case "INSTANT":
+                    Instant instantValue;
+                    try {
+                        instantValue = Instant.parse(inequalityFilter.getValue().toString());
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException(
+                                "Value must be of type Instant for column: " + inequalityFilter.getColumn());
+                    }
+                    switch (operator) {
+                        case "gt":
+                            filterSelection = table.instantColumn(name).isAfter(instantValue);
+                            break;
+                        case "lt":
+                            filterSelection = table.instantColumn(name).isBefore(instantValue);
+                            break;
+                        case "gte":
+                            filterSelection = table.instantColumn(name).isEqualTo(instantValue)
+                                    .or(table.instantColumn(name).isAfter(instantValue));
+                            break;
+                        case "lte":
+                            filterSelection = table.instantColumn(name).isEqualTo(instantValue)
+                                    .or(table.instantColumn(name).isBefore(instantValue));
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unsupported operator: " + operator);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Unsupported column type for inequality filter: " + columnTypeName);
+            }
+        } else if (filter instanceof StringFilter) {
+            StringFilter stringFilter = (StringFilter) filter;
+            Column<?> column = table.column(stringFilter.getColumn());
+            String columnTypeName = column.type().name();
+            if (!columnTypeName.equals("STRING")) {
+                throw new IllegalArgumentException(
+                        "String filter can only be applied to STRING columns, but column type is: " + columnTypeName);
+            }
+            String value = stringFilter.getValue();
+            String operator = stringFilter.getOperator();
+            switch (operator) {
+                case "contains":
+                    filterSelection = table.stringColumn(stringFilter.getColumn()).containsString(value);
+                    break;
+                case "startsWith":
+                    filterSelection = table.stringColumn(stringFilter.getColumn()).startsWith(value);
+                    break;
+                case "endsWith":
+                    filterSelection = table.stringColumn(stringFilter.getColumn()).endsWith(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported string operator: " + operator);
+            }
+        }
+        return filterSelection;
+    }
+}
@@ -0,0 +1,197 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.plan;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexStore;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.index.TableIndexes;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.EqualsFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.InequalityFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.StringFilter;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.selection.Selection;
+
+/**
+ * Checks that {@link SelectionCache} answers filters that narrow a cached
+ * selection from that selection's rows alone, and that the rows it returns,
+ * refined or not, are those an uncached {@link FilterPlan#select} returns.
+ */
+class SelectionCacheTest {
+
+    private static final int ROWS = 5000;
+    private static final String DATE = "2024-01-01";
+
+    private static Table table;
+    private static TableIndexes indexes;
+    private static ForkJoinPool pool;
+    private static PartitionedScanner scanner;
+
+    @BeforeAll
+    static void createTable() {
+        Random random = new Random(9);
+        DoubleColumn doubles = DoubleColumn.create("d");
+        IntColumn ints = IntColumn.create("i");
+        StringColumn strings = StringColumn.create("s");
+        DateColumn dates = DateColumn.create("date");
+        for (int row = 0; row < ROWS; row++) {
+            int value = random.nextInt(100);
+            if (random.nextInt(10) == 0) {
+                doubles.appendMissing();
+            } else {
+                doubles.append(value + 0.5 * random.nextInt(2));
+            }
+            if (random.nextInt(10) == 0) {
+                ints.appendMissing();
+            } else {
+                ints.append(random.nextInt(100));
+            }
+            strings.append(random.nextInt(10) == 0 ? "" : "s" + random.nextInt(20));
+            if (random.nextInt(10) == 0) {
+                dates.appendMissing();
+            } else {
+                dates.append(LocalDate.parse(DATE).plusDays(random.nextInt(100)));
+            }
+        }
+        table = Table.create("selections", doubles, ints, strings, dates);
+
+        DataEngineProperties properties = new DataEngineProperties();
+        properties.setIndexMinRows(1);
+        TableIndexStore indexStore = new TableIndexStore(properties);
+        indexStore.prepare(table);
+        indexes = indexStore.indexesFor(table);
+        pool = new ForkJoinPool(4);
+        scanner = new PartitionedScanner(pool, 1);
+    }
+
+    @AfterAll
+    static void shutDownPool() {
+        pool.shutdown();
+    }
+
+    static Stream<Arguments> narrowedFilters() {
+        AbstractFilter range = new RangeFilter<>("d", 20.0, 80.0);
+        AbstractFilter strings = new StringFilter("s", "s1", "startsWith");
+        return Stream.of(
+                Arguments.of(List.of(range), List.of(range, new EqualsFilter<>("s", "s3")), 1),
+                Arguments.of(List.of(range), List.of(new RangeFilter<>("d", 30.0, 60.0)), 1),
+                // A tighter range whose bounds are those of the cached one
+                Arguments.of(List.of(range), List.of(new RangeFilter<>("d", 20.0, 80.0), strings), 1),
+                Arguments.of(List.of(range), List.of(new RangeFilter<>("d", 20.0, 20.0)), 1),
+                Arguments.of(List.of(new InequalityFilter<>("d", 10.0, "gt")), List.of(range, strings), 2),
+                Arguments.of(List.of(new InequalityFilter<>("i", 10, "gte")),
+                        List.of(new InequalityFilter<>("i", 20, "gte"), new InequalityFilter<>("i", 90, "lt")), 2),
+                Arguments.of(List.of(strings, new EqualsFilter<>("i", 5)),
+                        List.of(new EqualsFilter<>("i", 5), strings, range), 1),
+                // An empty range within the cached one
+                Arguments.of(List.of(range), List.of(new RangeFilter<>("d", 60.0, 30.0)), 1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("narrowedFilters")
+    void narrowerFiltersAreServedFromTheBroaderSelection(List<AbstractFilter> broad, List<AbstractFilter> narrow,
+            int addedFilters) {
+        RecordingPlanCache plans = new RecordingPlanCache();
+        SelectionCache cache = new SelectionCache();
+        assertSameRows(uncached(broad), cache.select(table, indexes, broad, plans, scanner), broad);
+
+        plans.planned.clear();
+        assertSameRows(uncached(narrow), cache.select(table, indexes, narrow, plans, scanner), narrow);
+        assertEquals(2, plans.planned.size(), "The request's plan, then one for the filters the cached one lacks");
+        assertEquals(addedFilters, plans.planned.get(1).size(), "Filters tested on the cached rows");
+    }
+
+    static Stream<Arguments> unrelatedFilters() {
+        AbstractFilter range = new RangeFilter<>("d", 20.0, 80.0);
+        return Stream.of(
+                Arguments.of(List.of(range), List.of(new RangeFilter<>("d", 10.0, 60.0))),
+                Arguments.of(List.of(range), List.of(new RangeFilter<>("i", 20, 80))),
+                Arguments.of(List.of(range, new EqualsFilter<>("s", "s3")), List.of(range)),
+                Arguments.of(List.of(new StringFilter("s", "s1", "startsWith")),
+                        List.of(new StringFilter("s", "s12", "startsWith"))),
+                Arguments.of(List.of(new InequalityFilter<>("i", 50, "lt")),
+                        List.of(new InequalityFilter<>("i", 50, "lte"))),
+                Arguments.of(List.of(new InequalityFilter<>("d", 50.0, "gt")), List.of(range)),
+                // Date ranges have no key ranges, so a narrower one is not recognised
+                Arguments.of(List.of(new RangeFilter<>("date", DATE, "2024-03-01")),
+                        List.of(new RangeFilter<>("date", "2024-01-15", "2024-02-01"))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("unrelatedFilters")
+    void filtersThatDoNotNarrowArePlannedAnew(List<AbstractFilter> cached, List<AbstractFilter> filters) {
+        RecordingPlanCache plans = new RecordingPlanCache();
+        SelectionCache cache = new SelectionCache();
+        cache.select(table, indexes, cached, plans, scanner);
+
+        plans.planned.clear();
+        assertSameRows(uncached(filters), cache.select(table, indexes, filters, plans, scanner), filters);
+        assertEquals(List.of(filters), plans.planned, "Only the request's own plan");
+    }
+
+    @Test
+    void refinementsAreRefinedFurther() {
+        RecordingPlanCache plans = new RecordingPlanCache();
+        SelectionCache cache = new SelectionCache();
+        for (int step = 0; step < 10; step++) {
+            List<AbstractFilter> filters = new ArrayList<>();
+            filters.add(new RangeFilter<>("d", 5.0 * step, 100.0 - 4.0 * step));
+            if (step >= 3) {
+                filters.add(new InequalityFilter<>("i", 3 * step, "gt"));
+            }
+            plans.planned.clear();
+            assertSameRows(uncached(filters), cache.select(table, indexes, filters, plans, scanner), filters);
+            assertEquals(step == 0 ? 1 : 2, plans.planned.size(), "Step " + step + " refines the previous one");
+        }
+    }
+
+    @Test
+    void repeatedFiltersReturnTheCachedSelection() {
+        SelectionCache cache = new SelectionCache();
+        FilterPlanCache plans = new FilterPlanCache();
+        List<AbstractFilter> filters = List.of(new RangeFilter<>("d", 20.0, 80.0), new EqualsFilter<>("s", "s3"));
+        Selection first = cache.select(table, indexes, filters, plans, scanner);
+        assertSame(first, cache.select(table, indexes,
+                List.of(new EqualsFilter<>("s", "s3"), new RangeFilter<>("d", 20.0, 80.0)), plans, scanner));
+    }
+
+    private static Selection uncached(List<AbstractFilter> filters) {
+        return FilterPlan.compile(table, filters).select(table, filters);
+    }
+
+    private static void assertSameRows(Selection expected, Selection actual, List<AbstractFilter> filters) {
+        assertArrayEquals(expected.toArray(), actual.toArray(), filters.toString());
+    }
+
+    // Records the filters of every plan asked for
+    private static final class RecordingPlanCache extends FilterPlanCache {
+        private final List<List<AbstractFilter>> planned = new ArrayList<>();
+
+        @Override
+        public FilterPlan planFor(Table table, List<AbstractFilter> filters) {
+            planned.add(List.copyOf(filters));
+            return super.planFor(table, filters);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.sample;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import gr.imsi.athenarc.xtremexpvisapi.config.DataEngineProperties;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.TabularQueryExecutor;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.aggregate.HashAggregator;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.ParallelCsvReader;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.csv.ScanSpec;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.offheap.OffHeapTable;
+import gr.imsi.athenarc.xtremexpvisapi.datasource.plan.PartitionedScanner;
+import gr.imsi.athenarc.xtremexpvisapi.domain.Query.TabularRequest;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Sample;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.AbstractFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.RangeFilter;
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.Filter.StringFilter;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.io.csv.CsvReadOptions;
+
+/**
+ * Checks that a sampled request keeps the same rows whichever way its file is
+ * scanned: from the whole table cached on the heap, from a projected scan of
+ * the file and from an off-heap copy of the table.
+ */
+class RowSamplerTest {
+
+    private static final List<AbstractFilter> FILTERS = List.of(
+            new RangeFilter<>("value", 20.0, 80.0),
+            new StringFilter("label", "label1", "startsWith"));
+
+    private static ForkJoinPool pool;
+    private static TabularQueryExecutor executor;
+
+    @TempDir
+    static Path directory;
+
+    private static Path file;
+    private static Table table;
+
+    @BeforeAll
+    static void writeFile() throws IOException {
+        pool = new ForkJoinPool(4);
+        executor = new TabularQueryExecutor(new HashAggregator(pool, 1000), new PartitionedScanner(pool, 1000));
+        Random random = new Random(7);
+        StringBuilder csv = new StringBuilder("id,value,label,group\n");
+        for (int i = 0; i < 5000; i++) {
+            csv.append(i).append(',')
+                    .append(random.nextInt(10) == 0 ? "" : String.valueOf(random.nextDouble() * 100)).append(',')
+                    .append(random.nextInt(8) == 0 ? "" : "label" + random.nextInt(30)).append(',')
+                    .append("g").append(random.nextInt(4)).append('\n');
+        }
+        file = Files.writeString(directory.resolve("sampled.csv"), csv.toString());
+        table = Table.read().usingOptions(CsvReadOptions.builder(file.toFile()).header(true).sample(false));
+    }
+
+    @AfterAll
+    static void shutDownPool() {
+        pool.shutdown();
+    }
+
+    static Stream<Sample> samples() {
+        return Stream.of(
+                new Sample(null, 0.3, null, 11L, null),
+                new Sample("uniform", null, 40, 12L, null),
+                new Sample("stratified", 0.25, null, 13L, "group"),
+                new Sample("stratified", null, 5, 14L, "group"),
+                new Sample("reservoir", null, 30, 15L, null));
+    }
+
+    @ParameterizedTest
+    @MethodSource("samples")
+    void sameSeedKeepsTheSameRowsOnEveryScanPath(Sample sample) throws IOException {
+        TabularRequest request = new TabularRequest("sampled", null, List.of("id", "label"), 0, null, FILTERS,
+                null, null, null, null, sample);
+        ScanSpec spec = ScanSpec.forRequest(request);
+
+        List<?> heap = sampledIds(table, request);
+        assertFalse(heap.isEmpty(), "The sample should keep some rows");
+
+        ParallelCsvReader reader = new ParallelCsvReader(pool, new DataEngineProperties());
+        Table projected = reader.scan(file, "sampled.csv", spec, null).table();
+        assertEquals(heap, sampledIds(projected, request), "Projected scan of " + sample);
+
+        Table offHeap = OffHeapTable.copyOf(table, ByteBuffer::allocateDirect).scan(spec).table();
+        assertEquals(heap, sampledIds(offHeap, request), "Off-heap scan of " + sample);
+    }
+
+    private static List<?> sampledIds(Table scanned, TabularRequest request) {
+        return executor.queryTabularData(scanned, request).getResultTable().column("id").asList();
+    }
+}
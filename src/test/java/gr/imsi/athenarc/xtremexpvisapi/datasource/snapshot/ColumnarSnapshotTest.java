@@ -0,0 +1,181 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gr.imsi.athenarc.xtremexpvisapi.datasource.DatasetFingerprint;
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.ColumnType;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DateTimeColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.FloatColumn;
+import tech.tablesaw.api.InstantColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.LongColumn;
+import tech.tablesaw.api.ShortColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.api.TimeColumn;
+import tech.tablesaw.io.csv.CsvReadOptions;
+
+/**
+ * Checks that a {@link ColumnarSnapshot} reads back as the table it was
+ * written from, for tables parsed by Tablesaw from files with missing and
+ * unparsable cells and for columns of every supported type, and that it is
+ * only read for the version of the file it was taken from.
+ */
+class ColumnarSnapshotTest {
+
+    private static final int ROWS = 3000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tablesParsedFromCsvReadBackUnchanged() throws IOException {
+        Random random = new Random(3);
+        StringBuilder csv = new StringBuilder("id,value,count,label,day,at,flag,code\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append(i).append(',')
+                    .append(oneOf(random, "", "NA", "NaN", String.valueOf(random.nextDouble() * 100))).append(',')
+                    .append(oneOf(random, "", "N/A", String.valueOf(random.nextInt(1000) - 500))).append(',')
+                    .append(oneOf(random, "", "\"quoted, label\"", "label" + random.nextInt(30))).append(',')
+                    .append(oneOf(random, "", "NA", LocalDate.of(2024, 1, 1).plusDays(random.nextInt(400)).toString()))
+                    .append(',')
+                    .append(oneOf(random, "", LocalDateTime.of(2024, 1, 1, 0, 0)
+                            .plusMinutes(random.nextInt(500_000)).toString() + ":00"))
+                    .append(',')
+                    .append(oneOf(random, "", String.valueOf(random.nextBoolean())))
+                    .append(',')
+                    // Numbers with the odd unparsable cell, so the column is read as text
+                    .append(random.nextInt(200) == 0 ? "x" + random.nextInt(10) : String.valueOf(random.nextInt(50)))
+                    .append('\n');
+        }
+        Path file = Files.writeString(directory.resolve("parsed.csv"), csv.toString());
+        Table table = Table.read().usingOptions(CsvReadOptions.builder(file.toFile()).header(true).sample(false));
+        assertEquals(List.of(ColumnType.INTEGER, ColumnType.DOUBLE, ColumnType.INTEGER, ColumnType.STRING,
+                ColumnType.LOCAL_DATE, ColumnType.LOCAL_DATE_TIME, ColumnType.BOOLEAN, ColumnType.STRING),
+                table.types());
+
+        assertSameTable(table, roundTrip(file, table));
+    }
+
+    @Test
+    void everySupportedTypeReadsBackUnchanged() throws IOException {
+        Random random = new Random(4);
+        ShortColumn shorts = ShortColumn.create("short");
+        IntColumn ints = IntColumn.create("int");
+        LongColumn longs = LongColumn.create("long");
+        FloatColumn floats = FloatColumn.create("float");
+        DoubleColumn doubles = DoubleColumn.create("double");
+        BooleanColumn booleans = BooleanColumn.create("boolean");
+        StringColumn strings = StringColumn.create("string");
+        DateColumn dates = DateColumn.create("date");
+        TimeColumn times = TimeColumn.create("time");
+        DateTimeColumn dateTimes = DateTimeColumn.create("dateTime");
+        InstantColumn instants = InstantColumn.create("instant");
+        for (int row = 0; row < ROWS; row++) {
+            if (missing(random)) {
+                shorts.appendMissing();
+                ints.appendMissing();
+                longs.appendMissing();
+                floats.appendMissing();
+                doubles.appendMissing();
+                booleans.appendMissing();
+                strings.appendMissing();
+                dates.appendMissing();
+                times.appendMissing();
+                dateTimes.appendMissing();
+                instants.appendMissing();
+                continue;
+            }
+            shorts.append((short) (random.nextInt(2000) - 1000));
+            ints.append(random.nextInt());
+            longs.append(random.nextLong());
+            floats.append(random.nextFloat() * 10);
+            doubles.append(random.nextGaussian() * 1e6);
+            booleans.append(random.nextBoolean());
+            strings.append("é-" + random.nextInt(100));
+            dates.append(LocalDate.of(1990, 1, 1).plusDays(random.nextInt(20_000)));
+            times.append(LocalTime.ofSecondOfDay(random.nextInt(86_400)));
+            dateTimes.append(LocalDateTime.of(2000, 1, 1, 0, 0).plusSeconds(random.nextInt(Integer.MAX_VALUE)));
+            instants.append(Instant.ofEpochMilli(random.nextLong() % 4_000_000_000_000L));
+        }
+        Table table = Table.create("types", shorts, ints, longs, floats, doubles, booleans, strings, dates, times,
+                dateTimes, instants);
+        assertTrue(ColumnarSnapshot.supports(table));
+
+        Path file = Files.writeString(directory.resolve("types.csv"), "source");
+        assertSameTable(table, roundTrip(file, table));
+    }
+
+    @Test
+    void snapshotsOfOtherFileVersionsAreNotRead() throws IOException {
+        Path file = Files.writeString(directory.resolve("versioned.csv"), "a\n1\n");
+        DatasetFingerprint fingerprint = DatasetFingerprint.of(file);
+        Path snapshot = directory.resolve(".versioned.csv.snapshot");
+        ColumnarSnapshot.write(snapshot, fingerprint, Table.create("versioned", IntColumn.create("a", 1)));
+
+        assertFalse(ColumnarSnapshot.read(snapshot, new DatasetFingerprint(file, fingerprint.lastModified() + 1,
+                fingerprint.size()), "versioned").isPresent());
+        assertFalse(ColumnarSnapshot.read(snapshot, new DatasetFingerprint(file, fingerprint.lastModified(),
+                fingerprint.size() + 1), "versioned").isPresent());
+        assertTrue(ColumnarSnapshot.read(snapshot, fingerprint, "versioned").isPresent());
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        Path file = Files.writeString(directory.resolve("other.csv"), "a\n1\n");
+        assertThrows(IOException.class,
+                () -> ColumnarSnapshot.read(file, DatasetFingerprint.of(file), "other"));
+    }
+
+    private Table roundTrip(Path file, Table table) throws IOException {
+        DatasetFingerprint fingerprint = DatasetFingerprint.of(file);
+        Path snapshot = directory.resolve("." + file.getFileName() + ".snapshot");
+        ColumnarSnapshot.write(snapshot, fingerprint, table);
+        Optional<Table> read = ColumnarSnapshot.read(snapshot, fingerprint, table.name());
+        assertTrue(read.isPresent());
+        return read.get();
+    }
+
+    private static String oneOf(Random random, String... missingOrValue) {
+        return missing(random) ? missingOrValue[random.nextInt(missingOrValue.length - 1)]
+                : missingOrValue[missingOrValue.length - 1];
+    }
+
+    private static boolean missing(Random random) {
+        return random.nextInt(10) == 0;
+    }
+
+    private static void assertSameTable(Table expected, Table actual) {
+        assertEquals(expected.name(), actual.name());
+        assertEquals(expected.columnNames(), actual.columnNames());
+        assertEquals(expected.types(), actual.types());
+        assertEquals(expected.rowCount(), actual.rowCount());
+        for (int c = 0; c < expected.columnCount(); c++) {
+            assertEquals(expected.column(c).asList(), actual.column(c).asList(), expected.column(c).name());
+            for (int row = 0; row < expected.rowCount(); row++) {
+                assertEquals(expected.column(c).isMissing(row), actual.column(c).isMissing(row),
+                        expected.column(c).name() + " row " + row);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package gr.imsi.athenarc.xtremexpvisapi.datasource.sort;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import gr.imsi.athenarc.xtremexpvisapi.domain.QueryParams.OrderBy;
+import it.unimi.dsi.fastutil.ints.IntIterators;
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+
+/**
+ * Checks {@link RowSorter} against a plain sort of the rows on their boxed
+ * values, with missing values last in either direction and ties broken by row
+ * number, whether it sorts every row or keeps the first ones in a heap.
+ */
+class RowSorterTest {
+
+    private static final int ROWS = 3000;
+
+    private static Table table;
+
+    @BeforeAll
+    static void createTable() {
+        Random random = new Random(21);
+        IntColumn ids = IntColumn.create("id");
+        DoubleColumn doubles = DoubleColumn.create("d");
+        IntColumn ints = IntColumn.create("i");
+        StringColumn strings = StringColumn.create("s");
+        DateColumn dates = DateColumn.create("date");
+        BooleanColumn booleans = BooleanColumn.create("b");
+        for (int row = 0; row < ROWS; row++) {
+            ids.append(row);
+            // Few distinct values, so most rows tie on one column
+            if (missing(random)) {
+                doubles.appendMissing();
+            } else {
+                doubles.append(random.nextInt(40) * 0.25 - 3);
+            }
+            if (missing(random)) {
+                ints.appendMissing();
+            } else {
+                ints.append(random.nextInt(30) - 10);
+            }
+            strings.append(missing(random) ? "" : "s" + random.nextInt(25));
+            if (missing(random)) {
+                dates.appendMissing();
+            } else {
+                dates.append(LocalDate.of(2024, 1, 1).plusDays(random.nextInt(60)));
+            }
+            if (missing(random)) {
+                booleans.appendMissing();
+            } else {
+                booleans.append(random.nextBoolean());
+            }
+        }
+        table = Table.create("sorted", ids, doubles, ints, strings, dates, booleans);
+    }
+
+    private static boolean missing(Random random) {
+        return random.nextInt(8) == 0;
+    }
+
+    static Stream<Arguments> orders() {
+        List<List<OrderBy>> orders = List.of(
+                List.of(new OrderBy("d", null)),
+                List.of(new OrderBy("d", "desc")),
+                List.of(new OrderBy("i", "ASC")),
+                List.of(new OrderBy("s", "desc")),
+                List.of(new OrderBy("date", "asc")),
+                List.of(new OrderBy("b", "desc")),
+                List.of(new OrderBy("s", "asc"), new OrderBy("d", "desc")),
+                List.of(new OrderBy("b", "asc"), new OrderBy("date", "desc"), new OrderBy("i", "asc")));
+        List<Arguments> cases = new ArrayList<>();
+        for (List<OrderBy> orderBy : orders) {
+            for (int maxRows : new int[] { 0, 1, 10, 250, ROWS - 1, ROWS, ROWS + 10 }) {
+                cases.add(Arguments.of(orderBy, maxRows));
+            }
+        }
+        return cases.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("orders")
+    void firstRowsMatchAFullSort(List<OrderBy> orderBy, int maxRows) {
+        int[] expected = Arrays.copyOf(sortedRows(orderBy), Math.min(maxRows, ROWS));
+        Table sorted = RowSorter.sort(table, orderBy, maxRows);
+        assertArrayEquals(expected, ids(sorted), orderBy + " keeping " + maxRows);
+        assertEquals(table.columnNames(), sorted.columnNames());
+    }
+
+    @ParameterizedTest
+    @MethodSource("orders")
+    void rowsAfterARowContinueTheOrder(List<OrderBy> orderBy, int maxRows) {
+        int[] sorted = sortedRows(orderBy);
+        for (int rank : new int[] { 0, 17, ROWS / 2, ROWS - 2, ROWS - 1 }) {
+            int from = rank + 1;
+            int[] expected = Arrays.copyOfRange(sorted, from, Math.min(ROWS, from + Math.max(0, maxRows)));
+            int[] actual = RowSorter.firstRows(table, orderBy, IntIterators.fromTo(0, ROWS), sorted[rank], maxRows);
+            assertArrayEquals(expected, actual, orderBy + " after rank " + rank);
+        }
+    }
+
+    @Test
+    void missingValuesComeLastAndTiesKeepRowOrder() {
+        Table small = Table.create("small",
+                IntColumn.create("id", 0, 1, 2, 3, 4, 5, 6),
+                DoubleColumn.create("d", 2.0, Double.NaN, 1.0, 2.0, Double.NaN, 3.0, 1.0));
+        assertArrayEquals(new int[] { 2, 6, 0, 3, 5, 1, 4 },
+                ids(RowSorter.sort(small, List.of(new OrderBy("d", "asc")), 7)));
+        assertArrayEquals(new int[] { 5, 0, 3, 2, 6, 1, 4 },
+                ids(RowSorter.sort(small, List.of(new OrderBy("d", "desc")), 7)));
+        assertArrayEquals(new int[] { 5, 0, 3 },
+                ids(RowSorter.sort(small, List.of(new OrderBy("d", "desc")), 3)));
+    }
+
+    @Test
+    void unknownDirectionsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> RowSorter.sort(table, List.of(new OrderBy("d", "up")), 10));
+    }
+
+    // The rows in order, sorted on their boxed values
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int[] sortedRows(List<OrderBy> orderBy) {
+        Comparator<Integer> order = (left, right) -> 0;
+        for (OrderBy sortColumn : orderBy) {
+            Column<?> column = table.column(sortColumn.getColumn());
+            boolean descending = "desc".equalsIgnoreCase(sortColumn.getDirection());
+            Comparator<Integer> byColumn = (left, right) -> {
+                boolean leftMissing = column.isMissing(left);
+                boolean rightMissing = column.isMissing(right);
+                if (leftMissing || rightMissing) {
+                    return Boolean.compare(leftMissing, rightMissing);
+                }
+                int compared = ((Comparable) column.get(left)).compareTo(column.get(right));
+                return descending ? -compared : compared;
+            };
+            order = order.thenComparing(byColumn);
+        }
+        return IntStream.range(0, ROWS).boxed()
+                .sorted(order.thenComparing(Comparator.naturalOrder()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static int[] ids(Table sorted) {
+        return ((IntColumn) sorted.column("id")).asIntArray();
+    }
+}